@@ -0,0 +1,20 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+/**
+ * Gives the benchmarks access to the package-private parts of the library they measure.
+ */
+public final class BenchmarkAccess {
+    private BenchmarkAccess() {
+    }
+
+    public static String getGlobalJMSProviderQuery(ServiceBusJmsConnectionFactorySettings settings) {
+        return settings.getGlobalJMSProviderQuery();
+    }
+
+    public static String getPerHostAmqpProviderQuery(ServiceBusJmsConnectionFactorySettings settings) {
+        return settings.getPerHostAmqpProviderQuery();
+    }
+}
@@ -0,0 +1,65 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.azure.servicebus.jms.BenchmarkAccess;
+import com.azure.servicebus.jms.ConnectionStringBuilder;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+
+/**
+ * Connection string parsing and provider URI building, which run every time a factory is created or configured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionStringBenchmark {
+    private static final String CONNECTION_STRING = "Endpoint=sb://contoso.servicebus.windows.net/;SharedAccessKeyName=RootManageSharedAccessKey;"
+        + "SharedAccessKey=AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=;EntityPath=orders;OperationTimeout=PT30S";
+
+    private ServiceBusJmsConnectionFactorySettings settings;
+
+    @Setup
+    public void setup() {
+        this.settings = new ServiceBusJmsConnectionFactorySettings(120000, true);
+        this.settings.setTraceFrames(true);
+        this.settings.setQueueAutoDeleteOnIdleDurationInSeconds(300);
+        this.settings.setReconnectHosts(new String[] { "contoso2.servicebus.windows.net" });
+    }
+
+    @Benchmark
+    public ConnectionStringBuilder parseConnectionString() {
+        return new ConnectionStringBuilder(CONNECTION_STRING);
+    }
+
+    @Benchmark
+    public String formatConnectionString() {
+        return new ConnectionStringBuilder(CONNECTION_STRING).toString();
+    }
+
+    @Benchmark
+    public String buildGlobalJMSProviderQuery() {
+        return BenchmarkAccess.getGlobalJMSProviderQuery(this.settings);
+    }
+
+    @Benchmark
+    public String buildPerHostAmqpProviderQuery() {
+        return BenchmarkAccess.getPerHostAmqpProviderQuery(this.settings);
+    }
+}
@@ -0,0 +1,123 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Connection;
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.emulator.ServiceBusEmulator;
+
+/**
+ * End to end send and receive through the wrapper against the in-process Service Bus emulator.
+ * The round trip benchmark sends a message and receives it back, so its samples are the latency of one message through the emulator.
+ * The pipelined benchmark keeps a backlog of messages in the queue and measures how many messages one producer and one consumer move per second.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SendReceiveBenchmark {
+    private static final long RECEIVE_TIMEOUT_MS = 5000;
+    private static final int PIPELINE_DEPTH = 200;
+
+    @Param({ "128", "16384" })
+    public int messageSize;
+
+    @Param({ "false", "true" })
+    public boolean persistent;
+
+    private ServiceBusEmulator emulator;
+    private Connection connection;
+    private Session session;
+    private MessageProducer producer;
+    private MessageConsumer consumer;
+    private BytesMessage message;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.emulator = new ServiceBusEmulator();
+        this.emulator.start();
+        this.connection = new ServiceBusJmsConnectionFactory(this.emulator.getConnectionString(), null).createConnection();
+        this.connection.start();
+        this.session = this.connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+        Queue queue = this.session.createQueue("benchmark-" + this.messageSize + "-" + this.persistent);
+        this.producer = this.session.createProducer(queue);
+        this.producer.setDeliveryMode(this.persistent ? DeliveryMode.PERSISTENT : DeliveryMode.NON_PERSISTENT);
+        this.consumer = this.session.createConsumer(queue);
+
+        this.message = this.session.createBytesMessage();
+        this.message.writeBytes(new byte[this.messageSize]);
+    }
+
+    @Setup(Level.Iteration)
+    public void fillPipeline() throws JMSException {
+        // The pipelined benchmark keeps a backlog in the queue, so the consumer finds prefetched messages rather than waiting on each send.
+        for (int i = 0; i < PIPELINE_DEPTH; i++) {
+            this.producer.send(this.message);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void drainPipeline() throws JMSException {
+        while (this.consumer.receive(100) != null) {
+            // Start each iteration from the same backlog.
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        this.connection.close();
+        this.emulator.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Message roundTrip() throws JMSException {
+        this.producer.send(this.message);
+        return this.receive();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Message pipelined() throws JMSException {
+        this.producer.send(this.message);
+        return this.receive();
+    }
+
+    private Message receive() throws JMSException {
+        Message received = this.consumer.receive(RECEIVE_TIMEOUT_MS);
+        if (received == null) {
+            throw new IllegalStateException("No message was received within " + RECEIVE_TIMEOUT_MS + " ms.");
+        }
+
+        return received;
+    }
+}
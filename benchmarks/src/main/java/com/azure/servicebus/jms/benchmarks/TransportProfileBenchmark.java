@@ -0,0 +1,138 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Connection;
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+import com.azure.servicebus.jms.emulator.ServiceBusEmulator;
+
+/**
+ * Send and receive throughput against the in-process Service Bus emulator with different transport settings.
+ * <ul>
+ * <li>nio: the JDK NIO transport with the qpid socket defaults.</li>
+ * <li>native: the native epoll or kqueue transport where the host has one, with the qpid socket defaults.</li>
+ * <li>tuned: the native transport with larger socket buffers.</li>
+ * </ul>
+ * The emulator speaks plain AMQP, so the cost of TLS, and the OpenSSL setting that lowers it, are not part of these numbers.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportProfileBenchmark {
+    private static final long RECEIVE_TIMEOUT_MS = 5000;
+    private static final int PIPELINE_DEPTH = 200;
+    private static final int TUNED_BUFFER_SIZE = 256 * 1024;
+
+    @Param({ "nio", "native", "tuned" })
+    public String profile;
+
+    @Param({ "1024", "65536" })
+    public int messageSize;
+
+    private ServiceBusEmulator emulator;
+    private Connection connection;
+    private MessageProducer producer;
+    private MessageConsumer consumer;
+    private BytesMessage message;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.emulator = new ServiceBusEmulator();
+        this.emulator.start();
+        this.connection = new ServiceBusJmsConnectionFactory(this.emulator.getConnectionString(), createSettings(this.profile)).createConnection();
+        this.connection.start();
+        Session session = this.connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+        Queue queue = session.createQueue("transport-" + this.profile + "-" + this.messageSize);
+        this.producer = session.createProducer(queue);
+        this.producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+        this.consumer = session.createConsumer(queue);
+
+        this.message = session.createBytesMessage();
+        this.message.writeBytes(new byte[this.messageSize]);
+    }
+
+    @Setup(Level.Iteration)
+    public void fillPipeline() throws JMSException {
+        for (int i = 0; i < PIPELINE_DEPTH; i++) {
+            this.producer.send(this.message);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void drainPipeline() throws JMSException {
+        while (this.consumer.receive(100) != null) {
+            // Start each iteration from the same backlog.
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        this.connection.close();
+        this.emulator.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Message pipelined() throws JMSException {
+        this.producer.send(this.message);
+        Message received = this.consumer.receive(RECEIVE_TIMEOUT_MS);
+        if (received == null) {
+            throw new IllegalStateException("No message was received within " + RECEIVE_TIMEOUT_MS + " ms.");
+        }
+
+        return received;
+    }
+
+    private static ServiceBusJmsConnectionFactorySettings createSettings(String profile) {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        switch (profile) {
+            case "nio":
+                settings.setEpollEnabled(false);
+                settings.setKQueueEnabled(false);
+                break;
+            case "native":
+                settings.setKQueueEnabled(true);
+                break;
+            case "tuned":
+                settings.setKQueueEnabled(true);
+                settings.setTcpNoDelay(true);
+                settings.setSocketSendBufferSize(TUNED_BUFFER_SIZE);
+                settings.setSocketReceiveBufferSize(TUNED_BUFFER_SIZE);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown transport profile " + profile + ".");
+        }
+
+        return settings;
+    }
+}
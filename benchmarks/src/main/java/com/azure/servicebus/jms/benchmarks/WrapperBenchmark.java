@@ -0,0 +1,85 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+import jakarta.jms.Topic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.emulator.ServiceBusEmulator;
+
+/**
+ * The cost the wrapper classes add to creating connections, sessions and destinations.
+ * Connection and session creation include the round trips to the in-process emulator, destination creation is local.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WrapperBenchmark {
+    private ServiceBusEmulator emulator;
+    private ServiceBusJmsConnectionFactory factory;
+    private Connection connection;
+    private Session session;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.emulator = new ServiceBusEmulator();
+        this.emulator.start();
+        this.factory = new ServiceBusJmsConnectionFactory(this.emulator.getConnectionString(), null);
+        this.connection = this.factory.createConnection();
+        this.connection.start();
+        this.session = this.connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        this.connection.close();
+        this.emulator.close();
+    }
+
+    @Benchmark
+    public void createAndCloseConnection() throws JMSException {
+        Connection newConnection = this.factory.createConnection();
+        newConnection.start();
+        newConnection.close();
+    }
+
+    @Benchmark
+    public void createAndCloseSession() throws JMSException {
+        this.connection.createSession(false, Session.CLIENT_ACKNOWLEDGE).close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Queue createQueue() throws JMSException {
+        return this.session.createQueue("orders");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Topic createTopic() throws JMSException {
+        return this.session.createTopic("events");
+    }
+}
@@ -3,13 +3,41 @@
 
 package com.azure.servicebus.jms;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.azure.core.credential.AccessToken;
 import com.azure.core.credential.TokenCredential;
 import com.azure.core.credential.TokenRequestContext;
 
-class AadAuthentication {
+class AadAuthentication implements CbsTokenProvider {
 
     private final String AUDIENCE = "https://servicebus.azure.net/.default";
+    private static final String CBS_TOKEN_TYPE = "jwt";
+    // Tokens are refreshed in the background this long before they expire, minus a random jitter
+    // so that many clients sharing a credential do not all hit the identity endpoint at the same time.
+    private static final Duration REFRESH_OFFSET = Duration.ofMinutes(5);
+    private static final Duration REFRESH_JITTER = Duration.ofSeconds(60);
+    private static final Duration REFRESH_RETRY_DELAY = Duration.ofSeconds(30);
+    // A cached token that expires sooner than this is not handed out, callers wait for a refresh instead.
+    private static final Duration MIN_REMAINING_VALIDITY = Duration.ofSeconds(10);
+    private static final ScheduledExecutorService REFRESH_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ServiceBusJmsAadTokenRefresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private TokenCredential credential;
+    private final ConcurrentMap<String, CachedToken> tokens = new ConcurrentHashMap<>();
 
     /**
      * Create an AadAuthentication using a token credential.
@@ -18,13 +46,132 @@ class AadAuthentication {
 	public AadAuthentication(TokenCredential credential) {
 		this.credential = credential;
 	}
-	
+
 	/**
-     * Return a token based on the credential. No caching is necessary as Azure.Identity
-     * library caches the tokens in-memory by default.
-     * @return returns a valid token. 
+     * Return a token based on the credential. Tokens are cached per scope and refreshed in the background before they expire,
+     * so this call only blocks when no valid token has been acquired yet.
+     * @return returns a valid token.
      */
 	public String getAadToken() {
-		return this.credential.getToken(new TokenRequestContext().addScopes(AUDIENCE)).block().getToken();
+		return this.getAccessToken(AUDIENCE).getToken();
+	}
+
+	/**
+	 * Return the cached token for the given scope, acquiring one if the cache holds no token that is still valid.
+	 * Concurrent callers share a single request to the identity endpoint.
+	 */
+	AccessToken getAccessToken(String scope) {
+		CachedToken cachedToken = this.tokens.computeIfAbsent(scope, CachedToken::new);
+		cachedToken.used = true;
+		AccessToken token = cachedToken.token;
+		if (isValid(token)) {
+			return token;
+		}
+
+		try {
+			return this.refresh(cachedToken).join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause() != null ? e.getCause() : e;
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+
+			throw new RuntimeException("Failed to acquire an AAD token for scope " + scope, cause);
+		}
+	}
+
+	/**
+	 * @return The cached Service Bus token, acquiring one if needed.
+	 */
+	AccessToken getAccessToken() {
+		return this.getAccessToken(AUDIENCE);
+	}
+
+	@Override
+	public String getTokenType() {
+		return CBS_TOKEN_TYPE;
+	}
+
+	/**
+	 * AAD tokens are scoped to Service Bus as a whole, the same token is put for every CBS audience.
+	 */
+	@Override
+	public AccessToken getToken(String audience) {
+		return this.getAccessToken();
+	}
+
+	private CompletableFuture<AccessToken> refresh(CachedToken cachedToken) {
+		CompletableFuture<AccessToken> refresh;
+		synchronized (cachedToken) {
+			if (cachedToken.pendingRefresh != null) {
+				return cachedToken.pendingRefresh;
+			}
+
+			refresh = new CompletableFuture<>();
+			cachedToken.pendingRefresh = refresh;
+		}
+
+		try {
+			AccessToken token = this.credential.getToken(new TokenRequestContext().addScopes(cachedToken.scope)).block();
+			if (token == null) {
+				throw new IllegalStateException("The credential returned no token for scope " + cachedToken.scope);
+			}
+
+			cachedToken.token = token;
+			cachedToken.used = false;
+			this.scheduleRefresh(cachedToken, refreshDelay(token));
+			refresh.complete(token);
+		} catch (RuntimeException e) {
+			// Keep the previous token, it may still be usable, and try again shortly if anyone relies on it.
+			if (cachedToken.token != null) {
+				this.scheduleRefresh(cachedToken, REFRESH_RETRY_DELAY.toMillis());
+			}
+
+			refresh.completeExceptionally(e);
+		} finally {
+			synchronized (cachedToken) {
+				cachedToken.pendingRefresh = null;
+			}
+		}
+
+		return refresh;
+	}
+
+	private void scheduleRefresh(CachedToken cachedToken, long delayMS) {
+		synchronized (cachedToken) {
+			if (cachedToken.scheduledRefresh != null) {
+				cachedToken.scheduledRefresh.cancel(false);
+			}
+
+			cachedToken.scheduledRefresh = REFRESH_SCHEDULER.schedule(() -> {
+				// Tokens nobody asked for since the last refresh are left to expire, the next caller acquires a new one.
+				if (cachedToken.used) {
+					this.refresh(cachedToken);
+				}
+			}, delayMS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private static long refreshDelay(AccessToken token) {
+		long untilExpiry = Duration.between(OffsetDateTime.now(), token.getExpiresAt()).toMillis();
+		long offset = Math.min(REFRESH_OFFSET.toMillis(), untilExpiry / 2);
+		long jitter = ThreadLocalRandom.current().nextLong(Math.max(1, Math.min(REFRESH_JITTER.toMillis(), offset / 2)));
+		return Math.max(1000, untilExpiry - offset - jitter);
+	}
+
+	private static boolean isValid(AccessToken token) {
+		return token != null && token.getExpiresAt().isAfter(OffsetDateTime.now().plus(MIN_REMAINING_VALIDITY));
+	}
+
+	private static final class CachedToken {
+		private final String scope;
+		private volatile AccessToken token;
+		private volatile boolean used;
+		private CompletableFuture<AccessToken> pendingRefresh;
+		private ScheduledFuture<?> scheduledRefresh;
+
+		private CachedToken(String scope) {
+			this.scope = scope;
+		}
 	}
 }
@@ -0,0 +1,85 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+/**
+ * Chooses the link credit of one consumer from how it receives.
+ * <p>
+ * The controller tracks the time the application spends processing each message, between a receive returning and the next receive,
+ * and the time each receive waits for a message. A consumer that keeps waiting on the link is starving: its prefetch is doubled.
+ * Prefetched messages are locked while they wait in the client, so the prefetch never exceeds what the consumer can process
+ * within half the lock duration, which brings slow consumers down to the minimum.
+ * Like the consumer it belongs to, a controller is used by one thread at a time.
+ */
+class AdaptivePrefetchController {
+    // Weight of the newest sample in the moving averages.
+    private static final double SMOOTHING = 0.2;
+    // A receive that waits longer than this share of the processing time, or at least a millisecond, means the consumer is starving.
+    private static final double STARVING_WAIT_RATIO = 0.1;
+    private static final long MIN_STARVING_WAIT_NANOS = 1000000;
+
+    private final int minPrefetch;
+    private final int maxPrefetch;
+    private final long lockBudgetNanos;
+    private int prefetch;
+    private double processingNanos = -1;
+    private double waitNanos;
+    private long lastReturnNanos = -1;
+
+    AdaptivePrefetchController(ServiceBusJmsConnectionFactorySettings settings) {
+        this.minPrefetch = settings.getMinAdaptivePrefetch();
+        this.maxPrefetch = Math.max(settings.getMinAdaptivePrefetch(), settings.getMaxAdaptivePrefetch());
+        this.lockBudgetNanos = settings.getMessageLockDurationMS() * 1000000 / 2;
+        this.prefetch = this.minPrefetch;
+    }
+
+    /**
+     * @return The prefetch the consumer should run with.
+     */
+    int getPrefetch() {
+        return this.prefetch;
+    }
+
+    /**
+     * Record that the application asks for the next message.
+     */
+    void onReceiveStart(long nowNanos) {
+        if (this.lastReturnNanos >= 0) {
+            double sample = nowNanos - this.lastReturnNanos;
+            this.processingNanos = this.processingNanos < 0 ? sample : this.processingNanos + SMOOTHING * (sample - this.processingNanos);
+        }
+    }
+
+    /**
+     * Record the outcome of a receive that started at startNanos.
+     */
+    void onReceiveEnd(long startNanos, long nowNanos, boolean received) {
+        if (received) {
+            this.waitNanos += SMOOTHING * ((nowNanos - startNanos) - this.waitNanos);
+            this.lastReturnNanos = nowNanos;
+        } else {
+            // Nothing to receive says nothing about the consumer, and the idle time until the next receive is not processing time.
+            this.lastReturnNanos = -1;
+        }
+    }
+
+    /**
+     * Recompute the prefetch the consumer should run with from what was observed so far.
+     * The consumer calls this once per retune interval and applies the result together with its memory budget.
+     */
+    void update() {
+        if (this.processingNanos < 0) {
+            return;
+        }
+
+        int target = this.prefetch;
+        boolean starving = this.waitNanos > MIN_STARVING_WAIT_NANOS && this.waitNanos > this.processingNanos * STARVING_WAIT_RATIO;
+        if (starving) {
+            target = Math.max(1, this.prefetch * 2);
+        }
+
+        long lockCap = this.processingNanos < 1 ? Integer.MAX_VALUE : (long) (this.lockBudgetNanos / this.processingNanos);
+        this.prefetch = (int) Math.max(this.minPrefetch, Math.min(Math.min(target, lockCap), this.maxPrefetch));
+    }
+}
@@ -0,0 +1,189 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.concurrent.TimeUnit;
+
+import jakarta.jms.CompletionListener;
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.Destination;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.InvalidDestinationException;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+
+/**
+ * A MessageProducer created without a destination. Service Bus has no anonymous relay, so a plain anonymous producer attaches
+ * a link for every send. This producer sends through the sender links its session keeps per destination instead, so each
+ * destination pays for the attach once. The links are shared with the other anonymous producers of the session, so every
+ * setting is kept on this handle and applied on each send, and closing the handle leaves the links attached.
+ */
+class AnonymousMessageProducer implements MessageProducer {
+    private final MessageProducerCache links;
+    private final long idleTimeoutNanos;
+    private boolean disableMessageID;
+    private boolean disableMessageTimestamp;
+    private int deliveryMode = DeliveryMode.PERSISTENT;
+    private int priority = Message.DEFAULT_PRIORITY;
+    private long timeToLive = Message.DEFAULT_TIME_TO_LIVE;
+    private long deliveryDelay = Message.DEFAULT_DELIVERY_DELAY;
+    private volatile boolean closed;
+
+    AnonymousMessageProducer(MessageProducerCache links, long idleTimeoutMS) {
+        this.links = links;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMS);
+    }
+
+    @Override
+    public void setDisableMessageID(boolean value) throws JMSException {
+        this.checkClosed();
+        this.disableMessageID = value;
+    }
+
+    @Override
+    public boolean getDisableMessageID() throws JMSException {
+        this.checkClosed();
+        return this.disableMessageID;
+    }
+
+    @Override
+    public void setDisableMessageTimestamp(boolean value) throws JMSException {
+        this.checkClosed();
+        this.disableMessageTimestamp = value;
+    }
+
+    @Override
+    public boolean getDisableMessageTimestamp() throws JMSException {
+        this.checkClosed();
+        return this.disableMessageTimestamp;
+    }
+
+    @Override
+    public void setDeliveryMode(int deliveryMode) throws JMSException {
+        this.checkClosed();
+        this.deliveryMode = deliveryMode;
+    }
+
+    @Override
+    public int getDeliveryMode() throws JMSException {
+        this.checkClosed();
+        return this.deliveryMode;
+    }
+
+    @Override
+    public void setPriority(int defaultPriority) throws JMSException {
+        this.checkClosed();
+        this.priority = defaultPriority;
+    }
+
+    @Override
+    public int getPriority() throws JMSException {
+        this.checkClosed();
+        return this.priority;
+    }
+
+    @Override
+    public void setTimeToLive(long timeToLive) throws JMSException {
+        this.checkClosed();
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public long getTimeToLive() throws JMSException {
+        this.checkClosed();
+        return this.timeToLive;
+    }
+
+    @Override
+    public void setDeliveryDelay(long deliveryDelay) throws JMSException {
+        this.checkClosed();
+        this.deliveryDelay = deliveryDelay;
+    }
+
+    @Override
+    public long getDeliveryDelay() throws JMSException {
+        this.checkClosed();
+        return this.deliveryDelay;
+    }
+
+    @Override
+    public Destination getDestination() throws JMSException {
+        this.checkClosed();
+        return null;
+    }
+
+    @Override
+    public void close() throws JMSException {
+        this.closed = true;
+    }
+
+    @Override
+    public void send(Message message) throws JMSException {
+        throw new UnsupportedOperationException("The producer has no destination, pass one on each send.");
+    }
+
+    @Override
+    public void send(Message message, int deliveryMode, int priority, long timeToLive) throws JMSException {
+        throw new UnsupportedOperationException("The producer has no destination, pass one on each send.");
+    }
+
+    @Override
+    public void send(Destination destination, Message message) throws JMSException {
+        this.send(destination, message, this.deliveryMode, this.priority, this.timeToLive);
+    }
+
+    @Override
+    public void send(Destination destination, Message message, int deliveryMode, int priority, long timeToLive)
+            throws JMSException {
+        this.prepareSend(destination).send(message, deliveryMode, priority, timeToLive);
+    }
+
+    @Override
+    public void send(Message message, CompletionListener completionListener) throws JMSException {
+        throw new UnsupportedOperationException("The producer has no destination, pass one on each send.");
+    }
+
+    @Override
+    public void send(Message message, int deliveryMode, int priority, long timeToLive,
+            CompletionListener completionListener) throws JMSException {
+        throw new UnsupportedOperationException("The producer has no destination, pass one on each send.");
+    }
+
+    @Override
+    public void send(Destination destination, Message message, CompletionListener completionListener)
+            throws JMSException {
+        this.send(destination, message, this.deliveryMode, this.priority, this.timeToLive, completionListener);
+    }
+
+    @Override
+    public void send(Destination destination, Message message, int deliveryMode, int priority, long timeToLive,
+            CompletionListener completionListener) throws JMSException {
+        MessageProducer link = this.prepareSend(destination);
+        this.links.sendAsync(destination, link, completionListener, listener -> link.send(message, deliveryMode, priority, timeToLive, listener));
+    }
+
+    /**
+     * @return The link to the given destination, with the settings of this handle applied.
+     */
+    private MessageProducer prepareSend(Destination destination) throws JMSException {
+        this.checkClosed();
+        if (destination == null) {
+            throw new InvalidDestinationException("The destination cannot be null.");
+        }
+
+        this.links.closeIdle(this.idleTimeoutNanos);
+        MessageProducer link = this.links.getOrCreate(destination);
+        link.setDisableMessageID(this.disableMessageID);
+        link.setDisableMessageTimestamp(this.disableMessageTimestamp);
+        link.setDeliveryDelay(this.deliveryDelay);
+        return link;
+    }
+
+    private void checkClosed() throws JMSException {
+        if (this.closed) {
+            throw new IllegalStateException("The producer is closed.");
+        }
+    }
+}
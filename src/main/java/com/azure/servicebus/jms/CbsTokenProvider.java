@@ -0,0 +1,22 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import com.azure.core.credential.AccessToken;
+
+/**
+ * A source of tokens that can be put on the $cbs node of a Service Bus connection.
+ */
+interface CbsTokenProvider {
+    /**
+     * @return The CBS token type, for example "jwt" for AAD tokens.
+     */
+    String getTokenType();
+
+    /**
+     * @param audience The resource the token grants access to, for example amqp://contoso.servicebus.windows.net/
+     * @return A token for the given audience along with its expiry. Implementations are expected to cache tokens.
+     */
+    AccessToken getToken(String audience);
+}
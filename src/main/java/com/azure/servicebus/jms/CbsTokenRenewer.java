@@ -0,0 +1,301 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import jakarta.jms.Connection;
+import jakarta.jms.JMSConsumer;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSException;
+import jakarta.jms.JMSSecurityException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+import org.apache.qpid.jms.JmsConnection;
+import org.apache.qpid.jms.message.JmsMessage;
+import org.apache.qpid.jms.provider.amqp.message.AmqpJmsMessageFacade;
+
+import com.azure.core.credential.AccessToken;
+
+/**
+ * Renews the token of a live connection before it expires by putting a fresh token on the connection's $cbs node,
+ * so the broker does not drop the connection and force a failover reconnect just to refresh credentials.
+ * <p>
+ * qpid-jms does not expose its own CBS link, so the put-token request is sent over a dedicated session of the connection,
+ * which also receives the replies of the $cbs node. The request succeeds once the reply correlated with it carries the status code
+ * 200 or 202. Replies are only delivered while the connection is started, on a stopped connection the accepted transfer is all
+ * that can be checked.
+ */
+class CbsTokenRenewer implements AutoCloseable {
+    static final String CBS_NODE = "$cbs";
+    static final String CBS_REPLY_TO = "cbs-client-reply-to";
+    static final String OPERATION_PROPERTY = "operation";
+    static final String PUT_TOKEN_OPERATION = "put-token";
+    static final String TYPE_PROPERTY = "type";
+    static final String NAME_PROPERTY = "name";
+    static final String STATUS_CODE_PROPERTY = "status-code";
+    static final String STATUS_DESCRIPTION_PROPERTY = "status-description";
+    static final long REPLY_TIMEOUT_MS = 30000;
+    private static final long MIN_RENEWAL_DELAY_MS = 1000;
+    private static final long RETRY_DELAY_MS = 30000;
+    private static final ScheduledExecutorService RENEWAL_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ServiceBusJmsCbsTokenRenewal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final CbsTokenProvider tokenProvider;
+    private final CbsLinkFactory linkFactory;
+    private final String audience;
+    private final long renewalMarginMS;
+    private final ServiceBusJmsMetrics metrics;
+    private CbsLink link;
+    private OffsetDateTime currentExpiresAt;
+    private ScheduledFuture<?> nextRenewal;
+    private boolean closed;
+
+    private CbsTokenRenewer(CbsTokenProvider tokenProvider, CbsLinkFactory linkFactory, String audience, long renewalMarginMS, ServiceBusJmsMetrics metrics) {
+        this.tokenProvider = tokenProvider;
+        this.linkFactory = linkFactory;
+        this.audience = audience;
+        this.renewalMarginMS = renewalMarginMS;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Create a renewer that sends put-token requests over a session of the given connection.
+     */
+    static CbsTokenRenewer forConnection(Connection connection, CbsTokenProvider tokenProvider, String audience, long renewalMarginMS, ServiceBusJmsMetrics metrics) {
+        return new CbsTokenRenewer(tokenProvider, () -> new SessionCbsLink(connection), audience, renewalMarginMS, metrics);
+    }
+
+    /**
+     * Create a renewer that sends put-token requests over a context sharing the connection of the given context.
+     * @param started Whether the connection of the context is started, so the replies of the $cbs node can be received.
+     */
+    static CbsTokenRenewer forContext(JMSContext context, BooleanSupplier started, CbsTokenProvider tokenProvider, String audience, long renewalMarginMS, ServiceBusJmsMetrics metrics) {
+        return new CbsTokenRenewer(tokenProvider, () -> new ContextCbsLink(context, started), audience, renewalMarginMS, metrics);
+    }
+
+    /**
+     * Schedule the first renewal ahead of the expiry of the token the connection was opened with.
+     */
+    synchronized void start() {
+        this.metrics.onTokenRenewalScheduled();
+        this.currentExpiresAt = this.tokenProvider.getToken(this.audience).getExpiresAt();
+        this.scheduleBefore(this.currentExpiresAt);
+    }
+
+    @Override
+    public void close() {
+        CbsLink linkToClose;
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+            if (this.nextRenewal != null) {
+                this.nextRenewal.cancel(false);
+                this.nextRenewal = null;
+                this.metrics.onTokenRenewalCancelled();
+            }
+
+            linkToClose = this.link;
+            this.link = null;
+        }
+
+        closeQuietly(linkToClose);
+    }
+
+    private synchronized void renew() {
+        if (this.closed) {
+            return;
+        }
+
+        try {
+            AccessToken token = this.tokenProvider.getToken(this.audience);
+            if (!token.getExpiresAt().isAfter(this.currentExpiresAt)) {
+                // The provider has nothing newer yet, for example a pre-generated token. Check again until the current token expires.
+                if (this.currentExpiresAt.isAfter(OffsetDateTime.now())) {
+                    this.schedule(RETRY_DELAY_MS);
+                } else {
+                    this.nextRenewal = null;
+                    this.metrics.onTokenRenewalCancelled();
+                }
+
+                return;
+            }
+
+            if (this.link == null) {
+                this.link = this.linkFactory.open();
+            }
+
+            this.link.putToken(this.tokenProvider.getTokenType(), this.audience, token.getToken());
+            this.metrics.onTokenRenewal();
+            this.currentExpiresAt = token.getExpiresAt();
+            this.scheduleBefore(this.currentExpiresAt);
+        } catch (Exception e) {
+            // The session may have been lost along with the connection, open a new one on the next attempt.
+            this.metrics.onTokenRenewalFailure();
+            closeQuietly(this.link);
+            this.link = null;
+            this.schedule(RETRY_DELAY_MS);
+        }
+    }
+
+    private void scheduleBefore(OffsetDateTime expiresAt) {
+        long untilExpiry = expiresAt.toInstant().toEpochMilli() - System.currentTimeMillis();
+        this.schedule(untilExpiry - this.renewalMarginMS);
+    }
+
+    private void schedule(long delayMS) {
+        this.nextRenewal = RENEWAL_SCHEDULER.schedule(this::renew, Math.max(MIN_RENEWAL_DELAY_MS, delayMS), TimeUnit.MILLISECONDS);
+    }
+
+    private static void closeQuietly(CbsLink link) {
+        if (link != null) {
+            try {
+                link.close();
+            } catch (Exception e) {
+                // The link is being discarded, nothing else to do.
+            }
+        }
+    }
+
+    private interface CbsLinkFactory {
+        CbsLink open() throws JMSException;
+    }
+
+    interface CbsLink extends AutoCloseable {
+        /**
+         * Put the token on the $cbs node.
+         * @throws JMSException If the node refused the token or did not reply in time.
+         */
+        void putToken(String type, String audience, String token) throws JMSException;
+
+        @Override
+        void close() throws JMSException;
+    }
+
+    private static void setPutTokenProperties(Message message, String type, String audience) throws JMSException {
+        message.setStringProperty(OPERATION_PROPERTY, PUT_TOKEN_OPERATION);
+        message.setStringProperty(TYPE_PROPERTY, type);
+        message.setStringProperty(NAME_PROPERTY, audience);
+    }
+
+    // Replies to earlier requests that timed out are skipped, they are correlated with another message id.
+    private static void checkReply(Message request, ReplyReceiver replies) throws JMSException {
+        long deadline = System.currentTimeMillis() + REPLY_TIMEOUT_MS;
+        long remaining;
+        while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+            Message reply = replies.receive(remaining);
+            if (reply == null) {
+                break;
+            }
+
+            if (!request.getJMSMessageID().equals(reply.getJMSCorrelationID())) {
+                continue;
+            }
+
+            Object statusCode = getApplicationProperty(reply, STATUS_CODE_PROPERTY);
+            if (!(statusCode instanceof Number) || (((Number) statusCode).intValue() != 200 && ((Number) statusCode).intValue() != 202)) {
+                throw new JMSSecurityException("The $cbs node refused the token with status code " + statusCode + ": "
+                    + getApplicationProperty(reply, STATUS_DESCRIPTION_PROPERTY));
+            }
+
+            return;
+        }
+
+        throw new JMSException("The $cbs node did not reply to the put-token request within " + REPLY_TIMEOUT_MS + " ms.");
+    }
+
+    // qpid rejects property names that are not JMS identifiers, such as status-code, so they are read from the AMQP message.
+    private static Object getApplicationProperty(Message message, String name) throws JMSException {
+        if (message instanceof JmsMessage && ((JmsMessage) message).getFacade() instanceof AmqpJmsMessageFacade) {
+            return ((AmqpJmsMessageFacade) ((JmsMessage) message).getFacade()).getApplicationProperty(name);
+        }
+
+        return message.getObjectProperty(name);
+    }
+
+    private interface ReplyReceiver {
+        Message receive(long timeoutMS) throws JMSException;
+    }
+
+    static final class SessionCbsLink implements CbsLink {
+        private final Connection connection;
+        private final Session session;
+        private final Queue replyTo;
+        private final MessageProducer producer;
+        private final MessageConsumer replies;
+
+        SessionCbsLink(Connection connection) throws JMSException {
+            this.connection = connection;
+            this.session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            this.replyTo = this.session.createQueue(CBS_REPLY_TO);
+            Queue cbsNode = this.session.createQueue(CBS_NODE);
+            this.producer = this.session.createProducer(cbsNode);
+            this.replies = this.session.createConsumer(cbsNode);
+        }
+
+        @Override
+        public void putToken(String type, String audience, String token) throws JMSException {
+            Message message = this.session.createTextMessage(token);
+            setPutTokenProperties(message, type, audience);
+            message.setJMSReplyTo(this.replyTo);
+            this.producer.send(message);
+            if (!(this.connection instanceof JmsConnection) || ((JmsConnection) this.connection).isStarted()) {
+                checkReply(message, this.replies::receive);
+            }
+        }
+
+        @Override
+        public void close() throws JMSException {
+            this.session.close();
+        }
+    }
+
+    static final class ContextCbsLink implements CbsLink {
+        private final JMSContext context;
+        private final BooleanSupplier started;
+        private final Queue cbsNode;
+        private final Queue replyTo;
+        private final JMSConsumer replies;
+
+        ContextCbsLink(JMSContext parent, BooleanSupplier started) {
+            this.context = parent.createContext(JMSContext.AUTO_ACKNOWLEDGE);
+            this.context.setAutoStart(false);
+            this.started = started;
+            this.cbsNode = this.context.createQueue(CBS_NODE);
+            this.replyTo = this.context.createQueue(CBS_REPLY_TO);
+            this.replies = this.context.createConsumer(this.cbsNode);
+        }
+
+        @Override
+        public void putToken(String type, String audience, String token) throws JMSException {
+            Message message = this.context.createTextMessage(token);
+            setPutTokenProperties(message, type, audience);
+            message.setJMSReplyTo(this.replyTo);
+            this.context.createProducer().send(this.cbsNode, message);
+            if (this.started.getAsBoolean()) {
+                checkReply(message, this.replies::receive);
+            }
+        }
+
+        @Override
+        public void close() {
+            this.context.close();
+        }
+    }
+}
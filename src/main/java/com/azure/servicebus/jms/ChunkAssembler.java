@@ -0,0 +1,313 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageFormatException;
+
+/**
+ * Reassembles messages whose body a producer split into chunks, see ServiceBusJmsConnectionFactorySettings#setMessageChunkSizeBytes.
+ * <p>
+ * Each chunk is a BytesMessage carrying a part of the body along with the headers and properties of the original message,
+ * the id of its group in GROUP_PROPERTY, its position in INDEX_PROPERTY and the number of chunks in COUNT_PROPERTY.
+ * Unless the application set one, the group id is also the JMSXGroupID of the chunks, which Service Bus maps to the session id,
+ * so on a session-enabled entity all chunks of a message go to the same consumer.
+ * <p>
+ * The chunks of incomplete groups are kept on the heap up to chunkBufferBytes for all groups of the consumer. Beyond that,
+ * further chunks go to a temporary file per group. A group that does not complete within chunkGroupTimeoutMS of its first
+ * chunk is dropped, as the producer failed part way through the message and never sends the rest. Its chunks are handed back
+ * by takeExpired, for the consumer to dead-letter them.
+ * The file of a reassembled body is deleted once the consumer returns its next message, or is closed.
+ * <p>
+ * An assembler belongs to one consumer, and is used by one thread at a time like the consumer.
+ */
+final class ChunkAssembler implements AutoCloseable {
+    static final String GROUP_PROPERTY = "ServiceBusJmsChunkGroup";
+    static final String INDEX_PROPERTY = "ServiceBusJmsChunkIndex";
+    static final String COUNT_PROPERTY = "ServiceBusJmsChunkCount";
+    private static final String[] HIDDEN_PROPERTIES = { GROUP_PROPERTY, INDEX_PROPERTY, COUNT_PROPERTY, PayloadCompressor.BODY_TYPE_PROPERTY };
+
+    private final long bufferBytes;
+    private final long groupTimeoutNanos;
+    // In order of the first chunk of each group, so expired groups are found at the head.
+    private final Map<String, ChunkGroup> groups = new LinkedHashMap<>();
+    private final List<Message> expired = new ArrayList<>();
+    private long heapBytes;
+    private Path deliveredFile;
+
+    ChunkAssembler(ServiceBusJmsConnectionFactorySettings settings) {
+        this.bufferBytes = settings.getChunkBufferBytes();
+        this.groupTimeoutNanos = settings.getChunkGroupTimeoutMS() * 1000000;
+    }
+
+    /**
+     * Add a chunk to its group.
+     * @return The reassembled message once the chunk completes its group, null while chunks are missing.
+     */
+    Message add(Message chunk) throws JMSException {
+        long now = System.nanoTime();
+        this.expireGroups(now);
+        this.releaseDeliveredFile();
+
+        String id = chunk.getStringProperty(GROUP_PROPERTY);
+        int count = chunk.getIntProperty(COUNT_PROPERTY);
+        int index = chunk.getIntProperty(INDEX_PROPERTY);
+        if (count < 1 || index < 0 || index >= count) {
+            throw new MessageFormatException("Chunk " + index + " of " + count + " of group " + id + " is out of range.");
+        }
+
+        ChunkGroup group = this.groups.get(id);
+        if (group == null) {
+            group = new ChunkGroup(count, now);
+            this.groups.put(id, group);
+        }
+
+        BytesMessage bytesMessage = (BytesMessage) chunk;
+        byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+        bytesMessage.readBytes(body);
+        try {
+            group.add(index, chunk, body);
+        } catch (IOException e) {
+            this.groups.remove(id);
+            group.delete();
+            throw DecodedMessage.toJMSException(e);
+        }
+
+        if (!group.isComplete()) {
+            return null;
+        }
+
+        this.groups.remove(id);
+        this.heapBytes -= group.heapBytes;
+        this.deliveredFile = group.file;
+        Message first = group.chunks[0];
+        List<Message> others = Arrays.asList(group.chunks).subList(1, count);
+        if (PayloadCompressor.TEXT_BODY.equals(first.getStringProperty(PayloadCompressor.BODY_TYPE_PROPERTY))) {
+            return new DecodedTextMessage(first, group::open, HIDDEN_PROPERTIES).settledWith(others);
+        }
+
+        return new DecodedBytesMessage(first, group.length, group::open, HIDDEN_PROPERTIES).settledWith(others);
+    }
+
+    /**
+     * Called for each message the consumer returns that is not a chunk, the file of the previous reassembled body is no longer needed.
+     */
+    void onMessage() {
+        this.expireGroups(System.nanoTime());
+        this.releaseDeliveredFile();
+    }
+
+    /**
+     * @return The chunks of the groups that expired since the last call.
+     */
+    List<Message> takeExpired() {
+        if (this.expired.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Message> chunks = new ArrayList<>(this.expired);
+        this.expired.clear();
+        return chunks;
+    }
+
+    @Override
+    public void close() {
+        for (ChunkGroup group : this.groups.values()) {
+            group.delete();
+        }
+
+        this.groups.clear();
+        this.heapBytes = 0;
+        this.releaseDeliveredFile();
+    }
+
+    private void expireGroups(long now) {
+        Iterator<ChunkGroup> iterator = this.groups.values().iterator();
+        while (iterator.hasNext()) {
+            ChunkGroup group = iterator.next();
+            if (now - group.firstChunkNanos < this.groupTimeoutNanos) {
+                break;
+            }
+
+            iterator.remove();
+            this.heapBytes -= group.heapBytes;
+            group.delete();
+            for (Message chunk : group.chunks) {
+                if (chunk != null) {
+                    this.expired.add(chunk);
+                }
+            }
+        }
+    }
+
+    private void releaseDeliveredFile() {
+        if (this.deliveredFile != null) {
+            deleteQuietly(this.deliveredFile);
+            this.deliveredFile = null;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left in the temporary directory, it is not read again.
+        }
+    }
+
+    private final class ChunkGroup {
+        private final Message[] chunks;
+        private final byte[][] heapBodies;
+        // Where the body of each chunk starts in the file, and how long it is.
+        private final long[] filePositions;
+        private final int[] fileLengths;
+        private final long firstChunkNanos;
+        private int received;
+        private long length;
+        private long heapBytes;
+        private Path file;
+        private long fileLength;
+
+        ChunkGroup(int count, long firstChunkNanos) {
+            this.chunks = new Message[count];
+            this.heapBodies = new byte[count][];
+            this.filePositions = new long[count];
+            this.fileLengths = new int[count];
+            this.firstChunkNanos = firstChunkNanos;
+        }
+
+        void add(int index, Message chunk, byte[] body) throws IOException {
+            if (this.chunks[index] != null) {
+                // Redelivered, the chunk is settled with the others once the group completes.
+                this.chunks[index] = chunk;
+                return;
+            }
+
+            this.chunks[index] = chunk;
+            this.received++;
+            this.length += body.length;
+            if (this.file == null && ChunkAssembler.this.heapBytes + body.length <= ChunkAssembler.this.bufferBytes) {
+                this.heapBodies[index] = body;
+                this.heapBytes += body.length;
+                ChunkAssembler.this.heapBytes += body.length;
+                return;
+            }
+
+            if (this.file == null) {
+                this.file = Files.createTempFile("servicebus-jms-chunks", ".tmp");
+            }
+
+            try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(body);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, this.fileLength + body.length - buffer.remaining());
+                }
+            }
+
+            this.filePositions[index] = this.fileLength;
+            this.fileLengths[index] = body.length;
+            this.fileLength += body.length;
+        }
+
+        boolean isComplete() {
+            return this.received == this.chunks.length;
+        }
+
+        InputStream open() {
+            // Parts are opened as the stream reaches them, so a body spread over many chunks holds one file open at a time.
+            return new SequenceInputStream(new Enumeration<InputStream>() {
+                private int index;
+
+                @Override
+                public boolean hasMoreElements() {
+                    return this.index < chunks.length;
+                }
+
+                @Override
+                public InputStream nextElement() {
+                    int part = this.index++;
+                    if (heapBodies[part] != null) {
+                        return new ByteArrayInputStream(heapBodies[part]);
+                    }
+
+                    return new FilePartInputStream(file, filePositions[part], fileLengths[part]);
+                }
+            });
+        }
+
+        void delete() {
+            if (this.file != null) {
+                deleteQuietly(this.file);
+            }
+        }
+    }
+
+    /**
+     * Reads the body of one chunk from the file of its group, the file is opened by the first read.
+     */
+    private static final class FilePartInputStream extends InputStream {
+        private final Path file;
+        private final long position;
+        private int remaining;
+        private FileChannel channel;
+
+        FilePartInputStream(Path file, long position, int length) {
+            this.file = file;
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] value = new byte[1];
+            return this.read(value, 0, 1) == -1 ? -1 : value[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.remaining == 0) {
+                return -1;
+            }
+
+            if (this.channel == null) {
+                this.channel = FileChannel.open(this.file, StandardOpenOption.READ);
+                this.channel.position(this.position);
+            }
+
+            int count = this.channel.read(ByteBuffer.wrap(b, off, Math.min(len, this.remaining)));
+            if (count > 0) {
+                this.remaining -= count;
+            }
+
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.channel != null) {
+                this.channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+
+/**
+ * Resolves messages whose body a producer moved to a payload store.
+ * <p>
+ * Such a message is a BytesMessage without a body, carrying the reference of the stored body in REFERENCE_PROPERTY, its length
+ * in LENGTH_PROPERTY, and whether the body was text or bytes in PayloadCompressor.BODY_TYPE_PROPERTY.
+ */
+final class ClaimCheck {
+    static final String REFERENCE_PROPERTY = "ServiceBusJmsPayloadReference";
+    static final String LENGTH_PROPERTY = "ServiceBusJmsPayloadLength";
+
+    private ClaimCheck() { }
+
+    /**
+     * @return A view of the message whose body is read from the store once the application asks for it,
+     *         the given message if it carries no reference or there is no store to resolve it from.
+     */
+    static Message resolve(ServiceBusJmsPayloadStore store, Message message) throws JMSException {
+        if (store == null || !message.propertyExists(REFERENCE_PROPERTY)) {
+            return message;
+        }
+
+        String reference = message.getStringProperty(REFERENCE_PROPERTY);
+        if (PayloadCompressor.TEXT_BODY.equals(message.getStringProperty(PayloadCompressor.BODY_TYPE_PROPERTY))) {
+            return new DecodedTextMessage(message, () -> store.open(reference),
+                REFERENCE_PROPERTY, LENGTH_PROPERTY, PayloadCompressor.BODY_TYPE_PROPERTY);
+        }
+
+        return new DecodedBytesMessage(message, message.getLongProperty(LENGTH_PROPERTY), () -> store.open(reference),
+            REFERENCE_PROPERTY, LENGTH_PROPERTY, PayloadCompressor.BODY_TYPE_PROPERTY);
+    }
+}
@@ -0,0 +1,236 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ExceptionListener;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+
+/**
+ * The physical qpid connections behind one ServiceBusJmsConnection.
+ * <p>
+ * Each qpid connection runs on a single event-loop thread over a single TCP stream, which caps what one connection can move.
+ * With more than one shard configured, sessions are spread over up to that many physical connections, which are opened
+ * as sessions need them. The first connection is the one the application got, it also serves everything that is not tied to a session.
+ * Once a client id is set, all sessions stay on the first connection, as Service Bus allows a single connection per client id.
+ * Temporary destinations belong to the physical connection that created them, so they are all created on the first connection too,
+ * and sessions on other connections consume them through a session on the first connection, see ServiceBusJmsSession.
+ */
+class ConnectionShards {
+    private final List<Shard> shards = new ArrayList<>();
+    private final int maxShards;
+    private final ServiceBusJmsShardPlacement placement;
+    private final Opener opener;
+    private int nextShard;
+    // Physical connections being opened outside the lock, they count against maxShards.
+    private int opening;
+    private boolean started;
+    private boolean pinnedToPrimary;
+    private boolean closed;
+    private ExceptionListener exceptionListener;
+
+    /**
+     * @param opener Opens another physical connection, null to keep all sessions on the primary one.
+     */
+    ConnectionShards(Shard primary, int maxShards, ServiceBusJmsShardPlacement placement, Opener opener) {
+        this.shards.add(primary);
+        this.maxShards = opener != null ? maxShards : 1;
+        this.placement = placement;
+        this.opener = opener;
+    }
+
+    Shard getPrimary() {
+        return this.shards.get(0);
+    }
+
+    synchronized int getShardCount() {
+        return this.shards.size();
+    }
+
+    /**
+     * Pick the physical connection for a new session and count the session on it.
+     * A new physical connection is opened outside the lock, so other sessions are placed meanwhile.
+     */
+    Shard place() throws JMSException {
+        synchronized (this) {
+            Shard shard = this.choose();
+            if (shard != null) {
+                shard.sessions++;
+                return shard;
+            }
+
+            this.opening++;
+        }
+
+        return this.openShard();
+    }
+
+    synchronized void release(Shard shard) {
+        shard.sessions--;
+    }
+
+    /**
+     * Keep all further sessions on the primary connection, used once the application sets a client id.
+     */
+    synchronized void pinToPrimary() {
+        this.pinnedToPrimary = true;
+    }
+
+    synchronized void setExceptionListener(ExceptionListener listener) throws JMSException {
+        this.exceptionListener = listener;
+        for (Shard shard : this.shards) {
+            shard.connection.setExceptionListener(listener);
+        }
+    }
+
+    ExceptionListener getExceptionListener() throws JMSException {
+        return this.getPrimary().connection.getExceptionListener();
+    }
+
+    synchronized void start() throws JMSException {
+        this.started = true;
+        for (Shard shard : this.shards) {
+            shard.connection.start();
+        }
+    }
+
+    synchronized void stop() throws JMSException {
+        this.started = false;
+        for (Shard shard : this.shards) {
+            shard.connection.stop();
+        }
+    }
+
+    /**
+     * Close every physical connection, even if closing one of them fails.
+     */
+    synchronized void close() throws JMSException {
+        this.closed = true;
+        JMSException failure = null;
+        for (Shard shard : this.shards) {
+            try {
+                shard.close();
+            } catch (JMSException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return The shard for a new session, null to open another one.
+     */
+    private Shard choose() {
+        if (this.pinnedToPrimary || this.maxShards == 1) {
+            return this.getPrimary();
+        }
+
+        boolean canOpen = this.shards.size() + this.opening < this.maxShards;
+        if (this.placement == ServiceBusJmsShardPlacement.ROUND_ROBIN) {
+            int index = this.nextShard;
+            this.nextShard = (this.nextShard + 1) % this.maxShards;
+            if (index < this.shards.size()) {
+                return this.shards.get(index);
+            }
+
+            if (canOpen) {
+                return null;
+            }
+        }
+
+        Shard leastLoaded = this.shards.get(0);
+        for (Shard shard : this.shards) {
+            if (shard.sessions < leastLoaded.sessions) {
+                leastLoaded = shard;
+            }
+        }
+
+        return leastLoaded.sessions > 0 && canOpen ? null : leastLoaded;
+    }
+
+    private Shard openShard() throws JMSException {
+        Shard shard;
+        try {
+            shard = this.opener.open();
+        } catch (JMSException | RuntimeException e) {
+            synchronized (this) {
+                this.opening--;
+            }
+
+            throw e;
+        }
+
+        try {
+            synchronized (this) {
+                this.opening--;
+                if (this.closed) {
+                    throw new IllegalStateException("The connection is closed");
+                }
+
+                if (this.exceptionListener != null) {
+                    shard.connection.setExceptionListener(this.exceptionListener);
+                }
+
+                if (this.started) {
+                    shard.connection.start();
+                }
+
+                shard.sessions++;
+                this.shards.add(shard);
+                return shard;
+            }
+        } catch (JMSException | RuntimeException e) {
+            shard.close();
+            throw e;
+        }
+    }
+
+    interface Opener {
+        Shard open() throws JMSException;
+    }
+
+    static final class Shard {
+        private final Connection connection;
+        private final CbsTokenRenewer tokenRenewer;
+        private final EventLoopMonitor.Lease eventLoopLease;
+        private int sessions;
+
+        Shard(Connection connection, CbsTokenRenewer tokenRenewer) {
+            this(connection, tokenRenewer, null);
+        }
+
+        Shard(Connection connection, CbsTokenRenewer tokenRenewer, EventLoopMonitor.Lease eventLoopLease) {
+            this.connection = connection;
+            this.tokenRenewer = tokenRenewer;
+            this.eventLoopLease = eventLoopLease;
+        }
+
+        Connection getConnection() {
+            return this.connection;
+        }
+
+        private void close() throws JMSException {
+            if (this.tokenRenewer != null) {
+                this.tokenRenewer.close();
+            }
+
+            try {
+                this.connection.close();
+            } finally {
+                if (this.eventLoopLease != null) {
+                    this.eventLoopLease.close();
+                }
+            }
+        }
+    }
+}
@@ -275,6 +275,13 @@ public class ConnectionStringBuilder {
         this.operationTimeout = operationTimeout;
     }
 
+    /**
+     * @return True if the connection string or {@link #setOperationTimeout(Duration)} set the operation timeout.
+     */
+    boolean hasOperationTimeout() {
+        return this.operationTimeout != null;
+    }
+
     /**
      * TransportType on which all the communication for the Service Bus created using this ConnectionString.
      * Default value is {@link TransportType#AMQP}.
@@ -0,0 +1,301 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageEOFException;
+import jakarta.jms.MessageFormatException;
+import jakarta.jms.MessageNotWriteableException;
+
+/**
+ * A BytesMessage whose body the client decoded, as the consumer hands it to the application. The decoded body is read-only.
+ * The body is streamed from its source as the application reads it, the source is only opened by the first read.
+ */
+final class DecodedBytesMessage extends DecodedMessage implements BytesMessage {
+    private final long length;
+    private final BodySource source;
+    private DataInputStream input;
+
+    DecodedBytesMessage(Message received, byte[] body, String... hiddenProperties) {
+        this(received, body.length, () -> new ByteArrayInputStream(body), hiddenProperties);
+    }
+
+    DecodedBytesMessage(Message received, long length, BodySource source, String... hiddenProperties) {
+        super(received, hiddenProperties);
+        this.length = length;
+        this.source = source;
+    }
+
+    @Override
+    public long getBodyLength() {
+        return this.length;
+    }
+
+    @Override
+    public boolean readBoolean() throws JMSException {
+        try {
+            return this.input().readBoolean();
+        } catch (IOException e) {
+            throw toReadException(e);
+        }
+    }
+
+    @Override
+    public byte readByte() throws JMSException {
+        try {
+            return this.input().readByte();
+        } catch (IOException e) {
+            throw toReadException(e);
+        }
+    }
+
+    @Override
+    public int readUnsignedByte() throws JMSException {
+        try {
+            return this.input().readUnsignedByte();
+        } catch (IOException e) {
+            throw toReadException(e);
+        }
+    }
+
+    @Override
+    public short readShort() throws JMSException {
+        try {
+            return this.input().readShort();
+        } catch (IOException e) {
+            throw toReadException(e);
+        }
+    }
+
+    @Override
+    public int readUnsignedShort() throws JMSException {
+        try {
+            return this.input().readUnsignedShort();
+        } catch (IOException e) {
+            throw toReadException(e);
+        }
+    }
+
+    @Override
+    public char readChar() throws JMSException {
+        try {
+            return this.input().readChar();
+        } catch (IOException e) {
+            throw toReadException(e);
+        }
+    }
+
+    @Override
+    public int readInt() throws JMSException {
+        try {
+            return this.input().readInt();
+        } catch (IOException e) {
+            throw toReadException(e);
+        }
+    }
+
+    @Override
+    public long readLong() throws JMSException {
+        try {
+            return this.input().readLong();
+        } catch (IOException e) {
+            throw toReadException(e);
+        }
+    }
+
+    @Override
+    public float readFloat() throws JMSException {
+        try {
+            return this.input().readFloat();
+        } catch (IOException e) {
+            throw toReadException(e);
+        }
+    }
+
+    @Override
+    public double readDouble() throws JMSException {
+        try {
+            return this.input().readDouble();
+        } catch (IOException e) {
+            throw toReadException(e);
+        }
+    }
+
+    @Override
+    public String readUTF() throws JMSException {
+        try {
+            return this.input().readUTF();
+        } catch (IOException e) {
+            throw toReadException(e);
+        }
+    }
+
+    @Override
+    public int readBytes(byte[] value) throws JMSException {
+        return this.readBytes(value, value.length);
+    }
+
+    @Override
+    public int readBytes(byte[] value, int length) throws JMSException {
+        if (length < 0 || length > value.length) {
+            throw new IndexOutOfBoundsException("length must be between 0 and the length of the array.");
+        }
+
+        // A stream may return fewer bytes than are left, JMS expects the array to be filled up to the end of the body.
+        try {
+            DataInputStream input = this.input();
+            int read = 0;
+            while (read < length) {
+                int count = input.read(value, read, length - read);
+                if (count == -1) {
+                    break;
+                }
+
+                read += count;
+            }
+
+            return read == 0 && length > 0 ? -1 : read;
+        } catch (IOException e) {
+            throw toReadException(e);
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws JMSException {
+        throw notWriteable();
+    }
+
+    @Override
+    public void writeByte(byte value) throws JMSException {
+        throw notWriteable();
+    }
+
+    @Override
+    public void writeShort(short value) throws JMSException {
+        throw notWriteable();
+    }
+
+    @Override
+    public void writeChar(char value) throws JMSException {
+        throw notWriteable();
+    }
+
+    @Override
+    public void writeInt(int value) throws JMSException {
+        throw notWriteable();
+    }
+
+    @Override
+    public void writeLong(long value) throws JMSException {
+        throw notWriteable();
+    }
+
+    @Override
+    public void writeFloat(float value) throws JMSException {
+        throw notWriteable();
+    }
+
+    @Override
+    public void writeDouble(double value) throws JMSException {
+        throw notWriteable();
+    }
+
+    @Override
+    public void writeUTF(String value) throws JMSException {
+        throw notWriteable();
+    }
+
+    @Override
+    public void writeBytes(byte[] value) throws JMSException {
+        throw notWriteable();
+    }
+
+    @Override
+    public void writeBytes(byte[] value, int offset, int length) throws JMSException {
+        throw notWriteable();
+    }
+
+    @Override
+    public void writeObject(Object value) throws JMSException {
+        throw notWriteable();
+    }
+
+    @Override
+    public void reset() {
+        if (this.input != null) {
+            try {
+                this.input.close();
+            } catch (IOException e) {
+                // Nothing more is read from the stream.
+            }
+
+            this.input = null;
+        }
+    }
+
+    @Override
+    public void clearBody() throws JMSException {
+        throw notWriteable();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getBody(Class<T> c) throws JMSException {
+        if (!this.isBodyAssignableTo(c)) {
+            throw new MessageFormatException("The body of a BytesMessage cannot be assigned to " + c.getName() + ".");
+        }
+
+        if (this.length > Integer.MAX_VALUE - 8) {
+            throw new MessageFormatException("The body of the message is too large for a byte array.");
+        }
+
+        byte[] body = new byte[(int) this.length];
+        this.reset();
+        try {
+            this.input().readFully(body);
+        } catch (IOException e) {
+            throw toReadException(e);
+        } finally {
+            this.reset();
+        }
+
+        return (T) body;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean isBodyAssignableTo(Class c) {
+        Class<?> type = c;
+        return type.isAssignableFrom(byte[].class);
+    }
+
+    private DataInputStream input() throws IOException {
+        if (this.input == null) {
+            this.input = new DataInputStream(this.source.open());
+        }
+
+        return this.input;
+    }
+
+    private static JMSException toReadException(IOException e) {
+        if (!(e instanceof EOFException)) {
+            return toJMSException(e);
+        }
+
+        JMSException exception = new MessageEOFException("Reached the end of the message body.");
+        exception.initCause(e);
+        return exception;
+    }
+
+    private static MessageNotWriteableException notWriteable() {
+        return new MessageNotWriteableException("The decoded body of a received message is read-only.");
+    }
+}
@@ -0,0 +1,318 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+
+/**
+ * A received message whose body was decoded by the client. Headers, properties and acknowledgement go to the received message,
+ * so acknowledging the view settles it. The properties describing the encoding are hidden, so a view that is forwarded
+ * through another producer is sent as a plain message.
+ */
+abstract class DecodedMessage implements Message {
+    private final Message received;
+    private final List<String> hiddenProperties;
+    private List<Message> settledWith = Collections.emptyList();
+
+    /**
+     * Opens the decoded body of a message, each call starts again from its first byte.
+     */
+    interface BodySource {
+        InputStream open() throws IOException;
+    }
+
+    DecodedMessage(Message received, String... hiddenProperties) {
+        this.received = received;
+        this.hiddenProperties = Arrays.asList(hiddenProperties);
+    }
+
+    /**
+     * Acknowledge the given messages along with the received message, for a body that arrived in several messages.
+     * @return This message.
+     */
+    DecodedMessage settledWith(List<Message> messages) {
+        this.settledWith = messages;
+        return this;
+    }
+
+    /**
+     * @return The received messages this message is made of, settled together.
+     */
+    List<Message> getParts() {
+        if (this.settledWith.isEmpty()) {
+            return Collections.singletonList(this.received);
+        }
+
+        List<Message> parts = new ArrayList<>(this.settledWith.size() + 1);
+        parts.add(this.received);
+        parts.addAll(this.settledWith);
+        return parts;
+    }
+
+    /**
+     * @return The message as it was received, with the encoded body.
+     */
+    Message getReceived() {
+        return this.received;
+    }
+
+    @Override
+    public String getJMSMessageID() throws JMSException {
+        return this.received.getJMSMessageID();
+    }
+
+    @Override
+    public void setJMSMessageID(String id) throws JMSException {
+        this.received.setJMSMessageID(id);
+    }
+
+    @Override
+    public long getJMSTimestamp() throws JMSException {
+        return this.received.getJMSTimestamp();
+    }
+
+    @Override
+    public void setJMSTimestamp(long timestamp) throws JMSException {
+        this.received.setJMSTimestamp(timestamp);
+    }
+
+    @Override
+    public byte[] getJMSCorrelationIDAsBytes() throws JMSException {
+        return this.received.getJMSCorrelationIDAsBytes();
+    }
+
+    @Override
+    public void setJMSCorrelationIDAsBytes(byte[] correlationID) throws JMSException {
+        this.received.setJMSCorrelationIDAsBytes(correlationID);
+    }
+
+    @Override
+    public void setJMSCorrelationID(String correlationID) throws JMSException {
+        this.received.setJMSCorrelationID(correlationID);
+    }
+
+    @Override
+    public String getJMSCorrelationID() throws JMSException {
+        return this.received.getJMSCorrelationID();
+    }
+
+    @Override
+    public Destination getJMSReplyTo() throws JMSException {
+        return this.received.getJMSReplyTo();
+    }
+
+    @Override
+    public void setJMSReplyTo(Destination replyTo) throws JMSException {
+        this.received.setJMSReplyTo(replyTo);
+    }
+
+    @Override
+    public Destination getJMSDestination() throws JMSException {
+        return this.received.getJMSDestination();
+    }
+
+    @Override
+    public void setJMSDestination(Destination destination) throws JMSException {
+        this.received.setJMSDestination(destination);
+    }
+
+    @Override
+    public int getJMSDeliveryMode() throws JMSException {
+        return this.received.getJMSDeliveryMode();
+    }
+
+    @Override
+    public void setJMSDeliveryMode(int deliveryMode) throws JMSException {
+        this.received.setJMSDeliveryMode(deliveryMode);
+    }
+
+    @Override
+    public boolean getJMSRedelivered() throws JMSException {
+        return this.received.getJMSRedelivered();
+    }
+
+    @Override
+    public void setJMSRedelivered(boolean redelivered) throws JMSException {
+        this.received.setJMSRedelivered(redelivered);
+    }
+
+    @Override
+    public String getJMSType() throws JMSException {
+        return this.received.getJMSType();
+    }
+
+    @Override
+    public void setJMSType(String type) throws JMSException {
+        this.received.setJMSType(type);
+    }
+
+    @Override
+    public long getJMSExpiration() throws JMSException {
+        return this.received.getJMSExpiration();
+    }
+
+    @Override
+    public void setJMSExpiration(long expiration) throws JMSException {
+        this.received.setJMSExpiration(expiration);
+    }
+
+    @Override
+    public long getJMSDeliveryTime() throws JMSException {
+        return this.received.getJMSDeliveryTime();
+    }
+
+    @Override
+    public void setJMSDeliveryTime(long deliveryTime) throws JMSException {
+        this.received.setJMSDeliveryTime(deliveryTime);
+    }
+
+    @Override
+    public int getJMSPriority() throws JMSException {
+        return this.received.getJMSPriority();
+    }
+
+    @Override
+    public void setJMSPriority(int priority) throws JMSException {
+        this.received.setJMSPriority(priority);
+    }
+
+    @Override
+    public void clearProperties() throws JMSException {
+        this.received.clearProperties();
+    }
+
+    @Override
+    public boolean propertyExists(String name) throws JMSException {
+        return !this.hiddenProperties.contains(name) && this.received.propertyExists(name);
+    }
+
+    @Override
+    public boolean getBooleanProperty(String name) throws JMSException {
+        return this.received.getBooleanProperty(name);
+    }
+
+    @Override
+    public byte getByteProperty(String name) throws JMSException {
+        return this.received.getByteProperty(name);
+    }
+
+    @Override
+    public short getShortProperty(String name) throws JMSException {
+        return this.received.getShortProperty(name);
+    }
+
+    @Override
+    public int getIntProperty(String name) throws JMSException {
+        return this.received.getIntProperty(name);
+    }
+
+    @Override
+    public long getLongProperty(String name) throws JMSException {
+        return this.received.getLongProperty(name);
+    }
+
+    @Override
+    public float getFloatProperty(String name) throws JMSException {
+        return this.received.getFloatProperty(name);
+    }
+
+    @Override
+    public double getDoubleProperty(String name) throws JMSException {
+        return this.received.getDoubleProperty(name);
+    }
+
+    @Override
+    public String getStringProperty(String name) throws JMSException {
+        return this.hiddenProperties.contains(name) ? null : this.received.getStringProperty(name);
+    }
+
+    @Override
+    public Object getObjectProperty(String name) throws JMSException {
+        return this.hiddenProperties.contains(name) ? null : this.received.getObjectProperty(name);
+    }
+
+    @Override
+    public Enumeration<?> getPropertyNames() throws JMSException {
+        List<Object> names = new ArrayList<>();
+        Enumeration<?> receivedNames = this.received.getPropertyNames();
+        while (receivedNames.hasMoreElements()) {
+            Object name = receivedNames.nextElement();
+            if (!this.hiddenProperties.contains(name)) {
+                names.add(name);
+            }
+        }
+
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    public void setBooleanProperty(String name, boolean value) throws JMSException {
+        this.received.setBooleanProperty(name, value);
+    }
+
+    @Override
+    public void setByteProperty(String name, byte value) throws JMSException {
+        this.received.setByteProperty(name, value);
+    }
+
+    @Override
+    public void setShortProperty(String name, short value) throws JMSException {
+        this.received.setShortProperty(name, value);
+    }
+
+    @Override
+    public void setIntProperty(String name, int value) throws JMSException {
+        this.received.setIntProperty(name, value);
+    }
+
+    @Override
+    public void setLongProperty(String name, long value) throws JMSException {
+        this.received.setLongProperty(name, value);
+    }
+
+    @Override
+    public void setFloatProperty(String name, float value) throws JMSException {
+        this.received.setFloatProperty(name, value);
+    }
+
+    @Override
+    public void setDoubleProperty(String name, double value) throws JMSException {
+        this.received.setDoubleProperty(name, value);
+    }
+
+    @Override
+    public void setStringProperty(String name, String value) throws JMSException {
+        this.received.setStringProperty(name, value);
+    }
+
+    @Override
+    public void setObjectProperty(String name, Object value) throws JMSException {
+        this.received.setObjectProperty(name, value);
+    }
+
+    @Override
+    public void acknowledge() throws JMSException {
+        this.received.acknowledge();
+        for (Message message : this.settledWith) {
+            message.acknowledge();
+        }
+    }
+
+    static JMSException toJMSException(IOException e) {
+        JMSException exception = new JMSException("The body of the message cannot be read: " + e.getMessage());
+        exception.setLinkedException(e);
+        exception.initCause(e);
+        return exception;
+    }
+}
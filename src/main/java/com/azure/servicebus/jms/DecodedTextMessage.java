@@ -0,0 +1,98 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageFormatException;
+import jakarta.jms.MessageNotWriteableException;
+import jakarta.jms.TextMessage;
+
+/**
+ * A TextMessage whose body the client decoded, as the consumer hands it to the application.
+ * A body that lives outside the message is only fetched when the application first asks for it.
+ */
+final class DecodedTextMessage extends DecodedMessage implements TextMessage {
+    private BodySource source;
+    private String text;
+    private boolean readOnly = true;
+
+    DecodedTextMessage(Message received, String text, String... hiddenProperties) {
+        super(received, hiddenProperties);
+        this.text = text;
+    }
+
+    DecodedTextMessage(Message received, BodySource source, String... hiddenProperties) {
+        super(received, hiddenProperties);
+        this.source = source;
+    }
+
+    @Override
+    public String getText() throws JMSException {
+        if (this.source != null) {
+            this.text = readText(this.source);
+            this.source = null;
+        }
+
+        return this.text;
+    }
+
+    @Override
+    public void setText(String text) throws JMSException {
+        if (this.readOnly) {
+            throw new MessageNotWriteableException("The body of a received message is read-only.");
+        }
+
+        this.text = text;
+    }
+
+    @Override
+    public void clearBody() {
+        this.source = null;
+        this.text = null;
+        this.readOnly = false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getBody(Class<T> c) throws JMSException {
+        String text = this.getText();
+        if (text == null) {
+            return null;
+        }
+
+        if (!this.isBodyAssignableTo(c)) {
+            throw new MessageFormatException("The body of a TextMessage cannot be assigned to " + c.getName() + ".");
+        }
+
+        return (T) text;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean isBodyAssignableTo(Class c) {
+        Class<?> type = c;
+        return (this.source == null && this.text == null) || type.isAssignableFrom(String.class);
+    }
+
+    private static String readText(BodySource source) throws JMSException {
+        try (InputStream input = source.open()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                output.write(buffer, 0, count);
+            }
+
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw toJMSException(e);
+        }
+    }
+}
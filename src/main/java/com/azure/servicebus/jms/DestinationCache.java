@@ -0,0 +1,111 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.jms.JMSException;
+
+/**
+ * A bounded cache of the Queue and Topic instances handed out by sessions and contexts, keyed by name, so that looking up
+ * the same destination again returns the same instance instead of allocating a new one.
+ * <p>
+ * Lookups of cached destinations take no lock. Once a map holds more than maxSize destinations, the least recently used
+ * eighth of them is dropped, so evicting takes one sort per maxSize / 8 new destinations. An evicted destination stays
+ * equal to the instance that replaces it, only the identity changes.
+ */
+final class DestinationCache {
+    private final int maxSize;
+    private final Map<String, Entry<ServiceBusJmsQueue>> queues = new ConcurrentHashMap<>();
+    private final Map<String, Entry<ServiceBusJmsTopic>> topics = new ConcurrentHashMap<>();
+
+    DestinationCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    ServiceBusJmsQueue getQueue(String name, DestinationFactory<ServiceBusJmsQueue> factory) throws JMSException {
+        return this.get(this.queues, name, factory);
+    }
+
+    ServiceBusJmsTopic getTopic(String name, DestinationFactory<ServiceBusJmsTopic> factory) throws JMSException {
+        return this.get(this.topics, name, factory);
+    }
+
+    int size() {
+        return this.queues.size() + this.topics.size();
+    }
+
+    private <T> T get(Map<String, Entry<T>> destinations, String name, DestinationFactory<T> factory) throws JMSException {
+        if (this.maxSize == 0 || name == null) {
+            return factory.create(name);
+        }
+
+        Entry<T> entry = destinations.get(name);
+        if (entry != null) {
+            entry.lastUsedNanos = System.nanoTime();
+            return entry.destination;
+        }
+
+        T destination = factory.create(name);
+        entry = destinations.putIfAbsent(name, new Entry<>(destination));
+        if (entry != null) {
+            // Another thread cached the destination first, its instance is the one everybody gets.
+            return entry.destination;
+        }
+
+        if (destinations.size() > this.maxSize) {
+            this.evict(destinations);
+        }
+
+        return destination;
+    }
+
+    private <T> void evict(Map<String, Entry<T>> destinations) {
+        synchronized (destinations) {
+            if (destinations.size() <= this.maxSize) {
+                return;
+            }
+
+            // Lookups keep updating lastUsedNanos, so the sort works on a snapshot of it to see consistent values.
+            List<Candidate<T>> candidates = new ArrayList<>(destinations.size());
+            for (Map.Entry<String, Entry<T>> entry : destinations.entrySet()) {
+                candidates.add(new Candidate<>(entry.getKey(), entry.getValue()));
+            }
+
+            candidates.sort((a, b) -> Long.compare(a.lastUsedNanos, b.lastUsedNanos));
+            int count = candidates.size() - this.maxSize + Math.max(1, this.maxSize / 8);
+            for (int i = 0; i < count && i < candidates.size(); i++) {
+                destinations.remove(candidates.get(i).name, candidates.get(i).entry);
+            }
+        }
+    }
+
+    interface DestinationFactory<T> {
+        T create(String name) throws JMSException;
+    }
+
+    private static final class Candidate<T> {
+        private final String name;
+        private final Entry<T> entry;
+        private final long lastUsedNanos;
+
+        Candidate(String name, Entry<T> entry) {
+            this.name = name;
+            this.entry = entry;
+            this.lastUsedNanos = entry.lastUsedNanos;
+        }
+    }
+
+    private static final class Entry<T> {
+        private final T destination;
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        Entry(T destination) {
+            this.destination = destination;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.CompletionListener;
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+import jakarta.jms.Topic;
+
+/**
+ * A MessageProducer that encodes the bodies of text and bytes messages before sending them.
+ * <p>
+ * A message whose estimated size reaches claimCheckThresholdBytes has its body moved to the payload store, see ClaimCheck.
+ * Otherwise, a body longer than messageChunkSizeBytes is split into chunks sent one after the other, see ChunkAssembler.
+ * Otherwise, a body sent to a destination with payload compression enabled is compressed if it is at least
+ * payloadCompressionThresholdBytes long and the codec makes it smaller, see PayloadCompressor.
+ * An encoded body goes out as new BytesMessages carrying the headers and properties of the application's message.
+ * Once sent, the headers the provider sets on send are copied back to the application's message, as if it had been sent itself.
+ */
+class EncodingMessageProducer implements MessageProducer {
+    private static final String GROUP_ID_PROPERTY = "JMSXGroupID";
+    private final MessageProducer innerProducer;
+    private final Session innerSession;
+    private final ServiceBusJmsConnectionFactorySettings settings;
+    private final PayloadCompressor compressor = new PayloadCompressor();
+
+    EncodingMessageProducer(MessageProducer innerProducer, Session innerSession, ServiceBusJmsConnectionFactorySettings settings) {
+        this.innerProducer = innerProducer;
+        this.innerSession = innerSession;
+        this.settings = settings;
+    }
+
+    @Override
+    public void send(Message message) throws JMSException {
+        this.encodeAndSend(null, message, this.getDeliveryMode(), this.getPriority(), this.getTimeToLive(), null);
+    }
+
+    @Override
+    public void send(Message message, int deliveryMode, int priority, long timeToLive) throws JMSException {
+        this.encodeAndSend(null, message, deliveryMode, priority, timeToLive, null);
+    }
+
+    @Override
+    public void send(Destination destination, Message message) throws JMSException {
+        this.encodeAndSend(destination, message, this.getDeliveryMode(), this.getPriority(), this.getTimeToLive(), null);
+    }
+
+    @Override
+    public void send(Destination destination, Message message, int deliveryMode, int priority, long timeToLive) throws JMSException {
+        this.encodeAndSend(destination, message, deliveryMode, priority, timeToLive, null);
+    }
+
+    @Override
+    public void send(Message message, CompletionListener completionListener) throws JMSException {
+        this.encodeAndSend(null, message, this.getDeliveryMode(), this.getPriority(), this.getTimeToLive(), checkListener(completionListener));
+    }
+
+    @Override
+    public void send(Message message, int deliveryMode, int priority, long timeToLive, CompletionListener completionListener) throws JMSException {
+        this.encodeAndSend(null, message, deliveryMode, priority, timeToLive, checkListener(completionListener));
+    }
+
+    @Override
+    public void send(Destination destination, Message message, CompletionListener completionListener) throws JMSException {
+        this.encodeAndSend(destination, message, this.getDeliveryMode(), this.getPriority(), this.getTimeToLive(), checkListener(completionListener));
+    }
+
+    @Override
+    public void send(Destination destination, Message message, int deliveryMode, int priority, long timeToLive,
+            CompletionListener completionListener) throws JMSException {
+        this.encodeAndSend(destination, message, deliveryMode, priority, timeToLive, checkListener(completionListener));
+    }
+
+    /**
+     * Send a message with resolved defaults, to the destination of the producer if destination is null.
+     */
+    private void encodeAndSend(Destination destination, Message message, int deliveryMode, int priority, long timeToLive,
+            CompletionListener completionListener) throws JMSException {
+        List<Message> encoded = this.encode(destination != null ? destination : this.innerProducer.getDestination(), message);
+        if (encoded.size() == 1 && encoded.get(0) == message) {
+            this.sendEncoded(destination, message, deliveryMode, priority, timeToLive, completionListener);
+            return;
+        }
+
+        // The chunks of a message go out in order, only the last one completes asynchronously.
+        int last = encoded.size() - 1;
+        for (int i = 0; i < last; i++) {
+            this.sendEncoded(destination, encoded.get(i), deliveryMode, priority, timeToLive, null);
+        }
+
+        this.sendEncoded(destination, encoded.get(last), deliveryMode, priority, timeToLive,
+            completionListener != null ? wrap(message, completionListener) : null);
+        copySendHeaders(encoded.get(0), message);
+    }
+
+    private void sendEncoded(Destination destination, Message message, int deliveryMode, int priority, long timeToLive,
+            CompletionListener completionListener) throws JMSException {
+        if (destination == null && completionListener == null) {
+            this.innerProducer.send(message, deliveryMode, priority, timeToLive);
+        } else if (destination == null) {
+            this.innerProducer.send(message, deliveryMode, priority, timeToLive, completionListener);
+        } else if (completionListener == null) {
+            this.innerProducer.send(destination, message, deliveryMode, priority, timeToLive);
+        } else {
+            this.innerProducer.send(destination, message, deliveryMode, priority, timeToLive, completionListener);
+        }
+    }
+
+    /**
+     * @return The messages to send in place of the given one, in order, or only the given message if its body is sent as it is.
+     */
+    private List<Message> encode(Destination destination, Message message) throws JMSException {
+        ServiceBusJmsPayloadStore store = this.settings.getPayloadStore();
+        ServiceBusJmsCompressionCodec codec = this.settings.getPayloadCompression(getName(destination));
+        int chunkSize = this.settings.getMessageChunkSizeBytes();
+        if (store == null && codec == null && chunkSize == 0) {
+            return Collections.singletonList(message);
+        }
+
+        // Checked before anything is sent, so an oversized message does not fail only once it was encoded and transferred.
+        boolean stored = store != null && MessageSizeEstimator.estimate(message, destination) >= this.settings.getClaimCheckThresholdBytes();
+        long maxBodyLength = PayloadCompressor.getMaxBodyLength(message);
+        // Most bodies are too small to chunk or compress, they are sent as they are without copying them first.
+        if (maxBodyLength < 0 || (!stored && (chunkSize == 0 || maxBodyLength <= chunkSize)
+                && (codec == null || maxBodyLength < this.settings.getPayloadCompressionThresholdBytes()))) {
+            return Collections.singletonList(message);
+        }
+
+        byte[] body = PayloadCompressor.getBody(message);
+        if (stored) {
+            String reference;
+            try {
+                reference = store.store(body, body.length);
+            } catch (IOException e) {
+                JMSException exception = new JMSException("The body of the message cannot be stored: " + e.getMessage());
+                exception.setLinkedException(e);
+                exception.initCause(e);
+                throw exception;
+            }
+
+            BytesMessage claimCheck = this.createEncodedMessage(message);
+            claimCheck.setStringProperty(ClaimCheck.REFERENCE_PROPERTY, reference);
+            claimCheck.setLongProperty(ClaimCheck.LENGTH_PROPERTY, body.length);
+            return Collections.singletonList(claimCheck);
+        }
+
+        if (chunkSize > 0 && body.length > chunkSize) {
+            return this.split(message, body, chunkSize);
+        }
+
+        if (codec == null || body.length < this.settings.getPayloadCompressionThresholdBytes()) {
+            return Collections.singletonList(message);
+        }
+
+        this.compressor.compress(codec, body, body.length);
+        if (this.compressor.getLength() >= body.length) {
+            return Collections.singletonList(message);
+        }
+
+        BytesMessage compressed = this.createEncodedMessage(message);
+        compressed.setStringProperty(PayloadCompressor.CONTENT_ENCODING_PROPERTY, codec.getEncoding());
+        compressed.writeBytes(this.compressor.getBuffer(), 0, this.compressor.getLength());
+        return Collections.singletonList(compressed);
+    }
+
+    private List<Message> split(Message message, byte[] body, int chunkSize) throws JMSException {
+        String group = UUID.randomUUID().toString();
+        int count = (int) (((long) body.length + chunkSize - 1) / chunkSize);
+        List<Message> chunks = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            int offset = index * chunkSize;
+            BytesMessage chunk = this.createEncodedMessage(message);
+            chunk.setStringProperty(ChunkAssembler.GROUP_PROPERTY, group);
+            chunk.setIntProperty(ChunkAssembler.INDEX_PROPERTY, index);
+            chunk.setIntProperty(ChunkAssembler.COUNT_PROPERTY, count);
+            // Service Bus maps JMSXGroupID to the session id, a session-enabled entity hands all chunks to one consumer.
+            if (!chunk.propertyExists(GROUP_ID_PROPERTY)) {
+                chunk.setStringProperty(GROUP_ID_PROPERTY, group);
+            }
+
+            chunk.writeBytes(body, offset, Math.min(chunkSize, body.length - offset));
+            chunks.add(chunk);
+        }
+
+        return chunks;
+    }
+
+    private BytesMessage createEncodedMessage(Message message) throws JMSException {
+        BytesMessage encoded = this.innerSession.createBytesMessage();
+        encoded.setJMSCorrelationID(message.getJMSCorrelationID());
+        encoded.setJMSReplyTo(message.getJMSReplyTo());
+        encoded.setJMSType(message.getJMSType());
+        Enumeration<?> propertyNames = message.getPropertyNames();
+        while (propertyNames.hasMoreElements()) {
+            String name = (String) propertyNames.nextElement();
+            encoded.setObjectProperty(name, message.getObjectProperty(name));
+        }
+
+        encoded.setStringProperty(PayloadCompressor.BODY_TYPE_PROPERTY,
+            message instanceof TextMessage ? PayloadCompressor.TEXT_BODY : PayloadCompressor.BYTES_BODY);
+        return encoded;
+    }
+
+    private static CompletionListener wrap(Message message, CompletionListener completionListener) {
+        return new CompletionListener() {
+            @Override
+            public void onCompletion(Message sent) {
+                completionListener.onCompletion(message);
+            }
+
+            @Override
+            public void onException(Message sent, Exception exception) {
+                completionListener.onException(message, exception);
+            }
+        };
+    }
+
+    private static CompletionListener checkListener(CompletionListener completionListener) {
+        if (completionListener == null) {
+            throw new IllegalArgumentException("completionListener cannot be null.");
+        }
+
+        return completionListener;
+    }
+
+    private static void copySendHeaders(Message encoded, Message message) throws JMSException {
+        message.setJMSMessageID(encoded.getJMSMessageID());
+        message.setJMSTimestamp(encoded.getJMSTimestamp());
+        message.setJMSDestination(encoded.getJMSDestination());
+        message.setJMSDeliveryMode(encoded.getJMSDeliveryMode());
+        message.setJMSPriority(encoded.getJMSPriority());
+        message.setJMSExpiration(encoded.getJMSExpiration());
+        message.setJMSDeliveryTime(encoded.getJMSDeliveryTime());
+    }
+
+    private static String getName(Destination destination) throws JMSException {
+        if (destination instanceof Queue) {
+            return ((Queue) destination).getQueueName().toLowerCase(Locale.ROOT);
+        }
+
+        if (destination instanceof Topic) {
+            return ((Topic) destination).getTopicName().toLowerCase(Locale.ROOT);
+        }
+
+        return null;
+    }
+
+    @Override
+    public void setDisableMessageID(boolean value) throws JMSException {
+        this.innerProducer.setDisableMessageID(value);
+    }
+
+    @Override
+    public boolean getDisableMessageID() throws JMSException {
+        return this.innerProducer.getDisableMessageID();
+    }
+
+    @Override
+    public void setDisableMessageTimestamp(boolean value) throws JMSException {
+        this.innerProducer.setDisableMessageTimestamp(value);
+    }
+
+    @Override
+    public boolean getDisableMessageTimestamp() throws JMSException {
+        return this.innerProducer.getDisableMessageTimestamp();
+    }
+
+    @Override
+    public void setDeliveryMode(int deliveryMode) throws JMSException {
+        this.innerProducer.setDeliveryMode(deliveryMode);
+    }
+
+    @Override
+    public int getDeliveryMode() throws JMSException {
+        return this.innerProducer.getDeliveryMode();
+    }
+
+    @Override
+    public void setPriority(int defaultPriority) throws JMSException {
+        this.innerProducer.setPriority(defaultPriority);
+    }
+
+    @Override
+    public int getPriority() throws JMSException {
+        return this.innerProducer.getPriority();
+    }
+
+    @Override
+    public void setTimeToLive(long timeToLive) throws JMSException {
+        this.innerProducer.setTimeToLive(timeToLive);
+    }
+
+    @Override
+    public long getTimeToLive() throws JMSException {
+        return this.innerProducer.getTimeToLive();
+    }
+
+    @Override
+    public void setDeliveryDelay(long deliveryDelay) throws JMSException {
+        this.innerProducer.setDeliveryDelay(deliveryDelay);
+    }
+
+    @Override
+    public long getDeliveryDelay() throws JMSException {
+        return this.innerProducer.getDeliveryDelay();
+    }
+
+    @Override
+    public Destination getDestination() throws JMSException {
+        return this.innerProducer.getDestination();
+    }
+
+    @Override
+    public void close() throws JMSException {
+        this.innerProducer.close();
+    }
+}
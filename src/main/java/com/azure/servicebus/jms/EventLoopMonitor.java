@@ -0,0 +1,121 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.qpid.jms.transports.TransportOptions;
+import org.apache.qpid.jms.transports.netty.EventLoopGroupRef;
+import org.apache.qpid.jms.transports.netty.EventLoopType;
+import org.apache.qpid.jms.transports.netty.NettyEventLoopGroupFactory;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import io.netty.util.concurrent.ThreadProperties;
+
+/**
+ * Tracks the shared event loops the connections of a factory run on.
+ * <p>
+ * With the transport.sharedEventLoopThreads option, qpid runs all connections of the JVM that ask for the same number of threads
+ * on one reference counted event loop group, instead of giving each connection a thread of its own. Each connection of the factory
+ * leases a reference to the same group, so the group stays reachable for the metrics exactly as long as connections use it.
+ */
+class EventLoopMonitor {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Map<EventLoopGroup, Integer> groups = new IdentityHashMap<>();
+    // The CPU time and wall clock time of the previous sample of each loop.
+    private final Map<EventExecutor, long[]> previousSamples = new IdentityHashMap<>();
+
+    /**
+     * Take a reference to the shared event loop group qpid uses for connections with the given settings.
+     */
+    Lease lease(ServiceBusJmsConnectionFactorySettings settings) {
+        // qpid picks the type of the group from the same options, so the group is the one the connections run on.
+        TransportOptions options = new TransportOptions();
+        options.setUseEpoll(settings.isEpollEnabled());
+        options.setUseKQueue(settings.isKQueueEnabled());
+        EventLoopGroupRef ref = NettyEventLoopGroupFactory.sharedGroup(EventLoopType.valueOf(options), settings.getSharedEventLoopThreads());
+        synchronized (this) {
+            this.groups.merge(ref.group(), 1, Integer::sum);
+        }
+
+        return new Lease(ref);
+    }
+
+    /**
+     * @return A snapshot of every thread of the shared event loops in use.
+     */
+    synchronized List<ServiceBusJmsEventLoopMetrics> sample() {
+        List<ServiceBusJmsEventLoopMetrics> loops = new ArrayList<>();
+        boolean cpuTimeSupported = THREADS.isThreadCpuTimeSupported();
+        long now = System.nanoTime();
+        for (EventLoopGroup group : this.groups.keySet()) {
+            for (EventExecutor executor : group) {
+                if (!(executor instanceof SingleThreadEventExecutor) || executor.isShuttingDown()) {
+                    continue;
+                }
+
+                SingleThreadEventExecutor loop = (SingleThreadEventExecutor) executor;
+                ThreadProperties thread = loop.threadProperties();
+                long cpuTime = cpuTimeSupported ? THREADS.getThreadCpuTime(thread.id()) : -1;
+                double utilization = -1;
+                if (cpuTime >= 0) {
+                    long[] previous = this.previousSamples.put(loop, new long[] { cpuTime, now });
+                    utilization = previous == null || now == previous[1] ? 0 : Math.min(1, (double) (cpuTime - previous[0]) / (now - previous[1]));
+                }
+
+                loops.add(new ServiceBusJmsEventLoopMetrics(thread.name(), loop.pendingTasks(), cpuTime, utilization));
+            }
+        }
+
+        return loops;
+    }
+
+    private synchronized void release(EventLoopGroup group) {
+        Integer leases = this.groups.get(group);
+        if (leases == null) {
+            return;
+        }
+
+        if (leases > 1) {
+            this.groups.put(group, leases - 1);
+            return;
+        }
+
+        this.groups.remove(group);
+        for (EventExecutor executor : group) {
+            this.previousSamples.remove(executor);
+        }
+    }
+
+    /**
+     * A reference to a shared event loop group, held by one physical connection.
+     */
+    final class Lease implements AutoCloseable {
+        private final EventLoopGroupRef ref;
+        private boolean closed;
+
+        private Lease(EventLoopGroupRef ref) {
+            this.ref = ref;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+            release(this.ref.group());
+            this.ref.close();
+        }
+    }
+}
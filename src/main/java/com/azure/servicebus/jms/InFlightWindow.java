@@ -0,0 +1,75 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.ResourceAllocationException;
+
+/**
+ * Bounds the number of asynchronous sends that are waiting for the broker to settle them.
+ * One window is kept per connection and one per async producer, a send takes a slot in both.
+ */
+class InFlightWindow {
+    private final String name;
+    private final int capacity;
+    private final Semaphore slots;
+    private final ServiceBusJmsMetrics metrics;
+
+    InFlightWindow(String name, int capacity, ServiceBusJmsMetrics metrics) {
+        this.name = name;
+        this.capacity = capacity;
+        this.slots = new Semaphore(capacity);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Take a slot for one send.
+     * @param block Whether to wait for a slot when the window is full, or fail immediately.
+     * @param timeoutMS How long to wait for a slot. A negative value waits indefinitely.
+     * @throws ResourceAllocationException If no slot was available in time.
+     */
+    void acquire(boolean block, long timeoutMS) throws JMSException {
+        if (this.slots.tryAcquire()) {
+            return;
+        }
+
+        if (this.metrics != null) {
+            this.metrics.onSendWindowFull();
+        }
+
+        boolean acquired = false;
+        if (block) {
+            try {
+                if (timeoutMS < 0) {
+                    this.slots.acquire();
+                    acquired = true;
+                } else {
+                    acquired = this.slots.tryAcquire(timeoutMS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ResourceAllocationException("Interrupted while waiting for a slot in the " + this.name + " send window.");
+            }
+        }
+
+        if (!acquired) {
+            throw new ResourceAllocationException("The " + this.name + " send window is full: " + this.capacity
+                + " messages are waiting to be settled by the broker.");
+        }
+    }
+
+    void release() {
+        this.slots.release();
+    }
+
+    /**
+     * @return The number of sends holding a slot.
+     */
+    int getInFlightCount() {
+        return this.capacity - this.slots.availablePermits();
+    }
+}
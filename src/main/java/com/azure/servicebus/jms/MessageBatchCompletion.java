@@ -0,0 +1,62 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.jms.CompletionListener;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+
+/**
+ * Waits for the asynchronous sends of a message batch, so the whole batch costs a single wait for the broker
+ * instead of one round trip per message.
+ */
+class MessageBatchCompletion implements CompletionListener {
+    private final CountDownLatch pending;
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    MessageBatchCompletion(int count) {
+        this.pending = new CountDownLatch(count);
+    }
+
+    @Override
+    public void onCompletion(Message message) {
+        this.pending.countDown();
+    }
+
+    @Override
+    public void onException(Message message, Exception exception) {
+        this.failure.compareAndSet(null, exception);
+        this.pending.countDown();
+    }
+
+    /**
+     * Wait until the broker settled every message of the batch.
+     * @throws JMSException The first failure reported for a message of the batch.
+     */
+    void await() throws JMSException {
+        try {
+            this.pending.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            JMSException interrupted = new JMSException("Interrupted while waiting for a message batch to be sent.");
+            interrupted.initCause(e);
+            throw interrupted;
+        }
+
+        Exception exception = this.failure.get();
+        if (exception instanceof JMSException) {
+            throw (JMSException) exception;
+        }
+
+        if (exception != null) {
+            JMSException sendFailure = new JMSException("Failed to send a message of the batch: " + exception.getMessage());
+            sendFailure.setLinkedException(exception);
+            sendFailure.initCause(exception);
+            throw sendFailure;
+        }
+    }
+}
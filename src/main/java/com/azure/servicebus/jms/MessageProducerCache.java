@@ -0,0 +1,219 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import jakarta.jms.CompletionListener;
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+
+/**
+ * A bounded, least recently used cache of attached MessageProducer links keyed by destination.
+ * A null destination maps to the anonymous producer of the session.
+ * Like the session that owns the links, this cache is not thread-safe. Only the completions of async sends, see sendAsync,
+ * run on other threads: a link evicted while sends through it are in flight stays attached until they completed, and is
+ * closed by the next call on the cache, as JMS forbids closing a producer from its completion listener.
+ */
+class MessageProducerCache {
+    private final Session session;
+    private final int maxProducers;
+    private final LinkedHashMap<Destination, Link> producers;
+    // Evicted links waiting for their async sends to complete.
+    private final List<Link> retired = new ArrayList<>();
+
+    MessageProducerCache(Session session, int maxProducers) {
+        this.session = session;
+        this.maxProducers = maxProducers;
+        this.producers = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @return True if the producer for the given destination was already attached.
+     */
+    boolean contains(Destination destination) {
+        return this.producers.containsKey(destination);
+    }
+
+    /**
+     * Return the cached producer for the given destination, attaching a new link if there is none.
+     * When the cache is full the least recently used producer is closed.
+     */
+    MessageProducer getOrCreate(Destination destination) throws JMSException {
+        return this.getOrCreate(destination, d -> false);
+    }
+
+    /**
+     * Return the cached producer for the given destination, attaching a new link if there is none.
+     * When the cache is full the least recently used producer that is not in use is closed. If every cached producer
+     * is in use, the new producer is returned without being cached and the caller owns it.
+     */
+    MessageProducer getOrCreate(Destination destination, Predicate<Destination> inUse) throws JMSException {
+        this.closeRetired();
+        Link link = this.producers.get(destination);
+        if (link != null) {
+            link.lastUsedNanos = System.nanoTime();
+            return link.producer;
+        }
+
+        MessageProducer producer = this.session.createProducer(destination);
+        if (this.maxProducers <= 0) {
+            return producer;
+        }
+
+        if (this.producers.size() >= this.maxProducers) {
+            Iterator<Map.Entry<Destination, Link>> iterator = this.producers.entrySet().iterator();
+            Link evicted = null;
+            while (iterator.hasNext()) {
+                Map.Entry<Destination, Link> entry = iterator.next();
+                if (!inUse.test(entry.getKey())) {
+                    evicted = entry.getValue();
+                    iterator.remove();
+                    break;
+                }
+            }
+
+            if (evicted == null) {
+                return producer;
+            }
+
+            this.retire(evicted);
+        }
+
+        this.producers.put(destination, new Link(producer));
+        return producer;
+    }
+
+    /**
+     * Send asynchronously through a producer returned by getOrCreate for the given destination. Until the send completes,
+     * evicting the producer leaves its link attached, closing it would fail the send.
+     */
+    void sendAsync(Destination destination, MessageProducer producer, CompletionListener completionListener, AsyncSend send) throws JMSException {
+        Link link = this.producers.get(destination);
+        if (link == null || link.producer != producer) {
+            // Not cached, the caller owns the producer and closes it.
+            send.send(completionListener);
+            return;
+        }
+
+        link.pendingSends.incrementAndGet();
+        try {
+            send.send(new CompletionListener() {
+                @Override
+                public void onCompletion(Message message) {
+                    try {
+                        completionListener.onCompletion(message);
+                    } finally {
+                        link.pendingSends.decrementAndGet();
+                    }
+                }
+
+                @Override
+                public void onException(Message message, Exception exception) {
+                    try {
+                        completionListener.onException(message, exception);
+                    } finally {
+                        link.pendingSends.decrementAndGet();
+                    }
+                }
+            });
+        } catch (JMSException | RuntimeException e) {
+            link.pendingSends.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Close the producers that were not returned by getOrCreate for at least the given time.
+     * Only the least recently used producers are looked at, so this is cheap enough to call before every send.
+     */
+    void closeIdle(long idleTimeoutNanos) {
+        this.closeRetired();
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Destination, Link>> iterator = this.producers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Link link = iterator.next().getValue();
+            if (now - link.lastUsedNanos < idleTimeoutNanos) {
+                return;
+            }
+
+            iterator.remove();
+            this.retire(link);
+        }
+    }
+
+    int size() {
+        return this.producers.size();
+    }
+
+    /**
+     * Close every cached producer link, along with the evicted ones whose sends are still in flight.
+     */
+    void closeAll() {
+        List<Link> toClose = new ArrayList<>(this.producers.values());
+        toClose.addAll(this.retired);
+        this.producers.clear();
+        this.retired.clear();
+        for (Link link : toClose) {
+            closeQuietly(link.producer);
+        }
+    }
+
+    private void retire(Link link) {
+        if (link.pendingSends.get() == 0) {
+            closeQuietly(link.producer);
+        } else {
+            this.retired.add(link);
+        }
+    }
+
+    private void closeRetired() {
+        if (this.retired.isEmpty()) {
+            return;
+        }
+
+        Iterator<Link> iterator = this.retired.iterator();
+        while (iterator.hasNext()) {
+            Link link = iterator.next();
+            if (link.pendingSends.get() == 0) {
+                iterator.remove();
+                closeQuietly(link.producer);
+            }
+        }
+    }
+
+    private static void closeQuietly(MessageProducer producer) {
+        try {
+            producer.close();
+        } catch (JMSException e) {
+            // The link is being discarded, nothing else to do.
+        }
+    }
+
+    /**
+     * An async send through a cached producer, given the listener to complete it with.
+     */
+    interface AsyncSend {
+        void send(CompletionListener completionListener) throws JMSException;
+    }
+
+    private static final class Link {
+        private final MessageProducer producer;
+        private final AtomicInteger pendingSends = new AtomicInteger();
+        private long lastUsedNanos = System.nanoTime();
+
+        Link(MessageProducer producer) {
+            this.producer = producer;
+        }
+    }
+}
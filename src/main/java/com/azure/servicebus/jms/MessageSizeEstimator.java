@@ -0,0 +1,192 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Enumeration;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.MapMessage;
+import jakarta.jms.Message;
+import jakarta.jms.MessageEOFException;
+import jakarta.jms.ObjectMessage;
+import jakarta.jms.Queue;
+import jakarta.jms.StreamMessage;
+import jakarta.jms.TextMessage;
+import jakarta.jms.Topic;
+
+/**
+ * Estimates the encoded AMQP size of a message without encoding it.
+ * <p>
+ * The estimate walks the headers, application properties and body once, counting UTF-8 lengths in place,
+ * and always errs on the large side: every string is counted with a 32 bit length prefix and every number as 8 bytes.
+ */
+final class MessageSizeEstimator {
+    // Transfer frame, message header, properties and annotation sections along with a generated message id.
+    static final int MESSAGE_OVERHEAD = 160;
+    private static final int SECTION_OVERHEAD = 8;
+    private static final int STRING_OVERHEAD = 5;
+    private static final int PRIMITIVE_SIZE = 9;
+
+    private MessageSizeEstimator() { }
+
+    /**
+     * @return The estimated number of bytes the message takes on the wire.
+     */
+    static long estimate(Message message) throws JMSException {
+        return estimate(message, message.getJMSDestination());
+    }
+
+    /**
+     * @return The estimated number of bytes the message takes on the wire once sent to the given destination.
+     */
+    static long estimate(Message message, Destination destination) throws JMSException {
+        long size = MESSAGE_OVERHEAD;
+        size += estimateString(destinationName(destination));
+        size += estimateString(destinationName(message.getJMSReplyTo()));
+        size += estimateString(message.getJMSCorrelationID());
+        size += estimateString(message.getJMSType());
+
+        Enumeration<?> propertyNames = message.getPropertyNames();
+        if (propertyNames.hasMoreElements()) {
+            size += SECTION_OVERHEAD;
+            while (propertyNames.hasMoreElements()) {
+                String name = (String) propertyNames.nextElement();
+                size += estimateString(name) + estimateValue(message.getObjectProperty(name));
+            }
+        }
+
+        return size + SECTION_OVERHEAD + estimateBody(message);
+    }
+
+    /**
+     * @return The number of bytes of the UTF-8 encoding of the given string.
+     */
+    static long utf8Length(String value) {
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+
+        return length;
+    }
+
+    private static long estimateBody(Message message) throws JMSException {
+        if (message instanceof TextMessage) {
+            return estimateString(((TextMessage) message).getText());
+        }
+
+        // Bytes and stream bodies can only be measured in read-only mode, which is where they end up once sent anyway.
+        if (message instanceof BytesMessage) {
+            BytesMessage bytesMessage = (BytesMessage) message;
+            bytesMessage.reset();
+            return STRING_OVERHEAD + bytesMessage.getBodyLength();
+        }
+
+        if (message instanceof MapMessage) {
+            MapMessage mapMessage = (MapMessage) message;
+            long size = SECTION_OVERHEAD;
+            Enumeration<?> names = mapMessage.getMapNames();
+            while (names.hasMoreElements()) {
+                String name = (String) names.nextElement();
+                size += estimateString(name) + estimateValue(mapMessage.getObject(name));
+            }
+
+            return size;
+        }
+
+        if (message instanceof ObjectMessage) {
+            return STRING_OVERHEAD + serializedLength(((ObjectMessage) message).getObject());
+        }
+
+        if (message instanceof StreamMessage) {
+            StreamMessage streamMessage = (StreamMessage) message;
+            streamMessage.reset();
+            long size = SECTION_OVERHEAD;
+            try {
+                while (true) {
+                    size += estimateValue(streamMessage.readObject());
+                }
+            } catch (MessageEOFException e) {
+                streamMessage.reset();
+            }
+
+            return size;
+        }
+
+        return 0;
+    }
+
+    private static long estimateValue(Object value) {
+        if (value instanceof String) {
+            return estimateString((String) value);
+        }
+
+        if (value instanceof byte[]) {
+            return STRING_OVERHEAD + ((byte[]) value).length;
+        }
+
+        return PRIMITIVE_SIZE;
+    }
+
+    private static long estimateString(String value) {
+        return value == null ? 0 : STRING_OVERHEAD + utf8Length(value);
+    }
+
+    private static String destinationName(Destination destination) throws JMSException {
+        if (destination instanceof Queue) {
+            return ((Queue) destination).getQueueName();
+        }
+
+        if (destination instanceof Topic) {
+            return ((Topic) destination).getTopicName();
+        }
+
+        return null;
+    }
+
+    private static long serializedLength(Serializable object) {
+        if (object == null) {
+            return 0;
+        }
+
+        CountingOutputStream counter = new CountingOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(counter)) {
+            output.writeObject(object);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("The body of the ObjectMessage cannot be serialized.", e);
+        }
+
+        return counter.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.count += len;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageFormatException;
+import jakarta.jms.TextMessage;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.compression.Snappy;
+
+/**
+ * Compresses and decompresses message bodies.
+ * <p>
+ * A compressed body is sent as a BytesMessage marked with two application properties: the codec in CONTENT_ENCODING_PROPERTY,
+ * and whether the body was text or bytes in BODY_TYPE_PROPERTY. Consumers that do not know about compression receive the
+ * BytesMessage as it is and can tell it apart by these properties.
+ * <p>
+ * Each compressor keeps its buffers, deflater and inflater between messages, so it must only be used by one thread at a time,
+ * like the producer or consumer it belongs to.
+ */
+final class PayloadCompressor {
+    static final String CONTENT_ENCODING_PROPERTY = "ServiceBusJmsContentEncoding";
+    static final String BODY_TYPE_PROPERTY = "ServiceBusJmsBodyType";
+    static final String TEXT_BODY = "text";
+    static final String BYTES_BODY = "bytes";
+
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+    private static final int GZIP_TRAILER_SIZE = 8;
+    private static final int GZIP_FHCRC = 2;
+    private static final int GZIP_FEXTRA = 4;
+    private static final int GZIP_FNAME = 8;
+    private static final int GZIP_FCOMMENT = 16;
+    private static final long MAX_DEFLATE_RATIO = 1032;
+    private static final int SNAPPY_BLOCK_SIZE = 32 * 1024;
+
+    private final CRC32 crc = new CRC32();
+    private Deflater deflater;
+    private Inflater inflater;
+    private Snappy snappy;
+    private byte[] buffer = new byte[0];
+    private int length;
+
+    /**
+     * @return The buffer holding the result of the last compress or decompress call, valid up to getLength.
+     */
+    byte[] getBuffer() {
+        return this.buffer;
+    }
+
+    int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Compress the first length bytes of input into the buffer of this compressor.
+     */
+    void compress(ServiceBusJmsCompressionCodec codec, byte[] input, int length) {
+        switch (codec) {
+            case GZIP:
+                this.gzip(input, length);
+                break;
+            case SNAPPY:
+                this.snappyCompress(input, length);
+                break;
+            case ZSTD:
+                this.setResult(ZstdCodec.compress(input, length));
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported codec " + codec + ".");
+        }
+    }
+
+    /**
+     * Decompress the first length bytes of input into the buffer of this compressor.
+     */
+    void decompress(ServiceBusJmsCompressionCodec codec, byte[] input, int length) throws DataFormatException {
+        switch (codec) {
+            case GZIP:
+                this.gunzip(input, length);
+                break;
+            case SNAPPY:
+                this.snappyDecompress(input, length);
+                break;
+            case ZSTD:
+                this.setResult(ZstdCodec.decompress(input, length));
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported codec " + codec + ".");
+        }
+    }
+
+    /**
+     * Restore the body of a received message that was compressed by a producer. The result is a view of the received message
+     * with the original body type, acknowledging it settles the received message.
+     * @return The message to hand to the application, the given message if it is not compressed.
+     */
+    Message decode(Message message) throws JMSException {
+        if (!(message instanceof BytesMessage) || !message.propertyExists(CONTENT_ENCODING_PROPERTY)) {
+            return message;
+        }
+
+        ServiceBusJmsCompressionCodec codec = ServiceBusJmsCompressionCodec.fromEncoding(message.getStringProperty(CONTENT_ENCODING_PROPERTY));
+        if (codec == null) {
+            // Written by a newer client with a codec this one does not know, the application gets the compressed bytes.
+            return message;
+        }
+
+        BytesMessage bytesMessage = (BytesMessage) message;
+        byte[] compressed = new byte[(int) bytesMessage.getBodyLength()];
+        bytesMessage.readBytes(compressed);
+        try {
+            this.decompress(codec, compressed, compressed.length);
+        } catch (DataFormatException | RuntimeException e) {
+            MessageFormatException exception = new MessageFormatException("The " + codec.getEncoding() + " body of the message cannot be decompressed.");
+            exception.initCause(e);
+            throw exception;
+        }
+
+        if (TEXT_BODY.equals(message.getStringProperty(BODY_TYPE_PROPERTY))) {
+            return new DecodedTextMessage(bytesMessage, new String(this.buffer, 0, this.length, StandardCharsets.UTF_8),
+                CONTENT_ENCODING_PROPERTY, BODY_TYPE_PROPERTY);
+        }
+
+        return new DecodedBytesMessage(bytesMessage, Arrays.copyOf(this.buffer, this.length), CONTENT_ENCODING_PROPERTY, BODY_TYPE_PROPERTY);
+    }
+
+    /**
+     * @return An upper bound of the length of the body getBody returns, read without copying the body, or -1 if it returns null.
+     */
+    static long getMaxBodyLength(Message message) throws JMSException {
+        if (message instanceof TextMessage) {
+            String text = ((TextMessage) message).getText();
+            // UTF-8 takes at most 3 bytes per char, a surrogate pair takes 4 bytes for its 2 chars.
+            return text != null ? 3L * text.length() : -1;
+        }
+
+        if (message instanceof BytesMessage) {
+            BytesMessage bytesMessage = (BytesMessage) message;
+            bytesMessage.reset();
+            return bytesMessage.getBodyLength();
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return The body of a text or bytes message as bytes, or null for other message types.
+     */
+    static byte[] getBody(Message message) throws JMSException {
+        if (message instanceof TextMessage) {
+            String text = ((TextMessage) message).getText();
+            return text != null ? text.getBytes(StandardCharsets.UTF_8) : null;
+        }
+
+        if (message instanceof BytesMessage) {
+            BytesMessage bytesMessage = (BytesMessage) message;
+            bytesMessage.reset();
+            byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+            bytesMessage.readBytes(body);
+            bytesMessage.reset();
+            return body;
+        }
+
+        return null;
+    }
+
+    private void gzip(byte[] input, int length) {
+        if (this.deflater == null) {
+            this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        } else {
+            this.deflater.reset();
+        }
+
+        this.ensureCapacity(GZIP_HEADER.length + length + length / 1000 + 64);
+        System.arraycopy(GZIP_HEADER, 0, this.buffer, 0, GZIP_HEADER.length);
+        int position = GZIP_HEADER.length;
+        this.deflater.setInput(input, 0, length);
+        this.deflater.finish();
+        while (!this.deflater.finished()) {
+            if (position == this.buffer.length - GZIP_TRAILER_SIZE) {
+                this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+            }
+
+            position += this.deflater.deflate(this.buffer, position, this.buffer.length - GZIP_TRAILER_SIZE - position);
+        }
+
+        this.crc.reset();
+        this.crc.update(input, 0, length);
+        writeIntLE(this.buffer, position, (int) this.crc.getValue());
+        writeIntLE(this.buffer, position + 4, length);
+        this.length = position + GZIP_TRAILER_SIZE;
+    }
+
+    private void gunzip(byte[] input, int length) throws DataFormatException {
+        if (length < GZIP_HEADER.length + GZIP_TRAILER_SIZE || input[0] != GZIP_HEADER[0] || input[1] != GZIP_HEADER[1] || input[2] != Deflater.DEFLATED) {
+            throw new DataFormatException("Not in gzip format.");
+        }
+
+        int flags = input[3];
+        int position = GZIP_HEADER.length;
+        if ((flags & GZIP_FEXTRA) != 0) {
+            position += 2 + ((input[position] & 0xff) | (input[position + 1] & 0xff) << 8);
+        }
+
+        if ((flags & GZIP_FNAME) != 0) {
+            position = skipZeroTerminated(input, position, length);
+        }
+
+        if ((flags & GZIP_FCOMMENT) != 0) {
+            position = skipZeroTerminated(input, position, length);
+        }
+
+        if ((flags & GZIP_FHCRC) != 0) {
+            position += 2;
+        }
+
+        // The size in the trailer comes from the sender, it only sizes the buffer up to what deflate can expand to.
+        long size = readIntLE(input, length - 4) & 0xffffffffL;
+        if (this.inflater == null) {
+            this.inflater = new Inflater(true);
+        } else {
+            this.inflater.reset();
+        }
+
+        this.ensureCapacity((int) Math.min(size, length * MAX_DEFLATE_RATIO));
+        this.inflater.setInput(input, position, length - GZIP_TRAILER_SIZE - position);
+        int inflated = 0;
+        while (!this.inflater.finished()) {
+            if (inflated == this.buffer.length) {
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(16, this.buffer.length * 2));
+            }
+
+            int count = this.inflater.inflate(this.buffer, inflated, this.buffer.length - inflated);
+            if (count == 0 && (this.inflater.needsInput() || this.inflater.needsDictionary())) {
+                throw new DataFormatException("Truncated gzip body.");
+            }
+
+            inflated += count;
+        }
+
+        this.crc.reset();
+        this.crc.update(this.buffer, 0, inflated);
+        if ((int) this.crc.getValue() != readIntLE(input, length - GZIP_TRAILER_SIZE)) {
+            throw new DataFormatException("Corrupt gzip body, the CRC does not match.");
+        }
+
+        this.length = inflated;
+    }
+
+    private void snappyCompress(byte[] input, int length) {
+        if (this.snappy == null) {
+            this.snappy = new Snappy();
+        }
+
+        // Snappy blocks reference earlier bytes by 16 bit offsets, so the body is encoded in blocks each prefixed with its encoded length.
+        ByteBuf out = Unpooled.buffer(length / 2 + 64);
+        try {
+            for (int offset = 0; offset < length; offset += SNAPPY_BLOCK_SIZE) {
+                int blockLength = Math.min(SNAPPY_BLOCK_SIZE, length - offset);
+                int lengthIndex = out.writerIndex();
+                out.writeInt(0);
+                this.snappy.reset();
+                this.snappy.encode(Unpooled.wrappedBuffer(input, offset, blockLength), out, blockLength);
+                out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+            }
+
+            this.setResult(out);
+        } finally {
+            out.release();
+        }
+    }
+
+    private void snappyDecompress(byte[] input, int length) throws DataFormatException {
+        if (this.snappy == null) {
+            this.snappy = new Snappy();
+        }
+
+        ByteBuf in = Unpooled.wrappedBuffer(input, 0, length);
+        ByteBuf out = Unpooled.buffer(length * 2);
+        try {
+            while (in.isReadable()) {
+                int blockLength = in.readableBytes() >= 4 ? in.readInt() : -1;
+                if (blockLength < 0 || blockLength > in.readableBytes()) {
+                    throw new DataFormatException("Truncated snappy body.");
+                }
+
+                this.snappy.reset();
+                this.snappy.decode(in.readSlice(blockLength), out);
+            }
+
+            this.setResult(out);
+        } finally {
+            out.release();
+        }
+    }
+
+    private void setResult(ByteBuf result) {
+        this.ensureCapacity(result.readableBytes());
+        this.length = result.readableBytes();
+        result.readBytes(this.buffer, 0, this.length);
+    }
+
+    private void setResult(byte[] result) {
+        if (result.length > this.buffer.length) {
+            this.buffer = result;
+        } else {
+            System.arraycopy(result, 0, this.buffer, 0, result.length);
+        }
+
+        this.length = result.length;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (this.buffer.length < capacity) {
+            this.buffer = new byte[capacity];
+        }
+    }
+
+    private static int skipZeroTerminated(byte[] input, int position, int length) throws DataFormatException {
+        while (position < length && input[position] != 0) {
+            position++;
+        }
+
+        if (position == length) {
+            throw new DataFormatException("Truncated gzip header.");
+        }
+
+        return position + 1;
+    }
+
+    private static void writeIntLE(byte[] buffer, int position, int value) {
+        buffer[position] = (byte) value;
+        buffer[position + 1] = (byte) (value >>> 8);
+        buffer[position + 2] = (byte) (value >>> 16);
+        buffer[position + 3] = (byte) (value >>> 24);
+    }
+
+    private static int readIntLE(byte[] buffer, int position) {
+        return (buffer[position] & 0xff) | (buffer[position + 1] & 0xff) << 8 | (buffer[position + 2] & 0xff) << 16 | (buffer[position + 3] & 0xff) << 24;
+    }
+}
@@ -0,0 +1,157 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.qpid.jms.message.JmsMessage;
+import org.apache.qpid.jms.provider.amqp.message.AmqpJmsMessageFacade;
+
+import io.netty.buffer.ByteBuf;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+
+/**
+ * Bounds the memory the prefetched messages of a connection may take, in total and per consumer.
+ * <p>
+ * qpid grants link credit in messages, not bytes, so each consumer converts its share of the budget into a message count using
+ * the encoded size of the messages it receives. The size follows the largest recent messages, rising at once and decaying slowly,
+ * so a few large messages shrink the prefetch immediately. Before any message is seen, a consumer assumes the maximum Service Bus message size.
+ * Once the connection budget is taken, new consumers get no credit at all and pull each message on receive.
+ */
+class PrefetchMemoryBudget {
+    // Assumed size of the messages of a consumer until it received some.
+    static final long ASSUMED_MESSAGE_SIZE = 1024 * 1024;
+    // Share of the difference a smaller message takes off the size estimate.
+    private static final double SIZE_DECAY = 0.05;
+    // After this many messages, only one message in SAMPLE_INTERVAL is measured.
+    private static final int FULL_SAMPLE_COUNT = 64;
+    private static final int SAMPLE_INTERVAL = 8;
+
+    private final long connectionBudget;
+    private final long consumerBudget;
+    private final ServiceBusJmsMetrics metrics;
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    /**
+     * @param connectionBudget The maximum bytes of prefetched messages of all consumers of the connection, 0 for no limit.
+     * @param consumerBudget The maximum bytes of prefetched messages of one consumer, 0 for no limit.
+     */
+    PrefetchMemoryBudget(long connectionBudget, long consumerBudget, ServiceBusJmsMetrics metrics) {
+        this.connectionBudget = connectionBudget;
+        this.consumerBudget = consumerBudget;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return Whether a budget is configured at all.
+     */
+    boolean isEnabled() {
+        return this.connectionBudget > 0 || this.consumerBudget > 0;
+    }
+
+    /**
+     * @return The bytes the prefetch of all consumers of the connection may take according to their size estimates.
+     */
+    long getReservedBytes() {
+        return this.reservedBytes.get();
+    }
+
+    Reservation reserve() {
+        return new Reservation();
+    }
+
+    /**
+     * @return The size of the message as the broker sent it. qpid keeps only the decoded sections, so they are encoded again,
+     *         which is why only a sample of the messages is measured. Messages of other providers are estimated.
+     */
+    static long encodedSize(Message message) throws JMSException {
+        if (message instanceof JmsMessage && ((JmsMessage) message).getFacade() instanceof AmqpJmsMessageFacade) {
+            ByteBuf encoded = ((AmqpJmsMessageFacade) ((JmsMessage) message).getFacade()).encodeMessage();
+            try {
+                return encoded.readableBytes();
+            } finally {
+                encoded.release();
+            }
+        }
+
+        return MessageSizeEstimator.estimate(message);
+    }
+
+    /**
+     * The share of the budget held by one consumer. Like the consumer, it is used by one thread at a time.
+     */
+    final class Reservation implements AutoCloseable {
+        private volatile long sizeEstimate = ASSUMED_MESSAGE_SIZE;
+        private long messageCount;
+        private long bytes;
+        private boolean closed;
+
+        /**
+         * Update the size estimate from a received message.
+         */
+        void onMessage(Message message) throws JMSException {
+            this.messageCount++;
+            if (this.messageCount > FULL_SAMPLE_COUNT && this.messageCount % SAMPLE_INTERVAL != 0) {
+                return;
+            }
+
+            // The first message replaces the assumed size, it is not a measurement to decay from.
+            long size = encodedSize(message);
+            long estimate = this.sizeEstimate;
+            this.sizeEstimate = size >= estimate || this.messageCount == 1 ? size : estimate - (long) ((estimate - size) * SIZE_DECAY);
+        }
+
+        /**
+         * @return The bytes one prefetched message of this consumer is charged with.
+         */
+        long getSizeEstimate() {
+            return this.sizeEstimate;
+        }
+
+        /**
+         * @return The highest prefetch the budget allows this consumer, not counting what this consumer holds already.
+         */
+        int getPrefetchLimit() {
+            long size = Math.max(1, this.sizeEstimate);
+            long limit = Integer.MAX_VALUE;
+            if (consumerBudget > 0) {
+                limit = Math.min(limit, consumerBudget / size);
+            }
+
+            if (connectionBudget > 0) {
+                long available = connectionBudget - (reservedBytes.get() - this.bytes);
+                limit = Math.min(limit, Math.max(0, available) / size);
+            }
+
+            return (int) limit;
+        }
+
+        /**
+         * Record the prefetch the consumer now runs with.
+         */
+        synchronized void onPrefetch(int prefetch) {
+            if (this.closed) {
+                return;
+            }
+
+            long newBytes = prefetch * this.sizeEstimate;
+            reservedBytes.addAndGet(newBytes - this.bytes);
+            metrics.onPrefetchReservation(newBytes - this.bytes);
+            this.bytes = newBytes;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+            reservedBytes.addAndGet(-this.bytes);
+            metrics.onPrefetchReservation(-this.bytes);
+            this.bytes = 0;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.azure.core.credential.AccessToken;
+
+/**
+ * Provides Shared Access Signature tokens, either signed locally from a shared access key or taken as-is from a pre-generated token.
+ * <p>
+ * Signed tokens are cached per resource URI and re-signed once less than a fifth of their lifetime is left,
+ * so opening a connection or renewing a token over CBS does not pay for an HMAC computation every time.
+ */
+class SasTokenProvider implements CbsTokenProvider {
+    static final String SAS_TOKEN_TYPE = "servicebus.windows.net:sastoken";
+    private static final String SAS_TOKEN_PREFIX = "SharedAccessSignature";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String EXPIRY_FIELD = "se";
+
+    private final String keyName;
+    private final ThreadLocal<Mac> mac;
+    private final long tokenTimeToLiveMS;
+    private final AccessToken sharedAccessSignature;
+    private final ConcurrentMap<String, AccessToken> tokens = new ConcurrentHashMap<>();
+
+    /**
+     * Create a provider that signs tokens with the given shared access key.
+     * @param keyName The Shared access policy name.
+     * @param key The Shared access policy key.
+     * @param tokenTimeToLiveMS The lifetime of the signed tokens in milliseconds.
+     */
+    SasTokenProvider(String keyName, String key, long tokenTimeToLiveMS) {
+        if (keyName == null || key == null) {
+            throw new IllegalArgumentException("The shared access key name and key cannot be null.");
+        }
+
+        if (tokenTimeToLiveMS < 1000) {
+            throw new IllegalArgumentException("The SAS token time to live must be at least one second.");
+        }
+
+        SecretKeySpec secretKey = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.keyName = keyName;
+        this.tokenTimeToLiveMS = tokenTimeToLiveMS;
+        this.sharedAccessSignature = null;
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+                instance.init(secretKey);
+                return instance;
+            } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                throw new RuntimeException("Failed to initialize " + HMAC_ALGORITHM + " for SAS token signing.", e);
+            }
+        });
+
+        // Fail on an unusable key now rather than on the first connection open.
+        this.mac.get();
+    }
+
+    /**
+     * Create a provider that hands out a pre-generated token. Such a token cannot be renewed, connections using it fail once it expires.
+     * @param sharedAccessSignature The token, for example SharedAccessSignature sr=...&amp;sig=...&amp;se=...&amp;skn=...
+     */
+    SasTokenProvider(String sharedAccessSignature) {
+        if (sharedAccessSignature == null || !sharedAccessSignature.startsWith(SAS_TOKEN_PREFIX)) {
+            throw new IllegalArgumentException("The shared access signature token must start with " + SAS_TOKEN_PREFIX + ".");
+        }
+
+        this.keyName = null;
+        this.mac = null;
+        this.tokenTimeToLiveMS = 0;
+        this.sharedAccessSignature = new AccessToken(sharedAccessSignature, parseExpiry(sharedAccessSignature));
+    }
+
+    @Override
+    public String getTokenType() {
+        return SAS_TOKEN_TYPE;
+    }
+
+    @Override
+    public AccessToken getToken(String audience) {
+        if (this.sharedAccessSignature != null) {
+            return this.sharedAccessSignature;
+        }
+
+        AccessToken token = this.tokens.get(audience);
+        if (token == null || needsRenewal(token, this.tokenTimeToLiveMS)) {
+            token = this.sign(audience);
+            this.tokens.put(audience, token);
+        }
+
+        return token;
+    }
+
+    private AccessToken sign(String audience) {
+        long expiresAt = (System.currentTimeMillis() + this.tokenTimeToLiveMS) / 1000;
+        String encodedAudience = encode(audience);
+        String stringToSign = encodedAudience + "\n" + expiresAt;
+        byte[] signature = this.mac.get().doFinal(stringToSign.getBytes(StandardCharsets.UTF_8));
+        String token = SAS_TOKEN_PREFIX
+            + " sr=" + encodedAudience
+            + "&sig=" + encode(Base64.getEncoder().encodeToString(signature))
+            + "&" + EXPIRY_FIELD + "=" + expiresAt
+            + "&skn=" + encode(this.keyName);
+        return new AccessToken(token, OffsetDateTime.ofInstant(Instant.ofEpochSecond(expiresAt), ZoneOffset.UTC));
+    }
+
+    private static boolean needsRenewal(AccessToken token, long tokenTimeToLiveMS) {
+        long remaining = token.getExpiresAt().toInstant().toEpochMilli() - System.currentTimeMillis();
+        return remaining < tokenTimeToLiveMS / 5;
+    }
+
+    private static OffsetDateTime parseExpiry(String sharedAccessSignature) {
+        String fields = sharedAccessSignature.substring(SAS_TOKEN_PREFIX.length()).trim();
+        for (String field : fields.split("&")) {
+            int separator = field.indexOf('=');
+            if (separator > 0 && field.substring(0, separator).equalsIgnoreCase(EXPIRY_FIELD)) {
+                try {
+                    long expiresAt = Long.parseLong(decode(field.substring(separator + 1)));
+                    return OffsetDateTime.ofInstant(Instant.ofEpochSecond(expiresAt), ZoneOffset.UTC);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("The expiry of the shared access signature token is not a number.", e);
+                }
+            }
+        }
+
+        throw new IllegalArgumentException("The shared access signature token has no expiry.");
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
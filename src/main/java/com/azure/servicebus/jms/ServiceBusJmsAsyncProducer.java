@@ -0,0 +1,125 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.concurrent.CompletableFuture;
+
+import jakarta.jms.CompletionListener;
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+
+/**
+ * A producer whose sends return as soon as the message is written to the connection, with a future that completes
+ * once the broker settled the message. This pipelines sends over a high-latency link instead of waiting one round trip per message.
+ * <p>
+ * The number of unsettled messages is bounded both per producer and per connection, see the maxInFlightSendsPerProducer and
+ * maxInFlightSendsPerConnection settings. Once a bound is reached, sendAsync waits for a slot or fails with a ResourceAllocationException,
+ * depending on the blockIfSendWindowIsFull setting. Create one with ServiceBusJmsSession#createAsyncProducer.
+ * Like the session it belongs to, an async producer must not be used by several threads at once, the futures may be completed on any thread.
+ */
+public final class ServiceBusJmsAsyncProducer implements AutoCloseable {
+    private final MessageProducer producer;
+    private final InFlightWindow producerWindow;
+    private final InFlightWindow connectionWindow;
+    private final ServiceBusJmsConnectionFactorySettings settings;
+    private final ServiceBusJmsMetrics metrics;
+
+    ServiceBusJmsAsyncProducer(MessageProducer producer, InFlightWindow connectionWindow, ServiceBusJmsConnectionFactorySettings settings, ServiceBusJmsMetrics metrics) {
+        this.producer = producer;
+        this.producerWindow = new InFlightWindow("producer", settings.getMaxInFlightSendsPerProducer(), metrics);
+        this.connectionWindow = connectionWindow;
+        this.settings = settings;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Send a message to the destination of this producer.
+     * @param message The message to send. It must not be modified until the returned future completes.
+     * @return A future completed once the broker accepted the message, or completed exceptionally if the send failed.
+     * @throws JMSException If the send could not be started, for example because the send window is full.
+     */
+    public CompletableFuture<Void> sendAsync(Message message) throws JMSException {
+        return this.sendAsync(null, message);
+    }
+
+    /**
+     * Send a message to the given destination. Only valid for a producer created without a destination.
+     * @param destination The destination to send the message to.
+     * @param message The message to send. It must not be modified until the returned future completes.
+     * @return A future completed once the broker accepted the message, or completed exceptionally if the send failed.
+     * @throws JMSException If the send could not be started, for example because the send window is full.
+     */
+    public CompletableFuture<Void> sendAsync(Destination destination, Message message) throws JMSException {
+        boolean block = this.settings.shouldBlockIfSendWindowIsFull();
+        long timeoutMS = this.settings.getBlockIfSendWindowIsFullTimeoutMS();
+        this.producerWindow.acquire(block, timeoutMS);
+        try {
+            this.connectionWindow.acquire(block, timeoutMS);
+        } catch (JMSException e) {
+            this.producerWindow.release();
+            throw e;
+        }
+
+        this.metrics.onAsyncSendStarted();
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        CompletionListener listener = new CompletionListener() {
+            @Override
+            public void onCompletion(Message message) {
+                release();
+                metrics.onAsyncSendCompleted();
+                future.complete(null);
+            }
+
+            @Override
+            public void onException(Message message, Exception exception) {
+                release();
+                metrics.onAsyncSendFailed();
+                future.completeExceptionally(exception);
+            }
+        };
+
+        try {
+            if (destination == null) {
+                this.producer.send(message, listener);
+            } else {
+                this.producer.send(destination, message, listener);
+            }
+        } catch (JMSException | RuntimeException e) {
+            this.release();
+            this.metrics.onAsyncSendFailed();
+            throw e;
+        }
+
+        return future;
+    }
+
+    /**
+     * @return The number of messages sent by this producer that the broker has not settled yet.
+     */
+    public int getInFlightCount() {
+        return this.producerWindow.getInFlightCount();
+    }
+
+    /**
+     * @return The underlying producer, used to read or change the delivery mode, priority, time to live and delivery delay of sends.
+     */
+    public MessageProducer getProducer() {
+        return this.producer;
+    }
+
+    /**
+     * Close the producer. Sends that are still in flight are completed or failed before this returns.
+     */
+    @Override
+    public void close() throws JMSException {
+        this.producer.close();
+    }
+
+    private void release() {
+        this.connectionWindow.release();
+        this.producerWindow.release();
+    }
+}
@@ -0,0 +1,134 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipeline;
+import com.azure.core.http.HttpPipelineBuilder;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.BearerTokenAuthenticationPolicy;
+import com.azure.core.http.policy.RetryPolicy;
+import com.azure.core.util.Context;
+
+/**
+ * A payload store keeping each body in a block blob of an Azure Storage container.
+ * The blobs are written and read through the Blob REST API, so the application does not need the Storage SDK.
+ * Throttled and failed requests are retried with the exponential backoff of the Azure SDK.
+ */
+public final class ServiceBusJmsBlobPayloadStore implements ServiceBusJmsPayloadStore {
+    private static final String STORAGE_SCOPE = "https://storage.azure.com/.default";
+    private static final String API_VERSION = "2021-08-06";
+    private static final HttpHeaderName VERSION_HEADER = HttpHeaderName.fromString("x-ms-version");
+    private static final HttpHeaderName BLOB_TYPE_HEADER = HttpHeaderName.fromString("x-ms-blob-type");
+    private static final Pattern REFERENCE_PATTERN = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private final String containerUrl;
+    private final String query;
+    private final HttpPipeline pipeline;
+
+    /**
+     * @param containerSasUrl The URL of the container with a SAS token granting create and read permissions,
+     *                        for example https://account.blob.core.windows.net/payloads?sv=...
+     */
+    public ServiceBusJmsBlobPayloadStore(String containerSasUrl) {
+        this(containerSasUrl, new HttpPipelineBuilder().policies(new RetryPolicy()).build());
+    }
+
+    /**
+     * @param containerUrl The URL of the container, for example https://account.blob.core.windows.net/payloads
+     * @param credential The credential to authenticate with, it needs the Storage Blob Data Contributor role on the container.
+     */
+    public ServiceBusJmsBlobPayloadStore(String containerUrl, TokenCredential credential) {
+        this(containerUrl, createPipeline(credential));
+    }
+
+    private ServiceBusJmsBlobPayloadStore(String containerUrl, HttpPipeline pipeline) {
+        if (containerUrl == null) {
+            throw new IllegalArgumentException("containerUrl cannot be null.");
+        }
+
+        int queryStart = containerUrl.indexOf('?');
+        String path = queryStart < 0 ? containerUrl : containerUrl.substring(0, queryStart);
+        this.containerUrl = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        this.query = queryStart < 0 ? "" : containerUrl.substring(queryStart);
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    public String store(byte[] payload, int length) throws IOException {
+        String reference = UUID.randomUUID().toString();
+        HttpRequest request = new HttpRequest(HttpMethod.PUT, this.getBlobUrl(reference))
+            .setHeader(VERSION_HEADER, API_VERSION)
+            .setHeader(BLOB_TYPE_HEADER, "BlockBlob")
+            .setBody(length == payload.length ? payload : Arrays.copyOf(payload, length));
+        try (HttpResponse response = this.send(request)) {
+            if (response.getStatusCode() != 201) {
+                throw new IOException("Storing the payload failed with status " + response.getStatusCode() + ": " + response.getBodyAsString().block());
+            }
+        }
+
+        return reference;
+    }
+
+    @Override
+    public InputStream open(String reference) throws IOException {
+        // References arrive with received messages, anything but a name this store handed out could point to another blob.
+        if (reference == null || !REFERENCE_PATTERN.matcher(reference).matches()) {
+            throw new IOException("Invalid payload reference " + reference + ".");
+        }
+
+        HttpRequest request = new HttpRequest(HttpMethod.GET, this.getBlobUrl(reference)).setHeader(VERSION_HEADER, API_VERSION);
+        HttpResponse response = this.send(request);
+        if (response.getStatusCode() != 200) {
+            try {
+                throw new IOException("Opening the payload " + reference + " failed with status " + response.getStatusCode() + ".");
+            } finally {
+                response.close();
+            }
+        }
+
+        return new FilterInputStream(response.getBodyAsBinaryData().toStream()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    response.close();
+                }
+            }
+        };
+    }
+
+    private static HttpPipeline createPipeline(TokenCredential credential) {
+        if (credential == null) {
+            throw new IllegalArgumentException("credential cannot be null.");
+        }
+
+        return new HttpPipelineBuilder().policies(new RetryPolicy(), new BearerTokenAuthenticationPolicy(credential, STORAGE_SCOPE)).build();
+    }
+
+    private String getBlobUrl(String reference) {
+        return this.containerUrl + "/" + reference + this.query;
+    }
+
+    private HttpResponse send(HttpRequest request) throws IOException {
+        try {
+            return this.pipeline.sendSync(request, Context.NONE);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+/**
+ * The codecs message bodies can be compressed with, see ServiceBusJmsConnectionFactorySettings#setPayloadCompression.
+ */
+public enum ServiceBusJmsCompressionCodec {
+    /**
+     * gzip as described by RFC 1952, readable by any platform. Compresses best of the codecs but costs the most CPU.
+     */
+    GZIP("gzip"),
+    /**
+     * The raw Snappy format, which trades some compression for much less CPU. Uses the pure Java implementation of Netty.
+     */
+    SNAPPY("snappy"),
+    /**
+     * Zstandard, which compresses close to gzip at a fraction of its CPU. Requires com.github.luben:zstd-jni on the classpath.
+     */
+    ZSTD("zstd");
+
+    private final String encoding;
+
+    ServiceBusJmsCompressionCodec(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * @return The value of the content encoding property of messages compressed with this codec.
+     */
+    public String getEncoding() {
+        return this.encoding;
+    }
+
+    static ServiceBusJmsCompressionCodec fromEncoding(String encoding) {
+        for (ServiceBusJmsCompressionCodec codec : values()) {
+            if (codec.encoding.equalsIgnoreCase(encoding)) {
+                return codec;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,313 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.CompletionListener;
+import jakarta.jms.Connection;
+import jakarta.jms.Destination;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+
+/**
+ * A producer that may be shared by any number of threads. JMS sessions are single-threaded, so without it every thread that sends
+ * needs its own session and producer, or all of them serialize on one.
+ * <p>
+ * Sends are handed over to a few dispatcher threads, each owning a session and producer of the connection, see the
+ * concurrentProducerSessions setting. A send only enqueues the message on a lock-free queue of the dispatcher picked for the calling
+ * thread and returns a future. The dispatcher drains its queue and writes the messages back to back without waiting for the broker,
+ * so the transfers of many callers are pipelined over its link. The messages of one thread are sent in order, messages of different
+ * threads may be sent in any order.
+ * <p>
+ * The number of unsettled messages is bounded like for a ServiceBusJmsAsyncProducer, by the maxInFlightSendsPerProducer and
+ * maxInFlightSendsPerConnection settings. Once a bound is reached, sendAsync waits for a slot or fails with a ResourceAllocationException,
+ * depending on the blockIfSendWindowIsFull setting.
+ */
+public final class ServiceBusJmsConcurrentProducer implements AutoCloseable {
+    private final Session messageSession;
+    private final Dispatcher[] dispatchers;
+    private final InFlightWindow producerWindow;
+    private final InFlightWindow connectionWindow;
+    private final ServiceBusJmsConnectionFactorySettings settings;
+    private final ServiceBusJmsMetrics metrics;
+    private volatile boolean closed;
+
+    /**
+     * Create the sessions and producer links of the dispatchers and start their threads.
+     * @param connection A connection created by a ServiceBusJmsConnectionFactory.
+     * @param destination The destination to send to, or null to pass the destination on each send.
+     * @throws JMSException If a session or producer link cannot be created.
+     */
+    public ServiceBusJmsConcurrentProducer(Connection connection, Destination destination) throws JMSException {
+        if (!(connection instanceof ServiceBusJmsConnection)) {
+            throw new IllegalArgumentException("connection must be created by a ServiceBusJmsConnectionFactory.");
+        }
+
+        ServiceBusJmsConnection serviceBusConnection = (ServiceBusJmsConnection) connection;
+        this.settings = serviceBusConnection.getSettings();
+        this.metrics = serviceBusConnection.getMetrics();
+        this.producerWindow = new InFlightWindow("producer", this.settings.getMaxInFlightSendsPerProducer(), this.metrics);
+        this.connectionWindow = serviceBusConnection.getSendWindow();
+        this.dispatchers = new Dispatcher[this.settings.getConcurrentProducerSessions()];
+        this.messageSession = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        try {
+            for (int i = 0; i < this.dispatchers.length; i++) {
+                Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+                try {
+                    this.dispatchers[i] = new Dispatcher(session, session.createProducer(destination), i);
+                } catch (JMSException | RuntimeException e) {
+                    session.close();
+                    throw e;
+                }
+            }
+        } catch (JMSException | RuntimeException e) {
+            this.close();
+            throw e;
+        }
+
+        for (Dispatcher dispatcher : this.dispatchers) {
+            dispatcher.thread.start();
+        }
+    }
+
+    /**
+     * Message creation does not touch the state of the session, so these may be called from any thread.
+     * @return A new, empty message.
+     */
+    public Message createMessage() throws JMSException {
+        return this.messageSession.createMessage();
+    }
+
+    /**
+     * @param text The body of the message.
+     * @return A new TextMessage, see createMessage.
+     */
+    public TextMessage createTextMessage(String text) throws JMSException {
+        return this.messageSession.createTextMessage(text);
+    }
+
+    /**
+     * @param body The body of the message.
+     * @return A new BytesMessage, see createMessage.
+     */
+    public BytesMessage createBytesMessage(byte[] body) throws JMSException {
+        BytesMessage message = this.messageSession.createBytesMessage();
+        message.writeBytes(body);
+        return message;
+    }
+
+    /**
+     * Send a message to the destination of this producer.
+     * @param message The message to send. It must not be modified until the returned future completes.
+     * @return A future completed once the broker accepted the message, or completed exceptionally if the send failed.
+     * @throws JMSException If the send could not be started, for example because the send window is full or the producer is closed.
+     */
+    public CompletableFuture<Void> sendAsync(Message message) throws JMSException {
+        return this.sendAsync(null, message);
+    }
+
+    /**
+     * Send a message to the given destination. Only valid for a producer created without a destination.
+     * @param destination The destination to send the message to.
+     * @param message The message to send. It must not be modified until the returned future completes.
+     * @return A future completed once the broker accepted the message, or completed exceptionally if the send failed.
+     * @throws JMSException If the send could not be started, for example because the send window is full or the producer is closed.
+     */
+    public CompletableFuture<Void> sendAsync(Destination destination, Message message) throws JMSException {
+        this.checkClosed();
+        boolean block = this.settings.shouldBlockIfSendWindowIsFull();
+        long timeoutMS = this.settings.getBlockIfSendWindowIsFullTimeoutMS();
+        this.producerWindow.acquire(block, timeoutMS);
+        try {
+            this.connectionWindow.acquire(block, timeoutMS);
+        } catch (JMSException e) {
+            this.producerWindow.release();
+            throw e;
+        }
+
+        this.metrics.onAsyncSendStarted();
+        PendingSend send = new PendingSend(destination, message);
+        // Picking the dispatcher by thread keeps the messages of each thread in order.
+        Dispatcher dispatcher = this.dispatchers[(int) (Thread.currentThread().getId() % this.dispatchers.length)];
+        dispatcher.enqueue(send);
+        if (this.closed) {
+            // close may have drained the queue before the send got in, after the dispatcher stopped.
+            dispatcher.failQueued();
+        }
+
+        return send.future;
+    }
+
+    /**
+     * @return The number of messages sent by this producer that the broker has not settled yet, including those still queued.
+     */
+    public int getInFlightCount() {
+        return this.producerWindow.getInFlightCount();
+    }
+
+    /**
+     * Close the producer. Messages already passed to sendAsync are sent and completed or failed before this returns,
+     * a sendAsync racing with close may fail its future with an IllegalStateException instead.
+     */
+    @Override
+    public void close() throws JMSException {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        for (Dispatcher dispatcher : this.dispatchers) {
+            if (dispatcher != null) {
+                LockSupport.unpark(dispatcher.thread);
+            }
+        }
+
+        List<JMSException> failures = new ArrayList<>();
+        for (Dispatcher dispatcher : this.dispatchers) {
+            if (dispatcher == null) {
+                continue;
+            }
+
+            try {
+                if (dispatcher.thread.isAlive()) {
+                    dispatcher.thread.join();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            dispatcher.failQueued();
+            try {
+                dispatcher.session.close();
+            } catch (JMSException e) {
+                failures.add(e);
+            }
+        }
+
+        this.messageSession.close();
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+    }
+
+    private void checkClosed() throws JMSException {
+        if (this.closed) {
+            throw new IllegalStateException("The producer is closed.");
+        }
+    }
+
+    private void release() {
+        this.connectionWindow.release();
+        this.producerWindow.release();
+    }
+
+    private final class PendingSend implements CompletionListener {
+        private final Destination destination;
+        private final Message message;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        PendingSend(Destination destination, Message message) {
+            this.destination = destination;
+            this.message = message;
+        }
+
+        @Override
+        public void onCompletion(Message message) {
+            release();
+            metrics.onAsyncSendCompleted();
+            this.future.complete(null);
+        }
+
+        @Override
+        public void onException(Message message, Exception exception) {
+            release();
+            metrics.onAsyncSendFailed();
+            this.future.completeExceptionally(exception);
+        }
+    }
+
+    /**
+     * Drains one multi-producer, single-consumer queue into one producer link. The size counter tells senders when the dispatcher
+     * may be parked: only the send that moves it away from 0 has to wake the thread.
+     */
+    private final class Dispatcher implements Runnable {
+        private final Session session;
+        private final MessageProducer producer;
+        private final Queue<PendingSend> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final Thread thread;
+
+        Dispatcher(Session session, MessageProducer producer, int index) {
+            this.session = session;
+            this.producer = producer;
+            this.thread = new Thread(this, "ServiceBusJmsConcurrentProducer-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void enqueue(PendingSend send) {
+            this.queue.offer(send);
+            if (this.size.getAndIncrement() == 0) {
+                LockSupport.unpark(this.thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                int drained = 0;
+                PendingSend send;
+                while ((send = this.queue.poll()) != null) {
+                    this.dispatch(send);
+                    drained++;
+                }
+
+                if (this.size.addAndGet(-drained) != 0) {
+                    continue;
+                }
+
+                if (closed) {
+                    return;
+                }
+
+                LockSupport.park(this);
+            }
+        }
+
+        /**
+         * Fail the sends a sendAsync racing with close enqueued after the dispatcher stopped, rather than leave them pending.
+         * Each send is taken off the queue once, so a send the dispatcher still takes is sent and not failed.
+         */
+        void failQueued() {
+            PendingSend send;
+            while ((send = this.queue.poll()) != null) {
+                this.size.decrementAndGet();
+                send.onException(send.message, new IllegalStateException("The producer is closed."));
+            }
+        }
+
+        private void dispatch(PendingSend send) {
+            try {
+                if (send.destination == null) {
+                    this.producer.send(send.message, send);
+                } else {
+                    this.producer.send(send.destination, send.message, send);
+                }
+            } catch (JMSException | RuntimeException e) {
+                send.onException(send.message, e);
+            }
+        }
+    }
+}
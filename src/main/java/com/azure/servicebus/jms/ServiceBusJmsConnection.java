@@ -3,6 +3,9 @@
 
 package com.azure.servicebus.jms;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import jakarta.jms.Connection;
 import jakarta.jms.ConnectionConsumer;
 import jakarta.jms.ConnectionMetaData;
@@ -13,29 +16,96 @@ import jakarta.jms.ServerSessionPool;
 import jakarta.jms.Session;
 import jakarta.jms.Topic;
 
+/**
+ * The Connection handed out by a ServiceBusJmsConnectionFactory. With the connectionShardCount setting, its sessions are spread
+ * over several physical connections, see ConnectionShards.
+ */
 class ServiceBusJmsConnection implements Connection {
     private final Connection innerConnection;
-
-    ServiceBusJmsConnection(Connection innerConnection) {
-        this.innerConnection = innerConnection;
+    private final ConnectionShards shards;
+    private final Map<Session, ConnectionShards.Shard> sessionShards = new ConcurrentHashMap<>();
+    private final ServiceBusJmsConnectionFactorySettings settings;
+    private final ServiceBusJmsMetrics metrics;
+    private final InFlightWindow sendWindow;
+    private final PrefetchMemoryBudget prefetchBudget;
+    private final DestinationCache destinationCache;
+
+    /**
+     * @param primary The physical connection handed out first, which also serves everything that is not tied to a session.
+     * @param destinationCache The queues and topics shared by the connections and contexts of the factory.
+     * @param shardOpener Opens further physical connections to spread sessions over, null to keep all sessions on the primary one.
+     */
+    ServiceBusJmsConnection(ConnectionShards.Shard primary, ServiceBusJmsConnectionFactorySettings settings, ServiceBusJmsMetrics metrics,
+            DestinationCache destinationCache, ConnectionShards.Opener shardOpener) {
+        this.innerConnection = primary.getConnection();
+        this.shards = new ConnectionShards(primary, settings.getConnectionShardCount(), settings.getConnectionShardPlacement(), shardOpener);
+        this.settings = settings;
+        this.metrics = metrics;
+        this.destinationCache = destinationCache;
+        this.sendWindow = new InFlightWindow("connection", settings.getMaxInFlightSendsPerConnection(), metrics);
+        this.prefetchBudget = new PrefetchMemoryBudget(settings.getMaxPrefetchedBytesPerConnection(), settings.getMaxPrefetchedBytesPerConsumer(), metrics);
     }
     
     @Override
     public Session createSession(boolean transacted, int acknowledgeMode) throws JMSException {
-        Session innerSession = this.innerConnection.createSession(transacted, acknowledgeMode);
-        return new ServiceBusJmsSession(innerSession);
+        return this.createSessionOnShard(shard -> new ServiceBusJmsSession(shard.createSession(transacted, acknowledgeMode), this));
     }
 
     @Override
     public Session createSession(int sessionMode) throws JMSException {
-        Session innerSession = this.innerConnection.createSession(sessionMode);
-        return new ServiceBusJmsSession(innerSession);
+        return this.createSessionOnShard(shard -> new ServiceBusJmsSession(shard.createSession(sessionMode), this));
     }
 
     @Override
     public Session createSession() throws JMSException {
-        Session innerSession = this.innerConnection.createSession();
-        return new ServiceBusJmsSession(innerSession);
+        return this.createSessionOnShard(shard -> new ServiceBusJmsSession(shard.createSession(), this));
+    }
+
+    /**
+     * Create a session on the physical connection the placement picks.
+     */
+    <T extends ServiceBusJmsSession> T createSessionOnShard(SessionCreator<T> creator) throws JMSException {
+        ConnectionShards.Shard shard = this.shards.place();
+        try {
+            T session = creator.create(shard.getConnection());
+            this.sessionShards.put(session, shard);
+            return session;
+        } catch (JMSException | RuntimeException e) {
+            this.shards.release(shard);
+            throw e;
+        }
+    }
+
+    void onSessionClosed(ServiceBusJmsSession session) {
+        ConnectionShards.Shard shard = this.sessionShards.remove(session);
+        if (shard != null) {
+            this.shards.release(shard);
+        }
+    }
+
+    /**
+     * @return Whether the session runs on the primary physical connection, which owns all temporary destinations.
+     */
+    boolean isOnPrimary(ServiceBusJmsSession session) {
+        return this.sessionShards.get(session) == this.shards.getPrimary();
+    }
+
+    /**
+     * Create the session in INDIVIDUAL_ACKNOWLEDGE mode the consumers of a session run on, on the same physical connection,
+     * see SessionAcknowledgement. It is not counted by the placement.
+     */
+    Session createConsumerSession(ServiceBusJmsSession session) throws JMSException {
+        ConnectionShards.Shard shard = this.sessionShards.get(session);
+        Connection physicalConnection = shard != null ? shard.getConnection() : this.innerConnection;
+        return physicalConnection.createSession(false, ServiceBusJmsMessageConsumer.INDIVIDUAL_ACKNOWLEDGE);
+    }
+
+    /**
+     * Create a session on the primary physical connection for a session placed on another one, to create and consume temporary destinations.
+     * It is not counted by the placement.
+     */
+    Session createPrimarySession(int acknowledgeMode) throws JMSException {
+        return this.innerConnection.createSession(false, acknowledgeMode);
     }
 
     @Override
@@ -46,6 +116,7 @@ class ServiceBusJmsConnection implements Connection {
     @Override
     public void setClientID(String clientID) throws JMSException {
         this.innerConnection.setClientID(clientID);
+        this.shards.pinToPrimary();
     }
 
     @Override
@@ -55,27 +126,28 @@ class ServiceBusJmsConnection implements Connection {
 
     @Override
     public ExceptionListener getExceptionListener() throws JMSException {
-        return this.innerConnection.getExceptionListener();
+        return this.shards.getExceptionListener();
     }
 
     @Override
     public void setExceptionListener(ExceptionListener listener) throws JMSException {
-        this.innerConnection.setExceptionListener(listener);
+        this.shards.setExceptionListener(listener);
     }
 
     @Override
     public void start() throws JMSException {
-        this.innerConnection.start();
+        this.shards.start();
     }
 
     @Override
     public void stop() throws JMSException {
-        this.innerConnection.stop();
+        this.shards.stop();
     }
 
     @Override
     public void close() throws JMSException {
-        this.innerConnection.close();
+        this.sessionShards.clear();
+        this.shards.close();
     }
 
     @Override
@@ -101,4 +173,35 @@ class ServiceBusJmsConnection implements Connection {
             String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
         return this.innerConnection.createSharedConnectionConsumer(topic, subscriptionName, messageSelector, sessionPool, maxMessages);
     }
+
+    ServiceBusJmsConnectionFactorySettings getSettings() {
+        return this.settings;
+    }
+
+    ServiceBusJmsMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    DestinationCache getDestinationCache() {
+        return this.destinationCache;
+    }
+
+    InFlightWindow getSendWindow() {
+        return this.sendWindow;
+    }
+
+    PrefetchMemoryBudget getPrefetchBudget() {
+        return this.prefetchBudget;
+    }
+
+    /**
+     * @return The number of physical connections opened so far.
+     */
+    int getShardCount() {
+        return this.shards.getShardCount();
+    }
+
+    interface SessionCreator<T extends ServiceBusJmsSession> {
+        T create(Connection shard) throws JMSException;
+    }
 }
@@ -4,14 +4,18 @@
 package com.azure.servicebus.jms;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.UnknownHostException;
 import java.util.Collections;
 import java.util.HashMap;
 
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 import jakarta.jms.Connection;
 import jakarta.jms.ConnectionFactory;
@@ -24,6 +28,7 @@ import jakarta.jms.TopicConnectionFactory;
 
 import org.apache.qpid.jms.JmsConnectionExtensions;
 import org.apache.qpid.jms.JmsConnectionFactory;
+import org.apache.qpid.jms.policy.JmsDefaultPrefetchPolicy;
 import org.apache.qpid.jms.policy.JmsPrefetchPolicy;
 
 import com.azure.core.credential.TokenCredential;
@@ -37,10 +42,23 @@ public class ServiceBusJmsConnectionFactory extends JNDIStorable implements Conn
     private static final String CONNECTION_STRING_PROPERTY = "connectionString";
     private static final String CLIENT_ID_PROPERTY = "clientId";
     private static final int MAXCUSTOMUSERAGENTLENGTH = 128;
+    private static final String PLAIN_AMQP_PREFIX = "amqp://";
+    private static final String REQUEST_TIMEOUT_OPTION = "jms.requestTimeout";
+    private static final String SEND_TIMEOUT_OPTION = "jms.sendTimeout";
+    private static final Pattern IPV4_ADDRESS = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final int WEB_SOCKETS_PORT = 443;
+    private static final String WEB_SOCKETS_PATH = "/$servicebus/websocket";
 
     // AAD TOKEN properties
     private final String AAD_TOKEN_USERNAME = "$jwt";
     private AadAuthentication aadAuthentication;
+
+    // SAS TOKEN properties
+    private final String SAS_TOKEN_USERNAME = "$sas";
+    private CbsTokenProvider cbsTokenProvider;
+    private final ServiceBusJmsMetrics metrics = new ServiceBusJmsMetrics();
+    // Created with the first connection or context, from the destinationCacheSize setting at that time.
+    private DestinationCache destinationCache;
    
     //Common properties
     private ServiceBusJmsConnectionFactorySettings settings;
@@ -82,8 +100,9 @@ public class ServiceBusJmsConnectionFactory extends JNDIStorable implements Conn
         this.settings = settings;
         this.password = connectionStringBuilder.getSasKey();
         this.userName = connectionStringBuilder.getSasKeyName();
-        this.host = connectionStringBuilder.getEndpoint().getHost();
+        this.host = getHost(connectionStringBuilder.getEndpoint());
         this.initializeWithSas();
+        this.applyOperationTimeout();
     }
     
     /**
@@ -91,6 +110,8 @@ public class ServiceBusJmsConnectionFactory extends JNDIStorable implements Conn
      * @param sasKeyName The Shared access policy name.
      * @param sasKey The Shared access policy key.
      * @param host The host name of the ServiceBus namespace. Example: your-namespace-name.servicebus.windows.net
+     *             An amqp:// URI such as amqp://localhost:5672 connects without TLS, for example to a local emulator,
+     *             other hosts than the loopback address need the allowInsecureTransport setting.
      * @param settings The options used for this ConnectionFactory. Null can be used as default.
      */
     public ServiceBusJmsConnectionFactory(String sasKeyName, String sasKey, String host, ServiceBusJmsConnectionFactorySettings settings) {
@@ -105,11 +126,14 @@ public class ServiceBusJmsConnectionFactory extends JNDIStorable implements Conn
      * Create a ServiceBusJmsConnectionFactory using a credential and host name.
      * @param credential. A token provider credential that will be used to acquire an aad token.
      * @param host. The host name of the ServiceBus namespace. Example: your-namespace-name.servicebus.windows.net
+     *              An amqp:// URI such as amqp://localhost:5672 connects without TLS, for example to a local emulator,
+     *              other hosts than the loopback address need the allowInsecureTransport setting.
      * @param settings The options used for this ConnectionFactory. Null can be used as default.
      */
     public ServiceBusJmsConnectionFactory(TokenCredential credential, String host, ServiceBusJmsConnectionFactorySettings settings){
     	this.settings = settings;
     	this.aadAuthentication = new AadAuthentication(credential);
+    	this.cbsTokenProvider = this.aadAuthentication;
     	this.userName = AAD_TOKEN_USERNAME;
     	this.password = this.aadAuthentication.getAadToken();
     	this.host = host;	
@@ -131,7 +155,21 @@ public class ServiceBusJmsConnectionFactory extends JNDIStorable implements Conn
             this.settings = new ServiceBusJmsConnectionFactorySettings();
         }
 
-    	this.initialize(this.userName, this.password, this.host);
+        // The key name and key are kept as they are, the connection string builder below is made from them.
+        String connectionUserName = this.userName;
+        String connectionPassword = this.password;
+        SasTokenProvider sasTokenProvider = this.createSasTokenProvider();
+        if (sasTokenProvider != null) {
+            connectionUserName = SAS_TOKEN_USERNAME;
+            connectionPassword = sasTokenProvider.getToken(this.getCbsAudience()).getToken();
+        }
+
+    	this.initialize(connectionUserName, connectionPassword, this.host);
+    	if (sasTokenProvider != null) {
+    	    this.cbsTokenProvider = sasTokenProvider;
+    	    this.setExtensionsForSasToken(sasTokenProvider);
+    	}
+
     	if (this.builder == null) {
             try {
                 this.builder = new ConnectionStringBuilder(new URI(host), null, this.userName, this.password);
@@ -150,6 +188,7 @@ public class ServiceBusJmsConnectionFactory extends JNDIStorable implements Conn
 
         this.remoteConnectionUri = this.getServiceBusRemoteConnectionUri();
         this.factory = new JmsConnectionFactory(userName, password, this.remoteConnectionUri);
+        this.factory.setPrefetchPolicy(new ServiceBusJmsPrefetchPolicy((JmsDefaultPrefetchPolicy) this.factory.getPrefetchPolicy()));
 
         this.factory.setExtension(JmsConnectionExtensions.AMQP_OPEN_PROPERTIES.toString(), (connection, uri) -> {
             Map<String, Object> properties = new HashMap<>();
@@ -238,74 +277,100 @@ public class ServiceBusJmsConnectionFactory extends JNDIStorable implements Conn
         return this.factory.getPrefetchPolicy();
     }
 
+    /**
+     * @return The time in milliseconds blocking requests like link attach wait for the broker, 0 to wait indefinitely.
+     */
+    public long getRequestTimeout() {
+        return this.factory.getRequestTimeout();
+    }
+
+    /**
+     * @return The time in milliseconds a synchronous send waits for the broker to accept the message, 0 to wait indefinitely.
+     */
+    public long getSendTimeout() {
+        return this.factory.getSendTimeout();
+    }
+
+    /**
+     * @return The metrics of the connections created by this ConnectionFactory.
+     */
+    public ServiceBusJmsMetrics getMetrics() {
+        return this.metrics;
+    }
+
     @Override
     public Connection createConnection() throws JMSException {
         this.ensureInitialized();
-        Connection innerConnection = this.factory.createConnection();
-        return new ServiceBusJmsConnection(innerConnection);
+        ConnectionShards.Shard primary = this.newShard(this.factory.createConnection(), true);
+        return new ServiceBusJmsConnection(primary, this.settings, this.metrics, this.getDestinationCache(), this.getShardOpener(() -> this.newShard(this.factory.createConnection(), true)));
     }
 
     @Override
     public Connection createConnection(String userName, String password) throws JMSException {
         this.ensureInitialized();
-        Connection innerConnection = this.factory.createConnection(userName, password);
-        return new ServiceBusJmsConnection(innerConnection);
+        ConnectionShards.Shard primary = this.newShard(this.factory.createConnection(userName, password), false);
+        return new ServiceBusJmsConnection(primary, this.settings, this.metrics, this.getDestinationCache(),
+            this.getShardOpener(() -> this.newShard(this.factory.createConnection(userName, password), false)));
     }
 
     @Override
     public JMSContext createContext() {
         this.ensureInitialized();
         JMSContext innerContext = this.factory.createContext();
-        return new ServiceBusJmsContext(innerContext);
+        AtomicBoolean connectionStarted = new AtomicBoolean();
+        return new ServiceBusJmsContext(innerContext, this.settings, this.getDestinationCache(), this.startTokenRenewal(innerContext, connectionStarted), connectionStarted);
     }
 
     @Override
     public JMSContext createContext(int sessionMode) {
         this.ensureInitialized();
         JMSContext innerContext = this.factory.createContext(sessionMode);
-        return new ServiceBusJmsContext(innerContext);
+        AtomicBoolean connectionStarted = new AtomicBoolean();
+        return new ServiceBusJmsContext(innerContext, this.settings, this.getDestinationCache(), this.startTokenRenewal(innerContext, connectionStarted), connectionStarted);
     }
 
     @Override
     public JMSContext createContext(String userName, String password) {
         this.ensureInitialized();
         JMSContext innerContext = this.factory.createContext(userName, password);
-        return new ServiceBusJmsContext(innerContext);
+        return new ServiceBusJmsContext(innerContext, this.settings, this.getDestinationCache(), null, new AtomicBoolean());
     }
 
     @Override
     public JMSContext createContext(String userName, String password, int sessionMode) {
         this.ensureInitialized();
         JMSContext innerContext = this.factory.createContext(userName, password, sessionMode);
-        return new ServiceBusJmsContext(innerContext);
+        return new ServiceBusJmsContext(innerContext, this.settings, this.getDestinationCache(), null, new AtomicBoolean());
     }
 
     @Override
     public TopicConnection createTopicConnection() throws JMSException {
         this.ensureInitialized();
-        TopicConnection innerTopicConnection = this.factory.createTopicConnection();
-        return new ServiceBusJmsTopicConnection(innerTopicConnection);
+        ConnectionShards.Shard primary = this.newShard(this.factory.createTopicConnection(), true);
+        return new ServiceBusJmsTopicConnection(primary, this.settings, this.metrics, this.getDestinationCache(), this.getShardOpener(() -> this.newShard(this.factory.createTopicConnection(), true)));
     }
 
     @Override
     public TopicConnection createTopicConnection(String userName, String password) throws JMSException {
         this.ensureInitialized();
-        TopicConnection innerTopicConnection = this.factory.createTopicConnection(userName, password);
-        return new ServiceBusJmsTopicConnection(innerTopicConnection);
+        ConnectionShards.Shard primary = this.newShard(this.factory.createTopicConnection(userName, password), false);
+        return new ServiceBusJmsTopicConnection(primary, this.settings, this.metrics, this.getDestinationCache(),
+            this.getShardOpener(() -> this.newShard(this.factory.createTopicConnection(userName, password), false)));
     }
 
     @Override
     public QueueConnection createQueueConnection() throws JMSException {
         this.ensureInitialized();
-        QueueConnection innerQueueConnection = this.factory.createQueueConnection();
-        return new ServiceBusJmsQueueConnection(innerQueueConnection);
+        ConnectionShards.Shard primary = this.newShard(this.factory.createQueueConnection(), true);
+        return new ServiceBusJmsQueueConnection(primary, this.settings, this.metrics, this.getDestinationCache(), this.getShardOpener(() -> this.newShard(this.factory.createQueueConnection(), true)));
     }
 
     @Override
     public QueueConnection createQueueConnection(String userName, String password) throws JMSException {
         this.ensureInitialized();
-        QueueConnection innerQueueConnection = this.factory.createQueueConnection(userName, password);
-        return new ServiceBusJmsQueueConnection(innerQueueConnection);
+        ConnectionShards.Shard primary = this.newShard(this.factory.createQueueConnection(userName, password), false);
+        return new ServiceBusJmsQueueConnection(primary, this.settings, this.metrics, this.getDestinationCache(),
+            this.getShardOpener(() -> this.newShard(this.factory.createQueueConnection(userName, password), false)));
     }
     
     @Override
@@ -349,8 +414,9 @@ public class ServiceBusJmsConnectionFactory extends JNDIStorable implements Conn
         this.builder = new ConnectionStringBuilder(connectionString);
         this.password = this.builder.getSasKey();
         this.userName = this.builder.getSasKeyName(); 
-        this.host = this.builder.getEndpoint().getHost();
+        this.host = getHost(this.builder.getEndpoint());
         this.initializeWithSas();
+        this.applyOperationTimeout();
     
         // Need to wait until the inner factory is initialized in order to set the clientId
         if (!StringUtil.isNullOrEmpty(clientId)) {
@@ -377,7 +443,7 @@ public class ServiceBusJmsConnectionFactory extends JNDIStorable implements Conn
     
     private String getServiceBusRemoteConnectionUri()
     {
-        String hostUri = "amqps://" + this.host;
+        String hostUri = toHostUri(this.host);
         String amqpPerHostQuery = settings.getPerHostAmqpProviderQuery();
 
         if (!amqpPerHostQuery.isEmpty()) {
@@ -416,8 +482,7 @@ public class ServiceBusJmsConnectionFactory extends JNDIStorable implements Conn
         if (settings.getReconnectHosts() != null) {
             for (String reconnectHost: reconnectHosts) {
                 builder.append(",");
-                builder.append("amqps://");
-                builder.append(reconnectHost);
+                builder.append(toHostUri(reconnectHost));
                 if (!amqpPerHostQuery.isEmpty()) {
                     builder.append("?");
                     builder.append(amqpPerHostQuery);
@@ -429,12 +494,169 @@ public class ServiceBusJmsConnectionFactory extends JNDIStorable implements Conn
         return builder.toString();
     }
     
+    /**
+     * @return The queues and topics handed out by the sessions and contexts of this ConnectionFactory.
+     */
+    synchronized DestinationCache getDestinationCache() {
+        if (this.destinationCache == null) {
+            this.destinationCache = new DestinationCache(this.settings.getDestinationCacheSize());
+        }
+
+        return this.destinationCache;
+    }
+
     private void ensureInitialized() {
         if (!this.initialized) {
             throw new RuntimeException("This ServiceBusJmsConnectionFactory object is not initialized with the proper parameters.");
         }
     }
     
+    // Wrap a physical connection with the resources that live as long as it does.
+    private ConnectionShards.Shard newShard(Connection connection, boolean renewTokens) {
+        EventLoopMonitor.Lease eventLoopLease = this.settings.getSharedEventLoopThreads() > 0
+            ? this.metrics.getEventLoopMonitor().lease(this.settings)
+            : null;
+        return new ConnectionShards.Shard(connection, renewTokens ? this.startTokenRenewal(connection) : null, eventLoopLease);
+    }
+
+    // A client ID allows a single connection, so connections created with one keep all their sessions on it.
+    private ConnectionShards.Opener getShardOpener(ConnectionShards.Opener opener) {
+        return this.settings.getConnectionShardCount() > 1 && this.getClientId() == null ? opener : null;
+    }
+
+    // Connections opened with explicit credentials do not use the token provider, their tokens are left alone.
+    private CbsTokenRenewer startTokenRenewal(Connection connection) {
+        if (this.cbsTokenProvider == null || !this.settings.isTokenRenewalEnabled()) {
+            return null;
+        }
+
+        CbsTokenRenewer renewer = CbsTokenRenewer.forConnection(connection, this.cbsTokenProvider, this.getCbsAudience(), this.settings.getTokenRenewalMarginMS(), this.metrics);
+        renewer.start();
+        return renewer;
+    }
+
+    private CbsTokenRenewer startTokenRenewal(JMSContext context, AtomicBoolean connectionStarted) {
+        if (this.cbsTokenProvider == null || !this.settings.isTokenRenewalEnabled()) {
+            return null;
+        }
+
+        CbsTokenRenewer renewer = CbsTokenRenewer.forContext(context, connectionStarted::get, this.cbsTokenProvider, this.getCbsAudience(), this.settings.getTokenRenewalMarginMS(), this.metrics);
+        renewer.start();
+        return renewer;
+    }
+
+    private String getCbsAudience() {
+        String authority = this.host.startsWith(PLAIN_AMQP_PREFIX) ? this.host.substring(PLAIN_AMQP_PREFIX.length()) : this.host;
+        return PLAIN_AMQP_PREFIX + authority + "/";
+    }
+
+    // A host given as amqp://host:port is reached without TLS on the given port, anything else is a namespace host name reached over TLS.
+    private String toHostUri(String host) {
+        boolean plain = host.startsWith(PLAIN_AMQP_PREFIX);
+        if (plain && !this.settings.shouldAllowInsecureTransport() && !isLoopback(host)) {
+            throw new IllegalArgumentException("Only a loopback host can be reached without TLS, use the namespace host name "
+                + "or set allowInsecureTransport to send credentials to " + host + " in cleartext.");
+        }
+
+        if (this.getTransportType() != TransportType.AMQP_WEB_SOCKETS) {
+            return plain ? host : "amqps://" + host;
+        }
+
+        // The deflate schemes are served by WebSocketDeflateTransportFactory.
+        String scheme = (plain ? "amqpws" : "amqpwss") + (this.settings.isWebSocketCompressionEnabled() ? "deflate" : "");
+        String authority = plain ? host.substring(PLAIN_AMQP_PREFIX.length()) : host + ":" + WEB_SOCKETS_PORT;
+        return scheme + "://" + authority + WEB_SOCKETS_PATH;
+    }
+
+    // Host names other than localhost are not resolved, a name the resolver maps to the loopback address still needs the setting.
+    private static boolean isLoopback(String host) {
+        String name;
+        try {
+            name = new URI(host).getHost();
+        } catch (URISyntaxException e) {
+            return false;
+        }
+
+        if (name == null) {
+            return false;
+        }
+
+        if (name.equalsIgnoreCase("localhost")) {
+            return true;
+        }
+
+        if (name.startsWith("[") && name.endsWith("]")) {
+            name = name.substring(1, name.length() - 1);
+        } else if (!IPV4_ADDRESS.matcher(name).matches()) {
+            return false;
+        }
+
+        try {
+            // A literal address is parsed without a lookup.
+            return InetAddress.getByName(name).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private TransportType getTransportType() {
+        if (this.settings.getTransportType() != null) {
+            return this.settings.getTransportType();
+        }
+
+        return this.builder != null ? this.builder.getTransportType() : TransportType.AMQP;
+    }
+
+    // Connection strings name the namespace with an sb:// endpoint, an amqp:// endpoint keeps its scheme and port.
+    private static String getHost(URI endpoint) {
+        if (endpoint.getScheme() != null && endpoint.getScheme().equalsIgnoreCase("amqp")) {
+            return PLAIN_AMQP_PREFIX + endpoint.getRawAuthority();
+        }
+
+        return endpoint.getHost();
+    }
+
+    private SasTokenProvider createSasTokenProvider() {
+        if (this.password == null && this.builder != null && this.builder.getSharedAccessSignatureToken() != null) {
+            return new SasTokenProvider(this.builder.getSharedAccessSignatureToken());
+        }
+
+        if (this.settings.isSasTokenAuthenticationEnabled() && this.userName != null && this.password != null) {
+            return new SasTokenProvider(this.userName, this.password, this.settings.getSasTokenTimeToLiveMS());
+        }
+
+        return null;
+    }
+
+    // The operation timeout of the connection string bounds both blocking requests like link attach and synchronous sends.
+    // Only an OperationTimeout given in the connection string applies, and jms.requestTimeout or jms.sendTimeout set
+    // in the configuration options take precedence over it.
+    private void applyOperationTimeout() {
+        if (!this.builder.hasOperationTimeout()) {
+            return;
+        }
+
+        long operationTimeoutMS = this.builder.getOperationTimeout().toMillis();
+        Map<String, String> configurationOptions = this.settings.getConfigurationOptions();
+        if (configurationOptions == null || !configurationOptions.containsKey(REQUEST_TIMEOUT_OPTION)) {
+            this.factory.setRequestTimeout(operationTimeoutMS);
+        }
+
+        if (configurationOptions == null || !configurationOptions.containsKey(SEND_TIMEOUT_OPTION)) {
+            this.factory.setSendTimeout(operationTimeoutMS);
+        }
+    }
+
+    private void setExtensionsForSasToken(SasTokenProvider sasTokenProvider) {
+        this.factory.setExtension(JmsConnectionExtensions.USERNAME_OVERRIDE.toString(), (connection, uri) -> {
+            return SAS_TOKEN_USERNAME;
+        });
+
+        this.factory.setExtension(JmsConnectionExtensions.PASSWORD_OVERRIDE.toString(), (connection, uri) -> {
+            return sasTokenProvider.getToken(this.getCbsAudience()).getToken();
+        });
+    }
+
     private void setExtensionsForAad() {
     	this.factory.setExtension(JmsConnectionExtensions.USERNAME_OVERRIDE.toString(), (connection, uri) -> {
     		return AAD_TOKEN_USERNAME;
@@ -5,8 +5,11 @@ package com.azure.servicebus.jms;
 
 import java.util.function.Supplier;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
+import org.apache.qpid.jms.transports.TransportOptions;
+
 import io.netty.handler.proxy.ProxyHandler;
 
 public class ServiceBusJmsConnectionFactorySettings {
@@ -40,6 +43,66 @@ public class ServiceBusJmsConnectionFactorySettings {
     private Integer warnAfterReconnectAttempts;
     private Boolean reconnectRandomize;
     private ReconnectAmqpOpenServerListAction reconnectAmqpOpenServerListAction;
+    // Pooling options used by ServiceBusJmsPooledConnectionFactory
+    private int maxPooledConnections = 1;
+    private int maxSessionsPerPooledConnection = 500;
+    private int maxCachedProducersPerPooledSession = 10;
+    private long pooledResourceIdleTimeoutMS = 30000;
+    private long pooledConnectionMaxAgeMS;
+    private long pooledResourceEvictionIntervalMS = 10000;
+    private boolean blockIfSessionPoolIsFull = true;
+    private long blockIfSessionPoolIsFullTimeoutMS = -1;
+    private boolean tokenRenewalEnabled = true;
+    private long tokenRenewalMarginMS = 120000;
+    private boolean sasTokenAuthenticationEnabled = false;
+    private long sasTokenTimeToLiveMS = 3600000;
+    private long maxMessageBatchSizeInBytes = 262144;
+    private int maxInFlightSendsPerProducer = 1000;
+    private int maxInFlightSendsPerConnection = 10000;
+    private boolean blockIfSendWindowIsFull = true;
+    private long blockIfSendWindowIsFullTimeoutMS = -1;
+    private boolean adaptivePrefetchEnabled = false;
+    private int minAdaptivePrefetch = 0;
+    private int maxAdaptivePrefetch = 500;
+    private long adaptivePrefetchRetuneIntervalMS = 5000;
+    private long messageLockDurationMS = 60000;
+    private long maxPrefetchedBytesPerConsumer = 0;
+    private long maxPrefetchedBytesPerConnection = 0;
+    private int connectionShardCount = 1;
+    private ServiceBusJmsShardPlacement connectionShardPlacement = ServiceBusJmsShardPlacement.LEAST_LOADED;
+    private int sharedEventLoopThreads = 0;
+    private boolean epollEnabled = TransportOptions.DEFAULT_USE_EPOLL;
+    private boolean kqueueEnabled = TransportOptions.DEFAULT_USE_KQUEUE;
+    private boolean openSslEnabled = TransportOptions.DEFAULT_USE_OPENSSL;
+    private boolean tcpNoDelay = TransportOptions.DEFAULT_TCP_NO_DELAY;
+    private int socketSendBufferSize = TransportOptions.DEFAULT_SEND_BUFFER_SIZE;
+    private int socketReceiveBufferSize = TransportOptions.DEFAULT_RECEIVE_BUFFER_SIZE;
+    private TransportType transportType;
+    private boolean webSocketCompressionEnabled = false;
+    private boolean allowInsecureTransport = false;
+    private final Map<String, ServiceBusJmsCompressionCodec> payloadCompression = new HashMap<>();
+    private int payloadCompressionThresholdBytes = 4096;
+    private ServiceBusJmsPayloadStore payloadStore;
+    private long claimCheckThresholdBytes = 262144;
+    private int messageChunkSizeBytes = 0;
+    private long chunkBufferBytes = 64 * 1024 * 1024;
+    private long chunkGroupTimeoutMS = 60000;
+    private boolean chunkReassemblyEnabled = false;
+    private int destinationCacheSize = 1024;
+    private int anonymousProducerLinkCacheSize = 100;
+    private long anonymousProducerLinkIdleTimeoutMS = 60000;
+    private int concurrentProducerSessions = 2;
+    private int listenerContainerMinConsumers = 1;
+    private int listenerContainerMaxConsumers = 10;
+    private long listenerContainerReceiveTimeoutMS = 1000;
+    private int listenerContainerIdleReceivesBeforeShrink = 10;
+    private int listenerContainerMaxMessagesPerConsumer = 256;
+    private boolean virtualThreadReceiveLoopsEnabled = false;
+    private boolean virtualThreadPerMessageEnabled = false;
+    private int orderedDispatchLanes = Runtime.getRuntime().availableProcessors();
+    private int orderedDispatchLaneCapacity = 100;
+    private int orderedDispatchMaxAttempts = 10;
+    private long orderedDispatchRetryDelayMS = 50;
     
     public ServiceBusJmsConnectionFactorySettings() { }
 
@@ -314,15 +377,1124 @@ public class ServiceBusJmsConnectionFactorySettings {
         this.reconnectAmqpOpenServerListAction = amqpOpenServerListAction;
     }
     
-    String getPerHostAmqpProviderQuery()
-    {
-        StringBuilder builder = new StringBuilder();
-        if (this.connectionIdleTimeoutMS > 0) {
-            StringUtil.appendQuery(builder, "amqp.idleTimeout", String.valueOf(this.connectionIdleTimeoutMS));
+    /**
+     * @return The maximum number of physical connections kept by a ServiceBusJmsPooledConnectionFactory. Default is 1.
+     */
+    public int getMaxPooledConnections() {
+        return maxPooledConnections;
+    }
+
+    /**
+     * @param maxPooledConnections The maximum number of physical connections kept by a ServiceBusJmsPooledConnectionFactory.
+     *                             Connections handed out by the pooled factory share these physical connections.
+     */
+    public void setMaxPooledConnections(int maxPooledConnections) {
+        if (maxPooledConnections < 1) {
+            throw new IllegalArgumentException("maxPooledConnections must be at least 1.");
         }
         
-        if (this.traceFrames) {
-            StringUtil.appendQuery(builder, "amqp.traceFrames", "true");
+        this.maxPooledConnections = maxPooledConnections;
+    }
+
+    /**
+     * @return The maximum number of sessions, borrowed and idle, that a pooled physical connection can hold. Default is 500.
+     */
+    public int getMaxSessionsPerPooledConnection() {
+        return maxSessionsPerPooledConnection;
+    }
+
+    /**
+     * @param maxSessionsPerPooledConnection The maximum number of sessions, borrowed and idle, that a pooled physical connection can hold.
+     *                                       Once every pooled connection reaches this limit the pool is considered exhausted.
+     */
+    public void setMaxSessionsPerPooledConnection(int maxSessionsPerPooledConnection) {
+        if (maxSessionsPerPooledConnection < 1) {
+            throw new IllegalArgumentException("maxSessionsPerPooledConnection must be at least 1.");
+        }
+        
+        this.maxSessionsPerPooledConnection = maxSessionsPerPooledConnection;
+    }
+
+    /**
+     * @return The maximum number of MessageProducer links cached per pooled session. Default is 10.
+     */
+    public int getMaxCachedProducersPerPooledSession() {
+        return maxCachedProducersPerPooledSession;
+    }
+
+    /**
+     * @param maxCachedProducersPerPooledSession The maximum number of MessageProducer links cached per pooled session, one per destination.
+     *                                           The least recently used producer is closed when the limit is exceeded. Zero disables producer caching.
+     */
+    public void setMaxCachedProducersPerPooledSession(int maxCachedProducersPerPooledSession) {
+        if (maxCachedProducersPerPooledSession < 0) {
+            throw new IllegalArgumentException("maxCachedProducersPerPooledSession cannot be negative.");
+        }
+        
+        this.maxCachedProducersPerPooledSession = maxCachedProducersPerPooledSession;
+    }
+
+    /**
+     * @return The time in milliseconds an idle pooled session or connection is kept before it is evicted. Default is 30000.
+     */
+    public long getPooledResourceIdleTimeoutMS() {
+        return pooledResourceIdleTimeoutMS;
+    }
+
+    /**
+     * @param pooledResourceIdleTimeoutMS The time in milliseconds an idle pooled session, or a pooled connection with no borrowers, is kept before it is evicted.
+     *                                    Zero or a negative value disables idle eviction.
+     */
+    public void setPooledResourceIdleTimeoutMS(long pooledResourceIdleTimeoutMS) {
+        this.pooledResourceIdleTimeoutMS = pooledResourceIdleTimeoutMS;
+    }
+
+    /**
+     * @return The maximum lifetime of a pooled physical connection in milliseconds. Default is 0, meaning no limit.
+     */
+    public long getPooledConnectionMaxAgeMS() {
+        return pooledConnectionMaxAgeMS;
+    }
+
+    /**
+     * @param pooledConnectionMaxAgeMS The maximum lifetime of a pooled physical connection in milliseconds.
+     *                                 An expired connection is not handed out again and is closed once its last borrower releases it.
+     *                                 Zero or a negative value means no limit.
+     */
+    public void setPooledConnectionMaxAgeMS(long pooledConnectionMaxAgeMS) {
+        this.pooledConnectionMaxAgeMS = pooledConnectionMaxAgeMS;
+    }
+
+    /**
+     * @return The interval in milliseconds between two runs of the pool evictor. Default is 10000.
+     */
+    public long getPooledResourceEvictionIntervalMS() {
+        return pooledResourceEvictionIntervalMS;
+    }
+
+    /**
+     * @param pooledResourceEvictionIntervalMS The interval in milliseconds between two runs of the pool evictor. 
+     *                                         Zero or a negative value disables background eviction.
+     */
+    public void setPooledResourceEvictionIntervalMS(long pooledResourceEvictionIntervalMS) {
+        this.pooledResourceEvictionIntervalMS = pooledResourceEvictionIntervalMS;
+    }
+
+    /**
+     * @return True if creating a session on an exhausted pool should wait for a session to be released. Default is true.
+     */
+    public boolean shouldBlockIfSessionPoolIsFull() {
+        return blockIfSessionPoolIsFull;
+    }
+
+    /**
+     * @param blockIfSessionPoolIsFull True if creating a session on an exhausted pool should wait for a session to be released,
+     *                                 false to fail immediately with a ResourceAllocationException.
+     */
+    public void setBlockIfSessionPoolIsFull(boolean blockIfSessionPoolIsFull) {
+        this.blockIfSessionPoolIsFull = blockIfSessionPoolIsFull;
+    }
+
+    /**
+     * @return The maximum time in milliseconds to wait for a session on an exhausted pool. Default is -1, meaning wait indefinitely.
+     */
+    public long getBlockIfSessionPoolIsFullTimeoutMS() {
+        return blockIfSessionPoolIsFullTimeoutMS;
+    }
+
+    /**
+     * @param blockIfSessionPoolIsFullTimeoutMS The maximum time in milliseconds to wait for a session on an exhausted pool before failing with a ResourceAllocationException.
+     *                                          A negative value means wait indefinitely. Only used when blockIfSessionPoolIsFull is true.
+     */
+    public void setBlockIfSessionPoolIsFullTimeoutMS(long blockIfSessionPoolIsFullTimeoutMS) {
+        this.blockIfSessionPoolIsFullTimeoutMS = blockIfSessionPoolIsFullTimeoutMS;
+    }
+    
+    /**
+     * @return Whether tokens of live connections are renewed over the connection's $cbs node before they expire.
+     */
+    public boolean isTokenRenewalEnabled() {
+        return tokenRenewalEnabled;
+    }
+
+    /**
+     * @param tokenRenewalEnabled Whether tokens of live connections are renewed over the connection's $cbs node before they expire.
+     *                            When disabled, the broker closes the connection once its token expires and the client reconnects with a new token.
+     *                            Only used by connections authenticated with a token credential.
+     */
+    public void setTokenRenewalEnabled(boolean tokenRenewalEnabled) {
+        this.tokenRenewalEnabled = tokenRenewalEnabled;
+    }
+
+    /**
+     * @return How long in milliseconds before the expiry of its token a live connection puts a new token.
+     */
+    public long getTokenRenewalMarginMS() {
+        return tokenRenewalMarginMS;
+    }
+
+    /**
+     * @param tokenRenewalMarginMS How long in milliseconds before the expiry of its token a live connection puts a new token.
+     */
+    public void setTokenRenewalMarginMS(long tokenRenewalMarginMS) {
+        if (tokenRenewalMarginMS < 0) {
+            throw new IllegalArgumentException("tokenRenewalMarginMS cannot be negative.");
+        }
+
+        this.tokenRenewalMarginMS = tokenRenewalMarginMS;
+    }
+    
+    /**
+     * @return Whether connections authenticate with SAS tokens signed from the shared access key instead of the key itself.
+     */
+    public boolean isSasTokenAuthenticationEnabled() {
+        return sasTokenAuthenticationEnabled;
+    }
+
+    /**
+     * @param sasTokenAuthenticationEnabled Whether connections authenticate with SAS tokens signed from the shared access key instead of the key itself.
+     *                                      Tokens are cached per resource and renewed on live connections before they expire.
+     *                                      Connection strings carrying a SharedAccessSignatureToken always authenticate with that token.
+     */
+    public void setSasTokenAuthenticationEnabled(boolean sasTokenAuthenticationEnabled) {
+        this.sasTokenAuthenticationEnabled = sasTokenAuthenticationEnabled;
+    }
+
+    /**
+     * @return The lifetime in milliseconds of the SAS tokens signed from the shared access key.
+     */
+    public long getSasTokenTimeToLiveMS() {
+        return sasTokenTimeToLiveMS;
+    }
+
+    /**
+     * @param sasTokenTimeToLiveMS The lifetime in milliseconds of the SAS tokens signed from the shared access key. Must be at least one second.
+     */
+    public void setSasTokenTimeToLiveMS(long sasTokenTimeToLiveMS) {
+        if (sasTokenTimeToLiveMS < 1000) {
+            throw new IllegalArgumentException("sasTokenTimeToLiveMS must be at least 1000.");
+        }
+
+        this.sasTokenTimeToLiveMS = sasTokenTimeToLiveMS;
+    }
+    
+    /**
+     * @return The maximum estimated size in bytes of a message batch.
+     */
+    public long getMaxMessageBatchSizeInBytes() {
+        return maxMessageBatchSizeInBytes;
+    }
+
+    /**
+     * @param maxMessageBatchSizeInBytes The maximum estimated size in bytes of a message batch.
+     *                                   Defaults to 256 KB, the maximum message size of a Standard tier entity. Premium tier entities allow larger messages.
+     */
+    public void setMaxMessageBatchSizeInBytes(long maxMessageBatchSizeInBytes) {
+        if (maxMessageBatchSizeInBytes < 1) {
+            throw new IllegalArgumentException("maxMessageBatchSizeInBytes must be at least 1.");
+        }
+
+        this.maxMessageBatchSizeInBytes = maxMessageBatchSizeInBytes;
+    }
+    
+    /**
+     * @return The maximum number of messages sent by one async producer that may wait for the broker to settle them.
+     */
+    public int getMaxInFlightSendsPerProducer() {
+        return maxInFlightSendsPerProducer;
+    }
+
+    /**
+     * @param maxInFlightSendsPerProducer The maximum number of messages sent by one async producer that may wait for the broker to settle them.
+     */
+    public void setMaxInFlightSendsPerProducer(int maxInFlightSendsPerProducer) {
+        if (maxInFlightSendsPerProducer < 1) {
+            throw new IllegalArgumentException("maxInFlightSendsPerProducer must be at least 1.");
+        }
+
+        this.maxInFlightSendsPerProducer = maxInFlightSendsPerProducer;
+    }
+
+    /**
+     * @return The maximum number of messages sent by the async producers of one connection that may wait for the broker to settle them.
+     */
+    public int getMaxInFlightSendsPerConnection() {
+        return maxInFlightSendsPerConnection;
+    }
+
+    /**
+     * @param maxInFlightSendsPerConnection The maximum number of messages sent by the async producers of one connection that may wait for the broker to settle them.
+     */
+    public void setMaxInFlightSendsPerConnection(int maxInFlightSendsPerConnection) {
+        if (maxInFlightSendsPerConnection < 1) {
+            throw new IllegalArgumentException("maxInFlightSendsPerConnection must be at least 1.");
+        }
+
+        this.maxInFlightSendsPerConnection = maxInFlightSendsPerConnection;
+    }
+
+    /**
+     * @return Whether an async send waits for a slot when its producer or connection send window is full.
+     */
+    public boolean shouldBlockIfSendWindowIsFull() {
+        return blockIfSendWindowIsFull;
+    }
+
+    /**
+     * @param blockIfSendWindowIsFull True to make an async send wait for a slot when its producer or connection send window is full,
+     *                                false to fail immediately with a ResourceAllocationException.
+     */
+    public void setBlockIfSendWindowIsFull(boolean blockIfSendWindowIsFull) {
+        this.blockIfSendWindowIsFull = blockIfSendWindowIsFull;
+    }
+
+    /**
+     * @return The maximum time in milliseconds an async send waits for a slot in a full send window.
+     */
+    public long getBlockIfSendWindowIsFullTimeoutMS() {
+        return blockIfSendWindowIsFullTimeoutMS;
+    }
+
+    /**
+     * @param blockIfSendWindowIsFullTimeoutMS The maximum time in milliseconds an async send waits for a slot in a full send window before failing with a ResourceAllocationException.
+     *                                         A negative value means wait indefinitely. Only used when blockIfSendWindowIsFull is true.
+     */
+    public void setBlockIfSendWindowIsFullTimeoutMS(long blockIfSendWindowIsFullTimeoutMS) {
+        this.blockIfSendWindowIsFullTimeoutMS = blockIfSendWindowIsFullTimeoutMS;
+    }
+    
+    /**
+     * @return Whether consumers tune their prefetch at runtime instead of using the jms.prefetchPolicy configuration.
+     */
+    public boolean isAdaptivePrefetchEnabled() {
+        return adaptivePrefetchEnabled;
+    }
+
+    /**
+     * @param adaptivePrefetchEnabled Whether consumers tune their prefetch at runtime from their processing rate, the time they wait in receive
+     *                                and the message lock duration, between minAdaptivePrefetch and maxAdaptivePrefetch.
+     *                                Consumers created with an explicit prefetch and consumers driven by a MessageListener are not tuned.
+     */
+    public void setAdaptivePrefetchEnabled(boolean adaptivePrefetchEnabled) {
+        this.adaptivePrefetchEnabled = adaptivePrefetchEnabled;
+    }
+
+    /**
+     * @return The lowest prefetch an adaptive consumer uses. Adaptive consumers start with this prefetch.
+     */
+    public int getMinAdaptivePrefetch() {
+        return minAdaptivePrefetch;
+    }
+
+    /**
+     * @param minAdaptivePrefetch The lowest prefetch an adaptive consumer uses. Adaptive consumers start with this prefetch.
+     */
+    public void setMinAdaptivePrefetch(int minAdaptivePrefetch) {
+        if (minAdaptivePrefetch < 0) {
+            throw new IllegalArgumentException("minAdaptivePrefetch cannot be negative.");
+        }
+
+        this.minAdaptivePrefetch = minAdaptivePrefetch;
+    }
+
+    /**
+     * @return The highest prefetch an adaptive consumer uses.
+     */
+    public int getMaxAdaptivePrefetch() {
+        return maxAdaptivePrefetch;
+    }
+
+    /**
+     * @param maxAdaptivePrefetch The highest prefetch an adaptive consumer uses.
+     */
+    public void setMaxAdaptivePrefetch(int maxAdaptivePrefetch) {
+        if (maxAdaptivePrefetch < 1) {
+            throw new IllegalArgumentException("maxAdaptivePrefetch must be at least 1.");
+        }
+
+        this.maxAdaptivePrefetch = maxAdaptivePrefetch;
+    }
+
+    /**
+     * @return The minimum time in milliseconds between two prefetch changes of an adaptive consumer.
+     */
+    public long getAdaptivePrefetchRetuneIntervalMS() {
+        return adaptivePrefetchRetuneIntervalMS;
+    }
+
+    /**
+     * @param adaptivePrefetchRetuneIntervalMS The minimum time in milliseconds between two prefetch changes of an adaptive consumer.
+     */
+    public void setAdaptivePrefetchRetuneIntervalMS(long adaptivePrefetchRetuneIntervalMS) {
+        this.adaptivePrefetchRetuneIntervalMS = adaptivePrefetchRetuneIntervalMS;
+    }
+
+    /**
+     * @return The lock duration in milliseconds of the entities consumers receive from.
+     */
+    public long getMessageLockDurationMS() {
+        return messageLockDurationMS;
+    }
+
+    /**
+     * @param messageLockDurationMS The lock duration in milliseconds of the entities consumers receive from, 60 seconds unless changed on the entity.
+     *                              Adaptive consumers never prefetch more messages than they can process within half of it.
+     */
+    public void setMessageLockDurationMS(long messageLockDurationMS) {
+        if (messageLockDurationMS < 1) {
+            throw new IllegalArgumentException("messageLockDurationMS must be at least 1.");
+        }
+
+        this.messageLockDurationMS = messageLockDurationMS;
+    }
+    
+    /**
+     * @return The maximum estimated bytes of messages one consumer may prefetch, 0 for no limit.
+     */
+    public long getMaxPrefetchedBytesPerConsumer() {
+        return maxPrefetchedBytesPerConsumer;
+    }
+
+    /**
+     * @param maxPrefetchedBytesPerConsumer The maximum estimated bytes of messages one consumer may prefetch, 0 for no limit.
+     *                                      The prefetch of the consumer is lowered to fit the budget based on the size of the messages it receives.
+     */
+    public void setMaxPrefetchedBytesPerConsumer(long maxPrefetchedBytesPerConsumer) {
+        if (maxPrefetchedBytesPerConsumer < 0) {
+            throw new IllegalArgumentException("maxPrefetchedBytesPerConsumer cannot be negative.");
+        }
+
+        this.maxPrefetchedBytesPerConsumer = maxPrefetchedBytesPerConsumer;
+    }
+
+    /**
+     * @return The maximum estimated bytes of messages all consumers of one connection may prefetch, 0 for no limit.
+     */
+    public long getMaxPrefetchedBytesPerConnection() {
+        return maxPrefetchedBytesPerConnection;
+    }
+
+    /**
+     * @param maxPrefetchedBytesPerConnection The maximum estimated bytes of messages all consumers of one connection may prefetch, 0 for no limit.
+     *                                        Once it is taken, further consumers get no link credit and fetch each message on receive.
+     */
+    public void setMaxPrefetchedBytesPerConnection(long maxPrefetchedBytesPerConnection) {
+        if (maxPrefetchedBytesPerConnection < 0) {
+            throw new IllegalArgumentException("maxPrefetchedBytesPerConnection cannot be negative.");
+        }
+
+        this.maxPrefetchedBytesPerConnection = maxPrefetchedBytesPerConnection;
+    }
+
+    /**
+     * @return The maximum number of physical connections the sessions of one connection are spread over.
+     */
+    public int getConnectionShardCount() {
+        return connectionShardCount;
+    }
+
+    /**
+     * @param connectionShardCount The maximum number of physical connections the sessions of one connection are spread over, 1 to keep them on one.
+     *                             Further connections are only opened as sessions are created, and never for connections with a client ID,
+     *                             since Service Bus allows a single connection per client ID.
+     */
+    public void setConnectionShardCount(int connectionShardCount) {
+        if (connectionShardCount < 1) {
+            throw new IllegalArgumentException("connectionShardCount must be at least 1.");
+        }
+
+        this.connectionShardCount = connectionShardCount;
+    }
+
+    /**
+     * @return How new sessions pick one of the physical connections.
+     */
+    public ServiceBusJmsShardPlacement getConnectionShardPlacement() {
+        return connectionShardPlacement;
+    }
+
+    /**
+     * @param connectionShardPlacement How new sessions pick one of the physical connections when connectionShardCount is above 1.
+     */
+    public void setConnectionShardPlacement(ServiceBusJmsShardPlacement connectionShardPlacement) {
+        if (connectionShardPlacement == null) {
+            throw new IllegalArgumentException("connectionShardPlacement cannot be null.");
+        }
+
+        this.connectionShardPlacement = connectionShardPlacement;
+    }
+
+    /**
+     * @return The number of event loop threads all connections share, 0 if each connection runs on a thread of its own.
+     */
+    public int getSharedEventLoopThreads() {
+        return sharedEventLoopThreads;
+    }
+
+    /**
+     * @param sharedEventLoopThreads The number of event loop threads the connections share, 0 to give each connection a thread of its own.
+     *                               The threads are shared by all connections of the JVM configured with the same number,
+     *                               across factories, and stop once the last of these connections closes.
+     */
+    public void setSharedEventLoopThreads(int sharedEventLoopThreads) {
+        if (sharedEventLoopThreads < 0) {
+            throw new IllegalArgumentException("sharedEventLoopThreads cannot be negative.");
+        }
+
+        this.sharedEventLoopThreads = sharedEventLoopThreads;
+    }
+
+    /**
+     * @return Whether connections use the native epoll transport on Linux hosts where it is available.
+     */
+    public boolean isEpollEnabled() {
+        return epollEnabled;
+    }
+
+    /**
+     * @param epollEnabled Whether connections use the native epoll transport on Linux hosts where it is available, true by default.
+     *                     Hosts without it fall back to the NIO transport.
+     */
+    public void setEpollEnabled(boolean epollEnabled) {
+        this.epollEnabled = epollEnabled;
+    }
+
+    /**
+     * @return Whether connections use the native kqueue transport on macOS and BSD hosts where it is available.
+     */
+    public boolean isKQueueEnabled() {
+        return kqueueEnabled;
+    }
+
+    /**
+     * @param kqueueEnabled Whether connections use the native kqueue transport on macOS and BSD hosts where it is available, false by default.
+     */
+    public void setKQueueEnabled(boolean kqueueEnabled) {
+        this.kqueueEnabled = kqueueEnabled;
+    }
+
+    /**
+     * @return Whether TLS is done by OpenSSL instead of the JDK.
+     */
+    public boolean isOpenSslEnabled() {
+        return openSslEnabled;
+    }
+
+    /**
+     * @param openSslEnabled Whether TLS is done by OpenSSL instead of the JDK, which costs less CPU per byte.
+     *                       Requires netty-tcnative, for example io.netty:netty-tcnative-boringssl-static, on the classpath.
+     */
+    public void setOpenSslEnabled(boolean openSslEnabled) {
+        this.openSslEnabled = openSslEnabled;
+    }
+
+    /**
+     * @return Whether Nagle's algorithm is disabled on the sockets of the connections.
+     */
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * @param tcpNoDelay Whether Nagle's algorithm is disabled on the sockets of the connections, true by default.
+     *                   Disabling it sends small frames at once instead of waiting to coalesce them.
+     */
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    /**
+     * @return The send buffer size in bytes of the sockets of the connections.
+     */
+    public int getSocketSendBufferSize() {
+        return socketSendBufferSize;
+    }
+
+    /**
+     * @param socketSendBufferSize The send buffer size in bytes of the sockets of the connections, 64 KB by default.
+     *                             Larger buffers let a connection write more per system call when sending large or many messages.
+     */
+    public void setSocketSendBufferSize(int socketSendBufferSize) {
+        if (socketSendBufferSize < 1) {
+            throw new IllegalArgumentException("socketSendBufferSize must be at least 1.");
+        }
+
+        this.socketSendBufferSize = socketSendBufferSize;
+    }
+
+    /**
+     * @return The receive buffer size in bytes of the sockets of the connections.
+     */
+    public int getSocketReceiveBufferSize() {
+        return socketReceiveBufferSize;
+    }
+
+    /**
+     * @param socketReceiveBufferSize The receive buffer size in bytes of the sockets of the connections, 64 KB by default.
+     *                                Larger buffers let a connection read more per system call when prefetching large or many messages.
+     */
+    public void setSocketReceiveBufferSize(int socketReceiveBufferSize) {
+        if (socketReceiveBufferSize < 1) {
+            throw new IllegalArgumentException("socketReceiveBufferSize must be at least 1.");
+        }
+
+        this.socketReceiveBufferSize = socketReceiveBufferSize;
+    }
+
+    /**
+     * @return The transport connections use, null to take it from the connection string.
+     */
+    public TransportType getTransportType() {
+        return transportType;
+    }
+
+    /**
+     * @param transportType The transport connections use, overriding the TransportType of the connection string.
+     *                      Null, the default, takes it from the connection string, or uses AMQP for factories created without one.
+     *                      AMQP_WEB_SOCKETS connects on port 443, which is often the only port a corporate proxy lets through.
+     */
+    public void setTransportType(TransportType transportType) {
+        this.transportType = transportType;
+    }
+
+    /**
+     * @return Whether amqp:// hosts other than the loopback address may be reached without TLS.
+     */
+    public boolean shouldAllowInsecureTransport() {
+        return allowInsecureTransport;
+    }
+
+    /**
+     * @param allowInsecureTransport True to let an amqp:// host that is not the loopback address connect without TLS.
+     *                               The shared access key or token then crosses the network in cleartext, so only set it
+     *                               for a trusted network, such as an emulator in a neighboring container. Default is false.
+     */
+    public void setAllowInsecureTransport(boolean allowInsecureTransport) {
+        this.allowInsecureTransport = allowInsecureTransport;
+    }
+
+    /**
+     * @return Whether WebSocket connections offer the permessage-deflate extension.
+     */
+    public boolean isWebSocketCompressionEnabled() {
+        return webSocketCompressionEnabled;
+    }
+
+    /**
+     * @param webSocketCompressionEnabled Whether WebSocket connections offer the permessage-deflate extension, which compresses
+     *                                    every WebSocket message on the wire if the server accepts it. Only applies to the AMQP_WEB_SOCKETS transport.
+     *                                    Compression pays off for large, compressible bodies such as JSON, and costs CPU on both ends.
+     */
+    public void setWebSocketCompressionEnabled(boolean webSocketCompressionEnabled) {
+        this.webSocketCompressionEnabled = webSocketCompressionEnabled;
+    }
+
+    /**
+     * @param destinationName The name of a queue or topic.
+     * @return The codec bodies sent to the destination are compressed with, null if they are sent as they are.
+     */
+    public ServiceBusJmsCompressionCodec getPayloadCompression(String destinationName) {
+        return destinationName != null ? payloadCompression.get(destinationName.toLowerCase(Locale.ROOT)) : null;
+    }
+
+    /**
+     * Compress the bodies of text and bytes messages that producers send to the given destination.
+     * Consumers always decompress such bodies, whatever their settings, and hand the application a message of the original type.
+     * Consumers that do not use this library receive a BytesMessage with the compressed body, marked by the ServiceBusJmsContentEncoding
+     * property. Producers created by createProducer compress, async producers and message batches send bodies as they are.
+     * @param destinationName The name of a queue or topic.
+     * @param codec The codec to compress with, null to stop compressing bodies sent to the destination.
+     */
+    public void setPayloadCompression(String destinationName, ServiceBusJmsCompressionCodec codec) {
+        if (destinationName == null) {
+            throw new IllegalArgumentException("destinationName cannot be null.");
+        }
+
+        if (codec == ServiceBusJmsCompressionCodec.ZSTD && !ZstdCodec.isAvailable()) {
+            throw new IllegalArgumentException("The ZSTD codec requires com.github.luben:zstd-jni on the classpath.");
+        }
+
+        if (codec == null) {
+            payloadCompression.remove(destinationName.toLowerCase(Locale.ROOT));
+        } else {
+            payloadCompression.put(destinationName.toLowerCase(Locale.ROOT), codec);
+        }
+    }
+
+    /**
+     * @return The size in bytes from which message bodies sent to destinations with payload compression are compressed.
+     */
+    public int getPayloadCompressionThresholdBytes() {
+        return payloadCompressionThresholdBytes;
+    }
+
+    /**
+     * @param payloadCompressionThresholdBytes The size in bytes from which message bodies sent to destinations with payload compression
+     *                                         are compressed, 4 KB by default. Small bodies gain little and cost a codec run each.
+     */
+    public void setPayloadCompressionThresholdBytes(int payloadCompressionThresholdBytes) {
+        if (payloadCompressionThresholdBytes < 0) {
+            throw new IllegalArgumentException("payloadCompressionThresholdBytes cannot be negative.");
+        }
+
+        this.payloadCompressionThresholdBytes = payloadCompressionThresholdBytes;
+    }
+
+    /**
+     * @return The store bodies of large messages are moved to, null if they are sent as they are.
+     */
+    public ServiceBusJmsPayloadStore getPayloadStore() {
+        return payloadStore;
+    }
+
+    /**
+     * Move the bodies of text and bytes messages whose estimated size reaches claimCheckThresholdBytes to the given store,
+     * and send a message carrying only a reference to the body instead. Consumers from factories with the same store read the body
+     * from the store once the application reads it. Such bodies are not compressed.
+     * Producers created by createProducer move bodies, async producers and message batches send them as they are.
+     * @param payloadStore The store to move large bodies to, null to send them as they are.
+     */
+    public void setPayloadStore(ServiceBusJmsPayloadStore payloadStore) {
+        this.payloadStore = payloadStore;
+    }
+
+    /**
+     * @return The estimated message size in bytes from which bodies are moved to the payload store.
+     */
+    public long getClaimCheckThresholdBytes() {
+        return claimCheckThresholdBytes;
+    }
+
+    /**
+     * @param claimCheckThresholdBytes The estimated message size in bytes from which bodies are moved to the payload store,
+     *                                 256 KB by default, the largest message the standard tier accepts.
+     */
+    public void setClaimCheckThresholdBytes(long claimCheckThresholdBytes) {
+        if (claimCheckThresholdBytes < 1) {
+            throw new IllegalArgumentException("claimCheckThresholdBytes must be at least 1.");
+        }
+
+        this.claimCheckThresholdBytes = claimCheckThresholdBytes;
+    }
+
+    /**
+     * @return The size in bytes of the chunks message bodies are split into, 0 if bodies are not split.
+     */
+    public int getMessageChunkSizeBytes() {
+        return messageChunkSizeBytes;
+    }
+
+    /**
+     * Split the bodies of text and bytes messages longer than the given size into chunks, each sent as a message of its own
+     * carrying the headers and properties of the original message. Consumers from this library collect the chunks and hand
+     * the application one message if chunk reassembly is enabled, see setChunkReassemblyEnabled.
+     * Leave room for the headers and properties below the largest message the entity accepts.
+     * <p>
+     * The chunks of a message are sent in order on the link of the producer. Send from a transacted session to have all chunks
+     * of a message committed together, otherwise consumers drop the chunks of a message whose send failed halfway.
+     * Bodies moved to the payload store are not split, split bodies are not compressed.
+     * Producers created by createProducer split bodies, async producers and message batches send them as they are.
+     * @param messageChunkSizeBytes The size in bytes of the chunks, 0 to send bodies as they are.
+     */
+    public void setMessageChunkSizeBytes(int messageChunkSizeBytes) {
+        if (messageChunkSizeBytes < 0) {
+            throw new IllegalArgumentException("messageChunkSizeBytes cannot be negative.");
+        }
+
+        this.messageChunkSizeBytes = messageChunkSizeBytes;
+    }
+
+    /**
+     * @return The bytes of incomplete chunked messages each consumer keeps on the heap.
+     */
+    public long getChunkBufferBytes() {
+        return chunkBufferBytes;
+    }
+
+    /**
+     * @param chunkBufferBytes The bytes of incomplete chunked messages each consumer keeps on the heap, 64 MB by default.
+     *                         Further chunks are written to temporary files until their message is complete.
+     */
+    public void setChunkBufferBytes(long chunkBufferBytes) {
+        if (chunkBufferBytes < 0) {
+            throw new IllegalArgumentException("chunkBufferBytes cannot be negative.");
+        }
+
+        this.chunkBufferBytes = chunkBufferBytes;
+    }
+
+    /**
+     * @return The time in milliseconds consumers wait for the remaining chunks of a message after its first chunk.
+     */
+    public long getChunkGroupTimeoutMS() {
+        return chunkGroupTimeoutMS;
+    }
+
+    /**
+     * @param chunkGroupTimeoutMS The time in milliseconds consumers wait for the remaining chunks of a message after its first chunk,
+     *                            60 seconds by default. The chunks of an incomplete message are then dropped.
+     */
+    public void setChunkGroupTimeoutMS(long chunkGroupTimeoutMS) {
+        if (chunkGroupTimeoutMS < 1) {
+            throw new IllegalArgumentException("chunkGroupTimeoutMS must be at least 1.");
+        }
+
+        this.chunkGroupTimeoutMS = chunkGroupTimeoutMS;
+    }
+
+    /**
+     * @return Whether consumers collect the chunks of split messages and hand the application one message.
+     */
+    public boolean isChunkReassemblyEnabled() {
+        return chunkReassemblyEnabled;
+    }
+
+    /**
+     * Collect the chunks of messages split by setMessageChunkSizeBytes and hand the application one message,
+     * see setChunkBufferBytes and setChunkGroupTimeoutMS. Disabled by default, consumers then hand out chunks as they arrive.
+     * <p>
+     * A chunk must not be acknowledged before the rest of its message arrived, so sessions in AUTO_ACKNOWLEDGE,
+     * DUPS_OK_ACKNOWLEDGE or CLIENT_ACKNOWLEDGE mode run their consumers on a second session in INDIVIDUAL_ACKNOWLEDGE mode
+     * and acknowledge each message themselves. With CLIENT_ACKNOWLEDGE, the received messages are then views implementing
+     * the JMS message interfaces only. Transacted and INDIVIDUAL_ACKNOWLEDGE sessions are not affected.
+     * @param chunkReassemblyEnabled Whether consumers reassemble split messages.
+     */
+    public void setChunkReassemblyEnabled(boolean chunkReassemblyEnabled) {
+        this.chunkReassemblyEnabled = chunkReassemblyEnabled;
+    }
+
+    /**
+     * @return The number of queues and the number of topics whose instances are cached by name.
+     */
+    public int getDestinationCacheSize() {
+        return destinationCacheSize;
+    }
+
+    /**
+     * Sessions and contexts hand out the same Queue or Topic instance when createQueue or createTopic is called again with the same name,
+     * for up to the given number of queues and of topics. Beyond that, the least recently used destinations are dropped from the cache.
+     * The cache belongs to the factory, which sizes it when it creates its first connection or context.
+     * @param destinationCacheSize The number of queues and the number of topics to cache, 1024 by default, 0 to create new instances on every call.
+     */
+    public void setDestinationCacheSize(int destinationCacheSize) {
+        if (destinationCacheSize < 0) {
+            throw new IllegalArgumentException("destinationCacheSize cannot be negative.");
+        }
+
+        this.destinationCacheSize = destinationCacheSize;
+    }
+
+    /**
+     * @return The number of sender links each session keeps attached for the producers created without a destination.
+     */
+    public int getAnonymousProducerLinkCacheSize() {
+        return anonymousProducerLinkCacheSize;
+    }
+
+    /**
+     * Service Bus does not offer an anonymous relay, so a producer created without a destination would attach a new link for every send.
+     * Instead, such producers send through links their session keeps attached per destination, shared by all of its producers without a destination.
+     * When the session has as many links as given here, the least recently used one is closed to attach the next one.
+     * @param anonymousProducerLinkCacheSize The number of links to keep per session, 100 by default, 0 to attach a link for every send.
+     */
+    public void setAnonymousProducerLinkCacheSize(int anonymousProducerLinkCacheSize) {
+        if (anonymousProducerLinkCacheSize < 0) {
+            throw new IllegalArgumentException("anonymousProducerLinkCacheSize cannot be negative.");
+        }
+
+        this.anonymousProducerLinkCacheSize = anonymousProducerLinkCacheSize;
+    }
+
+    /**
+     * @return The time in milliseconds a link kept for producers created without a destination stays attached without sends.
+     */
+    public long getAnonymousProducerLinkIdleTimeoutMS() {
+        return anonymousProducerLinkIdleTimeoutMS;
+    }
+
+    /**
+     * @param anonymousProducerLinkIdleTimeoutMS The time in milliseconds a link kept for producers created without a destination stays
+     *                                           attached without sends, 60 seconds by default. Idle links are closed on the next send
+     *                                           of the session's producers without a destination, and all of them when the session closes.
+     */
+    public void setAnonymousProducerLinkIdleTimeoutMS(long anonymousProducerLinkIdleTimeoutMS) {
+        if (anonymousProducerLinkIdleTimeoutMS < 1) {
+            throw new IllegalArgumentException("anonymousProducerLinkIdleTimeoutMS must be at least 1.");
+        }
+
+        this.anonymousProducerLinkIdleTimeoutMS = anonymousProducerLinkIdleTimeoutMS;
+    }
+
+    /**
+     * @return The number of sessions, each with its own producer link and thread, that a ServiceBusJmsConcurrentProducer sends through.
+     */
+    public int getConcurrentProducerSessions() {
+        return concurrentProducerSessions;
+    }
+
+    /**
+     * A ServiceBusJmsConcurrentProducer hands the messages of its callers to this many dispatchers, each sending through its own session.
+     * One dispatcher keeps a link busy by pipelining, more of them help when the messages are encoded before sending or the link is flow controlled.
+     * @param concurrentProducerSessions The number of sessions per concurrent producer, 2 by default.
+     */
+    public void setConcurrentProducerSessions(int concurrentProducerSessions) {
+        if (concurrentProducerSessions < 1) {
+            throw new IllegalArgumentException("concurrentProducerSessions must be at least 1.");
+        }
+
+        this.concurrentProducerSessions = concurrentProducerSessions;
+    }
+
+    /**
+     * @return The number of consumers a ServiceBusJmsListenerContainer keeps attached even when there are no messages.
+     */
+    public int getListenerContainerMinConsumers() {
+        return listenerContainerMinConsumers;
+    }
+
+    /**
+     * @param listenerContainerMinConsumers The number of consumers a ServiceBusJmsListenerContainer keeps attached even when there are
+     *                                      no messages, 1 by default.
+     */
+    public void setListenerContainerMinConsumers(int listenerContainerMinConsumers) {
+        if (listenerContainerMinConsumers < 1) {
+            throw new IllegalArgumentException("listenerContainerMinConsumers must be at least 1.");
+        }
+
+        this.listenerContainerMinConsumers = listenerContainerMinConsumers;
+    }
+
+    /**
+     * @return The number of consumers a ServiceBusJmsListenerContainer grows to when messages are waiting.
+     */
+    public int getListenerContainerMaxConsumers() {
+        return listenerContainerMaxConsumers;
+    }
+
+    /**
+     * @param listenerContainerMaxConsumers The number of consumers a ServiceBusJmsListenerContainer grows to when messages are waiting,
+     *                                      10 by default. Each consumer has its own session and thread.
+     */
+    public void setListenerContainerMaxConsumers(int listenerContainerMaxConsumers) {
+        if (listenerContainerMaxConsumers < 1) {
+            throw new IllegalArgumentException("listenerContainerMaxConsumers must be at least 1.");
+        }
+
+        this.listenerContainerMaxConsumers = listenerContainerMaxConsumers;
+    }
+
+    /**
+     * @return The time in milliseconds a consumer of a ServiceBusJmsListenerContainer waits for a message in each receive.
+     */
+    public long getListenerContainerReceiveTimeoutMS() {
+        return listenerContainerReceiveTimeoutMS;
+    }
+
+    /**
+     * @param listenerContainerReceiveTimeoutMS The time in milliseconds a consumer of a ServiceBusJmsListenerContainer waits for a message
+     *                                          in each receive, 1 second by default. Stopping the container waits up to this long.
+     */
+    public void setListenerContainerReceiveTimeoutMS(long listenerContainerReceiveTimeoutMS) {
+        if (listenerContainerReceiveTimeoutMS < 1) {
+            throw new IllegalArgumentException("listenerContainerReceiveTimeoutMS must be at least 1.");
+        }
+
+        this.listenerContainerReceiveTimeoutMS = listenerContainerReceiveTimeoutMS;
+    }
+
+    /**
+     * @return The number of receives in a row without a message after which a ServiceBusJmsListenerContainer closes a consumer.
+     */
+    public int getListenerContainerIdleReceivesBeforeShrink() {
+        return listenerContainerIdleReceivesBeforeShrink;
+    }
+
+    /**
+     * @param listenerContainerIdleReceivesBeforeShrink The number of receives in a row without a message after which a
+     *                                                  ServiceBusJmsListenerContainer closes a consumer above its minimum, 10 by default.
+     */
+    public void setListenerContainerIdleReceivesBeforeShrink(int listenerContainerIdleReceivesBeforeShrink) {
+        if (listenerContainerIdleReceivesBeforeShrink < 1) {
+            throw new IllegalArgumentException("listenerContainerIdleReceivesBeforeShrink must be at least 1.");
+        }
+
+        this.listenerContainerIdleReceivesBeforeShrink = listenerContainerIdleReceivesBeforeShrink;
+    }
+
+    /**
+     * @return The number of messages each consumer of a ServiceBusJmsListenerContainer processes at once on their own virtual threads.
+     */
+    public int getListenerContainerMaxMessagesPerConsumer() {
+        return listenerContainerMaxMessagesPerConsumer;
+    }
+
+    /**
+     * @param listenerContainerMaxMessagesPerConsumer The number of messages each consumer of a ServiceBusJmsListenerContainer processes
+     *                                                at once on their own virtual threads, 256 by default. Only used with
+     *                                                virtualThreadPerMessageEnabled.
+     */
+    public void setListenerContainerMaxMessagesPerConsumer(int listenerContainerMaxMessagesPerConsumer) {
+        if (listenerContainerMaxMessagesPerConsumer < 1) {
+            throw new IllegalArgumentException("listenerContainerMaxMessagesPerConsumer must be at least 1.");
+        }
+
+        this.listenerContainerMaxMessagesPerConsumer = listenerContainerMaxMessagesPerConsumer;
+    }
+
+    /**
+     * @return Whether the consumers of a ServiceBusJmsListenerContainer run on virtual threads.
+     */
+    public boolean isVirtualThreadReceiveLoopsEnabled() {
+        return virtualThreadReceiveLoopsEnabled;
+    }
+
+    /**
+     * @param virtualThreadReceiveLoopsEnabled Whether the consumers of a ServiceBusJmsListenerContainer run on virtual threads rather than
+     *                                         platform threads, false by default. Ignored before Java 21.
+     */
+    public void setVirtualThreadReceiveLoopsEnabled(boolean virtualThreadReceiveLoopsEnabled) {
+        this.virtualThreadReceiveLoopsEnabled = virtualThreadReceiveLoopsEnabled;
+    }
+
+    /**
+     * @return Whether a ServiceBusJmsListenerContainer runs the listener for each message on its own virtual thread.
+     */
+    public boolean isVirtualThreadPerMessageEnabled() {
+        return virtualThreadPerMessageEnabled;
+    }
+
+    /**
+     * Running the listener on a virtual thread per message lets a few consumers keep many mostly I/O-bound listeners busy,
+     * without sizing a pool of platform threads. Messages are then settled one by one in completion order, not in the order received.
+     * @param virtualThreadPerMessageEnabled Whether a ServiceBusJmsListenerContainer runs the listener for each message on its own
+     *                                       virtual thread, false by default. Ignored before Java 21.
+     */
+    public void setVirtualThreadPerMessageEnabled(boolean virtualThreadPerMessageEnabled) {
+        this.virtualThreadPerMessageEnabled = virtualThreadPerMessageEnabled;
+    }
+
+    /**
+     * @return The number of lanes, each with its own thread, a ServiceBusJmsOrderedDispatcher spreads message keys over.
+     */
+    public int getOrderedDispatchLanes() {
+        return orderedDispatchLanes;
+    }
+
+    /**
+     * @param orderedDispatchLanes The number of lanes, each with its own thread, a ServiceBusJmsOrderedDispatcher spreads message keys over,
+     *                             the number of processors by default. At most this many keys are processed at once.
+     */
+    public void setOrderedDispatchLanes(int orderedDispatchLanes) {
+        if (orderedDispatchLanes < 1) {
+            throw new IllegalArgumentException("orderedDispatchLanes must be at least 1.");
+        }
+
+        this.orderedDispatchLanes = orderedDispatchLanes;
+    }
+
+    /**
+     * @return The number of messages a lane of a ServiceBusJmsOrderedDispatcher holds before the consumer waits for it.
+     */
+    public int getOrderedDispatchLaneCapacity() {
+        return orderedDispatchLaneCapacity;
+    }
+
+    /**
+     * @param orderedDispatchLaneCapacity The number of messages a lane of a ServiceBusJmsOrderedDispatcher holds before the delivery
+     *                                    of the consumer waits for it, 100 by default.
+     */
+    public void setOrderedDispatchLaneCapacity(int orderedDispatchLaneCapacity) {
+        if (orderedDispatchLaneCapacity < 1) {
+            throw new IllegalArgumentException("orderedDispatchLaneCapacity must be at least 1.");
+        }
+
+        this.orderedDispatchLaneCapacity = orderedDispatchLaneCapacity;
+    }
+
+    /**
+     * @return The number of times a ServiceBusJmsOrderedDispatcher runs the listener for a message before it dead-letters the message.
+     */
+    public int getOrderedDispatchMaxAttempts() {
+        return orderedDispatchMaxAttempts;
+    }
+
+    /**
+     * @param orderedDispatchMaxAttempts The number of times a ServiceBusJmsOrderedDispatcher runs the listener for a message before it
+     *                                   dead-letters the message, 10 by default, the default maximum delivery count of Service Bus.
+     *                                   The attempts run in the lane of the message, so the messages after it wait for them,
+     *                                   see setOrderedDispatchRetryDelayMS for the delay between them.
+     */
+    public void setOrderedDispatchMaxAttempts(int orderedDispatchMaxAttempts) {
+        if (orderedDispatchMaxAttempts < 1) {
+            throw new IllegalArgumentException("orderedDispatchMaxAttempts must be at least 1.");
+        }
+
+        this.orderedDispatchMaxAttempts = orderedDispatchMaxAttempts;
+    }
+
+    /**
+     * @return The delay in milliseconds before a ServiceBusJmsOrderedDispatcher runs the listener for a failed message again.
+     */
+    public long getOrderedDispatchRetryDelayMS() {
+        return orderedDispatchRetryDelayMS;
+    }
+
+    /**
+     * @param orderedDispatchRetryDelayMS The delay in milliseconds before a ServiceBusJmsOrderedDispatcher runs the listener for a failed
+     *                                    message the second time, 50 milliseconds by default, doubled before each further attempt.
+     *                                    The attempts stop within half of messageLockDurationMS after the message was received,
+     *                                    the message is then abandoned rather than dead-lettered, before its lock runs out.
+     */
+    public void setOrderedDispatchRetryDelayMS(long orderedDispatchRetryDelayMS) {
+        if (orderedDispatchRetryDelayMS < 0) {
+            throw new IllegalArgumentException("orderedDispatchRetryDelayMS cannot be negative.");
+        }
+
+        this.orderedDispatchRetryDelayMS = orderedDispatchRetryDelayMS;
+    }
+
+    boolean isPayloadEncodingEnabled() {
+        return !payloadCompression.isEmpty() || payloadStore != null || messageChunkSizeBytes > 0;
+    }
+    
+    String getPerHostAmqpProviderQuery()
+    {
+        StringBuilder builder = new StringBuilder();
+        if (this.connectionIdleTimeoutMS > 0) {
+            StringUtil.appendQuery(builder, "amqp.idleTimeout", String.valueOf(this.connectionIdleTimeoutMS));
+        }
+        
+        if (this.traceFrames) {
+            StringUtil.appendQuery(builder, "amqp.traceFrames", "true");
+        }
+
+        if (this.sharedEventLoopThreads > 0) {
+            StringUtil.appendQuery(builder, "transport.sharedEventLoopThreads", String.valueOf(this.sharedEventLoopThreads));
+        }
+
+        // Transport options are only added when they differ from the qpid defaults.
+        if (this.epollEnabled != TransportOptions.DEFAULT_USE_EPOLL) {
+            StringUtil.appendQuery(builder, "transport.useEpoll", String.valueOf(this.epollEnabled));
+        }
+
+        if (this.kqueueEnabled != TransportOptions.DEFAULT_USE_KQUEUE) {
+            StringUtil.appendQuery(builder, "transport.useKQueue", String.valueOf(this.kqueueEnabled));
+        }
+
+        if (this.openSslEnabled != TransportOptions.DEFAULT_USE_OPENSSL) {
+            StringUtil.appendQuery(builder, "transport.useOpenSSL", String.valueOf(this.openSslEnabled));
+        }
+
+        if (this.tcpNoDelay != TransportOptions.DEFAULT_TCP_NO_DELAY) {
+            StringUtil.appendQuery(builder, "transport.tcpNoDelay", String.valueOf(this.tcpNoDelay));
+        }
+
+        if (this.socketSendBufferSize != TransportOptions.DEFAULT_SEND_BUFFER_SIZE) {
+            StringUtil.appendQuery(builder, "transport.sendBufferSize", String.valueOf(this.socketSendBufferSize));
+        }
+
+        if (this.socketReceiveBufferSize != TransportOptions.DEFAULT_RECEIVE_BUFFER_SIZE) {
+            StringUtil.appendQuery(builder, "transport.receiveBufferSize", String.valueOf(this.socketReceiveBufferSize));
         }
         
         return builder.toString();
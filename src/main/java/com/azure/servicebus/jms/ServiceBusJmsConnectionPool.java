@@ -0,0 +1,348 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.jms.Connection;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+import jakarta.jms.ResourceAllocationException;
+import jakarta.jms.Session;
+
+/**
+ * One physical connection owned by a ServiceBusJmsPooledConnectionFactory, together with its idle sessions.
+ * Every ServiceBusJmsPooledConnection handed out by the factory is bound to one of these.
+ */
+class ServiceBusJmsConnectionPool {
+    private final Connection connection;
+    private final ServiceBusJmsConnectionFactorySettings settings;
+    private final ServiceBusJmsPoolStatistics statistics;
+    private final long createdTime;
+    // Idle sessions keyed by acknowledge mode, or Session.SESSION_TRANSACTED for transacted sessions. Most recently used first.
+    private final Map<Integer, Deque<PooledSession>> idleSessions = new HashMap<>();
+    private final Set<ServiceBusJmsPooledConnection> borrowers = new HashSet<>();
+    private int sessionCount;
+    private int idleSessionCount;
+    private long lastReleasedTime;
+    private boolean started;
+    private boolean failed;
+    private boolean retired;
+    private boolean closed;
+
+    ServiceBusJmsConnectionPool(Connection connection, ServiceBusJmsConnectionFactorySettings settings, ServiceBusJmsPoolStatistics statistics) throws JMSException {
+        this.connection = connection;
+        this.settings = settings;
+        this.statistics = statistics;
+        this.createdTime = System.currentTimeMillis();
+        this.lastReleasedTime = this.createdTime;
+        this.connection.setExceptionListener(this::onException);
+    }
+
+    Connection getConnection() {
+        return this.connection;
+    }
+
+    /**
+     * @return True if this pool can still be handed out to new borrowers.
+     */
+    synchronized boolean isUsable(long now) {
+        return !this.closed && !this.failed && !this.retired && !this.isExpired(now);
+    }
+
+    synchronized void addBorrower(ServiceBusJmsPooledConnection borrower) throws JMSException {
+        if (this.closed) {
+            throw new IllegalStateException("The pooled connection has been closed.");
+        }
+
+        this.borrowers.add(borrower);
+    }
+
+    void removeBorrower(ServiceBusJmsPooledConnection borrower) {
+        boolean shouldClose;
+        synchronized (this) {
+            if (!this.borrowers.remove(borrower)) {
+                return;
+            }
+
+            this.lastReleasedTime = System.currentTimeMillis();
+            shouldClose = this.borrowers.isEmpty() && (this.failed || this.retired || this.isExpired(this.lastReleasedTime));
+        }
+
+        if (shouldClose) {
+            this.close();
+        }
+    }
+
+    /**
+     * Take this pool out of service. The physical connection is closed now if nobody borrows it, otherwise once the last borrower releases it.
+     */
+    void retire() {
+        boolean shouldClose;
+        synchronized (this) {
+            this.retired = true;
+            shouldClose = this.borrowers.isEmpty();
+        }
+
+        if (shouldClose) {
+            this.close();
+        }
+    }
+
+    synchronized void start() throws JMSException {
+        if (!this.started) {
+            this.connection.start();
+            this.started = true;
+        }
+    }
+
+    /**
+     * Borrow a session with the given mode, reusing an idle one when possible.
+     * If the connection already holds the maximum number of sessions, idle sessions of other modes are closed to make room,
+     * and otherwise the call waits or fails as configured in the factory settings.
+     */
+    PooledSession borrowSession(boolean transacted, int acknowledgeMode) throws JMSException {
+        int key = transacted ? Session.SESSION_TRANSACTED : acknowledgeMode;
+        List<PooledSession> toClose = new ArrayList<>();
+        try {
+            synchronized (this) {
+                long waitStart = 0;
+                while (true) {
+                    if (this.closed || this.failed) {
+                        throw new IllegalStateException("The pooled connection is no longer usable.");
+                    }
+
+                    Deque<PooledSession> idle = this.idleSessions.get(key);
+                    if (idle != null && !idle.isEmpty()) {
+                        PooledSession session = idle.pollFirst();
+                        this.idleSessionCount--;
+                        this.statistics.onSessionReused();
+                        this.recordWait(waitStart, false);
+                        return session;
+                    }
+
+                    if (this.sessionCount < this.settings.getMaxSessionsPerPooledConnection()) {
+                        this.sessionCount++;
+                        this.recordWait(waitStart, false);
+                        break;
+                    }
+
+                    PooledSession leastRecentlyUsed = this.pollLeastRecentlyUsedIdleSession();
+                    if (leastRecentlyUsed != null) {
+                        toClose.add(leastRecentlyUsed);
+                        continue;
+                    }
+
+                    if (waitStart == 0) {
+                        waitStart = System.currentTimeMillis();
+                        this.statistics.onPoolExhausted();
+                    }
+
+                    long timeout = this.settings.getBlockIfSessionPoolIsFullTimeoutMS();
+                    long remaining = timeout < 0 ? 0 : timeout - (System.currentTimeMillis() - waitStart);
+                    if (!this.settings.shouldBlockIfSessionPoolIsFull() || (timeout >= 0 && remaining <= 0)) {
+                        this.recordWait(waitStart, true);
+                        throw new ResourceAllocationException("The session pool is exhausted: the pooled connection already holds "
+                            + this.settings.getMaxSessionsPerPooledConnection() + " sessions.");
+                    }
+
+                    try {
+                        this.wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        this.recordWait(waitStart, true);
+                        throw new ResourceAllocationException("Interrupted while waiting for a pooled session.");
+                    }
+                }
+            }
+        } finally {
+            for (PooledSession session : toClose) {
+                session.closeQuietly();
+                this.statistics.onIdleSessionClosed();
+            }
+        }
+
+        try {
+            Session session = this.connection.createSession(transacted, acknowledgeMode);
+            this.statistics.onSessionCreated();
+            return new PooledSession(session, key, this.settings.getMaxCachedProducersPerPooledSession());
+        } catch (JMSException | RuntimeException e) {
+            synchronized (this) {
+                this.sessionCount--;
+                this.notifyAll();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Give a borrowed session back to the pool. A discarded session is closed instead of being kept idle.
+     */
+    void returnSession(PooledSession session, boolean discard) {
+        synchronized (this) {
+            if (!discard && !this.closed && !this.failed) {
+                session.lastUsedTime = System.currentTimeMillis();
+                this.idleSessions.computeIfAbsent(session.key, k -> new ArrayDeque<>()).addFirst(session);
+                this.idleSessionCount++;
+                this.statistics.onSessionReturned();
+                this.notifyAll();
+                return;
+            }
+
+            this.sessionCount--;
+            this.notifyAll();
+        }
+
+        this.statistics.onBorrowedSessionClosed();
+        session.closeQuietly();
+    }
+
+    /**
+     * Close the idle sessions that have not been used within the idle timeout.
+     * @return True if the physical connection should be closed because it is idle, expired or failed and has no borrowers.
+     */
+    boolean evict(long now) {
+        long idleTimeout = this.settings.getPooledResourceIdleTimeoutMS();
+        List<PooledSession> toClose = new ArrayList<>();
+        boolean shouldClose;
+        synchronized (this) {
+            if (this.closed) {
+                return true;
+            }
+
+            if (idleTimeout > 0) {
+                for (Deque<PooledSession> idle : this.idleSessions.values()) {
+                    Iterator<PooledSession> iterator = idle.descendingIterator();
+                    while (iterator.hasNext()) {
+                        PooledSession session = iterator.next();
+                        if (now - session.lastUsedTime < idleTimeout) {
+                            break;
+                        }
+
+                        iterator.remove();
+                        this.idleSessionCount--;
+                        this.sessionCount--;
+                        toClose.add(session);
+                    }
+                }
+            }
+
+            boolean idle = idleTimeout > 0 && now - this.lastReleasedTime >= idleTimeout;
+            shouldClose = this.borrowers.isEmpty() && (idle || this.failed || this.isExpired(now));
+        }
+
+        for (PooledSession session : toClose) {
+            session.closeQuietly();
+            this.statistics.onIdleSessionClosed();
+        }
+
+        return shouldClose;
+    }
+
+    /**
+     * Close the physical connection along with every session it holds.
+     */
+    void close() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+            for (int i = 0; i < this.idleSessionCount; i++) {
+                this.statistics.onIdleSessionClosed();
+            }
+
+            this.idleSessions.clear();
+            this.idleSessionCount = 0;
+            this.notifyAll();
+        }
+
+        try {
+            // Closing the connection closes all of its sessions and producers.
+            this.connection.close();
+        } catch (JMSException e) {
+            // The connection is being discarded, nothing else to do.
+        }
+
+        this.statistics.onConnectionClosed();
+    }
+
+    private void onException(JMSException exception) {
+        List<ServiceBusJmsPooledConnection> toNotify;
+        synchronized (this) {
+            this.failed = true;
+            this.notifyAll();
+            toNotify = new ArrayList<>(this.borrowers);
+        }
+
+        for (ServiceBusJmsPooledConnection borrower : toNotify) {
+            borrower.onException(exception);
+        }
+    }
+
+    private boolean isExpired(long now) {
+        long maxAge = this.settings.getPooledConnectionMaxAgeMS();
+        return maxAge > 0 && now - this.createdTime >= maxAge;
+    }
+
+    private PooledSession pollLeastRecentlyUsedIdleSession() {
+        PooledSession leastRecentlyUsed = null;
+        Deque<PooledSession> owner = null;
+        for (Deque<PooledSession> idle : this.idleSessions.values()) {
+            PooledSession candidate = idle.peekLast();
+            if (candidate != null && (leastRecentlyUsed == null || candidate.lastUsedTime < leastRecentlyUsed.lastUsedTime)) {
+                leastRecentlyUsed = candidate;
+                owner = idle;
+            }
+        }
+
+        if (owner != null) {
+            owner.pollLast();
+            this.idleSessionCount--;
+            this.sessionCount--;
+        }
+
+        return leastRecentlyUsed;
+    }
+
+    private void recordWait(long waitStart, boolean failed) {
+        if (waitStart != 0) {
+            this.statistics.onPoolExhaustedWait(System.currentTimeMillis() - waitStart, failed);
+        }
+    }
+
+    /**
+     * A physical session with its cached producer links.
+     */
+    static final class PooledSession {
+        final Session session;
+        final int key;
+        final MessageProducerCache producers;
+        long lastUsedTime;
+
+        PooledSession(Session session, int key, int maxCachedProducers) {
+            this.session = session;
+            this.key = key;
+            this.producers = new MessageProducerCache(session, maxCachedProducers);
+        }
+
+        void closeQuietly() {
+            try {
+                this.session.close();
+            } catch (JMSException e) {
+                // The session is being discarded, nothing else to do.
+            }
+        }
+    }
+}
@@ -4,14 +4,18 @@
 package com.azure.servicebus.jms;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import jakarta.jms.BytesMessage;
 import jakarta.jms.ConnectionMetaData;
 import jakarta.jms.Destination;
 import jakarta.jms.ExceptionListener;
+import jakarta.jms.IllegalStateRuntimeException;
 import jakarta.jms.JMSConsumer;
 import jakarta.jms.JMSContext;
+import jakarta.jms.JMSException;
 import jakarta.jms.JMSProducer;
+import jakarta.jms.JMSRuntimeException;
 import jakarta.jms.MapMessage;
 import jakarta.jms.Message;
 import jakarta.jms.ObjectMessage;
@@ -23,13 +27,62 @@ import jakarta.jms.TemporaryTopic;
 import jakarta.jms.TextMessage;
 import jakarta.jms.Topic;
 
-class ServiceBusJmsContext implements JMSContext {
+/**
+ * The JMSContext handed out by a ServiceBusJmsConnectionFactory.
+ * On top of the JMS API it can send message batches, see {@link #createMessageBatch(Destination)}.
+ */
+public class ServiceBusJmsContext implements JMSContext {
     private final JMSContext innerJmsContext;
-
-    ServiceBusJmsContext(JMSContext jmsContext) {
+    private final ServiceBusJmsConnectionFactorySettings settings;
+    private final DestinationCache destinationCache;
+    private final CbsTokenRenewer tokenRenewer;
+    // Shared by the contexts of one connection, which qpid starts on start or when a context with autoStart creates a consumer.
+    private final AtomicBoolean connectionStarted;
+    private volatile boolean closed;
+
+    ServiceBusJmsContext(JMSContext jmsContext, ServiceBusJmsConnectionFactorySettings settings, DestinationCache destinationCache,
+            CbsTokenRenewer tokenRenewer, AtomicBoolean connectionStarted) {
         this.innerJmsContext = jmsContext;
+        this.settings = settings;
+        this.destinationCache = destinationCache;
+        this.tokenRenewer = tokenRenewer;
+        this.connectionStarted = connectionStarted;
     }
     
+    /**
+     * Create an empty message batch for the given destination, bounded by the maxMessageBatchSizeInBytes setting of the factory.
+     * @param destination The destination the messages of the batch are sent to.
+     * @return The new batch.
+     */
+    public ServiceBusJmsMessageBatch createMessageBatch(Destination destination) {
+        return new ServiceBusJmsMessageBatch(destination, this.settings.getMaxMessageBatchSizeInBytes());
+    }
+
+    /**
+     * Send all messages of the batch, in order, and wait once for the broker to accept all of them.
+     * On success the batch is emptied. On failure the first error is thrown and some messages may have been sent.
+     * @param batch The batch to send.
+     */
+    public void send(ServiceBusJmsMessageBatch batch) {
+        if (batch.getCount() == 0) {
+            return;
+        }
+
+        MessageBatchCompletion completion = new MessageBatchCompletion(batch.getCount());
+        JMSProducer producer = this.innerJmsContext.createProducer().setAsync(completion);
+        for (Message message : batch.getMessages()) {
+            producer.send(batch.getDestination(), message);
+        }
+
+        try {
+            completion.await();
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
+
+        batch.clear();
+    }
+
     @Override
     public void acknowledge() {
         this.innerJmsContext.acknowledge();
@@ -37,6 +90,11 @@ class ServiceBusJmsContext implements JMSContext {
 
     @Override
     public void close() {
+        this.closed = true;
+        if (this.tokenRenewer != null) {
+            this.tokenRenewer.close();
+        }
+
         this.innerJmsContext.close();
     }
 
@@ -47,12 +105,12 @@ class ServiceBusJmsContext implements JMSContext {
 
     @Override
     public QueueBrowser createBrowser(Queue queue) {
-        return this.innerJmsContext.createBrowser(queue);
+        return this.autoStarted(this.innerJmsContext.createBrowser(queue));
     }
 
     @Override
     public QueueBrowser createBrowser(Queue queue, String messageSelector) {
-        return this.innerJmsContext.createBrowser(queue, messageSelector);
+        return this.autoStarted(this.innerJmsContext.createBrowser(queue, messageSelector));
     }
 
     @Override
@@ -62,32 +120,34 @@ class ServiceBusJmsContext implements JMSContext {
 
     @Override
     public JMSConsumer createConsumer(Destination destination) {
-        return this.innerJmsContext.createConsumer(destination);
+        return this.autoStarted(this.innerJmsContext.createConsumer(destination));
     }
 
     @Override
     public JMSConsumer createConsumer(Destination destination, String messageSelector) {
-        return this.innerJmsContext.createConsumer(destination, messageSelector);
+        return this.autoStarted(this.innerJmsContext.createConsumer(destination, messageSelector));
     }
 
     @Override
     public JMSConsumer createConsumer(Destination destination, String messageSelector, boolean noLocal) {
-        return this.innerJmsContext.createConsumer(destination, messageSelector, noLocal);
+        return this.autoStarted(this.innerJmsContext.createConsumer(destination, messageSelector, noLocal));
     }
 
     @Override
     public JMSContext createContext(int sessionMode) {
-        return this.innerJmsContext.createContext(sessionMode);
+        // The new context shares the connection of this one, which already renews its token.
+        JMSContext innerContext = this.innerJmsContext.createContext(sessionMode);
+        return new ServiceBusJmsContext(innerContext, this.settings, this.destinationCache, null, this.connectionStarted);
     }
 
     @Override
     public JMSConsumer createDurableConsumer(Topic topic, String name) {
-        return this.innerJmsContext.createDurableConsumer(topic, name);
+        return this.autoStarted(this.innerJmsContext.createDurableConsumer(topic, name));
     }
 
     @Override
     public JMSConsumer createDurableConsumer(Topic topic, String name, String messageSelector, boolean noLocal) {
-        return this.innerJmsContext.createDurableConsumer(topic, name, messageSelector, noLocal);
+        return this.autoStarted(this.innerJmsContext.createDurableConsumer(topic, name, messageSelector, noLocal));
     }
 
     @Override
@@ -117,28 +177,32 @@ class ServiceBusJmsContext implements JMSContext {
 
     @Override
     public Queue createQueue(String queueName) {
-        Queue innerQueue = this.innerJmsContext.createQueue(queueName);
-        return new ServiceBusJmsQueue(innerQueue);
+        try {
+            this.checkClosed();
+            return this.destinationCache.getQueue(queueName, name -> new ServiceBusJmsQueue(this.innerJmsContext.createQueue(name)));
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
     }
 
     @Override
     public JMSConsumer createSharedConsumer(Topic topic, String sharedSubscriptionName) {
-        return this.innerJmsContext.createSharedConsumer(topic, sharedSubscriptionName);
+        return this.autoStarted(this.innerJmsContext.createSharedConsumer(topic, sharedSubscriptionName));
     }
 
     @Override
     public JMSConsumer createSharedConsumer(Topic topic, String sharedSubscriptionName, String messageSelector) {
-        return this.innerJmsContext.createSharedConsumer(topic, sharedSubscriptionName, messageSelector);
+        return this.autoStarted(this.innerJmsContext.createSharedConsumer(topic, sharedSubscriptionName, messageSelector));
     }
 
     @Override
     public JMSConsumer createSharedDurableConsumer(Topic topic, String name) {
-        return this.innerJmsContext.createSharedDurableConsumer(topic, name);
+        return this.autoStarted(this.innerJmsContext.createSharedDurableConsumer(topic, name));
     }
 
     @Override
     public JMSConsumer createSharedDurableConsumer(Topic topic, String name, String messageSelector) {
-        return this.innerJmsContext.createSharedDurableConsumer(topic, name, messageSelector);
+        return this.autoStarted(this.innerJmsContext.createSharedDurableConsumer(topic, name, messageSelector));
     }
 
     @Override
@@ -168,8 +232,12 @@ class ServiceBusJmsContext implements JMSContext {
 
     @Override
     public Topic createTopic(String topicName) {
-        Topic innerTopic = this.innerJmsContext.createTopic(topicName);
-        return new ServiceBusJmsTopic(innerTopic);
+        try {
+            this.checkClosed();
+            return this.destinationCache.getTopic(topicName, name -> new ServiceBusJmsTopic(this.innerJmsContext.createTopic(name)));
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+        }
     }
 
     @Override
@@ -230,15 +298,32 @@ class ServiceBusJmsContext implements JMSContext {
     @Override
     public void start() {
         this.innerJmsContext.start();
+        this.connectionStarted.set(true);
     }
 
     @Override
     public void stop() {
         this.innerJmsContext.stop();
+        this.connectionStarted.set(false);
     }
 
     @Override
     public void unsubscribe(String name) {
         this.innerJmsContext.unsubscribe(name);
     }
+
+    private <T> T autoStarted(T consumer) {
+        if (this.innerJmsContext.getAutoStart()) {
+            this.connectionStarted.set(true);
+        }
+
+        return consumer;
+    }
+
+    // Cached destinations are handed out without asking the qpid context, which would refuse them once closed.
+    private void checkClosed() {
+        if (this.closed) {
+            throw new IllegalStateRuntimeException("The Context is closed");
+        }
+    }
 }
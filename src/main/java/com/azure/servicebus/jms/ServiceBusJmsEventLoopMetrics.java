@@ -0,0 +1,55 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+/**
+ * A snapshot of one thread of the shared event loop the connections of a factory run on, see ServiceBusJmsMetrics#getEventLoops.
+ */
+public final class ServiceBusJmsEventLoopMetrics {
+    private final String threadName;
+    private final int pendingTasks;
+    private final long cpuTimeNanos;
+    private final double utilization;
+
+    ServiceBusJmsEventLoopMetrics(String threadName, int pendingTasks, long cpuTimeNanos, double utilization) {
+        this.threadName = threadName;
+        this.pendingTasks = pendingTasks;
+        this.cpuTimeNanos = cpuTimeNanos;
+        this.utilization = utilization;
+    }
+
+    /**
+     * @return The name of the event loop thread.
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * @return The number of tasks queued on the event loop, a queue that keeps growing means the loop cannot keep up with its connections.
+     */
+    public int getPendingTasks() {
+        return pendingTasks;
+    }
+
+    /**
+     * @return The CPU time the event loop thread used so far, -1 if the JVM does not measure thread CPU time.
+     */
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos;
+    }
+
+    /**
+     * @return The share of one CPU the event loop thread used since the previous snapshot was taken, between 0 and 1.
+     *         0 for the first snapshot of a thread, -1 if the JVM does not measure thread CPU time.
+     */
+    public double getUtilization() {
+        return utilization;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d pending tasks, %.1f%% utilization", threadName, pendingTasks, utilization * 100);
+    }
+}
@@ -0,0 +1,61 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * A payload store keeping each body in a file of a directory, for tests and for producers and consumers sharing a file system.
+ */
+public final class ServiceBusJmsFileSystemPayloadStore implements ServiceBusJmsPayloadStore {
+    private static final Pattern REFERENCE_PATTERN = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private final Path directory;
+
+    /**
+     * @param directory The directory to keep the bodies in, created if it does not exist.
+     * @throws IOException If the directory cannot be created.
+     */
+    public ServiceBusJmsFileSystemPayloadStore(Path directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null.");
+        }
+
+        this.directory = Files.createDirectories(directory);
+    }
+
+    @Override
+    public String store(byte[] payload, int length) throws IOException {
+        String reference = UUID.randomUUID().toString();
+        // Written next to its final name and moved in place, so consumers never see a partial body.
+        Path temporary = Files.createTempFile(this.directory, reference, ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(temporary)) {
+                output.write(payload, 0, length);
+            }
+
+            Files.move(temporary, this.directory.resolve(reference), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        return reference;
+    }
+
+    @Override
+    public InputStream open(String reference) throws IOException {
+        // References arrive with received messages, anything but a name this store handed out could point outside the directory.
+        if (reference == null || !REFERENCE_PATTERN.matcher(reference).matches()) {
+            throw new IOException("Invalid payload reference " + reference + ".");
+        }
+
+        return Files.newInputStream(this.directory.resolve(reference));
+    }
+}
@@ -0,0 +1,490 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.jms.Connection;
+import jakarta.jms.Destination;
+import jakarta.jms.ExceptionListener;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageListener;
+import jakarta.jms.Session;
+
+/**
+ * Runs a MessageListener on several consumers of one destination in parallel. A session delivers its messages one at a time,
+ * so each consumer of the container has its own session and thread.
+ * <p>
+ * The container starts listenerContainerMinConsumers consumers and adds one, up to listenerContainerMaxConsumers, when a consumer
+ * finds a message already waiting while no other consumer is idle. Consumers are added at most once per average processing time
+ * of a message, so a short spike does not start all of them at once. A consumer whose last listenerContainerIdleReceivesBeforeShrink
+ * receives returned nothing is closed, down to the minimum.
+ * <p>
+ * Each message is settled on its own, once the listener returned. If the listener throws, the message is abandoned, so it is
+ * redelivered with a higher delivery count until Service Bus dead-letters it, and the exception is passed to the exception listener
+ * of the container. Stopping the container lets every consumer finish the message it is processing, the messages the consumers
+ * prefetched are released to other receivers.
+ * <p>
+ * On Java 21 and later, the virtualThreadReceiveLoopsEnabled setting runs the consumers on virtual threads, and the
+ * virtualThreadPerMessageEnabled setting hands each received message to a new virtual thread, up to
+ * listenerContainerMaxMessagesPerConsumer at a time per consumer, so a consumer keeps receiving while the listener waits on I/O.
+ * The message threads only hand their outcome back, the consumer settles it on its own thread, as a session is single-threaded.
+ * On older Java versions, both settings are ignored and each consumer processes its messages on its own platform thread.
+ */
+public final class ServiceBusJmsListenerContainer implements AutoCloseable {
+    private static final double LATENCY_WEIGHT = 0.2;
+    // While messages are on their own threads, receives wait at most this long so their outcomes are settled soon.
+    private static final long SETTLEMENT_INTERVAL_MS = 20;
+
+    private final Connection connection;
+    private final Destination destination;
+    private final String messageSelector;
+    private final MessageListener listener;
+    private final ServiceBusJmsConnectionFactorySettings settings;
+    private final boolean messageThreads;
+    private final List<Consumer> consumers = new ArrayList<>();
+    private final AtomicInteger idleConsumers = new AtomicInteger();
+    private volatile boolean running;
+    private volatile long averageLatencyNanos;
+    private volatile ExceptionListener exceptionListener;
+    private long lastScaleUpNanos;
+    private int nextConsumerId;
+
+    /**
+     * @param connection A connection created by a ServiceBusJmsConnectionFactory.
+     * @param destination The queue or topic subscription to consume from.
+     * @param listener The listener, called from several threads at once.
+     */
+    public ServiceBusJmsListenerContainer(Connection connection, Destination destination, MessageListener listener) {
+        this(connection, destination, null, listener);
+    }
+
+    /**
+     * @param connection A connection created by a ServiceBusJmsConnectionFactory.
+     * @param destination The queue or topic subscription to consume from.
+     * @param messageSelector Only messages matching this selector are delivered, null for all messages.
+     * @param listener The listener, called from several threads at once.
+     */
+    public ServiceBusJmsListenerContainer(Connection connection, Destination destination, String messageSelector, MessageListener listener) {
+        if (!(connection instanceof ServiceBusJmsConnection)) {
+            throw new IllegalArgumentException("connection must be created by a ServiceBusJmsConnectionFactory.");
+        }
+
+        if (listener == null) {
+            throw new IllegalArgumentException("listener cannot be null.");
+        }
+
+        this.connection = connection;
+        this.destination = destination;
+        this.messageSelector = messageSelector;
+        this.listener = listener;
+        this.settings = ((ServiceBusJmsConnection) connection).getSettings();
+        if (this.settings.getListenerContainerMinConsumers() > this.settings.getListenerContainerMaxConsumers()) {
+            throw new IllegalArgumentException("listenerContainerMinConsumers cannot be more than listenerContainerMaxConsumers.");
+        }
+
+        this.messageThreads = this.settings.isVirtualThreadPerMessageEnabled() && VirtualThreads.isSupported();
+    }
+
+    /**
+     * @param exceptionListener Called with the exceptions thrown by the message listener and the failures to receive messages.
+     */
+    public void setExceptionListener(ExceptionListener exceptionListener) {
+        this.exceptionListener = exceptionListener;
+    }
+
+    /**
+     * Attach the minimum number of consumers, start the connection and start delivering messages.
+     * @throws JMSException If a consumer cannot be attached. The consumers attached so far are closed.
+     */
+    public synchronized void start() throws JMSException {
+        if (this.running) {
+            return;
+        }
+
+        List<Consumer> started = new ArrayList<>();
+        try {
+            for (int i = 0; i < this.settings.getListenerContainerMinConsumers(); i++) {
+                Consumer consumer = new Consumer(this.nextConsumerId++);
+                consumer.open();
+                started.add(consumer);
+            }
+
+            this.connection.start();
+        } catch (JMSException | RuntimeException e) {
+            for (Consumer consumer : started) {
+                consumer.closeQuietly();
+            }
+
+            throw e;
+        }
+
+        this.running = true;
+        this.lastScaleUpNanos = System.nanoTime();
+        for (Consumer consumer : started) {
+            this.consumers.add(consumer);
+            consumer.thread.start();
+        }
+    }
+
+    /**
+     * Stop delivering messages and close the consumers. Messages being processed are completed and acknowledged first,
+     * so this waits up to the processing time of a message plus listenerContainerReceiveTimeoutMS.
+     */
+    public void stop() {
+        List<Consumer> toJoin;
+        synchronized (this) {
+            this.running = false;
+            toJoin = new ArrayList<>(this.consumers);
+        }
+
+        boolean interrupted = false;
+        for (Consumer consumer : toJoin) {
+            while (true) {
+                try {
+                    consumer.thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Same as stop.
+     */
+    @Override
+    public void close() {
+        this.stop();
+    }
+
+    /**
+     * @return Whether the container is delivering messages.
+     */
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * @return The number of consumers currently attached.
+     */
+    public synchronized int getConsumerCount() {
+        return this.consumers.size();
+    }
+
+    private void onBacklog() {
+        if (this.idleConsumers.get() > 0) {
+            return;
+        }
+
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (!this.running || this.consumers.size() >= this.settings.getListenerContainerMaxConsumers()
+                    || now - this.lastScaleUpNanos < this.averageLatencyNanos) {
+                return;
+            }
+
+            this.lastScaleUpNanos = now;
+            // The new consumer attaches on its own thread, so the consumer that saw the backlog goes on with its message.
+            Consumer consumer = new Consumer(this.nextConsumerId++);
+            this.consumers.add(consumer);
+            consumer.thread.start();
+        }
+    }
+
+    private synchronized boolean tryRetire(Consumer consumer) {
+        if (this.consumers.size() <= this.settings.getListenerContainerMinConsumers()) {
+            return false;
+        }
+
+        this.consumers.remove(consumer);
+        return true;
+    }
+
+    private synchronized void onConsumerStopped(Consumer consumer) {
+        this.consumers.remove(consumer);
+    }
+
+    private void recordLatency(long latencyNanos) {
+        // Racy updates only lose a sample now and then, which an average does not mind.
+        long average = this.averageLatencyNanos;
+        this.averageLatencyNanos = average == 0 ? latencyNanos : (long) (average + LATENCY_WEIGHT * (latencyNanos - average));
+    }
+
+    private void report(JMSException exception) {
+        ExceptionListener exceptionListener = this.exceptionListener;
+        if (exceptionListener != null) {
+            exceptionListener.onException(exception);
+        }
+    }
+
+    private static JMSException toJMSException(RuntimeException e) {
+        JMSException exception = new JMSException("The message listener failed, the message will be redelivered: " + e.getMessage());
+        exception.setLinkedException(e);
+        exception.initCause(e);
+        return exception;
+    }
+
+    private final class Consumer implements Runnable {
+        private final Thread thread;
+        private final String name;
+        // Bounds the messages on their own threads, null when the consumer processes messages itself.
+        private final Semaphore messageSlots;
+        private final int maxMessages;
+        // Messages whose thread is done, for the consumer thread to settle.
+        private final Queue<ProcessedMessage> processed = new ConcurrentLinkedQueue<>();
+        private Session session;
+        private MessageConsumer consumer;
+
+        Consumer(int id) {
+            this.name = "ServiceBusJmsListenerContainer-" + id;
+            this.thread = VirtualThreads.newThread(this.name, this, settings.isVirtualThreadReceiveLoopsEnabled());
+            this.maxMessages = settings.getListenerContainerMaxMessagesPerConsumer();
+            this.messageSlots = messageThreads ? new Semaphore(this.maxMessages) : null;
+        }
+
+        void open() throws JMSException {
+            this.session = connection.createSession(false, ServiceBusJmsMessageConsumer.INDIVIDUAL_ACKNOWLEDGE);
+            try {
+                this.consumer = this.session.createConsumer(destination, messageSelector);
+            } catch (JMSException | RuntimeException e) {
+                this.closeQuietly();
+                throw e;
+            }
+        }
+
+        void closeQuietly() {
+            if (this.messageSlots != null) {
+                // Let the messages still on their own threads be settled before their session goes away.
+                this.messageSlots.acquireUninterruptibly(this.maxMessages);
+                this.messageSlots.release(this.maxMessages);
+                this.settleProcessed();
+            }
+
+            try {
+                if (this.session != null) {
+                    this.session.close();
+                }
+            } catch (JMSException e) {
+                // The consumer is being discarded, nothing else to do.
+            }
+
+            this.session = null;
+            this.consumer = null;
+        }
+
+        @Override
+        public void run() {
+            long receiveTimeoutMS = settings.getListenerContainerReceiveTimeoutMS();
+            int idleReceives = 0;
+            try {
+                if (this.consumer == null) {
+                    // Added on a backlog, attached here rather than by the consumer that saw it.
+                    this.open();
+                }
+
+                while (running && !Thread.currentThread().isInterrupted()) {
+                    if (this.consumer == null && !this.reopen(receiveTimeoutMS)) {
+                        continue;
+                    }
+
+                    Message message;
+                    boolean waited = false;
+                    try {
+                        this.settleProcessed();
+                        message = this.consumer.receiveNoWait();
+                        if (message == null) {
+                            waited = true;
+                            idleConsumers.incrementAndGet();
+                            try {
+                                message = this.receive(receiveTimeoutMS);
+                            } finally {
+                                idleConsumers.decrementAndGet();
+                            }
+                        }
+                    } catch (JMSException e) {
+                        report(e);
+                        this.closeQuietly();
+                        continue;
+                    }
+
+                    if (message == null) {
+                        if (++idleReceives >= settings.getListenerContainerIdleReceivesBeforeShrink() && tryRetire(this)) {
+                            return;
+                        }
+
+                        continue;
+                    }
+
+                    idleReceives = 0;
+                    if (!waited) {
+                        onBacklog();
+                    }
+
+                    if (this.messageSlots != null) {
+                        this.processOnMessageThread(message);
+                    } else {
+                        this.process(message);
+                    }
+                }
+            } catch (JMSException e) {
+                // The consumer could not attach, the others go on.
+                report(e);
+            } finally {
+                this.closeQuietly();
+                onConsumerStopped(this);
+            }
+        }
+
+        private void process(Message message) {
+            long start = System.nanoTime();
+            RuntimeException failure = null;
+            try {
+                listener.onMessage(message);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+
+            recordLatency(System.nanoTime() - start);
+            if (failure != null) {
+                report(toJMSException(failure));
+            }
+
+            try {
+                this.settle(message, failure == null ? ServiceBusJmsMessageSettlement.ACCEPT : ServiceBusJmsMessageSettlement.MODIFIED_FAILED);
+            } catch (JMSException e) {
+                // The lock may be lost or the link gone, the message is redelivered either way.
+                report(e);
+                this.closeQuietly();
+            }
+        }
+
+        /**
+         * Wait for a message. While messages are on their own threads, the wait is cut into short receives, settling the outcomes
+         * of the threads done in between.
+         */
+        private Message receive(long timeoutMS) throws JMSException {
+            if (this.messageSlots == null) {
+                return this.consumer.receive(timeoutMS);
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMS);
+            while (true) {
+                long remainingMS = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMS <= 0) {
+                    return null;
+                }
+
+                boolean inFlight = this.messageSlots.availablePermits() < this.maxMessages || !this.processed.isEmpty();
+                Message message = this.consumer.receive(inFlight ? Math.min(remainingMS, SETTLEMENT_INTERVAL_MS) : remainingMS);
+                this.settleProcessed();
+                if (message != null || !inFlight) {
+                    return message;
+                }
+            }
+        }
+
+        private void settle(Message message, ServiceBusJmsMessageSettlement settlement) throws JMSException {
+            ((ServiceBusJmsMessageConsumer) this.consumer).settle(Collections.singletonList(message), settlement);
+        }
+
+        /**
+         * Settle the messages whose thread is done, on the consumer thread. Without a consumer, they were released with their session.
+         */
+        private void settleProcessed() {
+            ProcessedMessage processed;
+            while ((processed = this.processed.poll()) != null) {
+                if (this.consumer == null) {
+                    continue;
+                }
+
+                try {
+                    this.settle(processed.message, processed.settlement);
+                } catch (JMSException e) {
+                    // The lock may be lost, the message is redelivered, the others can still be settled.
+                    report(e);
+                }
+            }
+        }
+
+        private void processOnMessageThread(Message message) {
+            try {
+                this.messageSlots.acquire();
+            } catch (InterruptedException e) {
+                // The message stays unsettled and is released when the consumer closes.
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            Thread thread = VirtualThreads.newThread(this.name + "-message", () -> {
+                ServiceBusJmsMessageSettlement settlement = ServiceBusJmsMessageSettlement.MODIFIED_FAILED;
+                try {
+                    long start = System.nanoTime();
+                    try {
+                        listener.onMessage(message);
+                        settlement = ServiceBusJmsMessageSettlement.ACCEPT;
+                    } catch (RuntimeException e) {
+                        report(toJMSException(e));
+                    }
+
+                    recordLatency(System.nanoTime() - start);
+                } finally {
+                    // Handed back before the slot is released, so a consumer waiting for all slots settles it before closing.
+                    this.processed.offer(new ProcessedMessage(message, settlement));
+                    this.messageSlots.release();
+                }
+            }, true);
+            thread.start();
+        }
+
+        /**
+         * Attach the consumer again after a failure, waiting a receive timeout before each attempt.
+         * @return Whether the consumer is attached.
+         */
+        private boolean reopen(long delayMS) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(delayMS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+
+            if (!running) {
+                return false;
+            }
+
+            try {
+                this.open();
+                return true;
+            } catch (JMSException e) {
+                report(e);
+                return false;
+            }
+        }
+    }
+
+    private static final class ProcessedMessage {
+        private final Message message;
+        private final ServiceBusJmsMessageSettlement settlement;
+
+        ProcessedMessage(Message message, ServiceBusJmsMessageSettlement settlement) {
+            this.message = message;
+            this.settlement = settlement;
+        }
+    }
+}
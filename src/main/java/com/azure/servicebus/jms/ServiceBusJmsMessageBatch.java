@@ -0,0 +1,95 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+
+/**
+ * A set of messages for one destination that is sent with a single call and a single wait for the broker to accept them.
+ * Create a batch with ServiceBusJmsSession#createMessageBatch or ServiceBusJmsContext#createMessageBatch, fill it with
+ * tryAdd until it reports the batch is full, then hand it to the send method of the same session or context.
+ * <p>
+ * The size of each message is estimated when it is added, so a full batch is detected without encoding the messages.
+ * Messages must not be modified once added. Bytes and stream messages are put in read-only mode to be measured.
+ * A batch is emptied once sent successfully and can then be filled again. Like the session it belongs to, a batch is not thread-safe.
+ */
+public final class ServiceBusJmsMessageBatch {
+    private final Destination destination;
+    private final long maxSizeInBytes;
+    private final List<Message> messages = new ArrayList<>();
+    private long sizeInBytes;
+
+    ServiceBusJmsMessageBatch(Destination destination, long maxSizeInBytes) {
+        if (destination == null) {
+            throw new IllegalArgumentException("The destination of a message batch cannot be null.");
+        }
+
+        this.destination = destination;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    /**
+     * Add a message to the batch if it still fits.
+     * @param message The message to add.
+     * @return False if adding the message would exceed the maximum size of the batch, in which case the batch is left unchanged.
+     * @throws JMSException If the message cannot be read to estimate its size.
+     */
+    public boolean tryAdd(Message message) throws JMSException {
+        if (message == null) {
+            throw new IllegalArgumentException("A null message cannot be added to a batch.");
+        }
+
+        long messageSize = MessageSizeEstimator.estimate(message, this.destination);
+        if (this.sizeInBytes + messageSize > this.maxSizeInBytes) {
+            return false;
+        }
+
+        this.messages.add(message);
+        this.sizeInBytes += messageSize;
+        return true;
+    }
+
+    /**
+     * @return The destination all messages of this batch are sent to.
+     */
+    public Destination getDestination() {
+        return this.destination;
+    }
+
+    /**
+     * @return The number of messages in the batch.
+     */
+    public int getCount() {
+        return this.messages.size();
+    }
+
+    /**
+     * @return The estimated size in bytes of the messages in the batch.
+     */
+    public long getSizeInBytes() {
+        return this.sizeInBytes;
+    }
+
+    /**
+     * @return The maximum size in bytes of the batch.
+     */
+    public long getMaxSizeInBytes() {
+        return this.maxSizeInBytes;
+    }
+
+    List<Message> getMessages() {
+        return Collections.unmodifiableList(this.messages);
+    }
+
+    void clear() {
+        this.messages.clear();
+        this.sizeInBytes = 0;
+    }
+}
@@ -0,0 +1,158 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.qpid.jms.message.JmsBytesMessage;
+import org.apache.qpid.jms.message.facade.JmsBytesMessageFacade;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+
+/**
+ * Moves large BytesMessage bodies between messages and streams or channels without holding extra copies of the body.
+ * <p>
+ * qpid keeps the body of an outgoing BytesMessage in a heap buffer that grows as the body is written, copying the body each time.
+ * Bodies written from a stream, channel or buffer of known length size that buffer once and are read straight into it,
+ * see ServiceBusJmsSession#createBytesMessage(InputStream, long). The body then takes its own length on the heap until the message is sent.
+ * <p>
+ * Received bodies are written to a channel in chunks through {@link #writeBody(BytesMessage, WritableByteChannel)},
+ * instead of being copied into one array first.
+ */
+public final class ServiceBusJmsMessageBodies {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    // The largest array most JVMs allocate.
+    private static final long MAX_BODY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private ServiceBusJmsMessageBodies() { }
+
+    /**
+     * Write the body of a BytesMessage to a channel, starting from the beginning of the body.
+     * @param message A received BytesMessage, or one that was written to.
+     * @param channel The channel to write to, for example a FileChannel.
+     * @return The number of bytes written.
+     * @throws JMSException If the body cannot be read.
+     * @throws IOException If the channel fails to write.
+     */
+    public static long writeBody(BytesMessage message, WritableByteChannel channel) throws JMSException, IOException {
+        message.reset();
+        byte[] chunk = new byte[(int) Math.max(1, Math.min(CHUNK_SIZE, message.getBodyLength()))];
+        long written = 0;
+        int count;
+        while ((count = message.readBytes(chunk)) > 0) {
+            ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, count);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            written += count;
+        }
+
+        message.reset();
+        return written;
+    }
+
+    /**
+     * Read length bytes of input into the body of an empty BytesMessage.
+     */
+    static void readBody(BytesMessage message, InputStream input, long length) throws JMSException, IOException {
+        readBody(message, length, (target, maxLength) -> target.writeBytes(input, maxLength));
+    }
+
+    /**
+     * Read the bytes of channel from position to its end into the body of an empty BytesMessage, leaving the position of the channel as it is.
+     */
+    static void readBody(BytesMessage message, FileChannel channel, long position) throws JMSException, IOException {
+        long[] next = { position };
+        readBody(message, channel.size() - position, (target, maxLength) -> {
+            int count = target.writeBytes(channel, next[0], maxLength);
+            if (count > 0) {
+                next[0] += count;
+            }
+
+            return count;
+        });
+    }
+
+    /**
+     * Copy the remaining bytes of buffer, a memory-mapped region for example, into the body of an empty BytesMessage,
+     * leaving the position of the buffer as it is.
+     */
+    static void readBody(BytesMessage message, ByteBuffer buffer) throws JMSException, IOException {
+        ByteBuf source = Unpooled.wrappedBuffer(buffer.duplicate());
+        readBody(message, source.readableBytes(), (target, maxLength) -> {
+            if (!source.isReadable()) {
+                return -1;
+            }
+
+            int count = Math.min(maxLength, source.readableBytes());
+            target.writeBytes(source, count);
+            return count;
+        });
+    }
+
+    private static void readBody(BytesMessage message, long length, BodyReader reader) throws JMSException, IOException {
+        if (length < 0 || length > MAX_BODY_LENGTH) {
+            throw new IllegalArgumentException("The length of a message body must be between 0 and " + MAX_BODY_LENGTH + ".");
+        }
+
+        ByteBuf body = getBodyBuffer(message);
+        if (body != null) {
+            body.ensureWritable((int) length);
+            readFully(reader, body, (int) length);
+            return;
+        }
+
+        // Not a qpid message, the body goes through the JMS API in chunks.
+        byte[] chunk = new byte[(int) Math.max(1, Math.min(CHUNK_SIZE, length))];
+        ByteBuf chunkBuffer = Unpooled.wrappedBuffer(chunk);
+        long remaining = length;
+        while (remaining > 0) {
+            chunkBuffer.clear();
+            int count = (int) Math.min(chunk.length, remaining);
+            readFully(reader, chunkBuffer, count);
+            message.writeBytes(chunk, 0, count);
+            remaining -= count;
+        }
+    }
+
+    private static void readFully(BodyReader reader, ByteBuf target, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int count = reader.read(target, remaining);
+            if (count < 0) {
+                throw new EOFException("The body ended " + remaining + " bytes before its length.");
+            }
+
+            remaining -= count;
+        }
+    }
+
+    private static ByteBuf getBodyBuffer(BytesMessage message) throws JMSException {
+        if (!(message instanceof JmsBytesMessage) || ((JmsBytesMessage) message).isReadOnlyBody()) {
+            return null;
+        }
+
+        OutputStream output = ((JmsBytesMessageFacade) ((JmsBytesMessage) message).getFacade()).getOutputStream();
+        return output instanceof ByteBufOutputStream ? ((ByteBufOutputStream) output).buffer() : null;
+    }
+
+    private interface BodyReader {
+        /**
+         * Read up to maxLength bytes into target.
+         * @return The number of bytes read, -1 at the end of the source.
+         */
+        int read(ByteBuf target, int maxLength) throws IOException;
+    }
+}
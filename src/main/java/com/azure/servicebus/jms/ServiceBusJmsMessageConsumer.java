@@ -0,0 +1,491 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import jakarta.jms.ExceptionListener;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageListener;
+import jakarta.jms.Session;
+
+/**
+ * The MessageConsumer handed out by a ServiceBusJmsSession. On top of the JMS API it receives and settles messages in batches.
+ * <p>
+ * A batch receive only saves round trips if the consumer holds enough link credit for the batch, create the consumer with
+ * ServiceBusJmsSession#createBatchConsumer for that. A consumer without prefetch still works but pulls each message of the batch separately.
+ * <p>
+ * With the adaptivePrefetchEnabled setting, the consumer tunes its link credit while the application receives, see AdaptivePrefetchController.
+ * qpid fixes the credit of a link when it attaches, so a new prefetch takes effect by attaching a new link and closing the old one,
+ * which releases the messages the old link prefetched back to the entity without counting a delivery attempt.
+ * The same happens when a memory budget is configured and the estimated size of the prefetched messages no longer fits, see PrefetchMemoryBudget.
+ * Consumers driven by a MessageListener keep the prefetch they started with.
+ * <p>
+ * Messages whose body a producer compressed or moved to the payload store are handed to the application with the original body type,
+ * see PayloadCompressor and ClaimCheck. A stored body is only read from the store once the application reads it.
+ * With chunk reassembly enabled, chunks of a message are collected until the last one arrives and handed over as one message,
+ * see ChunkAssembler. A receive call waits for the remaining chunks within its timeout.
+ * <p>
+ * A message that cannot be decoded is not handed to a message listener: on a session that settles messages individually it is
+ * abandoned, and the failure goes to the ExceptionListener of the connection. A receive call throws the failure instead.
+ */
+public class ServiceBusJmsMessageConsumer implements MessageConsumer {
+    // Acknowledge mode qpid uses to settle each message on its own.
+    static final int INDIVIDUAL_ACKNOWLEDGE = 101;
+    private volatile MessageConsumer innerConsumer;
+    private final Session session;
+    private final ServiceBusJmsConnection connection;
+    private final SessionAcknowledgement acknowledgement;
+    private final ServiceBusJmsPrefetchPolicy.ConsumerFactory<MessageConsumer> consumerFactory;
+    private final AdaptivePrefetchController prefetchController;
+    private final PrefetchMemoryBudget.Reservation prefetchReservation;
+    private final ServiceBusJmsMetrics metrics;
+    private final ServiceBusJmsConnectionFactorySettings settings;
+    private final ServiceBusJmsPayloadStore payloadStore;
+    private final int configuredPrefetch;
+    private final long retuneIntervalNanos;
+    private volatile boolean tuned;
+    private int prefetch;
+    private long lastRetuneNanos;
+    // Created with the first compressed message, JMS confines a consumer to one thread at a time.
+    private PayloadCompressor compressor;
+    private ChunkAssembler chunkAssembler;
+
+    /**
+     * @param session The qpid session the consumer runs on.
+     * @param connection The connection whose ExceptionListener gets the messages a listener could not be handed.
+     * @param acknowledgement Acknowledges the messages of a session whose acknowledge mode is emulated, null if qpid acknowledges them.
+     */
+    ServiceBusJmsMessageConsumer(MessageConsumer innerConsumer, Session session, ServiceBusJmsConnection connection,
+            SessionAcknowledgement acknowledgement, ServiceBusJmsConnectionFactorySettings settings) {
+        this.innerConsumer = innerConsumer;
+        this.session = session;
+        this.connection = connection;
+        this.acknowledgement = acknowledgement;
+        this.settings = settings;
+        this.payloadStore = settings.getPayloadStore();
+        this.consumerFactory = null;
+        this.prefetchController = null;
+        this.prefetchReservation = null;
+        this.metrics = null;
+        this.configuredPrefetch = -1;
+        this.retuneIntervalNanos = 0;
+        this.tuned = false;
+    }
+
+    private ServiceBusJmsMessageConsumer(Session session, ServiceBusJmsConnection connection, SessionAcknowledgement acknowledgement,
+            ServiceBusJmsPrefetchPolicy.ConsumerFactory<MessageConsumer> consumerFactory,
+            AdaptivePrefetchController prefetchController, PrefetchMemoryBudget.Reservation prefetchReservation,
+            ServiceBusJmsConnectionFactorySettings settings, ServiceBusJmsMetrics metrics) throws JMSException {
+        this.session = session;
+        this.connection = connection;
+        this.acknowledgement = acknowledgement;
+        this.consumerFactory = consumerFactory;
+        this.prefetchController = prefetchController;
+        this.prefetchReservation = prefetchReservation;
+        this.metrics = metrics;
+        this.settings = settings;
+        this.payloadStore = settings.getPayloadStore();
+        this.retuneIntervalNanos = settings.getAdaptivePrefetchRetuneIntervalMS() * 1000000;
+        this.lastRetuneNanos = System.nanoTime();
+        this.tuned = true;
+
+        int requestedPrefetch = prefetchController != null ? prefetchController.getPrefetch() : -1;
+        int limit = prefetchReservation != null ? prefetchReservation.getPrefetchLimit() : Integer.MAX_VALUE;
+        ServiceBusJmsPrefetchPolicy.PrefetchRequest request = new ServiceBusJmsPrefetchPolicy.PrefetchRequest(requestedPrefetch, limit);
+        try {
+            this.innerConsumer = ServiceBusJmsPrefetchPolicy.withConsumerPrefetch(request, consumerFactory);
+        } catch (JMSException | RuntimeException e) {
+            if (prefetchReservation != null) {
+                prefetchReservation.close();
+            }
+
+            throw e;
+        }
+
+        this.configuredPrefetch = request.getConfiguredPrefetch();
+        this.prefetch = Math.min(this.configuredPrefetch, limit);
+        if (prefetchReservation != null) {
+            prefetchReservation.onPrefetch(this.prefetch);
+        }
+    }
+
+    /**
+     * Create a consumer whose link credit is tuned while the application receives, by an adaptive prefetch controller,
+     * by a memory budget, or both. Either may be null.
+     */
+    static ServiceBusJmsMessageConsumer createTuned(Session session, ServiceBusJmsConnection connection, SessionAcknowledgement acknowledgement,
+            ServiceBusJmsPrefetchPolicy.ConsumerFactory<MessageConsumer> consumerFactory,
+            AdaptivePrefetchController prefetchController, PrefetchMemoryBudget.Reservation prefetchReservation,
+            ServiceBusJmsConnectionFactorySettings settings, ServiceBusJmsMetrics metrics) throws JMSException {
+        return new ServiceBusJmsMessageConsumer(session, connection, acknowledgement, consumerFactory, prefetchController, prefetchReservation,
+            settings, metrics);
+    }
+
+    Session getSession() {
+        return this.session;
+    }
+
+    /**
+     * @return The acknowledge mode of the session the application created the consumer with.
+     */
+    int getAcknowledgeMode() throws JMSException {
+        return this.acknowledgement != null ? this.acknowledgement.getAcknowledgeMode() : this.session.getAcknowledgeMode();
+    }
+
+    ServiceBusJmsConnectionFactorySettings getSettings() {
+        return this.settings;
+    }
+
+    /**
+     * Receive up to maxMessages messages, returning as soon as either maxMessages were received or maxWait has elapsed.
+     * @param maxMessages The maximum number of messages to return.
+     * @param maxWait The maximum time to wait for messages.
+     * @return The received messages, empty if none arrived within maxWait.
+     * @throws JMSException If the consumer fails to receive.
+     */
+    public List<Message> receiveBatch(int maxMessages, Duration maxWait) throws JMSException {
+        if (maxMessages < 1) {
+            throw new IllegalArgumentException("maxMessages must be at least 1.");
+        }
+
+        List<Message> messages = new ArrayList<>(Math.min(maxMessages, 1024));
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        while (messages.size() < maxMessages) {
+            long remainingMS = (deadline - System.nanoTime()) / 1000000;
+            // receive(0) waits indefinitely, so the last millisecond is skipped rather than turned into an unbounded wait.
+            if (remainingMS < 1) {
+                break;
+            }
+
+            // Messages the link already delivered are returned right away, only the wait for new ones is bounded by maxWait.
+            Message message = this.receive(remainingMS);
+            if (message == null) {
+                break;
+            }
+
+            messages.add(message);
+        }
+
+        return messages;
+    }
+
+    /**
+     * Complete all messages of a batch with a single call.
+     * @param messages Messages received from this consumer.
+     * @throws JMSException If the messages cannot be acknowledged.
+     */
+    public void acknowledge(List<Message> messages) throws JMSException {
+        this.settle(messages, ServiceBusJmsMessageSettlement.ACCEPT);
+    }
+
+    /**
+     * Settle all messages of a batch with the given outcome in a single call.
+     * With CLIENT_ACKNOWLEDGE, this settles every message the session delivered so far, as acknowledging any message does.
+     * With INDIVIDUAL_ACKNOWLEDGE, only the given messages are settled.
+     * @param messages Messages received from this consumer.
+     * @param settlement The outcome to settle the messages with.
+     * @throws JMSException If the messages cannot be settled, or the session acknowledges messages on its own.
+     */
+    public void settle(List<Message> messages, ServiceBusJmsMessageSettlement settlement) throws JMSException {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        int acknowledgeMode = this.getAcknowledgeMode();
+        if (acknowledgeMode == Session.CLIENT_ACKNOWLEDGE) {
+            Message last = messages.get(messages.size() - 1);
+            last.setIntProperty(ServiceBusJmsMessageSettlement.ACK_TYPE_PROPERTY, settlement.getAckType());
+            last.acknowledge();
+        } else if (acknowledgeMode == INDIVIDUAL_ACKNOWLEDGE) {
+            for (Message message : messages) {
+                // A message reassembled from chunks is settled by settling each chunk.
+                SessionAcknowledgement.settle(SessionAcknowledgement.getParts(message), settlement.getAckType());
+            }
+        } else if (settlement != ServiceBusJmsMessageSettlement.ACCEPT) {
+            throw new IllegalStateException("Messages can only be settled in CLIENT_ACKNOWLEDGE or INDIVIDUAL_ACKNOWLEDGE mode, "
+                + "the session acknowledges them on its own.");
+        }
+    }
+
+    @Override
+    public String getMessageSelector() throws JMSException {
+        return this.innerConsumer.getMessageSelector();
+    }
+
+    @Override
+    public MessageListener getMessageListener() throws JMSException {
+        MessageListener listener = this.innerConsumer.getMessageListener();
+        return listener instanceof DecodingMessageListener ? ((DecodingMessageListener) listener).listener : listener;
+    }
+
+    @Override
+    public void setMessageListener(MessageListener listener) throws JMSException {
+        if (listener != null) {
+            this.tuned = false;
+        }
+
+        this.innerConsumer.setMessageListener(listener != null ? new DecodingMessageListener(listener) : null);
+    }
+
+    @Override
+    public Message receive() throws JMSException {
+        return this.receive(0);
+    }
+
+    @Override
+    public Message receive(long timeout) throws JMSException {
+        long deadline = System.nanoTime() + timeout * 1000000;
+        long remainingMS = timeout;
+        while (true) {
+            Message message = this.receiveMessage(remainingMS);
+            Message decoded = this.decode(message);
+            if (message == null || decoded != null) {
+                return this.handOut(decoded);
+            }
+
+            // A chunk of a message whose other chunks are still on the way.
+            if (timeout > 0) {
+                remainingMS = (deadline - System.nanoTime()) / 1000000;
+                if (remainingMS < 1) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Message receiveNoWait() throws JMSException {
+        while (true) {
+            Message message = this.innerConsumer.receiveNoWait();
+            Message decoded = this.decode(message);
+            if (message == null || decoded != null) {
+                return this.handOut(decoded);
+            }
+        }
+    }
+
+    private Message receiveMessage(long timeout) throws JMSException {
+        if (!this.tuned) {
+            return this.innerConsumer.receive(timeout);
+        }
+
+        long start = System.nanoTime();
+        if (this.prefetchController != null) {
+            this.prefetchController.onReceiveStart(start);
+        }
+
+        Message message = this.innerConsumer.receive(timeout);
+        long end = System.nanoTime();
+        if (this.prefetchController != null) {
+            this.prefetchController.onReceiveEnd(start, end, message != null);
+        }
+
+        if (message != null && this.prefetchReservation != null) {
+            this.prefetchReservation.onMessage(message);
+        }
+
+        if (end - this.lastRetuneNanos >= this.retuneIntervalNanos) {
+            this.lastRetuneNanos = end;
+            this.retunePrefetch();
+        }
+
+        return message;
+    }
+
+    /**
+     * A receive call returns the message, with an emulated acknowledge mode it is acknowledged or tracked for the session.
+     */
+    private Message handOut(Message message) throws JMSException {
+        if (message == null || this.acknowledgement == null) {
+            return message;
+        }
+
+        Message delivered = this.acknowledgement.deliver(message);
+        this.acknowledgement.onProcessed(message);
+        return delivered;
+    }
+
+    /**
+     * @return The message to hand to the application, null for a chunk that does not complete its message.
+     */
+    private Message decode(Message message) throws JMSException {
+        if (message == null) {
+            return null;
+        }
+
+        if (this.settings.isChunkReassemblyEnabled() && message.propertyExists(ChunkAssembler.GROUP_PROPERTY)) {
+            if (this.chunkAssembler == null) {
+                this.chunkAssembler = new ChunkAssembler(this.settings);
+            }
+
+            Message assembled = this.chunkAssembler.add(message);
+            this.rejectExpiredChunks();
+            return assembled;
+        }
+
+        if (this.chunkAssembler != null) {
+            this.chunkAssembler.onMessage();
+            this.rejectExpiredChunks();
+        }
+
+        if (message.propertyExists(ClaimCheck.REFERENCE_PROPERTY)) {
+            return ClaimCheck.resolve(this.payloadStore, message);
+        }
+
+        if (!message.propertyExists(PayloadCompressor.CONTENT_ENCODING_PROPERTY)) {
+            return message;
+        }
+
+        if (this.compressor == null) {
+            this.compressor = new PayloadCompressor();
+        }
+
+        return this.compressor.decode(message);
+    }
+
+    /**
+     * Dead-letter the chunks of groups that did not complete in time, left by a producer that failed part way through a message.
+     * A session that acknowledges on its own settles them with the next acknowledgement.
+     */
+    private void rejectExpiredChunks() throws JMSException {
+        List<Message> expired = this.chunkAssembler.takeExpired();
+        if (!expired.isEmpty() && this.session.getAcknowledgeMode() == INDIVIDUAL_ACKNOWLEDGE) {
+            SessionAcknowledgement.settle(expired, ServiceBusJmsMessageSettlement.REJECT.getAckType());
+        }
+    }
+
+    private void retunePrefetch() {
+        int target = this.configuredPrefetch;
+        if (this.prefetchController != null) {
+            this.prefetchController.update();
+            target = this.prefetchController.getPrefetch();
+        }
+
+        if (this.prefetchReservation != null) {
+            // The size estimate may have moved since the last check, so the reservation is refreshed even if the prefetch stays.
+            this.prefetchReservation.onPrefetch(this.prefetch);
+            target = Math.min(target, this.prefetchReservation.getPrefetchLimit());
+        }
+
+        // Switching re-attaches the link, small corrections are not worth it.
+        boolean worthSwitching = target != this.prefetch
+            && (target == 0 || this.prefetch == 0 || Math.abs(target - this.prefetch) * 4 > this.prefetch);
+        if (!worthSwitching) {
+            return;
+        }
+
+        // Attach the new link before detaching the old one, a consumer that cannot be re-created keeps running as it is.
+        MessageConsumer newConsumer;
+        try {
+            newConsumer = ServiceBusJmsPrefetchPolicy.withConsumerPrefetch(target, this.consumerFactory);
+        } catch (JMSException | RuntimeException e) {
+            return;
+        }
+
+        MessageConsumer oldConsumer = this.innerConsumer;
+        this.innerConsumer = newConsumer;
+        this.prefetch = target;
+        if (this.prefetchReservation != null) {
+            this.prefetchReservation.onPrefetch(target);
+        }
+
+        this.metrics.onPrefetchRetune();
+        try {
+            oldConsumer.close();
+        } catch (JMSException | RuntimeException e) {
+            // The old link is no longer used, its messages are released by the broker once the link goes away.
+        }
+    }
+
+    private final class DecodingMessageListener implements MessageListener {
+        private final MessageListener listener;
+
+        DecodingMessageListener(MessageListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onMessage(Message message) {
+            Message decoded;
+            try {
+                decoded = decode(message);
+            } catch (JMSException | RuntimeException e) {
+                this.onDecodingFailure(message, e);
+                return;
+            }
+
+            if (decoded == null) {
+                return;
+            }
+
+            if (acknowledgement == null) {
+                this.listener.onMessage(decoded);
+                return;
+            }
+
+            try {
+                this.listener.onMessage(acknowledgement.deliver(decoded));
+            } catch (RuntimeException e) {
+                try {
+                    acknowledgement.onFailed(decoded);
+                } catch (JMSException settleFailure) {
+                    // Delivered again once its lock expires.
+                }
+
+                return;
+            }
+
+            try {
+                acknowledgement.onProcessed(decoded);
+            } catch (JMSException e) {
+                // Delivered again once its lock expires.
+            }
+        }
+
+        /**
+         * Keep a message that cannot be decoded from the listener, which would have it accepted with a body it cannot read.
+         * Settled individually, it is abandoned and dead-lettered by Service Bus once it runs out of deliveries.
+         */
+        private void onDecodingFailure(Message message, Exception failure) {
+            JMSException exception = new JMSException("A received message could not be decoded and was not delivered: " + failure.getMessage());
+            exception.setLinkedException(failure);
+            exception.initCause(failure);
+            try {
+                if (session.getAcknowledgeMode() == INDIVIDUAL_ACKNOWLEDGE) {
+                    SessionAcknowledgement.settle(Collections.singletonList(message), ServiceBusJmsMessageSettlement.MODIFIED_FAILED.getAckType());
+                }
+            } catch (JMSException e) {
+                // Delivered again once its lock expires.
+            }
+
+            try {
+                ExceptionListener exceptionListener = connection.getExceptionListener();
+                if (exceptionListener != null) {
+                    exceptionListener.onException(exception);
+                }
+            } catch (JMSException e) {
+                // The connection is closing, there is nobody left to tell.
+            }
+        }
+    }
+
+    @Override
+    public void close() throws JMSException {
+        if (this.prefetchReservation != null) {
+            this.prefetchReservation.close();
+        }
+
+        this.innerConsumer.close();
+        if (this.chunkAssembler != null) {
+            this.chunkAssembler.close();
+        }
+    }
+}
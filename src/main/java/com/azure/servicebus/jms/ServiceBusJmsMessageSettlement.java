@@ -0,0 +1,42 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+/**
+ * The outcomes a received message can be settled with, see ServiceBusJmsMessageConsumer#settle.
+ */
+public enum ServiceBusJmsMessageSettlement {
+    /**
+     * Complete the message, it is removed from the entity.
+     */
+    ACCEPT(1),
+    /**
+     * Reject the message, Service Bus moves it to the dead-letter queue.
+     */
+    REJECT(2),
+    /**
+     * Release the message without counting a delivery attempt, it becomes available again.
+     */
+    RELEASE(3),
+    /**
+     * Abandon the message, it becomes available again and its delivery count is incremented.
+     */
+    MODIFIED_FAILED(4),
+    /**
+     * Abandon the message and mark it undeliverable for this receiver, its delivery count is incremented.
+     */
+    MODIFIED_FAILED_UNDELIVERABLE(5);
+
+    // The message property qpid reads the outcome of an acknowledge from.
+    static final String ACK_TYPE_PROPERTY = "JMS_AMQP_ACK_TYPE";
+    private final int ackType;
+
+    ServiceBusJmsMessageSettlement(int ackType) {
+        this.ackType = ackType;
+    }
+
+    int getAckType() {
+        return this.ackType;
+    }
+}
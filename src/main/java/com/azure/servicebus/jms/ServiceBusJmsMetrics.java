@@ -0,0 +1,146 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and gauges describing the connections created by a ServiceBusJmsConnectionFactory.
+ * All values are live and can be read from any thread.
+ */
+public final class ServiceBusJmsMetrics {
+    private final AtomicLong scheduledTokenRenewals = new AtomicLong();
+    private final LongAdder tokenRenewals = new LongAdder();
+    private final LongAdder tokenRenewalFailures = new LongAdder();
+    private final AtomicLong inFlightSends = new AtomicLong();
+    private final LongAdder asyncSendsCompleted = new LongAdder();
+    private final LongAdder asyncSendsFailed = new LongAdder();
+    private final LongAdder sendWindowFullCount = new LongAdder();
+    private final LongAdder prefetchRetunes = new LongAdder();
+    private final AtomicLong prefetchReservedBytes = new AtomicLong();
+    private final EventLoopMonitor eventLoops = new EventLoopMonitor();
+
+    ServiceBusJmsMetrics() { }
+
+    /**
+     * @return The number of live connections that have a CBS token renewal scheduled.
+     */
+    public long getScheduledTokenRenewals() {
+        return scheduledTokenRenewals.get();
+    }
+
+    /**
+     * @return The number of tokens put on the $cbs node of live connections.
+     */
+    public long getTokenRenewals() {
+        return tokenRenewals.sum();
+    }
+
+    /**
+     * @return The number of CBS token renewals that failed. A failed renewal is retried until the token expires.
+     */
+    public long getTokenRenewalFailures() {
+        return tokenRenewalFailures.sum();
+    }
+
+    /**
+     * @return The number of asynchronous sends waiting for the broker to settle them, across all connections.
+     */
+    public long getInFlightSends() {
+        return inFlightSends.get();
+    }
+
+    /**
+     * @return The number of asynchronous sends the broker accepted.
+     */
+    public long getAsyncSendsCompleted() {
+        return asyncSendsCompleted.sum();
+    }
+
+    /**
+     * @return The number of asynchronous sends that failed.
+     */
+    public long getAsyncSendsFailed() {
+        return asyncSendsFailed.sum();
+    }
+
+    /**
+     * @return The number of times an asynchronous send found its producer or connection send window full.
+     */
+    public long getSendWindowFullCount() {
+        return sendWindowFullCount.sum();
+    }
+
+    /**
+     * @return The number of times a consumer with adaptive prefetch switched to a new link credit.
+     */
+    public long getPrefetchRetunes() {
+        return prefetchRetunes.sum();
+    }
+
+    /**
+     * @return The estimated bytes the link credit of budgeted consumers can bring into memory, across all connections.
+     *         Only consumers of connections with a prefetch memory budget are counted.
+     */
+    public long getPrefetchReservedBytes() {
+        return prefetchReservedBytes.get();
+    }
+
+    /**
+     * Take a snapshot of the shared event loop threads the live connections run on, see ServiceBusJmsConnectionFactorySettings#setSharedEventLoopThreads.
+     * The utilization of each thread is measured since the previous call.
+     * @return One entry per event loop thread, empty if the connections do not share event loops.
+     */
+    public List<ServiceBusJmsEventLoopMetrics> getEventLoops() {
+        return eventLoops.sample();
+    }
+
+    EventLoopMonitor getEventLoopMonitor() {
+        return eventLoops;
+    }
+
+    void onTokenRenewalScheduled() {
+        scheduledTokenRenewals.incrementAndGet();
+    }
+
+    void onTokenRenewalCancelled() {
+        scheduledTokenRenewals.decrementAndGet();
+    }
+
+    void onTokenRenewal() {
+        tokenRenewals.increment();
+    }
+
+    void onTokenRenewalFailure() {
+        tokenRenewalFailures.increment();
+    }
+
+    void onAsyncSendStarted() {
+        inFlightSends.incrementAndGet();
+    }
+
+    void onAsyncSendCompleted() {
+        inFlightSends.decrementAndGet();
+        asyncSendsCompleted.increment();
+    }
+
+    void onAsyncSendFailed() {
+        inFlightSends.decrementAndGet();
+        asyncSendsFailed.increment();
+    }
+
+    void onSendWindowFull() {
+        sendWindowFullCount.increment();
+    }
+
+    void onPrefetchRetune() {
+        prefetchRetunes.increment();
+    }
+
+    void onPrefetchReservation(long deltaBytes) {
+        prefetchReservedBytes.addAndGet(deltaBytes);
+    }
+}
@@ -0,0 +1,349 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.jms.ExceptionListener;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageListener;
+
+/**
+ * Processes the messages of one consumer on several threads while keeping the messages of each key in order.
+ * The key of a message is its JMSXGroupID, which carries the Service Bus session id, or its message id for messages without one.
+ * Keys are hashed onto a fixed set of lanes, see the orderedDispatchLanes setting. Each lane runs the listener for its messages
+ * one after the other, so messages with the same key are processed in the order they arrived and different keys in parallel.
+ * <p>
+ * The consumer must belong to a session in INDIVIDUAL_ACKNOWLEDGE mode (101), so each message is settled on its own once the listener
+ * returned, in completion order per lane and independently of the other lanes. As a session is used by one thread at a time,
+ * the dispatcher receives from the consumer on a thread of its own, which also settles the outcomes the lanes hand back,
+ * as ServiceBusJmsListenerContainer does.
+ * <p>
+ * If the listener throws, the lane runs it again for the same message before going on, up to orderedDispatchMaxAttempts times
+ * with a delay doubling from orderedDispatchRetryDelayMS in between, then dead-letters the message. Abandoning it at once would
+ * have Service Bus deliver it again after the messages of its key already on the way. The attempts stop within half of
+ * messageLockDurationMS after the message was received, the message is then abandoned before its lock runs out, and is delivered
+ * again after the messages of its key the consumer already received.
+ * A lane holds up to orderedDispatchLaneCapacity messages, then the delivery of the consumer waits for it.
+ */
+public final class ServiceBusJmsOrderedDispatcher implements AutoCloseable {
+    static final String GROUP_ID_PROPERTY = "JMSXGroupID";
+    private static final Object STOP = new Object();
+    // Longest wait of the receiving thread for a message while the lanes have none to settle, bounds how long close waits for it.
+    private static final long RECEIVE_TIMEOUT_MS = 100;
+    // Longest wait of the receiving thread while lanes may hand back outcomes to settle.
+    private static final long SETTLEMENT_INTERVAL_MS = 20;
+
+    private final ServiceBusJmsMessageConsumer consumer;
+    private final MessageListener listener;
+    private final Lane[] lanes;
+    private final int maxAttempts;
+    private final long retryDelayNanos;
+    // Time after receiving a message within which its attempts end, half of the lock duration.
+    private final long retryWindowNanos;
+    private final Thread receiver;
+    // Outcomes of the messages the lanes are done with, for the receiving thread to settle.
+    private final Queue<ProcessedMessage> processed = new ConcurrentLinkedQueue<>();
+    // Messages handed to a lane and not settled yet, only used by the receiving thread.
+    private int inFlight;
+    private volatile ExceptionListener exceptionListener;
+    private volatile boolean running;
+    private boolean started;
+    private boolean closed;
+
+    /**
+     * @param consumer A consumer created by a ServiceBusJmsSession in INDIVIDUAL_ACKNOWLEDGE mode, without a message listener.
+     *                 The session must not be used by other threads while the dispatcher runs.
+     * @param listener The listener, called from several threads at once but never concurrently for the same key.
+     * @throws JMSException If the session of the consumer does not acknowledge messages individually.
+     */
+    public ServiceBusJmsOrderedDispatcher(ServiceBusJmsMessageConsumer consumer, MessageListener listener) throws JMSException {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener cannot be null.");
+        }
+
+        if (consumer.getAcknowledgeMode() != ServiceBusJmsMessageConsumer.INDIVIDUAL_ACKNOWLEDGE) {
+            throw new IllegalStateException("The consumer must belong to a session in INDIVIDUAL_ACKNOWLEDGE mode, "
+                + "so each lane settles its messages independently.");
+        }
+
+        this.consumer = consumer;
+        this.listener = listener;
+        ServiceBusJmsConnectionFactorySettings settings = consumer.getSettings();
+        this.maxAttempts = settings.getOrderedDispatchMaxAttempts();
+        this.retryDelayNanos = TimeUnit.MILLISECONDS.toNanos(settings.getOrderedDispatchRetryDelayMS());
+        this.retryWindowNanos = TimeUnit.MILLISECONDS.toNanos(settings.getMessageLockDurationMS()) / 2;
+        this.lanes = new Lane[settings.getOrderedDispatchLanes()];
+        for (int i = 0; i < this.lanes.length; i++) {
+            this.lanes[i] = new Lane(i, settings.getOrderedDispatchLaneCapacity());
+        }
+
+        this.receiver = new Thread(this::receive, "ServiceBusJmsOrderedDispatcher-receiver");
+        this.receiver.setDaemon(true);
+    }
+
+    /**
+     * @param exceptionListener Called with the exceptions thrown by the message listener and the failures to settle messages.
+     */
+    public void setExceptionListener(ExceptionListener exceptionListener) {
+        this.exceptionListener = exceptionListener;
+    }
+
+    /**
+     * Start the lanes and the thread receiving from the consumer. Messages are delivered once the connection is started.
+     */
+    public synchronized void start() throws JMSException {
+        if (this.closed) {
+            throw new IllegalStateException("The dispatcher is closed.");
+        }
+
+        if (this.started) {
+            return;
+        }
+
+        this.started = true;
+        this.running = true;
+        for (Lane lane : this.lanes) {
+            lane.thread.start();
+        }
+
+        this.receiver.start();
+    }
+
+    /**
+     * Stop receiving from the consumer and wait until every lane processed the messages handed to it and they are settled.
+     * The consumer is left open, closing it releases the messages it prefetched.
+     */
+    @Override
+    public synchronized void close() throws JMSException {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        if (!this.started) {
+            return;
+        }
+
+        this.running = false;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                this.receiver.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return The index of the lane that processes the messages with the given key.
+     */
+    static int getLane(String key, int laneCount) {
+        int hash = key.hashCode();
+        // Spread the high bits, as HashMap does, so keys differing only there do not share a lane.
+        hash ^= hash >>> 16;
+        return (hash & 0x7fffffff) % laneCount;
+    }
+
+    /**
+     * Run by the receiving thread: hand each message to its lane and settle the outcomes the lanes hand back, then on close
+     * stop the lanes and settle what they still had.
+     */
+    private void receive() {
+        try {
+            while (this.running) {
+                this.settleProcessed();
+                Message message = this.consumer.receive(this.inFlight > 0 ? SETTLEMENT_INTERVAL_MS : RECEIVE_TIMEOUT_MS);
+                if (message != null) {
+                    this.dispatch(new ReceivedMessage(message, System.nanoTime()), this.getLane(message).queue);
+                }
+            }
+        } catch (JMSException e) {
+            // The consumer or its session is gone, there is nothing left to receive or settle.
+            this.report(e);
+        } finally {
+            for (Lane lane : this.lanes) {
+                this.dispatch(STOP, lane.queue);
+            }
+
+            for (Lane lane : this.lanes) {
+                while (lane.thread.isAlive()) {
+                    this.join(lane.thread);
+                    this.settleProcessed();
+                }
+            }
+
+            this.settleProcessed();
+        }
+    }
+
+    private Lane getLane(Message message) {
+        String key;
+        try {
+            key = message.getStringProperty(GROUP_ID_PROPERTY);
+            if (key == null) {
+                key = message.getJMSMessageID();
+            }
+        } catch (JMSException e) {
+            key = null;
+        }
+
+        return this.lanes[key != null ? getLane(key, this.lanes.length) : 0];
+    }
+
+    /**
+     * Hand a message to a lane, settling the outcomes handed back while the lane is full.
+     */
+    private void dispatch(Object message, BlockingQueue<Object> queue) {
+        try {
+            while (!queue.offer(message, SETTLEMENT_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                this.settleProcessed();
+            }
+        } catch (InterruptedException e) {
+            // The message stays unsettled and is delivered again once its lock expires or the consumer closes.
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if (message != STOP) {
+            this.inFlight++;
+        }
+    }
+
+    private void join(Thread thread) {
+        try {
+            thread.join(SETTLEMENT_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Settle the messages the lanes are done with, on the receiving thread.
+     */
+    private void settleProcessed() {
+        ProcessedMessage processed;
+        while ((processed = this.processed.poll()) != null) {
+            this.inFlight--;
+            try {
+                this.consumer.settle(Collections.singletonList(processed.message), processed.settlement);
+            } catch (JMSException | RuntimeException e) {
+                // The lock may be lost or the link gone, the message is redelivered either way.
+                this.report(e instanceof JMSException ? (JMSException) e : new JMSException(e.getMessage()));
+            }
+        }
+    }
+
+    private void process(ReceivedMessage received) {
+        Message message = received.message;
+        long deadline = received.receivedNanos + this.retryWindowNanos;
+        long delay = this.retryDelayNanos;
+        ServiceBusJmsMessageSettlement settlement = null;
+        for (int attempt = 1; settlement == null; attempt++) {
+            RuntimeException failure;
+            try {
+                this.listener.onMessage(message);
+                settlement = ServiceBusJmsMessageSettlement.ACCEPT;
+                break;
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+
+            String outcome = "it is processed again in " + TimeUnit.NANOSECONDS.toMillis(delay) + " ms";
+            if (attempt >= this.maxAttempts) {
+                settlement = ServiceBusJmsMessageSettlement.REJECT;
+                outcome = "the message is dead-lettered";
+            } else if (System.nanoTime() + delay - deadline > 0) {
+                settlement = ServiceBusJmsMessageSettlement.MODIFIED_FAILED;
+                outcome = "the message is abandoned before its lock expires";
+            }
+
+            JMSException exception = new JMSException("The message listener failed on attempt " + attempt + ", " + outcome + ": " + failure.getMessage());
+            exception.setLinkedException(failure);
+            exception.initCause(failure);
+            this.report(exception);
+            if (settlement == null) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    settlement = ServiceBusJmsMessageSettlement.MODIFIED_FAILED;
+                }
+
+                delay *= 2;
+            }
+        }
+
+        this.processed.offer(new ProcessedMessage(message, settlement));
+    }
+
+    private void report(JMSException exception) {
+        ExceptionListener exceptionListener = this.exceptionListener;
+        if (exceptionListener != null) {
+            exceptionListener.onException(exception);
+        }
+    }
+
+    private final class Lane implements Runnable {
+        private final BlockingQueue<Object> queue;
+        private final Thread thread;
+
+        Lane(int index, int capacity) {
+            this.queue = new LinkedBlockingQueue<>(capacity);
+            this.thread = new Thread(this, "ServiceBusJmsOrderedDispatcher-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Object next;
+                try {
+                    next = this.queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                if (next == STOP) {
+                    return;
+                }
+
+                process((ReceivedMessage) next);
+            }
+        }
+    }
+
+    private static final class ReceivedMessage {
+        private final Message message;
+        private final long receivedNanos;
+
+        ReceivedMessage(Message message, long receivedNanos) {
+            this.message = message;
+            this.receivedNanos = receivedNanos;
+        }
+    }
+
+    private static final class ProcessedMessage {
+        private final Message message;
+        private final ServiceBusJmsMessageSettlement settlement;
+
+        ProcessedMessage(Message message, ServiceBusJmsMessageSettlement settlement) {
+            this.message = message;
+            this.settlement = settlement;
+        }
+    }
+}
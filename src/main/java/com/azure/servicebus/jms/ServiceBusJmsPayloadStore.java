@@ -0,0 +1,31 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Keeps message bodies that are too large to send through Service Bus, see ServiceBusJmsConnectionFactorySettings#setPayloadStore.
+ * <p>
+ * Producers store the body and send a message carrying only the reference the store returns, consumers open the reference
+ * when the application reads the body. Stored bodies are not deleted by the client, expire them with the retention of the store.
+ * Implementations are called by every producer and consumer of a connection factory and must be thread-safe.
+ */
+public interface ServiceBusJmsPayloadStore {
+    /**
+     * @param payload The body to store.
+     * @param length The number of bytes of payload to store, from its start.
+     * @return The reference the body can be opened by, at most a few hundred characters.
+     * @throws IOException If the body cannot be stored.
+     */
+    String store(byte[] payload, int length) throws IOException;
+
+    /**
+     * @param reference A reference returned by store.
+     * @return A stream of the stored body, closed by the caller.
+     * @throws IOException If the body cannot be opened.
+     */
+    InputStream open(String reference) throws IOException;
+}
@@ -0,0 +1,174 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and gauges describing the state of a ServiceBusJmsPooledConnectionFactory.
+ * All values are live and can be read from any thread.
+ */
+public final class ServiceBusJmsPoolStatistics {
+    private final LongAdder connectionsCreated = new LongAdder();
+    private final LongAdder connectionsClosed = new LongAdder();
+    private final AtomicLong activeConnections = new AtomicLong();
+    private final LongAdder sessionsCreated = new LongAdder();
+    private final LongAdder sessionsReused = new LongAdder();
+    private final LongAdder sessionsEvicted = new LongAdder();
+    private final AtomicLong borrowedSessions = new AtomicLong();
+    private final AtomicLong idleSessions = new AtomicLong();
+    private final LongAdder producersCreated = new LongAdder();
+    private final LongAdder producersReused = new LongAdder();
+    private final LongAdder poolExhaustedCount = new LongAdder();
+    private final LongAdder poolExhaustedFailures = new LongAdder();
+    private final LongAdder poolExhaustedWaitTimeMS = new LongAdder();
+
+    ServiceBusJmsPoolStatistics() { }
+
+    /**
+     * @return The number of physical connections opened by the pool.
+     */
+    public long getConnectionsCreated() {
+        return connectionsCreated.sum();
+    }
+
+    /**
+     * @return The number of physical connections closed by the pool because they were idle, expired or failed.
+     */
+    public long getConnectionsClosed() {
+        return connectionsClosed.sum();
+    }
+
+    /**
+     * @return The number of physical connections currently held by the pool.
+     */
+    public long getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    /**
+     * @return The number of physical sessions created by the pool.
+     */
+    public long getSessionsCreated() {
+        return sessionsCreated.sum();
+    }
+
+    /**
+     * @return The number of session borrows served from an idle pooled session.
+     */
+    public long getSessionsReused() {
+        return sessionsReused.sum();
+    }
+
+    /**
+     * @return The number of idle sessions closed by the pool.
+     */
+    public long getSessionsEvicted() {
+        return sessionsEvicted.sum();
+    }
+
+    /**
+     * @return The number of sessions currently borrowed.
+     */
+    public long getBorrowedSessions() {
+        return borrowedSessions.get();
+    }
+
+    /**
+     * @return The number of sessions currently idle in the pool.
+     */
+    public long getIdleSessions() {
+        return idleSessions.get();
+    }
+
+    /**
+     * @return The number of producer links attached by pooled sessions.
+     */
+    public long getProducersCreated() {
+        return producersCreated.sum();
+    }
+
+    /**
+     * @return The number of producer requests served from an already attached link.
+     */
+    public long getProducersReused() {
+        return producersReused.sum();
+    }
+
+    /**
+     * @return The number of session requests that found every pooled connection at its session limit.
+     */
+    public long getPoolExhaustedCount() {
+        return poolExhaustedCount.sum();
+    }
+
+    /**
+     * @return The number of session requests that failed because the pool stayed exhausted.
+     */
+    public long getPoolExhaustedFailures() {
+        return poolExhaustedFailures.sum();
+    }
+
+    /**
+     * @return The total time in milliseconds spent waiting on an exhausted pool.
+     */
+    public long getPoolExhaustedWaitTimeMS() {
+        return poolExhaustedWaitTimeMS.sum();
+    }
+
+    void onConnectionCreated() {
+        connectionsCreated.increment();
+        activeConnections.incrementAndGet();
+    }
+
+    void onConnectionClosed() {
+        connectionsClosed.increment();
+        activeConnections.decrementAndGet();
+    }
+
+    void onSessionCreated() {
+        sessionsCreated.increment();
+        borrowedSessions.incrementAndGet();
+    }
+
+    void onSessionReused() {
+        sessionsReused.increment();
+        idleSessions.decrementAndGet();
+        borrowedSessions.incrementAndGet();
+    }
+
+    void onSessionReturned() {
+        borrowedSessions.decrementAndGet();
+        idleSessions.incrementAndGet();
+    }
+
+    void onBorrowedSessionClosed() {
+        borrowedSessions.decrementAndGet();
+    }
+
+    void onIdleSessionClosed() {
+        sessionsEvicted.increment();
+        idleSessions.decrementAndGet();
+    }
+
+    void onProducerCreated() {
+        producersCreated.increment();
+    }
+
+    void onProducerReused() {
+        producersReused.increment();
+    }
+
+    void onPoolExhausted() {
+        poolExhaustedCount.increment();
+    }
+
+    void onPoolExhaustedWait(long waitTimeMS, boolean failed) {
+        poolExhaustedWaitTimeMS.add(waitTimeMS);
+        if (failed) {
+            poolExhaustedFailures.increment();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionConsumer;
+import jakarta.jms.ConnectionMetaData;
+import jakarta.jms.Destination;
+import jakarta.jms.ExceptionListener;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+import jakarta.jms.ServerSessionPool;
+import jakarta.jms.Session;
+import jakarta.jms.Topic;
+
+/**
+ * A Connection handed out by ServiceBusJmsPooledConnectionFactory. It shares a physical connection with other borrowers,
+ * and closing it gives its sessions back to the pool instead of closing the physical connection.
+ */
+class ServiceBusJmsPooledConnection implements Connection {
+    private final ServiceBusJmsConnectionPool pool;
+    private final ServiceBusJmsPoolStatistics statistics;
+    private final List<ServiceBusJmsPooledSession> sessions = new CopyOnWriteArrayList<>();
+    private volatile ExceptionListener exceptionListener;
+    private volatile boolean closed;
+
+    ServiceBusJmsPooledConnection(ServiceBusJmsConnectionPool pool, ServiceBusJmsPoolStatistics statistics) {
+        this.pool = pool;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Session createSession(boolean transacted, int acknowledgeMode) throws JMSException {
+        this.checkClosed();
+        ServiceBusJmsConnectionPool.PooledSession pooledSession = this.pool.borrowSession(transacted, transacted ? Session.SESSION_TRANSACTED : acknowledgeMode);
+        ServiceBusJmsPooledSession session = new ServiceBusJmsPooledSession(this, pooledSession, this.statistics);
+        this.sessions.add(session);
+        return session;
+    }
+
+    @Override
+    public Session createSession(int sessionMode) throws JMSException {
+        return this.createSession(sessionMode == Session.SESSION_TRANSACTED, sessionMode);
+    }
+
+    @Override
+    public Session createSession() throws JMSException {
+        return this.createSession(false, Session.AUTO_ACKNOWLEDGE);
+    }
+
+    @Override
+    public String getClientID() throws JMSException {
+        this.checkClosed();
+        return this.pool.getConnection().getClientID();
+    }
+
+    /**
+     * The physical connection is shared, so its clientId can only be configured on the underlying ServiceBusJmsConnectionFactory.
+     */
+    @Override
+    public void setClientID(String clientID) throws JMSException {
+        this.checkClosed();
+        String currentClientID = this.pool.getConnection().getClientID();
+        if (currentClientID == null || !currentClientID.equals(clientID)) {
+            throw new IllegalStateException("Setting the clientId of a pooled connection is not supported. Set it on the ServiceBusJmsConnectionFactory instead.");
+        }
+    }
+
+    @Override
+    public ConnectionMetaData getMetaData() throws JMSException {
+        this.checkClosed();
+        return this.pool.getConnection().getMetaData();
+    }
+
+    @Override
+    public ExceptionListener getExceptionListener() throws JMSException {
+        this.checkClosed();
+        return this.exceptionListener;
+    }
+
+    @Override
+    public void setExceptionListener(ExceptionListener listener) throws JMSException {
+        this.checkClosed();
+        this.exceptionListener = listener;
+    }
+
+    @Override
+    public void start() throws JMSException {
+        this.checkClosed();
+        this.pool.start();
+    }
+
+    /**
+     * The physical connection is shared with other borrowers, so stopping message delivery is not propagated to it.
+     */
+    @Override
+    public void stop() throws JMSException {
+        this.checkClosed();
+    }
+
+    @Override
+    public void close() throws JMSException {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        for (ServiceBusJmsPooledSession session : new ArrayList<>(this.sessions)) {
+            session.close();
+        }
+
+        this.pool.removeBorrower(this);
+    }
+
+    @Override
+    public ConnectionConsumer createConnectionConsumer(Destination destination, String messageSelector,
+            ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+        this.checkClosed();
+        return this.pool.getConnection().createConnectionConsumer(destination, messageSelector, sessionPool, maxMessages);
+    }
+
+    @Override
+    public ConnectionConsumer createDurableConnectionConsumer(Topic topic, String subscriptionName,
+            String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+        this.checkClosed();
+        return this.pool.getConnection().createDurableConnectionConsumer(topic, subscriptionName, messageSelector, sessionPool, maxMessages);
+    }
+
+    @Override
+    public ConnectionConsumer createSharedDurableConnectionConsumer(Topic topic, String subscriptionName,
+            String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+        this.checkClosed();
+        return this.pool.getConnection().createSharedDurableConnectionConsumer(topic, subscriptionName, messageSelector, sessionPool, maxMessages);
+    }
+
+    @Override
+    public ConnectionConsumer createSharedConnectionConsumer(Topic topic, String subscriptionName,
+            String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+        this.checkClosed();
+        return this.pool.getConnection().createSharedConnectionConsumer(topic, subscriptionName, messageSelector, sessionPool, maxMessages);
+    }
+
+    ServiceBusJmsConnectionPool getPool() {
+        return this.pool;
+    }
+
+    void onSessionClosed(ServiceBusJmsPooledSession session) {
+        this.sessions.remove(session);
+    }
+
+    void onException(JMSException exception) {
+        ExceptionListener listener = this.exceptionListener;
+        if (listener != null) {
+            listener.onException(exception);
+        }
+    }
+
+    private void checkClosed() throws IllegalStateException {
+        if (this.closed) {
+            throw new IllegalStateException("The connection is closed.");
+        }
+    }
+}
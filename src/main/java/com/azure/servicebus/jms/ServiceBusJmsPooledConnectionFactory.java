@@ -0,0 +1,265 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSException;
+
+/**
+ * A ConnectionFactory that pools the physical connections, sessions and producer links created by a ServiceBusJmsConnectionFactory.
+ * <p>
+ * Connections handed out by this factory share a bounded number of physical connections. Closing a session gives it back to
+ * the pool with its producer links still attached, and closing a connection only releases it. Idle eviction, maximum connection age
+ * and pool exhaustion behavior are configured through the ServiceBusJmsConnectionFactorySettings of the wrapped factory.
+ * <p>
+ * JMSContext instances are not pooled and are created directly from the wrapped factory.
+ * <p> Sample Code:
+ * <pre>{@code
+ * ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(connectionString, settings);
+ * ServiceBusJmsPooledConnectionFactory pooledFactory = new ServiceBusJmsPooledConnectionFactory(factory);
+ * try (Connection connection = pooledFactory.createConnection(); Session session = connection.createSession()) {
+ *     session.createProducer(queue).send(message);
+ * }
+ * }</pre>
+ */
+public class ServiceBusJmsPooledConnectionFactory implements ConnectionFactory, AutoCloseable {
+    private final ServiceBusJmsConnectionFactory factory;
+    private final ServiceBusJmsConnectionFactorySettings settings;
+    private final ServiceBusJmsPoolStatistics statistics = new ServiceBusJmsPoolStatistics();
+    // Physical connections keyed by the credentials they were opened with. A null user name means the factory credentials.
+    private final Map<List<String>, List<ServiceBusJmsConnectionPool>> pools = new HashMap<>();
+    // Physical connections being opened outside the lock, keyed like the pools. They count against the maximum.
+    private final Map<List<String>, Integer> connecting = new HashMap<>();
+    private final ScheduledExecutorService evictor;
+    private int nextPoolIndex;
+    private boolean closed;
+
+    /**
+     * Create a ServiceBusJmsPooledConnectionFactory on top of a ServiceBusJmsConnectionFactory.
+     * @param factory The factory used to open the physical connections. Its settings configure the pool.
+     */
+    public ServiceBusJmsPooledConnectionFactory(ServiceBusJmsConnectionFactory factory) {
+        if (factory == null) {
+            throw new IllegalArgumentException("The ServiceBusJmsConnectionFactory cannot be null.");
+        }
+
+        this.factory = factory;
+        this.settings = factory.getSettings();
+
+        long evictionInterval = this.settings.getPooledResourceEvictionIntervalMS();
+        if (evictionInterval > 0) {
+            this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ServiceBusJmsPoolEvictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.evictor.scheduleWithFixedDelay(this::evict, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.evictor = null;
+        }
+    }
+
+    /**
+     * @return The ServiceBusJmsConnectionFactory used to open the physical connections.
+     */
+    public ServiceBusJmsConnectionFactory getConnectionFactory() {
+        return this.factory;
+    }
+
+    /**
+     * @return The live statistics of this pool.
+     */
+    public ServiceBusJmsPoolStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    @Override
+    public Connection createConnection() throws JMSException {
+        return this.createPooledConnection(null, null);
+    }
+
+    @Override
+    public Connection createConnection(String userName, String password) throws JMSException {
+        return this.createPooledConnection(userName, password);
+    }
+
+    @Override
+    public JMSContext createContext() {
+        return this.factory.createContext();
+    }
+
+    @Override
+    public JMSContext createContext(int sessionMode) {
+        return this.factory.createContext(sessionMode);
+    }
+
+    @Override
+    public JMSContext createContext(String userName, String password) {
+        return this.factory.createContext(userName, password);
+    }
+
+    @Override
+    public JMSContext createContext(String userName, String password, int sessionMode) {
+        return this.factory.createContext(userName, password, sessionMode);
+    }
+
+    /**
+     * Close every pooled physical connection and stop the evictor. Connections still borrowed fail on their next use.
+     */
+    @Override
+    public void close() {
+        List<ServiceBusJmsConnectionPool> toClose = new ArrayList<>();
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+            this.notifyAll();
+            for (List<ServiceBusJmsConnectionPool> connectionPools : this.pools.values()) {
+                toClose.addAll(connectionPools);
+            }
+
+            this.pools.clear();
+        }
+
+        if (this.evictor != null) {
+            this.evictor.shutdownNow();
+        }
+
+        for (ServiceBusJmsConnectionPool pool : toClose) {
+            pool.close();
+        }
+    }
+
+    private Connection createPooledConnection(String userName, String password) throws JMSException {
+        List<String> key = Arrays.asList(userName, password);
+        List<ServiceBusJmsConnectionPool> unusable = new ArrayList<>();
+        try {
+            synchronized (this) {
+                while (true) {
+                    if (this.closed) {
+                        throw new IllegalStateException("The ServiceBusJmsPooledConnectionFactory is closed.");
+                    }
+
+                    long now = System.currentTimeMillis();
+                    List<ServiceBusJmsConnectionPool> connectionPools = this.pools.computeIfAbsent(key, k -> new ArrayList<>());
+                    // Pools that failed or outlived their maximum age are not handed out anymore.
+                    for (Iterator<ServiceBusJmsConnectionPool> iterator = connectionPools.iterator(); iterator.hasNext();) {
+                        ServiceBusJmsConnectionPool pool = iterator.next();
+                        if (!pool.isUsable(now)) {
+                            iterator.remove();
+                            unusable.add(pool);
+                        }
+                    }
+
+                    int connecting = this.connecting.getOrDefault(key, 0);
+                    if (connectionPools.size() + connecting < this.settings.getMaxPooledConnections()) {
+                        // Reserve the slot, the physical connection is opened outside the lock.
+                        this.connecting.put(key, connecting + 1);
+                        break;
+                    }
+
+                    if (!connectionPools.isEmpty()) {
+                        ServiceBusJmsConnectionPool pool = connectionPools.get(Math.floorMod(this.nextPoolIndex++, connectionPools.size()));
+                        return this.borrow(pool);
+                    }
+
+                    // Every slot is taken by a connection still being opened.
+                    try {
+                        this.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for a pooled connection.");
+                    }
+                }
+            }
+        } finally {
+            for (ServiceBusJmsConnectionPool pool : unusable) {
+                pool.retire();
+            }
+        }
+
+        ServiceBusJmsConnectionPool pool;
+        try {
+            Connection connection = userName == null ? this.factory.createConnection() : this.factory.createConnection(userName, password);
+            try {
+                pool = new ServiceBusJmsConnectionPool(connection, this.settings, this.statistics);
+            } catch (JMSException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+        } catch (JMSException | RuntimeException e) {
+            synchronized (this) {
+                this.releaseConnectingSlot(key);
+            }
+
+            throw e;
+        }
+
+        this.statistics.onConnectionCreated();
+        synchronized (this) {
+            this.releaseConnectingSlot(key);
+            if (!this.closed) {
+                this.pools.computeIfAbsent(key, k -> new ArrayList<>()).add(pool);
+                return this.borrow(pool);
+            }
+        }
+
+        // The factory was closed while the connection was being opened.
+        pool.close();
+        throw new IllegalStateException("The ServiceBusJmsPooledConnectionFactory is closed.");
+    }
+
+    private void releaseConnectingSlot(List<String> key) {
+        this.connecting.merge(key, -1, Integer::sum);
+        this.connecting.remove(key, 0);
+        this.notifyAll();
+    }
+
+    private ServiceBusJmsPooledConnection borrow(ServiceBusJmsConnectionPool pool) throws JMSException {
+        ServiceBusJmsPooledConnection pooledConnection = new ServiceBusJmsPooledConnection(pool, this.statistics);
+        pool.addBorrower(pooledConnection);
+        return pooledConnection;
+    }
+
+    private void evict() {
+        List<ServiceBusJmsConnectionPool> candidates = new ArrayList<>();
+        synchronized (this) {
+            for (List<ServiceBusJmsConnectionPool> connectionPools : this.pools.values()) {
+                candidates.addAll(connectionPools);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        for (ServiceBusJmsConnectionPool pool : candidates) {
+            if (pool.evict(now)) {
+                synchronized (this) {
+                    for (Iterator<List<ServiceBusJmsConnectionPool>> iterator = this.pools.values().iterator(); iterator.hasNext();) {
+                        List<ServiceBusJmsConnectionPool> connectionPools = iterator.next();
+                        connectionPools.remove(pool);
+                        if (connectionPools.isEmpty()) {
+                            iterator.remove();
+                        }
+                    }
+                }
+
+                pool.retire();
+            }
+        }
+    }
+}
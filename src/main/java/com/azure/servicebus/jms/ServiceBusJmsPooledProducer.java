@@ -0,0 +1,198 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import jakarta.jms.CompletionListener;
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.Destination;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+
+/**
+ * A MessageProducer handed out by a pooled session. The attached link is shared with later borrowers of the session,
+ * so every setting is kept on this handle and applied on each send, and closing the handle leaves the link attached.
+ */
+class ServiceBusJmsPooledProducer implements MessageProducer {
+    private final ServiceBusJmsPooledSession session;
+    private final MessageProducerCache producers;
+    private final MessageProducer innerProducer;
+    private final Destination destination;
+    private final boolean cached;
+    private boolean disableMessageID;
+    private boolean disableMessageTimestamp;
+    private int deliveryMode = DeliveryMode.PERSISTENT;
+    private int priority = Message.DEFAULT_PRIORITY;
+    private long timeToLive = Message.DEFAULT_TIME_TO_LIVE;
+    private long deliveryDelay = Message.DEFAULT_DELIVERY_DELAY;
+    private volatile boolean closed;
+
+    ServiceBusJmsPooledProducer(ServiceBusJmsPooledSession session, MessageProducerCache producers, MessageProducer innerProducer,
+            Destination destination, boolean cached) {
+        this.session = session;
+        this.producers = producers;
+        this.innerProducer = innerProducer;
+        this.destination = destination;
+        this.cached = cached;
+    }
+
+    boolean isCached() {
+        return this.cached;
+    }
+
+    @Override
+    public void setDisableMessageID(boolean value) throws JMSException {
+        this.checkClosed();
+        this.disableMessageID = value;
+    }
+
+    @Override
+    public boolean getDisableMessageID() throws JMSException {
+        this.checkClosed();
+        return this.disableMessageID;
+    }
+
+    @Override
+    public void setDisableMessageTimestamp(boolean value) throws JMSException {
+        this.checkClosed();
+        this.disableMessageTimestamp = value;
+    }
+
+    @Override
+    public boolean getDisableMessageTimestamp() throws JMSException {
+        this.checkClosed();
+        return this.disableMessageTimestamp;
+    }
+
+    @Override
+    public void setDeliveryMode(int deliveryMode) throws JMSException {
+        this.checkClosed();
+        this.deliveryMode = deliveryMode;
+    }
+
+    @Override
+    public int getDeliveryMode() throws JMSException {
+        this.checkClosed();
+        return this.deliveryMode;
+    }
+
+    @Override
+    public void setPriority(int defaultPriority) throws JMSException {
+        this.checkClosed();
+        this.priority = defaultPriority;
+    }
+
+    @Override
+    public int getPriority() throws JMSException {
+        this.checkClosed();
+        return this.priority;
+    }
+
+    @Override
+    public void setTimeToLive(long timeToLive) throws JMSException {
+        this.checkClosed();
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public long getTimeToLive() throws JMSException {
+        this.checkClosed();
+        return this.timeToLive;
+    }
+
+    @Override
+    public void setDeliveryDelay(long deliveryDelay) throws JMSException {
+        this.checkClosed();
+        this.deliveryDelay = deliveryDelay;
+    }
+
+    @Override
+    public long getDeliveryDelay() throws JMSException {
+        this.checkClosed();
+        return this.deliveryDelay;
+    }
+
+    @Override
+    public Destination getDestination() throws JMSException {
+        this.checkClosed();
+        return this.destination;
+    }
+
+    @Override
+    public void close() throws JMSException {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        if (!this.cached) {
+            this.innerProducer.close();
+        }
+    }
+
+    @Override
+    public void send(Message message) throws JMSException {
+        this.send(message, this.deliveryMode, this.priority, this.timeToLive);
+    }
+
+    @Override
+    public void send(Message message, int deliveryMode, int priority, long timeToLive) throws JMSException {
+        this.prepareSend();
+        this.innerProducer.send(message, deliveryMode, priority, timeToLive);
+    }
+
+    @Override
+    public void send(Destination destination, Message message) throws JMSException {
+        this.send(destination, message, this.deliveryMode, this.priority, this.timeToLive);
+    }
+
+    @Override
+    public void send(Destination destination, Message message, int deliveryMode, int priority, long timeToLive)
+            throws JMSException {
+        this.prepareSend();
+        this.innerProducer.send(destination, message, deliveryMode, priority, timeToLive);
+    }
+
+    @Override
+    public void send(Message message, CompletionListener completionListener) throws JMSException {
+        this.send(message, this.deliveryMode, this.priority, this.timeToLive, completionListener);
+    }
+
+    @Override
+    public void send(Message message, int deliveryMode, int priority, long timeToLive,
+            CompletionListener completionListener) throws JMSException {
+        this.prepareSend();
+        this.producers.sendAsync(this.destination, this.innerProducer, completionListener,
+            listener -> this.innerProducer.send(message, deliveryMode, priority, timeToLive, listener));
+    }
+
+    @Override
+    public void send(Destination destination, Message message, CompletionListener completionListener)
+            throws JMSException {
+        this.send(destination, message, this.deliveryMode, this.priority, this.timeToLive, completionListener);
+    }
+
+    @Override
+    public void send(Destination destination, Message message, int deliveryMode, int priority, long timeToLive,
+            CompletionListener completionListener) throws JMSException {
+        this.prepareSend();
+        this.producers.sendAsync(this.destination, this.innerProducer, completionListener,
+            listener -> this.innerProducer.send(destination, message, deliveryMode, priority, timeToLive, listener));
+    }
+
+    private void prepareSend() throws JMSException {
+        this.checkClosed();
+        this.innerProducer.setDisableMessageID(this.disableMessageID);
+        this.innerProducer.setDisableMessageTimestamp(this.disableMessageTimestamp);
+        this.innerProducer.setDeliveryDelay(this.deliveryDelay);
+    }
+
+    private void checkClosed() throws JMSException {
+        this.session.checkClosed();
+        if (this.closed) {
+            throw new IllegalStateException("The producer is closed.");
+        }
+    }
+}
@@ -0,0 +1,334 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Destination;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+import jakarta.jms.MapMessage;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageListener;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.ObjectMessage;
+import jakarta.jms.Queue;
+import jakarta.jms.QueueBrowser;
+import jakarta.jms.Session;
+import jakarta.jms.StreamMessage;
+import jakarta.jms.TemporaryQueue;
+import jakarta.jms.TemporaryTopic;
+import jakarta.jms.TextMessage;
+import jakarta.jms.Topic;
+import jakarta.jms.TopicSubscriber;
+
+/**
+ * A Session borrowed from a pooled connection. Producers are served from the session's link cache,
+ * consumers and browsers created through it are closed when the session goes back to the pool.
+ */
+class ServiceBusJmsPooledSession implements Session {
+    private final ServiceBusJmsPooledConnection connection;
+    private final ServiceBusJmsConnectionPool.PooledSession pooledSession;
+    private final Session innerSession;
+    private final ServiceBusJmsPoolStatistics statistics;
+    private final List<AutoCloseable> consumers = new ArrayList<>();
+    private final List<ServiceBusJmsPooledProducer> uncachedProducers = new ArrayList<>();
+    // Destinations of the cached producers handed out during this borrow, which must not be evicted while in use.
+    private final Set<Destination> producerDestinations = new HashSet<>();
+    private volatile boolean closed;
+
+    ServiceBusJmsPooledSession(ServiceBusJmsPooledConnection connection, ServiceBusJmsConnectionPool.PooledSession pooledSession, ServiceBusJmsPoolStatistics statistics) {
+        this.connection = connection;
+        this.pooledSession = pooledSession;
+        this.innerSession = pooledSession.session;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public BytesMessage createBytesMessage() throws JMSException {
+        this.checkClosed();
+        return this.innerSession.createBytesMessage();
+    }
+
+    @Override
+    public MapMessage createMapMessage() throws JMSException {
+        this.checkClosed();
+        return this.innerSession.createMapMessage();
+    }
+
+    @Override
+    public Message createMessage() throws JMSException {
+        this.checkClosed();
+        return this.innerSession.createMessage();
+    }
+
+    @Override
+    public ObjectMessage createObjectMessage() throws JMSException {
+        this.checkClosed();
+        return this.innerSession.createObjectMessage();
+    }
+
+    @Override
+    public ObjectMessage createObjectMessage(Serializable object) throws JMSException {
+        this.checkClosed();
+        return this.innerSession.createObjectMessage(object);
+    }
+
+    @Override
+    public StreamMessage createStreamMessage() throws JMSException {
+        this.checkClosed();
+        return this.innerSession.createStreamMessage();
+    }
+
+    @Override
+    public TextMessage createTextMessage() throws JMSException {
+        this.checkClosed();
+        return this.innerSession.createTextMessage();
+    }
+
+    @Override
+    public TextMessage createTextMessage(String text) throws JMSException {
+        this.checkClosed();
+        return this.innerSession.createTextMessage(text);
+    }
+
+    @Override
+    public boolean getTransacted() throws JMSException {
+        this.checkClosed();
+        return this.innerSession.getTransacted();
+    }
+
+    @Override
+    public int getAcknowledgeMode() throws JMSException {
+        this.checkClosed();
+        return this.innerSession.getAcknowledgeMode();
+    }
+
+    @Override
+    public void commit() throws JMSException {
+        this.checkClosed();
+        this.innerSession.commit();
+    }
+
+    @Override
+    public void rollback() throws JMSException {
+        this.checkClosed();
+        this.innerSession.rollback();
+    }
+
+    /**
+     * Give the physical session back to the pool. Uncommitted work is rolled back, consumers are closed
+     * and cached producer links stay attached for the next borrower.
+     */
+    @Override
+    public void close() throws JMSException {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        boolean discard = false;
+        try {
+            for (AutoCloseable consumer : this.consumers) {
+                consumer.close();
+            }
+
+            for (ServiceBusJmsPooledProducer producer : this.uncachedProducers) {
+                producer.close();
+            }
+
+            if (this.innerSession.getMessageListener() != null) {
+                this.innerSession.setMessageListener(null);
+            }
+
+            if (this.innerSession.getTransacted()) {
+                this.innerSession.rollback();
+            }
+        } catch (Exception e) {
+            // A session that cannot be cleaned up is not safe to hand out again.
+            discard = true;
+        } finally {
+            this.consumers.clear();
+            this.uncachedProducers.clear();
+            this.producerDestinations.clear();
+            this.connection.onSessionClosed(this);
+            this.connection.getPool().returnSession(this.pooledSession, discard);
+        }
+    }
+
+    @Override
+    public void recover() throws JMSException {
+        this.checkClosed();
+        this.innerSession.recover();
+    }
+
+    @Override
+    public MessageListener getMessageListener() throws JMSException {
+        this.checkClosed();
+        return this.innerSession.getMessageListener();
+    }
+
+    @Override
+    public void setMessageListener(MessageListener listener) throws JMSException {
+        this.checkClosed();
+        this.innerSession.setMessageListener(listener);
+    }
+
+    @Override
+    public void run() {
+        this.innerSession.run();
+    }
+
+    @Override
+    public MessageProducer createProducer(Destination destination) throws JMSException {
+        this.checkClosed();
+        MessageProducerCache producers = this.pooledSession.producers;
+        boolean attached = producers.contains(destination);
+        MessageProducer producer = producers.getOrCreate(destination, this.producerDestinations::contains);
+        if (attached) {
+            this.statistics.onProducerReused();
+        } else {
+            this.statistics.onProducerCreated();
+        }
+
+        ServiceBusJmsPooledProducer pooledProducer = new ServiceBusJmsPooledProducer(this, producers, producer, destination, producers.contains(destination));
+        if (pooledProducer.isCached()) {
+            this.producerDestinations.add(destination);
+        } else {
+            this.uncachedProducers.add(pooledProducer);
+        }
+
+        return pooledProducer;
+    }
+
+    @Override
+    public MessageConsumer createConsumer(Destination destination) throws JMSException {
+        this.checkClosed();
+        return this.track(this.innerSession.createConsumer(destination));
+    }
+
+    @Override
+    public MessageConsumer createConsumer(Destination destination, String messageSelector) throws JMSException {
+        this.checkClosed();
+        return this.track(this.innerSession.createConsumer(destination, messageSelector));
+    }
+
+    @Override
+    public MessageConsumer createConsumer(Destination destination, String messageSelector, boolean NoLocal)
+            throws JMSException {
+        this.checkClosed();
+        return this.track(this.innerSession.createConsumer(destination, messageSelector, NoLocal));
+    }
+
+    @Override
+    public Queue createQueue(String queueName) throws JMSException {
+        this.checkClosed();
+        return this.innerSession.createQueue(queueName);
+    }
+
+    @Override
+    public Topic createTopic(String topicName) throws JMSException {
+        this.checkClosed();
+        return this.innerSession.createTopic(topicName);
+    }
+
+    @Override
+    public TopicSubscriber createDurableSubscriber(Topic topic, String name) throws JMSException {
+        this.checkClosed();
+        return this.track(this.innerSession.createDurableSubscriber(topic, name));
+    }
+
+    @Override
+    public TopicSubscriber createDurableSubscriber(Topic topic, String name, String messageSelector, boolean noLocal)
+            throws JMSException {
+        this.checkClosed();
+        return this.track(this.innerSession.createDurableSubscriber(topic, name, messageSelector, noLocal));
+    }
+
+    @Override
+    public QueueBrowser createBrowser(Queue queue) throws JMSException {
+        this.checkClosed();
+        return this.track(this.innerSession.createBrowser(queue));
+    }
+
+    @Override
+    public QueueBrowser createBrowser(Queue queue, String messageSelector) throws JMSException {
+        this.checkClosed();
+        return this.track(this.innerSession.createBrowser(queue, messageSelector));
+    }
+
+    @Override
+    public TemporaryQueue createTemporaryQueue() throws JMSException {
+        this.checkClosed();
+        return this.innerSession.createTemporaryQueue();
+    }
+
+    @Override
+    public TemporaryTopic createTemporaryTopic() throws JMSException {
+        this.checkClosed();
+        return this.innerSession.createTemporaryTopic();
+    }
+
+    @Override
+    public void unsubscribe(String name) throws JMSException {
+        this.checkClosed();
+        this.innerSession.unsubscribe(name);
+    }
+
+    @Override
+    public MessageConsumer createSharedConsumer(Topic topic, String sharedSubscriptionName) throws JMSException {
+        this.checkClosed();
+        return this.track(this.innerSession.createSharedConsumer(topic, sharedSubscriptionName));
+    }
+
+    @Override
+    public MessageConsumer createSharedConsumer(Topic topic, String sharedSubscriptionName, String messageSelector)
+            throws JMSException {
+        this.checkClosed();
+        return this.track(this.innerSession.createSharedConsumer(topic, sharedSubscriptionName, messageSelector));
+    }
+
+    @Override
+    public MessageConsumer createDurableConsumer(Topic topic, String name) throws JMSException {
+        this.checkClosed();
+        return this.track(this.innerSession.createDurableConsumer(topic, name));
+    }
+
+    @Override
+    public MessageConsumer createDurableConsumer(Topic topic, String name, String messageSelector, boolean noLocal)
+            throws JMSException {
+        this.checkClosed();
+        return this.track(this.innerSession.createDurableConsumer(topic, name, messageSelector, noLocal));
+    }
+
+    @Override
+    public MessageConsumer createSharedDurableConsumer(Topic topic, String name) throws JMSException {
+        this.checkClosed();
+        return this.track(this.innerSession.createSharedDurableConsumer(topic, name));
+    }
+
+    @Override
+    public MessageConsumer createSharedDurableConsumer(Topic topic, String name, String messageSelector)
+            throws JMSException {
+        this.checkClosed();
+        return this.track(this.innerSession.createSharedDurableConsumer(topic, name, messageSelector));
+    }
+
+    void checkClosed() throws IllegalStateException {
+        if (this.closed) {
+            throw new IllegalStateException("The session is closed.");
+        }
+    }
+
+    private <T extends AutoCloseable> T track(T consumer) {
+        this.consumers.add(consumer);
+        return consumer;
+    }
+}
@@ -0,0 +1,93 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import jakarta.jms.JMSException;
+
+import org.apache.qpid.jms.JmsDestination;
+import org.apache.qpid.jms.JmsSession;
+import org.apache.qpid.jms.policy.JmsDefaultPrefetchPolicy;
+
+/**
+ * The prefetch policy installed on the underlying qpid factory. It behaves like the default policy configured through the
+ * jms.prefetchPolicy options, but lets a single consumer be created with its own prefetch or with a limit on the configured one,
+ * which qpid otherwise only allows per destination type.
+ */
+class ServiceBusJmsPrefetchPolicy extends JmsDefaultPrefetchPolicy {
+    private static final ThreadLocal<PrefetchRequest> CONSUMER_PREFETCH = new ThreadLocal<>();
+
+    ServiceBusJmsPrefetchPolicy(JmsDefaultPrefetchPolicy source) {
+        super(source);
+    }
+
+    @Override
+    public ServiceBusJmsPrefetchPolicy copy() {
+        return new ServiceBusJmsPrefetchPolicy(this);
+    }
+
+    @Override
+    public int getConfiguredPrefetch(JmsSession session, JmsDestination destination, boolean durable, boolean browser) {
+        PrefetchRequest request = CONSUMER_PREFETCH.get();
+        if (request == null || browser) {
+            return super.getConfiguredPrefetch(session, destination, durable, browser);
+        }
+
+        request.configuredPrefetch = request.prefetch >= 0
+            ? Math.min(request.prefetch, this.getMaxPrefetchSize())
+            : super.getConfiguredPrefetch(session, destination, durable, browser);
+        return Math.min(request.configuredPrefetch, request.limit);
+    }
+
+    /**
+     * Create a consumer on the calling thread with the given prefetch instead of the configured one.
+     * The prefetch is the link credit qpid grants when the consumer attaches and keeps topped up afterwards.
+     */
+    static <T> T withConsumerPrefetch(int prefetch, ConsumerFactory<T> factory) throws JMSException {
+        return withConsumerPrefetch(new PrefetchRequest(prefetch, Integer.MAX_VALUE), factory);
+    }
+
+    /**
+     * Create a consumer on the calling thread as described by the request. Once created, the request holds the prefetch the consumer
+     * would have had without its limit.
+     */
+    static <T> T withConsumerPrefetch(PrefetchRequest request, ConsumerFactory<T> factory) throws JMSException {
+        PrefetchRequest previous = CONSUMER_PREFETCH.get();
+        CONSUMER_PREFETCH.set(request);
+        try {
+            return factory.create();
+        } finally {
+            if (previous == null) {
+                CONSUMER_PREFETCH.remove();
+            } else {
+                CONSUMER_PREFETCH.set(previous);
+            }
+        }
+    }
+
+    interface ConsumerFactory<T> {
+        T create() throws JMSException;
+    }
+
+    static final class PrefetchRequest {
+        private final int prefetch;
+        private final int limit;
+        private int configuredPrefetch = -1;
+
+        /**
+         * @param prefetch The prefetch of the consumer, or -1 for the prefetch configured for its destination.
+         * @param limit The highest prefetch the consumer may get.
+         */
+        PrefetchRequest(int prefetch, int limit) {
+            this.prefetch = prefetch;
+            this.limit = limit;
+        }
+
+        /**
+         * @return The prefetch the consumer would have had without the limit, or -1 if no consumer was created.
+         */
+        int getConfiguredPrefetch() {
+            return this.configuredPrefetch;
+        }
+    }
+}
@@ -6,6 +6,7 @@ package com.azure.servicebus.jms;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 import jakarta.jms.JMSException;
 import jakarta.jms.JMSRuntimeException;
@@ -34,6 +35,29 @@ public final class ServiceBusJmsQueue extends JNDIStorable implements Queue {
         return this.innerQueue.getQueueName();
     }
 
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        
+        if (!(other instanceof ServiceBusJmsQueue)) {
+            return false;
+        }
+        
+        return Objects.equals(this.innerQueue, ((ServiceBusJmsQueue) other).innerQueue);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(this.innerQueue);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(this.innerQueue);
+    }
+
     @Override
     protected Map<String, String> getProperties() {
         Map<String, String> properties = new HashMap<>();
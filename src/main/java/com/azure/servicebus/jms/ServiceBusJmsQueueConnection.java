@@ -13,15 +13,19 @@ import jakarta.jms.ServerSessionPool;
 class ServiceBusJmsQueueConnection extends ServiceBusJmsConnection implements QueueConnection {
     private final QueueConnection innerQueueConnection;
 
-    ServiceBusJmsQueueConnection(QueueConnection innerQueueConnection) {
-        super(innerQueueConnection);
-        this.innerQueueConnection = innerQueueConnection;
+    /**
+     * @param primary The physical QueueConnection handed out first.
+     * @param shardOpener Opens further physical QueueConnections to spread sessions over, null to keep all sessions on the primary one.
+     */
+    ServiceBusJmsQueueConnection(ConnectionShards.Shard primary, ServiceBusJmsConnectionFactorySettings settings, ServiceBusJmsMetrics metrics,
+            DestinationCache destinationCache, ConnectionShards.Opener shardOpener) {
+        super(primary, settings, metrics, destinationCache, shardOpener);
+        this.innerQueueConnection = (QueueConnection) primary.getConnection();
     }
 
     @Override
     public QueueSession createQueueSession(boolean transacted, int acknowledgeMode) throws JMSException {
-        QueueSession innerQueueSession = this.innerQueueConnection.createQueueSession(transacted, acknowledgeMode);
-        return new ServiceBusJmsQueueSession(innerQueueSession);
+        return this.createSessionOnShard(shard -> new ServiceBusJmsQueueSession(((QueueConnection) shard).createQueueSession(transacted, acknowledgeMode), this));
     }
 
     @Override
@@ -3,8 +3,6 @@
 
 package com.azure.servicebus.jms;
 
-import jakarta.jms.JMSException;
-import jakarta.jms.QueueConnection;
 import jakarta.jms.QueueConnectionFactory;
 
 public class ServiceBusJmsQueueConnectionFactory extends ServiceBusJmsConnectionFactory implements QueueConnectionFactory {
@@ -20,14 +18,4 @@ public class ServiceBusJmsQueueConnectionFactory extends ServiceBusJmsConnection
     public ServiceBusJmsQueueConnectionFactory(String sasKeyName, String sasKey, String host, ServiceBusJmsConnectionFactorySettings settings) {
         super(sasKeyName, sasKey, host, settings);
     }
-
-    public QueueConnection createQueueConnection() throws JMSException {
-        QueueConnection innerQueueConnection = super.createQueueConnection();
-        return new ServiceBusJmsQueueConnection(innerQueueConnection);
-    }
-
-    public QueueConnection createQueueConnection(String userName, String password) throws JMSException {
-        QueueConnection innerQueueConnection = super.createQueueConnection(userName, password);
-        return new ServiceBusJmsQueueConnection(innerQueueConnection);
-    }
 }
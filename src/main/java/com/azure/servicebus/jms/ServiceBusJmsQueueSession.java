@@ -12,8 +12,8 @@ import jakarta.jms.QueueSession;
 class ServiceBusJmsQueueSession extends ServiceBusJmsSession implements QueueSession {
     private final QueueSession innerQueueSession;
     
-    ServiceBusJmsQueueSession(QueueSession innerQueueSession) {
-        super(innerQueueSession);
+    ServiceBusJmsQueueSession(QueueSession innerQueueSession, ServiceBusJmsConnection connection) throws JMSException {
+        super(innerQueueSession, connection);
         this.innerQueueSession = innerQueueSession;
     }
 
@@ -3,10 +3,15 @@
 
 package com.azure.servicebus.jms;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import jakarta.jms.BytesMessage;
 import jakarta.jms.Destination;
+import jakarta.jms.InvalidDestinationException;
 import jakarta.jms.JMSException;
 import jakarta.jms.MapMessage;
 import jakarta.jms.Message;
@@ -24,13 +29,206 @@ import jakarta.jms.TextMessage;
 import jakarta.jms.Topic;
 import jakarta.jms.TopicSubscriber;
 
-class ServiceBusJmsSession implements Session {
+/**
+ * The Session handed out by connections of a ServiceBusJmsConnectionFactory.
+ * On top of the JMS API it can send message batches, see {@link #createMessageBatch(Destination)}.
+ */
+public class ServiceBusJmsSession implements Session {
+    // Producer links kept attached for batch sends, most batches of a session go to a handful of destinations.
+    private static final int MAX_BATCH_PRODUCERS = 10;
     private final Session innerSession;
+    private final ServiceBusJmsConnection connection;
+    private final ServiceBusJmsConnectionFactorySettings settings;
+    private final ServiceBusJmsMetrics metrics;
+    private MessageProducerCache batchProducers;
+    private MessageProducerCache anonymousProducerLinks;
+    // Acknowledges for the consumers of an AUTO, DUPS_OK or CLIENT acknowledge session reassembling chunks,
+    // null if qpid acknowledges on its own.
+    private final SessionAcknowledgement acknowledgement;
+    // Session in INDIVIDUAL_ACKNOWLEDGE mode the consumers run on when the acknowledgement is emulated.
+    private Session consumerSession;
+    // Session on the primary physical connection, for temporary destinations of a session placed on another one.
+    private Session temporaryDestinationSession;
     
-    ServiceBusJmsSession(Session innerSession) {
+    ServiceBusJmsSession(Session innerSession, ServiceBusJmsConnection connection) throws JMSException {
         this.innerSession = innerSession;
+        this.connection = connection;
+        this.settings = connection.getSettings();
+        this.metrics = connection.getMetrics();
+        this.acknowledgement = this.settings.isChunkReassemblyEnabled()
+            && SessionAcknowledgement.isEmulated(innerSession.getTransacted(), innerSession.getAcknowledgeMode())
+            ? new SessionAcknowledgement(innerSession.getAcknowledgeMode()) : null;
     }
     
+    /**
+     * Create an empty message batch for the given destination, bounded by the maxMessageBatchSizeInBytes setting of the factory.
+     * @param destination The destination the messages of the batch are sent to.
+     * @return The new batch.
+     */
+    public ServiceBusJmsMessageBatch createMessageBatch(Destination destination) {
+        return new ServiceBusJmsMessageBatch(destination, this.settings.getMaxMessageBatchSizeInBytes());
+    }
+
+    /**
+     * Send all messages of the batch, in order, and wait once for the broker to accept all of them.
+     * The messages are sent with the default delivery mode, priority and time to live of a new MessageProducer.
+     * On success the batch is emptied. On failure the first error is thrown and some messages may have been sent.
+     * @param batch The batch to send.
+     * @throws JMSException If any message of the batch failed to send.
+     */
+    public void send(ServiceBusJmsMessageBatch batch) throws JMSException {
+        if (batch.getCount() == 0) {
+            return;
+        }
+
+        if (this.batchProducers == null) {
+            this.batchProducers = new MessageProducerCache(this.innerSession, MAX_BATCH_PRODUCERS);
+        }
+
+        MessageProducer producer = this.batchProducers.getOrCreate(batch.getDestination());
+        MessageBatchCompletion completion = new MessageBatchCompletion(batch.getCount());
+        for (Message message : batch.getMessages()) {
+            this.batchProducers.sendAsync(batch.getDestination(), producer, completion, listener -> producer.send(message, listener));
+        }
+
+        completion.await();
+        batch.clear();
+    }
+
+    /**
+     * Create a producer whose sends complete asynchronously, with a bounded number of messages waiting for the broker.
+     * @param destination The destination to send to, or null to pass the destination on each send.
+     * @return The new async producer.
+     * @throws JMSException If the producer link cannot be attached.
+     */
+    public ServiceBusJmsAsyncProducer createAsyncProducer(Destination destination) throws JMSException {
+        MessageProducer producer = this.innerSession.createProducer(destination);
+        return new ServiceBusJmsAsyncProducer(producer, this.connection.getSendWindow(), this.settings, this.metrics);
+    }
+
+    /**
+     * Create a BytesMessage whose body is read from a stream. The body is read straight into the buffer the message is sent from,
+     * sized once, so a large body takes its length on the heap only once, see ServiceBusJmsMessageBodies.
+     * @param input The stream to read the body from, left open.
+     * @param length The number of bytes of the body.
+     * @return The new message.
+     * @throws JMSException If the message cannot be created.
+     * @throws IOException If the stream fails or ends before length bytes.
+     */
+    public BytesMessage createBytesMessage(InputStream input, long length) throws JMSException, IOException {
+        BytesMessage message = this.innerSession.createBytesMessage();
+        ServiceBusJmsMessageBodies.readBody(message, input, length);
+        return message;
+    }
+
+    /**
+     * Create a BytesMessage whose body is the content of a file, from the position of the channel to its end.
+     * The position of the channel is left as it is. See {@link #createBytesMessage(InputStream, long)}.
+     * @param channel The file to read the body from, left open.
+     * @return The new message.
+     * @throws JMSException If the message cannot be created.
+     * @throws IOException If the file cannot be read.
+     */
+    public BytesMessage createBytesMessage(FileChannel channel) throws JMSException, IOException {
+        BytesMessage message = this.innerSession.createBytesMessage();
+        ServiceBusJmsMessageBodies.readBody(message, channel, channel.position());
+        return message;
+    }
+
+    /**
+     * Create a BytesMessage whose body is the remaining content of a buffer, for example a memory-mapped region of a file.
+     * The position of the buffer is left as it is. See {@link #createBytesMessage(InputStream, long)}.
+     * @param buffer The buffer to copy the body from.
+     * @return The new message.
+     * @throws JMSException If the message cannot be created.
+     * @throws IOException If a memory-mapped region cannot be read.
+     */
+    public BytesMessage createBytesMessage(ByteBuffer buffer) throws JMSException, IOException {
+        BytesMessage message = this.innerSession.createBytesMessage();
+        ServiceBusJmsMessageBodies.readBody(message, buffer);
+        return message;
+    }
+
+    /**
+     * Create a consumer that keeps link credit for a whole batch, so ServiceBusJmsMessageConsumer#receiveBatch gets the batch
+     * without a credit round trip per message. Up to prefetch messages are locked for this consumer while they wait to be received.
+     * @param destination The destination to receive from.
+     * @param prefetch The link credit of the consumer, usually the largest batch it receives.
+     * @return The new consumer.
+     * @throws JMSException If the consumer link cannot be attached.
+     */
+    public ServiceBusJmsMessageConsumer createBatchConsumer(Destination destination, int prefetch) throws JMSException {
+        return this.createBatchConsumer(destination, null, prefetch);
+    }
+
+    /**
+     * Create a consumer that keeps link credit for a whole batch, see {@link #createBatchConsumer(Destination, int)}.
+     * @param destination The destination to receive from.
+     * @param messageSelector Only messages matching the selector are received, null or empty for all messages.
+     * @param prefetch The link credit of the consumer, usually the largest batch it receives.
+     * @return The new consumer.
+     * @throws JMSException If the consumer link cannot be attached.
+     */
+    public ServiceBusJmsMessageConsumer createBatchConsumer(Destination destination, String messageSelector, int prefetch) throws JMSException {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("The prefetch of a batch consumer must be at least 1.");
+        }
+
+        Session session = this.consumingSession(destination);
+        MessageConsumer innerConsumer = ServiceBusJmsPrefetchPolicy.withConsumerPrefetch(prefetch,
+            () -> session.createConsumer(destination, messageSelector));
+        return new ServiceBusJmsMessageConsumer(innerConsumer, session, this.connection, this.acknowledgement, this.settings);
+    }
+
+    private MessageConsumer wrapConsumer(Session session, ServiceBusJmsPrefetchPolicy.ConsumerFactory<MessageConsumer> consumerFactory) throws JMSException {
+        PrefetchMemoryBudget prefetchBudget = this.connection.getPrefetchBudget();
+        boolean adaptive = this.settings.isAdaptivePrefetchEnabled();
+        if (!adaptive && !prefetchBudget.isEnabled()) {
+            return new ServiceBusJmsMessageConsumer(consumerFactory.create(), session, this.connection, this.acknowledgement, this.settings);
+        }
+
+        return ServiceBusJmsMessageConsumer.createTuned(session, this.connection, this.acknowledgement, consumerFactory,
+            adaptive ? new AdaptivePrefetchController(this.settings) : null,
+            prefetchBudget.isEnabled() ? prefetchBudget.reserve() : null,
+            this.settings, this.metrics);
+    }
+
+    /**
+     * @return The session to consume the destination with. Unless qpid acknowledges on its own, consumers run on a session
+     *         in INDIVIDUAL_ACKNOWLEDGE mode, see SessionAcknowledgement. Temporary destinations are owned by the primary physical
+     *         connection, a session placed on another one consumes them through a session on the primary connection.
+     */
+    private Session consumingSession(Destination destination) throws JMSException {
+        if (!(destination instanceof TemporaryQueue || destination instanceof TemporaryTopic) || this.connection.isOnPrimary(this)) {
+            return this.acknowledgement != null ? this.getConsumerSession() : this.innerSession;
+        }
+
+        if (this.innerSession.getTransacted()) {
+            throw new InvalidDestinationException("A transacted session placed on another physical connection cannot consume temporary destinations, "
+                + "consume them from a non-transacted session or set connectionShardCount to 1.");
+        }
+
+        return this.getTemporaryDestinationSession();
+    }
+
+    private synchronized Session getConsumerSession() throws JMSException {
+        if (this.consumerSession == null) {
+            this.consumerSession = this.connection.createConsumerSession(this);
+        }
+
+        return this.consumerSession;
+    }
+
+    private synchronized Session getTemporaryDestinationSession() throws JMSException {
+        if (this.temporaryDestinationSession == null) {
+            int acknowledgeMode = this.innerSession.getTransacted() ? Session.AUTO_ACKNOWLEDGE : this.innerSession.getAcknowledgeMode();
+            this.temporaryDestinationSession = this.connection.createPrimarySession(
+                this.acknowledgement != null ? ServiceBusJmsMessageConsumer.INDIVIDUAL_ACKNOWLEDGE : acknowledgeMode);
+        }
+
+        return this.temporaryDestinationSession;
+    }
+
     @Override
     public BytesMessage createBytesMessage() throws JMSException {
         return this.innerSession.createBytesMessage();
@@ -93,12 +291,54 @@ class ServiceBusJmsSession implements Session {
 
     @Override
     public void close() throws JMSException {
-        this.innerSession.close();
+        if (this.batchProducers != null) {
+            this.batchProducers.closeAll();
+        }
+
+        if (this.anonymousProducerLinks != null) {
+            this.anonymousProducerLinks.closeAll();
+        }
+
+        try {
+            closeSession(this.consumerSession);
+            closeSession(this.temporaryDestinationSession);
+        } finally {
+            this.innerSession.close();
+            this.connection.onSessionClosed(this);
+        }
     }
 
     @Override
     public void recover() throws JMSException {
         this.innerSession.recover();
+        if (this.innerSession.getTransacted()) {
+            return;
+        }
+
+        if (this.acknowledgement != null) {
+            this.acknowledgement.recover();
+        }
+
+        Session consumerSession = this.consumerSession;
+        if (consumerSession != null) {
+            consumerSession.recover();
+        }
+
+        Session temporaryDestinationSession = this.temporaryDestinationSession;
+        if (temporaryDestinationSession != null) {
+            temporaryDestinationSession.recover();
+        }
+    }
+
+    // Cached destinations are handed out without asking the qpid session, which checks whether it was closed, also by its connection.
+    private void checkClosed() throws JMSException {
+        this.innerSession.getTransacted();
+    }
+
+    private static void closeSession(Session session) throws JMSException {
+        if (session != null) {
+            session.close();
+        }
     }
 
     @Override
@@ -118,35 +358,49 @@ class ServiceBusJmsSession implements Session {
 
     @Override
     public MessageProducer createProducer(Destination destination) throws JMSException {
-        return this.innerSession.createProducer(destination);
+        MessageProducer producer;
+        if (destination == null && this.settings.getAnonymousProducerLinkCacheSize() > 0) {
+            if (this.anonymousProducerLinks == null) {
+                this.anonymousProducerLinks = new MessageProducerCache(this.innerSession, this.settings.getAnonymousProducerLinkCacheSize());
+            }
+
+            producer = new AnonymousMessageProducer(this.anonymousProducerLinks, this.settings.getAnonymousProducerLinkIdleTimeoutMS());
+        } else {
+            producer = this.innerSession.createProducer(destination);
+        }
+
+        return this.settings.isPayloadEncodingEnabled() ? new EncodingMessageProducer(producer, this.innerSession, this.settings) : producer;
     }
 
     @Override
     public MessageConsumer createConsumer(Destination destination) throws JMSException {
-        return this.innerSession.createConsumer(destination);
+        Session session = this.consumingSession(destination);
+        return this.wrapConsumer(session, () -> session.createConsumer(destination));
     }
 
     @Override
     public MessageConsumer createConsumer(Destination destination, String messageSelector) throws JMSException {
-        return this.innerSession.createConsumer(destination, messageSelector);
+        Session session = this.consumingSession(destination);
+        return this.wrapConsumer(session, () -> session.createConsumer(destination, messageSelector));
     }
 
     @Override
     public MessageConsumer createConsumer(Destination destination, String messageSelector, boolean NoLocal)
             throws JMSException {
-        return this.innerSession.createConsumer(destination, messageSelector, NoLocal);
+        Session session = this.consumingSession(destination);
+        return this.wrapConsumer(session, () -> session.createConsumer(destination, messageSelector, NoLocal));
     }
 
     @Override
     public Queue createQueue(String queueName) throws JMSException {
-        Queue innerQueue = this.innerSession.createQueue(queueName);
-        return new ServiceBusJmsQueue(innerQueue);
+        this.checkClosed();
+        return this.connection.getDestinationCache().getQueue(queueName, name -> new ServiceBusJmsQueue(this.innerSession.createQueue(name)));
     }
 
     @Override
     public Topic createTopic(String topicName) throws JMSException {
-        Topic innerTopic = this.innerSession.createTopic(topicName);
-        return new ServiceBusJmsTopic(innerTopic);
+        this.checkClosed();
+        return this.connection.getDestinationCache().getTopic(topicName, name -> new ServiceBusJmsTopic(this.innerSession.createTopic(name)));
     }
 
     @Override
@@ -162,22 +416,22 @@ class ServiceBusJmsSession implements Session {
 
     @Override
     public QueueBrowser createBrowser(Queue queue) throws JMSException {
-        return this.innerSession.createBrowser(queue);
+        return this.consumingSession(queue).createBrowser(queue);
     }
 
     @Override
     public QueueBrowser createBrowser(Queue queue, String messageSelector) throws JMSException {
-        return this.innerSession.createBrowser(queue, messageSelector);
+        return this.consumingSession(queue).createBrowser(queue, messageSelector);
     }
 
     @Override
     public TemporaryQueue createTemporaryQueue() throws JMSException {
-        return this.innerSession.createTemporaryQueue();
+        return this.connection.isOnPrimary(this) ? this.innerSession.createTemporaryQueue() : this.getTemporaryDestinationSession().createTemporaryQueue();
     }
 
     @Override
     public TemporaryTopic createTemporaryTopic() throws JMSException {
-        return this.innerSession.createTemporaryTopic();
+        return this.connection.isOnPrimary(this) ? this.innerSession.createTemporaryTopic() : this.getTemporaryDestinationSession().createTemporaryTopic();
     }
 
     @Override
@@ -187,34 +441,40 @@ class ServiceBusJmsSession implements Session {
 
     @Override
     public MessageConsumer createSharedConsumer(Topic topic, String sharedSubscriptionName) throws JMSException {
-        return this.innerSession.createSharedConsumer(topic, sharedSubscriptionName);
+        Session session = this.consumingSession(topic);
+        return this.wrapConsumer(session, () -> session.createSharedConsumer(topic, sharedSubscriptionName));
     }
 
     @Override
     public MessageConsumer createSharedConsumer(Topic topic, String sharedSubscriptionName, String messageSelector)
             throws JMSException {
-        return this.innerSession.createSharedConsumer(topic, sharedSubscriptionName, messageSelector);
+        Session session = this.consumingSession(topic);
+        return this.wrapConsumer(session, () -> session.createSharedConsumer(topic, sharedSubscriptionName, messageSelector));
     }
 
     @Override
     public MessageConsumer createDurableConsumer(Topic topic, String name) throws JMSException {
-        return this.innerSession.createDurableConsumer(topic, name);
+        Session session = this.consumingSession(topic);
+        return this.wrapConsumer(session, () -> session.createDurableConsumer(topic, name));
     }
 
     @Override
     public MessageConsumer createDurableConsumer(Topic topic, String name, String messageSelector, boolean noLocal)
             throws JMSException {
-        return this.innerSession.createDurableConsumer(topic, name, messageSelector, noLocal);
+        Session session = this.consumingSession(topic);
+        return this.wrapConsumer(session, () -> session.createDurableConsumer(topic, name, messageSelector, noLocal));
     }
 
     @Override
     public MessageConsumer createSharedDurableConsumer(Topic topic, String name) throws JMSException {
-        return this.innerSession.createSharedDurableConsumer(topic, name);
+        Session session = this.consumingSession(topic);
+        return this.wrapConsumer(session, () -> session.createSharedDurableConsumer(topic, name));
     }
 
     @Override
     public MessageConsumer createSharedDurableConsumer(Topic topic, String name, String messageSelector)
             throws JMSException {
-        return this.innerSession.createSharedDurableConsumer(topic, name, messageSelector);
+        Session session = this.consumingSession(topic);
+        return this.wrapConsumer(session, () -> session.createSharedDurableConsumer(topic, name, messageSelector));
     }
 }
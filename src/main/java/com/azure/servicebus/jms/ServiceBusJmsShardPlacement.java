@@ -0,0 +1,18 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+/**
+ * How a sharded connection picks the physical connection of a new session, see ServiceBusJmsConnectionFactorySettings#setConnectionShardCount.
+ */
+public enum ServiceBusJmsShardPlacement {
+    /**
+     * Place sessions on the physical connections in turn.
+     */
+    ROUND_ROBIN,
+    /**
+     * Place each session on the physical connection with the fewest open sessions.
+     */
+    LEAST_LOADED
+}
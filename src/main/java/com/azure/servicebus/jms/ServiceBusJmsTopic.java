@@ -6,6 +6,7 @@ package com.azure.servicebus.jms;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import jakarta.jms.JMSException;
 import jakarta.jms.JMSRuntimeException;
 import jakarta.jms.Topic;
@@ -33,6 +34,29 @@ public final class ServiceBusJmsTopic extends JNDIStorable implements Topic {
         return this.innerTopic.getTopicName();
     }
 
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        
+        if (!(other instanceof ServiceBusJmsTopic)) {
+            return false;
+        }
+        
+        return Objects.equals(this.innerTopic, ((ServiceBusJmsTopic) other).innerTopic);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(this.innerTopic);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(this.innerTopic);
+    }
+
     @Override
     protected Map<String, String> getProperties() {
         Map<String, String> properties = new HashMap<>();
@@ -13,15 +13,19 @@ import jakarta.jms.TopicSession;
 class ServiceBusJmsTopicConnection extends ServiceBusJmsConnection implements TopicConnection {
     private final TopicConnection innerTopicConnection;
     
-    ServiceBusJmsTopicConnection(TopicConnection innerTopicConnection) {
-        super(innerTopicConnection);
-        this.innerTopicConnection = innerTopicConnection;
+    /**
+     * @param primary The physical TopicConnection handed out first.
+     * @param shardOpener Opens further physical TopicConnections to spread sessions over, null to keep all sessions on the primary one.
+     */
+    ServiceBusJmsTopicConnection(ConnectionShards.Shard primary, ServiceBusJmsConnectionFactorySettings settings, ServiceBusJmsMetrics metrics,
+            DestinationCache destinationCache, ConnectionShards.Opener shardOpener) {
+        super(primary, settings, metrics, destinationCache, shardOpener);
+        this.innerTopicConnection = (TopicConnection) primary.getConnection();
     }
 
     @Override
     public TopicSession createTopicSession(boolean transacted, int acknowledgeMode) throws JMSException {
-        TopicSession innerTopicSession = this.innerTopicConnection.createTopicSession(transacted, acknowledgeMode);
-        return new ServiceBusJmsTopicSession(innerTopicSession);
+        return this.createSessionOnShard(shard -> new ServiceBusJmsTopicSession(((TopicConnection) shard).createTopicSession(transacted, acknowledgeMode), this));
     }
 
     @Override
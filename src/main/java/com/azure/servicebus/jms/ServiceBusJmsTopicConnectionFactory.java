@@ -3,8 +3,6 @@
 
 package com.azure.servicebus.jms;
 
-import jakarta.jms.JMSException;
-import jakarta.jms.TopicConnection;
 import jakarta.jms.TopicConnectionFactory;
 
 public class ServiceBusJmsTopicConnectionFactory extends ServiceBusJmsConnectionFactory implements TopicConnectionFactory {
@@ -20,14 +18,4 @@ public class ServiceBusJmsTopicConnectionFactory extends ServiceBusJmsConnection
     public ServiceBusJmsTopicConnectionFactory(String sasKeyName, String sasKey, String host, ServiceBusJmsConnectionFactorySettings settings) {
         super(sasKeyName, sasKey, host, settings);
     }
-
-    public TopicConnection createTopicConnection() throws JMSException {
-        TopicConnection innerTopicConnection = super.createTopicConnection();
-        return new ServiceBusJmsTopicConnection(innerTopicConnection);
-    }
-
-    public TopicConnection createTopicConnection(String userName, String password) throws JMSException {
-        TopicConnection innerTopicConnection = super.createTopicConnection(userName, password);
-        return new ServiceBusJmsTopicConnection(innerTopicConnection);
-    }
 }
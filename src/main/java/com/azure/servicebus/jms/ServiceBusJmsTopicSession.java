@@ -12,8 +12,8 @@ import jakarta.jms.TopicSubscriber;
 class ServiceBusJmsTopicSession extends ServiceBusJmsSession implements TopicSession {
     private final TopicSession innerTopicSession;
     
-    ServiceBusJmsTopicSession(TopicSession innerTopicSession) {
-        super(innerTopicSession);
+    ServiceBusJmsTopicSession(TopicSession innerTopicSession, ServiceBusJmsConnection connection) throws JMSException {
+        super(innerTopicSession, connection);
         this.innerTopicSession = innerTopicSession;
     }
 
@@ -0,0 +1,168 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.MapMessage;
+import jakarta.jms.Message;
+import jakarta.jms.ObjectMessage;
+import jakarta.jms.Session;
+import jakarta.jms.StreamMessage;
+import jakarta.jms.TextMessage;
+
+/**
+ * Acknowledges the messages of a ServiceBusJmsSession in AUTO_ACKNOWLEDGE, DUPS_OK_ACKNOWLEDGE or CLIENT_ACKNOWLEDGE mode,
+ * whose consumers run on a qpid session in INDIVIDUAL_ACKNOWLEDGE mode. Only used with chunk reassembly enabled.
+ * <p>
+ * qpid acknowledges in those modes whatever the consumers received, including the chunks of a message whose other chunks
+ * are still on the way, see ChunkAssembler. Settling each message on its own instead, only messages handed to the application
+ * are acknowledged: with AUTO_ACKNOWLEDGE and DUPS_OK_ACKNOWLEDGE once a receive call returns them or the listener returns,
+ * with CLIENT_ACKNOWLEDGE once the application acknowledges any of them. A chunk is settled with the message it completes.
+ * <p>
+ * With CLIENT_ACKNOWLEDGE, the application gets a view of each message whose acknowledge call settles all messages
+ * handed out so far, as it does on a qpid session.
+ */
+final class SessionAcknowledgement {
+    private final int acknowledgeMode;
+    // Messages handed to the application and not yet acknowledged, with CLIENT_ACKNOWLEDGE only.
+    private final List<Message> unacknowledged = new ArrayList<>();
+
+    SessionAcknowledgement(int acknowledgeMode) {
+        this.acknowledgeMode = acknowledgeMode;
+    }
+
+    /**
+     * @return Whether a session in the given mode acknowledges through a SessionAcknowledgement.
+     */
+    static boolean isEmulated(boolean transacted, int acknowledgeMode) {
+        return !transacted && (acknowledgeMode == Session.AUTO_ACKNOWLEDGE || acknowledgeMode == Session.DUPS_OK_ACKNOWLEDGE
+            || acknowledgeMode == Session.CLIENT_ACKNOWLEDGE);
+    }
+
+    /**
+     * @return The acknowledge mode the application asked for.
+     */
+    int getAcknowledgeMode() {
+        return this.acknowledgeMode;
+    }
+
+    /**
+     * Hand a message to the application.
+     * @return The message for the application, a view of it with CLIENT_ACKNOWLEDGE.
+     */
+    Message deliver(Message message) {
+        if (this.acknowledgeMode != Session.CLIENT_ACKNOWLEDGE) {
+            return message;
+        }
+
+        synchronized (this) {
+            this.unacknowledged.addAll(getParts(message));
+        }
+
+        return this.view(message);
+    }
+
+    /**
+     * Called once the application processed a delivered message, by returning it from a receive call or from the listener.
+     */
+    void onProcessed(Message message) throws JMSException {
+        if (this.acknowledgeMode != Session.CLIENT_ACKNOWLEDGE) {
+            settle(getParts(message), ServiceBusJmsMessageSettlement.ACCEPT.getAckType());
+        }
+    }
+
+    /**
+     * Called if the listener failed on a delivered message, it is delivered again like qpid does for a failed listener.
+     */
+    void onFailed(Message message) throws JMSException {
+        if (this.acknowledgeMode != Session.CLIENT_ACKNOWLEDGE) {
+            settle(getParts(message), ServiceBusJmsMessageSettlement.MODIFIED_FAILED.getAckType());
+        }
+    }
+
+    /**
+     * Forget the delivered messages, the qpid session delivers them again on recover.
+     */
+    synchronized void recover() {
+        this.unacknowledged.clear();
+    }
+
+    /**
+     * Settle every message handed out so far with the outcome set on the acknowledged message, accept if none is set.
+     */
+    private void acknowledgeAll(Message acknowledged) throws JMSException {
+        String property = ServiceBusJmsMessageSettlement.ACK_TYPE_PROPERTY;
+        int ackType = acknowledged.propertyExists(property) ? acknowledged.getIntProperty(property) : ServiceBusJmsMessageSettlement.ACCEPT.getAckType();
+        List<Message> messages;
+        synchronized (this) {
+            messages = new ArrayList<>(this.unacknowledged);
+            this.unacknowledged.clear();
+        }
+
+        settle(messages, ackType);
+    }
+
+    private Message view(Message message) {
+        Class<?> type = Message.class;
+        if (message instanceof TextMessage) {
+            type = TextMessage.class;
+        } else if (message instanceof BytesMessage) {
+            type = BytesMessage.class;
+        } else if (message instanceof MapMessage) {
+            type = MapMessage.class;
+        } else if (message instanceof ObjectMessage) {
+            type = ObjectMessage.class;
+        } else if (message instanceof StreamMessage) {
+            type = StreamMessage.class;
+        }
+
+        return (Message) Proxy.newProxyInstance(SessionAcknowledgement.class.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            if (method.getName().equals("acknowledge") && method.getParameterCount() == 0) {
+                this.acknowledgeAll(message);
+                return null;
+            }
+
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return method.invoke(message, args);
+                }
+            }
+
+            try {
+                return method.invoke(message, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    /**
+     * @return The received messages a message handed to the application is made of.
+     */
+    static List<Message> getParts(Message message) {
+        return message instanceof DecodedMessage ? ((DecodedMessage) message).getParts() : Collections.singletonList(message);
+    }
+
+    /**
+     * Settle received messages of an INDIVIDUAL_ACKNOWLEDGE session, each on its own.
+     */
+    static void settle(List<Message> messages, int ackType) throws JMSException {
+        for (Message message : messages) {
+            message.setIntProperty(ServiceBusJmsMessageSettlement.ACK_TYPE_PROPERTY, ackType);
+            message.acknowledge();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+/**
+ * Creates the threads of the listener container. This is the Java 8 version, which only has platform threads.
+ * The jar carries a Java 21 version of this class under META-INF/versions/21, see src/main/java21, that creates virtual threads.
+ */
+final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return Whether the running Java version has virtual threads.
+     */
+    static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * @param virtual Whether to create a virtual thread, ignored where they are not supported.
+     * @return A new, unstarted daemon thread.
+     */
+    static Thread newThread(String name, Runnable task, boolean virtual) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
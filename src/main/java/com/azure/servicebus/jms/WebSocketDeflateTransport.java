@@ -0,0 +1,30 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.net.URI;
+
+import org.apache.qpid.jms.transports.TransportOptions;
+import org.apache.qpid.jms.transports.netty.NettyWsTransport;
+
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketClientCompressionHandler;
+
+/**
+ * The qpid WebSocket transport, offering the permessage-deflate extension in its handshake.
+ * If the server accepts it, every WebSocket message, which carries one or more AMQP frames, is compressed on the wire.
+ * A server that does not support the extension ignores the offer and the connection runs uncompressed.
+ */
+class WebSocketDeflateTransport extends NettyWsTransport {
+    WebSocketDeflateTransport(URI remoteLocation, TransportOptions options, boolean secure) {
+        super(remoteLocation, options, secure);
+    }
+
+    @Override
+    protected void addAdditionalHandlers(ChannelPipeline pipeline) {
+        super.addAdditionalHandlers(pipeline);
+        // Sits between the HTTP codec and the WebSocket handler, so it sees the handshake and installs the deflate codecs once it completes.
+        pipeline.addLast(WebSocketClientCompressionHandler.INSTANCE);
+    }
+}
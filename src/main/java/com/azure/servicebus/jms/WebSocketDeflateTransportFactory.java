@@ -0,0 +1,42 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.net.URI;
+
+import org.apache.qpid.jms.transports.TransportOptions;
+import org.apache.qpid.jms.transports.netty.NettyTcpTransport;
+import org.apache.qpid.jms.transports.netty.NettyWsTransportFactory;
+
+/**
+ * Creates the transport behind amqpwsdeflate:// URIs, AMQP over WebSockets with permessage-deflate.
+ * qpid looks transports up by URI scheme, which is why this class is public. Applications enable the transport through
+ * ServiceBusJmsConnectionFactorySettings#setWebSocketCompressionEnabled rather than using it directly.
+ */
+public class WebSocketDeflateTransportFactory extends NettyWsTransportFactory {
+    @Override
+    protected NettyTcpTransport doCreateTransport(URI remoteURI, TransportOptions transportOptions) throws Exception {
+        return new WebSocketDeflateTransport(remoteURI, transportOptions, this.isSecure());
+    }
+
+    @Override
+    public String getName() {
+        return "WSDEFLATE";
+    }
+
+    /**
+     * Creates the transport behind amqpwssdeflate:// URIs, the same over TLS.
+     */
+    public static class Secure extends WebSocketDeflateTransportFactory {
+        @Override
+        public String getName() {
+            return "WSSDEFLATE";
+        }
+
+        @Override
+        public boolean isSecure() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import java.util.Arrays;
+
+import com.github.luben.zstd.Zstd;
+
+/**
+ * Zstandard through zstd-jni, an optional dependency. Only this class refers to it, so the library loads without it
+ * and only the ZSTD codec needs it.
+ */
+final class ZstdCodec {
+    private static final int LEVEL = 3;
+
+    private ZstdCodec() { }
+
+    /**
+     * @return Whether zstd-jni is on the classpath.
+     */
+    static boolean isAvailable() {
+        try {
+            Class.forName("com.github.luben.zstd.Zstd", false, ZstdCodec.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    static byte[] compress(byte[] input, int length) {
+        byte[] source = length == input.length ? input : Arrays.copyOf(input, length);
+        return Zstd.compress(source, LEVEL);
+    }
+
+    static byte[] decompress(byte[] input, int length) {
+        byte[] source = length == input.length ? input : Arrays.copyOf(input, length);
+        long size = Zstd.getFrameContentSize(source);
+        if (size <= 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The zstd frame does not state a valid content size.");
+        }
+
+        return Zstd.decompress(source, (int) size);
+    }
+}
@@ -0,0 +1,34 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+/**
+ * Creates the threads of the listener container. This is the Java 21 version, packaged under META-INF/versions/21,
+ * which replaces the Java 8 version in src/main/java when the jar runs on Java 21 or later.
+ */
+final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return Whether the running Java version has virtual threads.
+     */
+    static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * @param virtual Whether to create a virtual thread rather than a platform thread.
+     * @return A new, unstarted daemon thread.
+     */
+    static Thread newThread(String name, Runnable task, boolean virtual) {
+        if (virtual) {
+            return Thread.ofVirtual().name(name).unstarted(task);
+        }
+
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,174 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.azure.core.credential.AccessToken;
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.credential.TokenRequestContext;
+
+import reactor.core.publisher.Mono;
+
+public class AadAuthenticationTests {
+    private static final long TIMEOUT_MS = 5000;
+
+    @Test
+    public void tokenIsReusedWithinItsLifetime() {
+        FakeCredential credential = new FakeCredential();
+        AccessToken token = credential.respondWith(Duration.ofHours(1));
+        AadAuthentication authentication = new AadAuthentication(credential);
+
+        assertSame(token, authentication.getAccessToken());
+        assertSame(token, authentication.getAccessToken());
+        assertEquals("jwt", authentication.getTokenType());
+        assertEquals(token.getToken(), authentication.getToken("amqp://namespace.servicebus.windows.net/orders").getToken());
+        assertEquals(1, credential.getCalls());
+    }
+
+    @Test
+    public void tokenIsRefreshedInTheBackgroundBeforeItExpires() throws InterruptedException {
+        FakeCredential credential = new FakeCredential();
+        // The five minute refresh offset is capped at half the lifetime, so this token is refreshed three to six seconds before it expires.
+        AccessToken first = credential.respondWith(Duration.ofSeconds(12));
+        AccessToken second = credential.respondWith(Duration.ofHours(1));
+        AadAuthentication authentication = new AadAuthentication(credential);
+
+        assertSame(first, authentication.getAccessToken());
+        // Only tokens used since they were acquired are refreshed.
+        assertSame(first, authentication.getAccessToken());
+        assertTrue(credential.awaitCalls(2, 7000));
+        assertSame(second, authentication.getAccessToken());
+        assertEquals(2, credential.getCalls());
+    }
+
+    @Test
+    public void tokenAboutToExpireIsNotHandedOut() {
+        FakeCredential credential = new FakeCredential();
+        AccessToken expiring = credential.respondWith(Duration.ofSeconds(5));
+        AccessToken renewed = credential.respondWith(Duration.ofHours(1));
+        AadAuthentication authentication = new AadAuthentication(credential);
+
+        assertSame(expiring, authentication.getAccessToken());
+        assertSame(renewed, authentication.getAccessToken());
+        assertEquals(2, credential.getCalls());
+    }
+
+    @Test
+    public void concurrentCallersShareOneRefresh() throws Exception {
+        CountDownLatch requested = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FakeCredential credential = new FakeCredential();
+        AccessToken token = newToken(Duration.ofHours(1));
+        credential.respondWith(() -> {
+            requested.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return Mono.just(token);
+        });
+        AadAuthentication authentication = new AadAuthentication(credential);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<AccessToken>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> authentication.getAccessToken()));
+            }
+
+            assertTrue(requested.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+            // Give the other callers time to find the pending refresh before it completes.
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<AccessToken> result : results) {
+                assertSame(token, result.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, credential.getCalls());
+    }
+
+    @Test
+    public void failedRefreshIsRetriedByTheNextCaller() {
+        FakeCredential credential = new FakeCredential();
+        credential.respondWith(() -> Mono.error(new IllegalStateException("identity endpoint unavailable")));
+        AccessToken token = credential.respondWith(Duration.ofHours(1));
+        AadAuthentication authentication = new AadAuthentication(credential);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> authentication.getAccessToken());
+        assertEquals("identity endpoint unavailable", exception.getMessage());
+        assertSame(token, authentication.getAccessToken());
+        assertSame(token, authentication.getAccessToken());
+        assertEquals(2, credential.getCalls());
+    }
+
+    private static AccessToken newToken(Duration lifetime) {
+        return new AccessToken("token-" + System.nanoTime(), OffsetDateTime.now().plus(lifetime));
+    }
+
+    /**
+     * Answers token requests in order with the queued responses, and counts them.
+     */
+    private static final class FakeCredential implements TokenCredential {
+        private final LinkedBlockingQueue<Supplier<Mono<AccessToken>>> responses = new LinkedBlockingQueue<>();
+        private final AtomicInteger calls = new AtomicInteger();
+
+        AccessToken respondWith(Duration lifetime) {
+            AccessToken token = newToken(lifetime);
+            this.respondWith(() -> Mono.just(token));
+            return token;
+        }
+
+        void respondWith(Supplier<Mono<AccessToken>> response) {
+            this.responses.add(response);
+        }
+
+        int getCalls() {
+            return this.calls.get();
+        }
+
+        boolean awaitCalls(int count, long timeoutMS) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMS;
+            while (this.calls.get() < count) {
+                if (System.currentTimeMillis() > deadline) {
+                    return false;
+                }
+
+                Thread.sleep(10);
+            }
+
+            return true;
+        }
+
+        @Override
+        public Mono<AccessToken> getToken(TokenRequestContext request) {
+            this.calls.incrementAndGet();
+            Supplier<Mono<AccessToken>> response = this.responses.poll();
+            return response != null ? response.get() : Mono.error(new IllegalStateException("No token response queued"));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class AdaptivePrefetchControllerTests {
+    private long nowNanos = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void starvingConsumerDoublesItsPrefetchUpToTheMaximum() {
+        AdaptivePrefetchController controller = new AdaptivePrefetchController(createSettings(0, 16, 60000));
+        assertEquals(0, controller.getPrefetch());
+
+        int[] expected = { 1, 2, 4, 8, 16, 16 };
+        for (int prefetch : expected) {
+            receive(controller, 20, TimeUnit.MILLISECONDS.toNanos(5), TimeUnit.MILLISECONDS.toNanos(1));
+            controller.update();
+            assertEquals(prefetch, controller.getPrefetch());
+        }
+    }
+
+    @Test
+    public void consumerThatDoesNotWaitKeepsItsPrefetch() {
+        AdaptivePrefetchController controller = new AdaptivePrefetchController(createSettings(10, 100, 60000));
+        receive(controller, 20, 0, TimeUnit.MILLISECONDS.toNanos(1));
+        controller.update();
+        assertEquals(10, controller.getPrefetch());
+    }
+
+    @Test
+    public void slowConsumerShrinksToWhatItProcessesWithinHalfTheLock() {
+        AdaptivePrefetchController controller = new AdaptivePrefetchController(createSettings(0, 64, 60000));
+        for (int i = 0; i < 8; i++) {
+            receive(controller, 20, TimeUnit.MILLISECONDS.toNanos(5), TimeUnit.MILLISECONDS.toNanos(1));
+            controller.update();
+        }
+
+        assertEquals(64, controller.getPrefetch());
+
+        // 10 seconds per message leave room for 3 messages in half of the 60 second lock.
+        receive(controller, 50, TimeUnit.MILLISECONDS.toNanos(5), TimeUnit.SECONDS.toNanos(10));
+        controller.update();
+        assertEquals(3, controller.getPrefetch());
+    }
+
+    @Test
+    public void prefetchNeverDropsBelowTheMinimum() {
+        AdaptivePrefetchController controller = new AdaptivePrefetchController(createSettings(5, 64, 60000));
+        receive(controller, 20, TimeUnit.MILLISECONDS.toNanos(5), TimeUnit.SECONDS.toNanos(60));
+        controller.update();
+        assertEquals(5, controller.getPrefetch());
+    }
+
+    @Test
+    public void maximumBelowTheMinimumIsRaisedToIt() {
+        AdaptivePrefetchController controller = new AdaptivePrefetchController(createSettings(8, 4, 60000));
+        receive(controller, 20, TimeUnit.MILLISECONDS.toNanos(5), TimeUnit.MILLISECONDS.toNanos(1));
+        controller.update();
+        assertEquals(8, controller.getPrefetch());
+    }
+
+    @Test
+    public void emptyReceivesDoNotCountAsProcessing() {
+        AdaptivePrefetchController controller = new AdaptivePrefetchController(createSettings(0, 64, 60000));
+        for (int i = 0; i < 20; i++) {
+            long start = this.nowNanos;
+            controller.onReceiveStart(start);
+            this.nowNanos += TimeUnit.SECONDS.toNanos(1);
+            controller.onReceiveEnd(start, this.nowNanos, false);
+            this.nowNanos += TimeUnit.SECONDS.toNanos(30);
+        }
+
+        controller.update();
+        assertEquals(0, controller.getPrefetch());
+    }
+
+    // Receive count messages, each after waiting waitNanos on the link, and process each for processingNanos.
+    private void receive(AdaptivePrefetchController controller, int count, long waitNanos, long processingNanos) {
+        for (int i = 0; i < count; i++) {
+            long start = this.nowNanos;
+            controller.onReceiveStart(start);
+            this.nowNanos += waitNanos;
+            controller.onReceiveEnd(start, this.nowNanos, true);
+            this.nowNanos += processingNanos;
+        }
+    }
+
+    private static ServiceBusJmsConnectionFactorySettings createSettings(int minPrefetch, int maxPrefetch, long lockDurationMS) {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setMinAdaptivePrefetch(minPrefetch);
+        settings.setMaxAdaptivePrefetch(maxPrefetch);
+        settings.setMessageLockDurationMS(lockDurationMS);
+        return settings;
+    }
+}
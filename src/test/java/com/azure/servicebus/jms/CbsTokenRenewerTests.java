@@ -0,0 +1,94 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.qpid.jms.JmsConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.emulator.ServiceBusEmulator;
+
+import jakarta.jms.Connection;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSSecurityException;
+
+public class CbsTokenRenewerTests {
+    private static final String SAS_TOKEN_TYPE = "servicebus.windows.net:sastoken";
+
+    private ServiceBusEmulator emulator;
+    private JmsConnectionFactory factory;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+        factory = new JmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost());
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    public void acceptedTokenIsConfirmedByTheReply() throws Exception {
+        try (Connection connection = factory.createConnection()) {
+            connection.start();
+            try (CbsTokenRenewer.CbsLink link = new CbsTokenRenewer.SessionCbsLink(connection)) {
+                link.putToken(SAS_TOKEN_TYPE, "amqp://localhost/", "SharedAccessSignature first");
+                link.putToken(SAS_TOKEN_TYPE, "amqp://localhost/", "SharedAccessSignature second");
+            }
+
+            assertEquals(2, emulator.getPutTokens().size());
+            assertEquals("SharedAccessSignature second", emulator.getPutTokens().get(1).getToken());
+        }
+    }
+
+    @Test
+    public void refusedTokenFailsThePutToken() throws Exception {
+        try (Connection connection = factory.createConnection()) {
+            connection.start();
+            try (CbsTokenRenewer.CbsLink link = new CbsTokenRenewer.SessionCbsLink(connection)) {
+                JMSSecurityException exception = assertThrows(JMSSecurityException.class,
+                    () -> link.putToken("unknown", "amqp://localhost/", "token"));
+                assertTrue(exception.getMessage().contains("400"));
+
+                // The reply of the refused request does not confirm the next one.
+                link.putToken(SAS_TOKEN_TYPE, "amqp://localhost/", "SharedAccessSignature valid");
+            }
+
+            assertEquals(1, emulator.getPutTokens().size());
+        }
+    }
+
+    @Test
+    public void stoppedConnectionOnlyChecksTheTransfer() throws Exception {
+        try (Connection connection = factory.createConnection();
+                CbsTokenRenewer.CbsLink link = new CbsTokenRenewer.SessionCbsLink(connection)) {
+            // The reply cannot be received before the connection starts, the refusal goes unnoticed.
+            link.putToken("unknown", "amqp://localhost/", "token");
+            assertEquals(0, emulator.getPutTokens().size());
+        }
+    }
+
+    @Test
+    public void contextLinkChecksTheReplyOnceTheConnectionStarted() throws Exception {
+        AtomicBoolean started = new AtomicBoolean();
+        try (JMSContext context = factory.createContext();
+                CbsTokenRenewer.CbsLink link = new CbsTokenRenewer.ContextCbsLink(context, started::get)) {
+            context.start();
+            started.set(true);
+            assertThrows(JMSSecurityException.class, () -> link.putToken("unknown", "amqp://localhost/", "token"));
+            link.putToken(SAS_TOKEN_TYPE, "amqp://localhost/", "SharedAccessSignature valid");
+            assertEquals(1, emulator.getPutTokens().size());
+        }
+    }
+}
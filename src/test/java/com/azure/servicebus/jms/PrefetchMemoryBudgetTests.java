@@ -0,0 +1,144 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.qpid.jms.JmsConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.emulator.ServiceBusEmulator;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Connection;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+public class PrefetchMemoryBudgetTests {
+    private static final int BODY_SIZE = 100 * 1024;
+
+    private ServiceBusEmulator emulator;
+    private Connection connection;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+        emulator.createQueue("budget");
+        connection = new JmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost()).createConnection();
+        connection.start();
+    }
+
+    @AfterEach
+    public void closeEmulator() throws Exception {
+        connection.close();
+        emulator.close();
+    }
+
+    @Test
+    public void receivedMessageIsChargedWithItsEncodedSize() throws Exception {
+        Message message = receive(BODY_SIZE);
+        long size = PrefetchMemoryBudget.encodedSize(message);
+        // The body plus the header, properties and application properties sections.
+        assertTrue(size > BODY_SIZE && size < BODY_SIZE + 1024, "Encoded size " + size);
+
+        PrefetchMemoryBudget budget = new PrefetchMemoryBudget(0, 10 * size, new ServiceBusJmsMetrics());
+        try (PrefetchMemoryBudget.Reservation reservation = budget.reserve()) {
+            assertEquals(PrefetchMemoryBudget.ASSUMED_MESSAGE_SIZE, reservation.getSizeEstimate());
+            reservation.onMessage(message);
+            assertEquals(size, reservation.getSizeEstimate());
+            assertEquals(10, reservation.getPrefetchLimit());
+        }
+    }
+
+    @Test
+    public void consumerLimitFollowsTheLargestRecentMessages() throws Exception {
+        Message large = receive(BODY_SIZE);
+        Message small = receive(1024);
+        long largeSize = PrefetchMemoryBudget.encodedSize(large);
+        long smallSize = PrefetchMemoryBudget.encodedSize(small);
+
+        PrefetchMemoryBudget budget = new PrefetchMemoryBudget(0, 4 * largeSize, new ServiceBusJmsMetrics());
+        try (PrefetchMemoryBudget.Reservation reservation = budget.reserve()) {
+            // Until a message arrived, the maximum message size is assumed, the first one replaces it.
+            assertEquals(0, reservation.getPrefetchLimit());
+            reservation.onMessage(small);
+            assertEquals(smallSize, reservation.getSizeEstimate());
+            reservation.onMessage(small);
+            assertEquals(smallSize, reservation.getSizeEstimate());
+
+            // A large message raises the estimate at once, smaller ones only take it down slowly.
+            reservation.onMessage(large);
+            assertEquals(4, reservation.getPrefetchLimit());
+            reservation.onMessage(small);
+            assertEquals(largeSize - (long) ((largeSize - smallSize) * 0.05), reservation.getSizeEstimate());
+            assertEquals(4, reservation.getPrefetchLimit());
+        }
+    }
+
+    @Test
+    public void consumersShareTheConnectionLimit() throws Exception {
+        Message message = receive(BODY_SIZE);
+        long size = PrefetchMemoryBudget.encodedSize(message);
+
+        PrefetchMemoryBudget budget = new PrefetchMemoryBudget(10 * size, 0, new ServiceBusJmsMetrics());
+        try (PrefetchMemoryBudget.Reservation first = budget.reserve();
+                PrefetchMemoryBudget.Reservation second = budget.reserve()) {
+            first.onMessage(message);
+            second.onMessage(message);
+            assertEquals(10, first.getPrefetchLimit());
+
+            first.onPrefetch(7);
+            assertEquals(7 * size, budget.getReservedBytes());
+            // The first consumer still counts its own prefetch as available to it.
+            assertEquals(10, first.getPrefetchLimit());
+            assertEquals(3, second.getPrefetchLimit());
+
+            second.onPrefetch(3);
+            assertEquals(3, second.getPrefetchLimit());
+            assertEquals(7, first.getPrefetchLimit());
+
+            // Once the budget is taken, a new consumer gets no credit.
+            try (PrefetchMemoryBudget.Reservation third = budget.reserve()) {
+                third.onMessage(message);
+                assertEquals(0, third.getPrefetchLimit());
+            }
+
+            first.close();
+            assertEquals(3 * size, budget.getReservedBytes());
+            assertEquals(10, second.getPrefetchLimit());
+        }
+
+        assertEquals(0, budget.getReservedBytes());
+    }
+
+    // Send a message with a body of the given size through the emulator and receive it again.
+    private Message receive(int bodySize) throws Exception {
+        try (Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE)) {
+            Queue queue = session.createQueue("budget");
+            try (MessageProducer producer = session.createProducer(queue);
+                    MessageConsumer consumer = session.createConsumer(queue)) {
+                byte[] body = new byte[bodySize];
+                Arrays.fill(body, (byte) 'x');
+                BytesMessage message = session.createBytesMessage();
+                message.writeBytes(body);
+                message.setStringProperty("kind", "budget");
+                producer.send(message);
+
+                Message received = consumer.receive(10000);
+                assertNotNull(received);
+                return received;
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.emulator.ServiceBusEmulator;
+
+import jakarta.jms.Message;
+import jakarta.jms.QueueConnection;
+import jakarta.jms.QueueSession;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+import jakarta.jms.TopicConnection;
+import jakarta.jms.TopicSession;
+import jakarta.jms.TopicSubscriber;
+
+public class QueueAndTopicConnectionFactoryTests {
+    private static final long RECEIVE_TIMEOUT_MS = 5000;
+
+    private ServiceBusEmulator emulator;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    public void queueConnectionsAreShardedAndRenewTheirTokens() throws Exception {
+        ServiceBusJmsQueueConnectionFactory factory = new ServiceBusJmsQueueConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost(), createSettings());
+        try (QueueConnection connection = factory.createQueueConnection()) {
+            connection.start();
+            QueueSession sender = connection.createQueueSession(false, Session.AUTO_ACKNOWLEDGE);
+            QueueSession receiver = connection.createQueueSession(false, Session.AUTO_ACKNOWLEDGE);
+
+            // The connection handed out is the one spreading the sessions, not a wrapper around it.
+            assertEquals(2, ((ServiceBusJmsConnection) connection).getShardCount());
+            assertEquals(2, emulator.getConnectionProperties().size());
+            assertTrue(emulator.awaitPutTokens(2, Duration.ofMillis(RECEIVE_TIMEOUT_MS)));
+            assertTrue(factory.getMetrics().getScheduledTokenRenewals() >= 2);
+
+            sender.createSender(sender.createQueue("orders")).send(sender.createTextMessage("hello"));
+            Message message = receiver.createReceiver(receiver.createQueue("orders")).receive(RECEIVE_TIMEOUT_MS);
+            assertEquals("hello", ((TextMessage) message).getText());
+        }
+    }
+
+    @Test
+    public void topicConnectionsAreShardedAndRenewTheirTokens() throws Exception {
+        ServiceBusJmsTopicConnectionFactory factory = new ServiceBusJmsTopicConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost(), createSettings());
+        try (TopicConnection connection = factory.createTopicConnection()) {
+            connection.start();
+            TopicSession publisher = connection.createTopicSession(false, Session.AUTO_ACKNOWLEDGE);
+            TopicSession subscriber = connection.createTopicSession(false, Session.AUTO_ACKNOWLEDGE);
+
+            assertEquals(2, ((ServiceBusJmsConnection) connection).getShardCount());
+            assertEquals(2, emulator.getConnectionProperties().size());
+            assertTrue(emulator.awaitPutTokens(2, Duration.ofMillis(RECEIVE_TIMEOUT_MS)));
+            assertTrue(factory.getMetrics().getScheduledTokenRenewals() >= 2);
+
+            TopicSubscriber consumer = subscriber.createSubscriber(subscriber.createTopic("news"));
+            publisher.createPublisher(publisher.createTopic("news")).publish(publisher.createTextMessage("hello"));
+            Message message = consumer.receive(RECEIVE_TIMEOUT_MS);
+            assertEquals("hello", ((TextMessage) message).getText());
+        }
+    }
+
+    private static ServiceBusJmsConnectionFactorySettings createSettings() {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setConnectionShardCount(2);
+        settings.setSasTokenAuthenticationEnabled(true);
+        settings.setSasTokenTimeToLiveMS(1000);
+        return settings;
+    }
+}
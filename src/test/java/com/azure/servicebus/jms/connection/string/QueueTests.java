@@ -1,9 +1,28 @@
 // Copyright (c) Microsoft. All rights reserved.
 package com.azure.servicebus.jms.connection.string;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.jms.Connection;
+import jakarta.jms.Message;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
 import jakarta.jms.TextMessage;
 import org.junit.jupiter.api.Test;
 
+import com.azure.servicebus.jms.ServiceBusJmsAsyncProducer;
+import com.azure.servicebus.jms.ServiceBusJmsContext;
+import com.azure.servicebus.jms.ServiceBusJmsMessageBatch;
+import com.azure.servicebus.jms.ServiceBusJmsMessageConsumer;
+import com.azure.servicebus.jms.ServiceBusJmsSession;
 import com.azure.servicebus.jms.aad.TestInitialization;
 
 public class QueueTests {	
@@ -90,4 +109,99 @@ public class QueueTests {
 		    System.out.println("=========================================================");
 	    }	    
 	}	
+
+	@Test
+	public void sendMessageBatchToQueue()throws Exception {
+		System.out.println("\nTest send a message batch to a queue using connection string");
+		System.out.println("---------------------------------------------------------");
+		this.initialization = new TestInitialization("sendBatchCs");
+		this.initialization.initializeWithSas("Queue");
+		this.initialization.entity = initialization.jmsContext.createQueue(initialization.entityName);
+		ServiceBusJmsContext context = (ServiceBusJmsContext) initialization.jmsContext;
+
+	    try {
+	    	ServiceBusJmsMessageBatch batch = context.createMessageBatch(initialization.entity);
+	    	for (int i = 0; i < 10; i++) {
+	    		assertTrue(batch.tryAdd(context.createTextMessage("Message " + i)));
+	    	}
+
+	    	assertEquals(10, batch.getCount());
+	    	context.send(batch);
+	    	assertEquals(0, batch.getCount());
+
+	    	this.initialization.consumer = initialization.jmsContext.createConsumer(initialization.entity);
+	    	this.initialization.received(10);
+	    }finally {
+	    	this.initialization.jmsContext.close();
+	    	System.out.println("---------------------------------------------------------");
+		    System.out.println("End Test");
+		    System.out.println("=========================================================");
+	    }
+	}
+
+	@Test
+	public void sendAsyncToQueue()throws Exception {
+		System.out.println("\nTest pipelined async sends to a queue using connection string");
+		System.out.println("---------------------------------------------------------");
+		this.initialization = new TestInitialization("sendAsyncCs");
+		this.initialization.initializeWithSas("Queue");
+
+		try (Connection connection = initialization.factory.createConnection()) {
+			ServiceBusJmsSession session = (ServiceBusJmsSession) connection.createSession();
+			Queue queue = session.createQueue(initialization.entityName);
+			List<CompletableFuture<Void>> sends = new ArrayList<>();
+			try (ServiceBusJmsAsyncProducer producer = session.createAsyncProducer(queue)) {
+				for (int i = 0; i < 10; i++) {
+					sends.add(producer.sendAsync(session.createTextMessage("Message " + i)));
+				}
+
+				CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+				assertEquals(0, producer.getInFlightCount());
+			}
+
+			assertEquals(0, initialization.factory.getMetrics().getInFlightSends());
+			assertEquals(10, initialization.factory.getMetrics().getAsyncSendsCompleted());
+		}finally {
+			this.initialization.jmsContext.close();
+			System.out.println("---------------------------------------------------------");
+		    System.out.println("End Test");
+		    System.out.println("=========================================================");
+		}
+	}
+
+	@Test
+	public void receiveBatchFromQueue()throws Exception {
+		System.out.println("\nTest batch receive from a queue using connection string");
+		System.out.println("---------------------------------------------------------");
+		this.initialization = new TestInitialization("receiveBatchCs");
+		this.initialization.initializeWithSas("Queue");
+
+		try (Connection connection = initialization.factory.createConnection()) {
+			connection.start();
+			ServiceBusJmsSession session = (ServiceBusJmsSession) connection.createSession(Session.CLIENT_ACKNOWLEDGE);
+			Queue queue = session.createQueue(initialization.entityName);
+			ServiceBusJmsMessageBatch batch = session.createMessageBatch(queue);
+			for (int i = 0; i < 10; i++) {
+				assertTrue(batch.tryAdd(session.createTextMessage("Message " + i)));
+			}
+
+			session.send(batch);
+
+			ServiceBusJmsMessageConsumer consumer = session.createBatchConsumer(queue, 10);
+			List<Message> received = new ArrayList<>();
+			while (received.size() < 10) {
+				List<Message> messages = consumer.receiveBatch(10 - received.size(), Duration.ofSeconds(10));
+				assertFalse(messages.isEmpty());
+				received.addAll(messages);
+			}
+
+			consumer.acknowledge(received);
+			assertTrue(consumer.receiveBatch(10, Duration.ofSeconds(1)).isEmpty());
+		}finally {
+			this.initialization.jmsContext.close();
+			System.out.println("---------------------------------------------------------");
+		    System.out.println("End Test");
+		    System.out.println("=========================================================");
+		}
+	}
 }
@@ -0,0 +1,79 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.connection.string;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.qpid.jms.JmsConnectionFactory;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+
+public class SasTokenAuthenticationTest {
+    private static final String HOST = "foo.servicebus.windows.net";
+
+    @Test
+    public void testPreGeneratedSasToken() {
+        long expiry = System.currentTimeMillis() / 1000 + 3600;
+        String connectionString = "Endpoint=sb://" + HOST + "/;SharedAccessSignatureToken=SharedAccessSignature sr=amqp%3A%2F%2F" + HOST
+                + "%2F&sig=c2lnbmF0dXJl&se=" + expiry + "&skn=RootManageSharedAccessKey";
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(connectionString, null);
+
+        assertEquals("failover:(amqps://" + HOST + ")?jms.prefetchPolicy.all=0", factory.getRemoteConnectionUri());
+    }
+
+    @Test
+    public void testPreGeneratedSasTokenWithoutExpiry() {
+        String connectionString = "Endpoint=sb://" + HOST + "/;SharedAccessSignatureToken=SharedAccessSignature sr=amqp%3A%2F%2F" + HOST
+                + "%2F&sig=c2lnbmF0dXJl&skn=RootManageSharedAccessKey";
+
+        assertThrows(IllegalArgumentException.class, () -> new ServiceBusJmsConnectionFactory(connectionString, null));
+    }
+
+    @Test
+    public void testSasTokenSignedFromKey() {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setSasTokenAuthenticationEnabled(true);
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory("user", "pass", HOST, settings);
+
+        assertEquals("failover:(amqps://" + HOST + ")?jms.prefetchPolicy.all=0", factory.getRemoteConnectionUri());
+    }
+
+    @Test
+    public void testOperationTimeout() {
+        String connectionString = "Endpoint=sb://" + HOST + "/;SharedAccessKeyName=user;SharedAccessKey=pass";
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(connectionString, null);
+        JmsConnectionFactory qpidDefaults = new JmsConnectionFactory();
+        assertEquals(qpidDefaults.getRequestTimeout(), factory.getRequestTimeout());
+        assertEquals(qpidDefaults.getSendTimeout(), factory.getSendTimeout());
+
+        factory = new ServiceBusJmsConnectionFactory(connectionString + ";OperationTimeout=PT10S", null);
+        assertEquals(10000, factory.getRequestTimeout());
+        assertEquals(10000, factory.getSendTimeout());
+    }
+
+    @Test
+    public void testConfiguredTimeoutsOverrideOperationTimeout() {
+        Map<String, String> configurationOptions = new HashMap<>();
+        configurationOptions.put("jms.requestTimeout", "5000");
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings(configurationOptions);
+        String connectionString = "Endpoint=sb://" + HOST + "/;SharedAccessKeyName=user;SharedAccessKey=pass;OperationTimeout=PT10S";
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(connectionString, settings);
+
+        assertEquals(5000, factory.getRequestTimeout());
+        assertEquals(10000, factory.getSendTimeout());
+    }
+
+    @Test
+    public void testSasTokenTimeToLiveValidation() {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+
+        assertThrows(IllegalArgumentException.class, () -> settings.setSasTokenTimeToLiveMS(999));
+    }
+}
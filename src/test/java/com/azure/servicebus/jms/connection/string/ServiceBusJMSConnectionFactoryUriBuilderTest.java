@@ -2,9 +2,11 @@ package com.azure.servicebus.jms.connection.string;
 
 import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
 import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+import com.azure.servicebus.jms.TransportType;
 import java.util.HashMap;
 import java.util.Map;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.apache.qpid.jms.policy.JmsDefaultPrefetchPolicy;
 import org.junit.jupiter.api.Test;
 
@@ -55,6 +57,74 @@ public class ServiceBusJMSConnectionFactoryUriBuilderTest {
 		assertEquals(expectedUri, actualUri);
 	}
 
+	@Test
+	public void testPlainAmqpHost() {
+		ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+		settings.setShouldReconnect(false);
+		ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory("user", "pass", "amqp://localhost:5672", settings);
+
+		String expectedUri = "amqp://localhost:5672?jms.prefetchPolicy.all=0";
+		assertEquals(expectedUri, factory.getRemoteConnectionUri());
+
+		factory = new ServiceBusJmsConnectionFactory("Endpoint=amqp://localhost:5672/;SharedAccessKeyName=user;SharedAccessKey=pass", null);
+		assertEquals("failover:(amqp://localhost:5672)?jms.prefetchPolicy.all=0", factory.getRemoteConnectionUri());
+
+		factory = new ServiceBusJmsConnectionFactory("user", "pass", "amqp://127.0.0.1:5672", settings);
+		assertEquals("amqp://127.0.0.1:5672?jms.prefetchPolicy.all=0", factory.getRemoteConnectionUri());
+	}
+
+	@Test
+	public void testPlainAmqpRemoteHostIsRejected() {
+		ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+		settings.setShouldReconnect(false);
+		assertThrows(IllegalArgumentException.class,
+				() -> new ServiceBusJmsConnectionFactory("user", "pass", "amqp://foo.servicebus.windows.net:5672", settings));
+		assertThrows(IllegalArgumentException.class,
+				() -> new ServiceBusJmsConnectionFactory("Endpoint=amqp://10.0.0.4:5672/;SharedAccessKeyName=user;SharedAccessKey=pass", null));
+
+		settings.setReconnectHosts(new String[] { "amqp://bar.servicebus.windows.net:5672" });
+		settings.setShouldReconnect(true);
+		assertThrows(IllegalArgumentException.class,
+				() -> new ServiceBusJmsConnectionFactory("user", "pass", "amqp://localhost:5672", settings));
+
+		settings.setAllowInsecureTransport(true);
+		ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory("user", "pass", "amqp://localhost:5672", settings);
+		assertEquals("failover:(amqp://localhost:5672,amqp://bar.servicebus.windows.net:5672)?jms.prefetchPolicy.all=0", factory.getRemoteConnectionUri());
+	}
+
+	@Test
+	public void testWebSocketsTransport() {
+		String connectionString = "Endpoint=sb://foo.servicebus.windows.net/;SharedAccessKeyName=user;SharedAccessKey=pass;TransportType=AmqpWebSockets";
+		ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(connectionString, null);
+		assertEquals("failover:(amqpwss://foo.servicebus.windows.net:443/$servicebus/websocket)?jms.prefetchPolicy.all=0", factory.getRemoteConnectionUri());
+
+		ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+		settings.setTransportType(TransportType.AMQP_WEB_SOCKETS);
+		settings.setWebSocketCompressionEnabled(true);
+		settings.setConnectionIdleTimeoutMS(20000);
+		settings.setReconnectHosts(new String[] { "bar.servicebus.windows.net" });
+		factory = new ServiceBusJmsConnectionFactory("user", "pass", "foo.servicebus.windows.net", settings);
+		String expectedUri = "failover:(amqpwssdeflate://foo.servicebus.windows.net:443/$servicebus/websocket?amqp.idleTimeout=20000,"
+				+ "amqpwssdeflate://bar.servicebus.windows.net:443/$servicebus/websocket?amqp.idleTimeout=20000)?jms.prefetchPolicy.all=0";
+		assertEquals(expectedUri, factory.getRemoteConnectionUri());
+	}
+
+	@Test
+	public void testTransportOptions() {
+		ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+		settings.setEpollEnabled(false);
+		settings.setOpenSslEnabled(true);
+		settings.setTcpNoDelay(true);
+		settings.setSocketSendBufferSize(262144);
+		settings.setSocketReceiveBufferSize(262144);
+		ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory("user", "pass", "foo.servicebus.windows.net", settings);
+
+		// tcpNoDelay is on by default in qpid, so it does not show up in the URI.
+		String expectedUri = "failover:(amqps://foo.servicebus.windows.net?transport.useEpoll=false&transport.useOpenSSL=true"
+				+ "&transport.sendBufferSize=262144&transport.receiveBufferSize=262144)?jms.prefetchPolicy.all=0";
+		assertEquals(expectedUri, factory.getRemoteConnectionUri());
+	}
+
 	@Test
 	public void testSingleHostNoOptionsWithoutDefaultReconnectWithJMSPrefetch() {
 		Map<String, String> configurationOptions = new HashMap<>();
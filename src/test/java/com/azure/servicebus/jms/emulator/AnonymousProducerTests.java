@@ -0,0 +1,201 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+
+import jakarta.jms.CompletionListener;
+import jakarta.jms.Connection;
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+public class AnonymousProducerTests {
+    private ServiceBusEmulator emulator;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    public void linksAreAttachedOncePerDestination() throws JMSException {
+        try (Connection connection = createFactory(new ServiceBusJmsConnectionFactorySettings()).createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = session.createProducer(null);
+            MessageProducer other = session.createProducer(null);
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 10; i++) {
+                    producer.send(session.createQueue("fanout-" + i), session.createTextMessage("round " + round));
+                    other.send(session.createQueue("fanout-" + i), session.createTextMessage("other " + round));
+                }
+            }
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals(6, emulator.getMessageCount("fanout-" + i));
+                assertEquals(1, emulator.getProducerCount("fanout-" + i));
+            }
+
+            producer.close();
+            assertEquals(1, emulator.getProducerCount("fanout-0"));
+            session.close();
+            assertEquals(0, emulator.getProducerCount("fanout-0"));
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedAndIdleLinksAreClosed() throws Exception {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setAnonymousProducerLinkCacheSize(2);
+        settings.setAnonymousProducerLinkIdleTimeoutMS(200);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = session.createProducer(null);
+            producer.send(session.createQueue("first"), session.createTextMessage("1"));
+            producer.send(session.createQueue("second"), session.createTextMessage("2"));
+            producer.send(session.createQueue("first"), session.createTextMessage("3"));
+            producer.send(session.createQueue("third"), session.createTextMessage("4"));
+            assertEquals(1, emulator.getProducerCount("first"));
+            assertEquals(0, emulator.getProducerCount("second"));
+            assertEquals(1, emulator.getProducerCount("third"));
+
+            Thread.sleep(300);
+            producer.send(session.createQueue("second"), session.createTextMessage("5"));
+            assertEquals(0, emulator.getProducerCount("first"));
+            assertEquals(1, emulator.getProducerCount("second"));
+            assertEquals(0, emulator.getProducerCount("third"));
+            assertEquals(2, emulator.getMessageCount("first"));
+            assertEquals(2, emulator.getMessageCount("second"));
+        }
+    }
+
+    @Test
+    public void evictedLinksStayAttachedUntilTheirAsyncSendsComplete() throws Exception {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setAnonymousProducerLinkCacheSize(1);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = session.createProducer(null);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Message> first = new CompletableFuture<>();
+            producer.send(session.createQueue("first"), session.createTextMessage("1"), new Completion(first, release));
+
+            // The send to first is still in flight, its link stays attached while the one to second replaces it.
+            producer.send(session.createQueue("second"), session.createTextMessage("2"));
+            assertEquals(1, emulator.getProducerCount("first"));
+            assertEquals(1, emulator.getProducerCount("second"));
+
+            // Completions run in order, so once the one of second ran, first completed as well.
+            release.countDown();
+            CompletableFuture<Message> second = new CompletableFuture<>();
+            producer.send(session.createQueue("second"), session.createTextMessage("3"), new Completion(second, null));
+            second.get(5, TimeUnit.SECONDS);
+            assertNotNull(first.get(5, TimeUnit.SECONDS));
+
+            producer.send(session.createQueue("second"), session.createTextMessage("4"));
+            assertEquals(0, emulator.getProducerCount("first"));
+            assertEquals(1, emulator.getMessageCount("first"));
+            assertEquals(3, emulator.getMessageCount("second"));
+        }
+    }
+
+    @Test
+    public void settingsOfEachProducerAreApplied() throws JMSException {
+        try (Connection connection = createFactory(new ServiceBusJmsConnectionFactorySettings()).createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("settings");
+            MessageProducer plain = session.createProducer(null);
+            MessageProducer tuned = session.createProducer(null);
+            tuned.setPriority(7);
+            tuned.setTimeToLive(60000);
+            tuned.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+            tuned.setDisableMessageTimestamp(true);
+            assertNull(tuned.getDestination());
+            assertThrows(UnsupportedOperationException.class, () -> tuned.send(session.createTextMessage("no destination")));
+
+            tuned.send(queue, session.createTextMessage("tuned"));
+            plain.send(queue, session.createTextMessage("plain"));
+
+            connection.start();
+            MessageConsumer consumer = session.createConsumer(queue);
+            Message first = consumer.receive(5000);
+            assertNotNull(first);
+            assertEquals(7, first.getJMSPriority());
+            assertEquals(0, first.getJMSTimestamp());
+            Message second = consumer.receive(5000);
+            assertNotNull(second);
+            assertEquals(Message.DEFAULT_PRIORITY, second.getJMSPriority());
+            assertEquals(0, second.getJMSExpiration());
+        }
+    }
+
+    @Test
+    public void linkCacheCanBeDisabled() throws JMSException {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setAnonymousProducerLinkCacheSize(0);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = session.createProducer(null);
+            producer.send(session.createQueue("uncached"), session.createTextMessage("1"));
+            assertEquals(1, emulator.getMessageCount("uncached"));
+        }
+    }
+
+    // Completes the future with the sent message, after waiting for the latch if there is one.
+    private static final class Completion implements CompletionListener {
+        private final CompletableFuture<Message> future;
+        private final CountDownLatch latch;
+
+        Completion(CompletableFuture<Message> future, CountDownLatch latch) {
+            this.future = future;
+            this.latch = latch;
+        }
+
+        @Override
+        public void onCompletion(Message message) {
+            try {
+                if (this.latch != null) {
+                    this.latch.await();
+                }
+
+                this.future.complete(message);
+            } catch (InterruptedException e) {
+                this.future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onException(Message message, Exception exception) {
+            this.future.completeExceptionally(exception);
+        }
+    }
+
+    private ServiceBusJmsConnectionFactory createFactory(ServiceBusJmsConnectionFactorySettings settings) {
+        return new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost(), settings);
+    }
+}
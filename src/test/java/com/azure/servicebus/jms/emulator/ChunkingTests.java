@@ -0,0 +1,249 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.jms.JmsConnectionFactory;
+import org.apache.qpid.jms.message.JmsBytesMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+
+public class ChunkingTests {
+    private static final long RECEIVE_TIMEOUT_MS = 5000;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private ServiceBusEmulator emulator;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    public void largeBodiesAreSplitAndReassembled() throws JMSException {
+        String body = createBody(1024 * 1024);
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setMessageChunkSizeBytes(CHUNK_SIZE);
+        settings.setChunkReassemblyEnabled(true);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            connection.start();
+            Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+            Queue queue = session.createQueue("transfers");
+            TextMessage sent = session.createTextMessage(body);
+            sent.setStringProperty("file", "orders.json");
+            session.createProducer(queue).send(sent);
+            assertEquals((body.length() + CHUNK_SIZE - 1) / CHUNK_SIZE, emulator.getMessageCount("transfers"));
+
+            Message received = session.createConsumer(queue).receive(RECEIVE_TIMEOUT_MS);
+            assertEquals(body, ((TextMessage) received).getText());
+            assertEquals("orders.json", received.getStringProperty("file"));
+            assertEquals(sent.getJMSMessageID(), received.getJMSMessageID());
+            received.acknowledge();
+        }
+    }
+
+    @Test
+    public void chunksSpillToDisk() throws Exception {
+        byte[] body = createBody(512 * 1024).getBytes(StandardCharsets.UTF_8);
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setMessageChunkSizeBytes(CHUNK_SIZE);
+        settings.setChunkBufferBytes(CHUNK_SIZE * 2);
+        settings.setChunkReassemblyEnabled(true);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("transfers");
+            BytesMessage sent = session.createBytesMessage();
+            sent.writeBytes(body);
+            session.createProducer(queue).send(sent);
+
+            CompletableFuture<byte[]> received = new CompletableFuture<>();
+            session.createConsumer(queue).setMessageListener(message -> {
+                try {
+                    received.complete(message.getBody(byte[].class));
+                } catch (JMSException e) {
+                    received.completeExceptionally(e);
+                }
+            });
+            connection.start();
+            assertArrayEquals(body, received.get(RECEIVE_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void incompleteMessagesExpire() throws Exception {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setChunkGroupTimeoutMS(100);
+        settings.setChunkReassemblyEnabled(true);
+        emulator.createQueue("transfers");
+        try (Connection plainConnection = new JmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost()).createConnection();
+                Connection connection = createFactory(settings).createConnection()) {
+            Session plainSession = plainConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = plainSession.createProducer(plainSession.createQueue("transfers"));
+            producer.send(createChunk(plainSession, "group", 0));
+
+            connection.start();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageConsumer consumer = session.createConsumer(session.createQueue("transfers"));
+            assertNull(consumer.receive(200));
+
+            // The first chunk expired, so the second one starts over and its message never completes.
+            producer.send(createChunk(plainSession, "group", 1));
+            producer.send(plainSession.createTextMessage("plain"));
+            Message received = consumer.receive(RECEIVE_TIMEOUT_MS);
+            assertTrue(received instanceof TextMessage);
+            assertEquals("plain", ((TextMessage) received).getText());
+
+            // The expired chunk is dead-lettered instead of being delivered again and again.
+            assertEquals(1, emulator.getMessageCount("transfers/$DeadLetterQueue"));
+        }
+    }
+
+    @Test
+    public void chunksOfAMessageShareItsGroup() throws JMSException {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setMessageChunkSizeBytes(CHUNK_SIZE);
+        emulator.createQueue("transfers");
+        try (Connection plainConnection = createPlainConnection();
+                Connection connection = createFactory(settings).createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            session.createProducer(session.createQueue("transfers")).send(session.createTextMessage(createBody(3 * CHUNK_SIZE)));
+
+            // JMSXGroupID maps to the Service Bus session id, which hands every chunk to the same consumer.
+            plainConnection.start();
+            Session plainSession = plainConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageConsumer consumer = plainSession.createConsumer(plainSession.createQueue("transfers"));
+            String group = null;
+            for (Message chunk = consumer.receive(RECEIVE_TIMEOUT_MS); chunk != null; chunk = consumer.receive(200)) {
+                assertEquals(chunk.getStringProperty("ServiceBusJmsChunkGroup"), chunk.getStringProperty("JMSXGroupID"));
+                if (group != null) {
+                    assertEquals(group, chunk.getStringProperty("JMSXGroupID"));
+                }
+
+                group = chunk.getStringProperty("JMSXGroupID");
+            }
+
+            assertNotNull(group);
+        }
+    }
+
+    @Test
+    public void chunksAreNotAcknowledgedBeforeTheirMessageCompletes() throws JMSException {
+        emulator.createQueue("transfers");
+        try (Connection plainConnection = createPlainConnection()) {
+            Session plainSession = plainConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = plainSession.createProducer(plainSession.createQueue("transfers"));
+            producer.send(createChunk(plainSession, "group", 0));
+            producer.send(plainSession.createTextMessage("plain"));
+        }
+
+        // A consumer that stops halfway through a message leaves its chunks on the queue.
+        try (Connection connection = createFactory(createReassemblingSettings()).createConnection()) {
+            connection.start();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Message received = session.createConsumer(session.createQueue("transfers")).receive(RECEIVE_TIMEOUT_MS);
+            assertEquals("plain", ((TextMessage) received).getText());
+        }
+
+        assertEquals(1, emulator.getMessageCount("transfers"));
+        try (Connection plainConnection = createPlainConnection()) {
+            Session plainSession = plainConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            plainSession.createProducer(plainSession.createQueue("transfers")).send(plainSession.createTextMessage("plain"));
+        }
+
+        // Acknowledging a later message does not acknowledge them either.
+        try (Connection connection = createFactory(createReassemblingSettings()).createConnection()) {
+            connection.start();
+            Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+            Message received = session.createConsumer(session.createQueue("transfers")).receive(RECEIVE_TIMEOUT_MS);
+            assertEquals("plain", ((TextMessage) received).getText());
+            received.acknowledge();
+        }
+
+        assertEquals(1, emulator.getMessageCount("transfers"));
+    }
+
+    @Test
+    public void sessionsAcknowledgeOnTheirOwnWithoutReassembly() throws JMSException {
+        emulator.createQueue("transfers");
+        try (Connection plainConnection = createPlainConnection()) {
+            Session plainSession = plainConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            plainSession.createProducer(plainSession.createQueue("transfers")).send(createChunk(plainSession, "group", 0));
+        }
+
+        try (Connection connection = createFactory(new ServiceBusJmsConnectionFactorySettings()).createConnection()) {
+            connection.start();
+            Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+            Message received = session.createConsumer(session.createQueue("transfers")).receive(RECEIVE_TIMEOUT_MS);
+            // The chunk is handed out as it arrived, as the message qpid received rather than a view of it.
+            assertEquals("group", received.getStringProperty("ServiceBusJmsChunkGroup"));
+            assertFalse(Proxy.isProxyClass(received.getClass()));
+            assertTrue(received instanceof JmsBytesMessage);
+            received.acknowledge();
+        }
+
+        assertEquals(0, emulator.getMessageCount("transfers"));
+    }
+
+    private static ServiceBusJmsConnectionFactorySettings createReassemblingSettings() {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setChunkReassemblyEnabled(true);
+        return settings;
+    }
+
+    private static BytesMessage createChunk(Session session, String group, int index) throws JMSException {
+        BytesMessage chunk = session.createBytesMessage();
+        chunk.setStringProperty("ServiceBusJmsChunkGroup", group);
+        chunk.setIntProperty("ServiceBusJmsChunkIndex", index);
+        chunk.setIntProperty("ServiceBusJmsChunkCount", 2);
+        chunk.writeBytes(new byte[] { (byte) index });
+        return chunk;
+    }
+
+    private Connection createPlainConnection() throws JMSException {
+        return new JmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost()).createConnection();
+    }
+
+    private ServiceBusJmsConnectionFactory createFactory(ServiceBusJmsConnectionFactorySettings settings) {
+        return new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost(), settings);
+    }
+
+    private static String createBody(int size) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; body.length() < size; i++) {
+            body.append("{\"orderId\":").append(i).append(",\"status\":\"shipped\",\"items\":[\"book\",\"pen\"]},");
+        }
+
+        return body.toString();
+    }
+}
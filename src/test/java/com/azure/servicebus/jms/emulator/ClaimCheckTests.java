@@ -0,0 +1,189 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.qpid.jms.JmsConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.azure.servicebus.jms.ServiceBusJmsBlobPayloadStore;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+import com.azure.servicebus.jms.ServiceBusJmsFileSystemPayloadStore;
+import com.azure.servicebus.jms.ServiceBusJmsPayloadStore;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+
+public class ClaimCheckTests {
+    private static final long RECEIVE_TIMEOUT_MS = 5000;
+    private static final String REFERENCE_PROPERTY = "ServiceBusJmsPayloadReference";
+    private ServiceBusEmulator emulator;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    public void largeTextIsResolvedFromTheFileSystem() throws Exception {
+        String body = createBody(512 * 1024);
+        ServiceBusJmsConnectionFactory factory = createFactory(new ServiceBusJmsFileSystemPayloadStore(directory));
+        try (Connection connection = factory.createConnection()) {
+            connection.start();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            TextMessage sent = session.createTextMessage(body);
+            sent.setStringProperty("region", "west");
+            session.createProducer(session.createQueue("orders")).send(sent);
+
+            Message received = session.createConsumer(session.createQueue("orders")).receive(RECEIVE_TIMEOUT_MS);
+            assertTrue(received instanceof TextMessage);
+            assertEquals(body, ((TextMessage) received).getText());
+            assertEquals("west", received.getStringProperty("region"));
+            assertFalse(received.propertyExists(REFERENCE_PROPERTY));
+        }
+    }
+
+    @Test
+    public void plainJmsConsumersSeeTheReference() throws Exception {
+        ServiceBusJmsConnectionFactory factory = createFactory(new ServiceBusJmsFileSystemPayloadStore(directory));
+        try (Connection producerConnection = factory.createConnection();
+                Connection consumerConnection = new JmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost()).createConnection()) {
+            Session producerSession = producerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            producerSession.createProducer(producerSession.createQueue("orders")).send(producerSession.createTextMessage(createBody(512 * 1024)));
+
+            consumerConnection.start();
+            Session consumerSession = consumerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Message received = consumerSession.createConsumer(consumerSession.createQueue("orders")).receive(RECEIVE_TIMEOUT_MS);
+            assertTrue(received instanceof BytesMessage);
+            assertEquals(0, ((BytesMessage) received).getBodyLength());
+            assertTrue(directory.resolve(received.getStringProperty(REFERENCE_PROPERTY)).toFile().isFile());
+        }
+    }
+
+    @Test
+    public void smallMessagesAreSentAsTheyAre() throws Exception {
+        ServiceBusJmsConnectionFactory factory = createFactory(new ServiceBusJmsFileSystemPayloadStore(directory));
+        try (Connection connection = factory.createConnection()) {
+            connection.start();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            session.createProducer(session.createQueue("orders")).send(session.createTextMessage(createBody(1024)));
+
+            Message received = session.createConsumer(session.createQueue("orders")).receive(RECEIVE_TIMEOUT_MS);
+            assertEquals(createBody(1024), ((TextMessage) received).getText());
+            assertEquals(0, directory.toFile().list().length);
+        }
+    }
+
+    @Test
+    public void largeBytesAreStreamedFromBlobStorage() throws Exception {
+        Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/payloads/", exchange -> serveBlob(exchange, blobs));
+        server.start();
+        try {
+            String containerUrl = "http://localhost:" + server.getAddress().getPort() + "/payloads?sv=2021-08-06&sig=test";
+            byte[] body = createBody(512 * 1024).getBytes(StandardCharsets.UTF_8);
+            try (Connection connection = createFactory(new ServiceBusJmsBlobPayloadStore(containerUrl)).createConnection()) {
+                connection.start();
+                Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+                BytesMessage sent = session.createBytesMessage();
+                sent.writeBytes(body);
+                session.createProducer(session.createQueue("orders")).send(sent);
+                assertEquals(1, blobs.size());
+
+                BytesMessage received = (BytesMessage) session.createConsumer(session.createQueue("orders")).receive(RECEIVE_TIMEOUT_MS);
+                assertEquals(body.length, received.getBodyLength());
+                ByteArrayOutputStream read = new ByteArrayOutputStream();
+                byte[] buffer = new byte[10000];
+                int count;
+                while ((count = received.readBytes(buffer)) != -1) {
+                    read.write(buffer, 0, count);
+                }
+
+                assertArrayEquals(body, read.toByteArray());
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static void serveBlob(HttpExchange exchange, Map<String, byte[]> blobs) throws IOException {
+        String name = exchange.getRequestURI().getPath().substring("/payloads/".length());
+        if (!"sig=test".equals(exchange.getRequestURI().getQuery().replaceAll(".*&", ""))) {
+            exchange.sendResponseHeaders(403, -1);
+        } else if ("PUT".equals(exchange.getRequestMethod()) && "BlockBlob".equals(exchange.getRequestHeaders().getFirst("x-ms-blob-type"))) {
+            try (InputStream input = exchange.getRequestBody()) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int count;
+                while ((count = input.read(buffer)) != -1) {
+                    body.write(buffer, 0, count);
+                }
+
+                blobs.put(name, body.toByteArray());
+            }
+
+            exchange.sendResponseHeaders(201, -1);
+        } else if ("GET".equals(exchange.getRequestMethod()) && blobs.containsKey(name)) {
+            byte[] body = blobs.get(name);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+        }
+
+        exchange.close();
+    }
+
+    private ServiceBusJmsConnectionFactory createFactory(ServiceBusJmsPayloadStore store) {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setPayloadStore(store);
+        return new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost(), settings);
+    }
+
+    private static String createBody(int size) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; body.length() < size; i++) {
+            body.append("{\"orderId\":").append(i).append(",\"status\":\"shipped\",\"items\":[\"book\",\"pen\"]},");
+        }
+
+        return body.toString();
+    }
+}
@@ -0,0 +1,165 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.ServiceBusJmsConcurrentProducer;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+
+import jakarta.jms.Connection;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+public class ConcurrentProducerTests {
+    private static final int THREADS = 16;
+    private static final int MESSAGES_PER_THREAD = 100;
+
+    private ServiceBusEmulator emulator;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    public void threadsShareOneProducerAndKeepTheirOrder() throws Exception {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setConcurrentProducerSessions(3);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("concurrent");
+            try (ServiceBusJmsConcurrentProducer producer = new ServiceBusJmsConcurrentProducer(connection, queue)) {
+                List<Future<List<CompletableFuture<Void>>>> results = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    int thread = t;
+                    results.add(executor.submit(() -> {
+                        List<CompletableFuture<Void>> futures = new ArrayList<>();
+                        for (int i = 0; i < MESSAGES_PER_THREAD; i++) {
+                            Message message = producer.createTextMessage("message " + i);
+                            message.setIntProperty("thread", thread);
+                            message.setIntProperty("sequence", i);
+                            futures.add(producer.sendAsync(message));
+                        }
+
+                        return futures;
+                    }));
+                }
+
+                for (Future<List<CompletableFuture<Void>>> result : results) {
+                    for (CompletableFuture<Void> future : result.get(30, TimeUnit.SECONDS)) {
+                        future.get(30, TimeUnit.SECONDS);
+                    }
+                }
+
+                assertEquals(0, producer.getInFlightCount());
+            }
+
+            assertEquals(THREADS * MESSAGES_PER_THREAD, emulator.getMessageCount("concurrent"));
+            connection.start();
+            MessageConsumer consumer = session.createConsumer(queue);
+            Map<Integer, Integer> lastSequences = new HashMap<>();
+            for (int i = 0; i < THREADS * MESSAGES_PER_THREAD; i++) {
+                Message message = consumer.receive(5000);
+                assertNotNull(message);
+                int sequence = message.getIntProperty("sequence");
+                Integer last = lastSequences.put(message.getIntProperty("thread"), sequence);
+                assertEquals(last == null ? 0 : last + 1, sequence);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void destinationCanBePassedOnEachSend() throws Exception {
+        try (Connection connection = createFactory(new ServiceBusJmsConnectionFactorySettings()).createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            ServiceBusJmsConcurrentProducer producer = new ServiceBusJmsConcurrentProducer(connection, null);
+            for (int i = 0; i < 5; i++) {
+                producer.sendAsync(session.createQueue("target-" + i), producer.createBytesMessage(new byte[] { (byte) i })).get(10, TimeUnit.SECONDS);
+            }
+
+            Message late = producer.createMessage();
+            producer.close();
+            for (int i = 0; i < 5; i++) {
+                assertEquals(1, emulator.getMessageCount("target-" + i));
+            }
+
+            assertThrows(IllegalStateException.class, () -> producer.sendAsync(session.createQueue("target-0"), late));
+            assertEquals(0, producer.getInFlightCount());
+        }
+    }
+
+    @Test
+    public void sendsRacingWithCloseAllComplete() throws Exception {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setConcurrentProducerSessions(2);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            ServiceBusJmsConcurrentProducer producer = new ServiceBusJmsConcurrentProducer(connection, session.createQueue("closing"));
+            CountDownLatch sending = new CountDownLatch(THREADS);
+            List<Future<List<CompletableFuture<Void>>>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    List<CompletableFuture<Void>> futures = new ArrayList<>();
+                    sending.countDown();
+                    try {
+                        while (true) {
+                            futures.add(producer.sendAsync(producer.createTextMessage("message")));
+                        }
+                    } catch (IllegalStateException e) {
+                        return futures;
+                    }
+                }));
+            }
+
+            sending.await();
+            producer.close();
+            for (Future<List<CompletableFuture<Void>>> result : results) {
+                for (CompletableFuture<Void> future : result.get(30, TimeUnit.SECONDS)) {
+                    // Either sent or failed because the producer closed, but never left pending.
+                    future.handle((v, e) -> null).get(30, TimeUnit.SECONDS);
+                }
+            }
+
+            assertEquals(0, producer.getInFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ServiceBusJmsConnectionFactory createFactory(ServiceBusJmsConnectionFactorySettings settings) {
+        return new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost(), settings);
+    }
+}
@@ -0,0 +1,183 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+import com.azure.servicebus.jms.ServiceBusJmsPoolStatistics;
+import com.azure.servicebus.jms.ServiceBusJmsPooledConnectionFactory;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ResourceAllocationException;
+import jakarta.jms.Session;
+
+public class ConnectionPoolTests {
+    private static final long TIMEOUT_MS = 5000;
+
+    private ServiceBusEmulator emulator;
+    private ServiceBusJmsConnectionFactorySettings settings;
+    private ServiceBusJmsPooledConnectionFactory pooledFactory;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+        emulator.createQueue("orders");
+        settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setMaxPooledConnections(1);
+        settings.setMaxSessionsPerPooledConnection(2);
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        if (pooledFactory != null) {
+            pooledFactory.close();
+        }
+
+        emulator.close();
+    }
+
+    @Test
+    public void idleSessionsAndConnectionsAreEvicted() throws Exception {
+        settings.setPooledResourceIdleTimeoutMS(200);
+        settings.setPooledResourceEvictionIntervalMS(50);
+        ServiceBusJmsPoolStatistics statistics = createPooledFactory().getStatistics();
+
+        send("first");
+        assertEquals(1, statistics.getIdleSessions());
+        assertEquals(1, emulator.getConnectionProperties().size());
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while ((statistics.getActiveConnections() > 0 || !emulator.getConnectionProperties().isEmpty()) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(0, statistics.getIdleSessions());
+        assertEquals(1, statistics.getSessionsEvicted());
+        assertEquals(0, statistics.getActiveConnections());
+        assertEquals(0, emulator.getConnectionProperties().size());
+
+        // The next borrower opens a new physical connection.
+        send("second");
+        assertEquals(2, statistics.getConnectionsCreated());
+        assertEquals(2, emulator.getMessageCount("orders"));
+    }
+
+    @Test
+    public void connectionsOlderThanTheirMaxAgeAreReplaced() throws Exception {
+        settings.setPooledConnectionMaxAgeMS(200);
+        settings.setPooledResourceEvictionIntervalMS(0);
+        ServiceBusJmsPoolStatistics statistics = createPooledFactory().getStatistics();
+
+        try (Connection expired = pooledFactory.createConnection()) {
+            Session session = expired.createSession();
+            Thread.sleep(300);
+
+            // The expired connection is not handed out again, but keeps serving its current borrower.
+            send("replacement");
+            assertEquals(2, statistics.getConnectionsCreated());
+            assertEquals(2, emulator.getConnectionProperties().size());
+            session.createProducer(session.createQueue("orders")).send(session.createTextMessage("expired"));
+            session.close();
+        }
+
+        // Releasing the last borrower closes the expired connection.
+        assertEquals(1, statistics.getConnectionsClosed());
+        assertEquals(1, statistics.getActiveConnections());
+        assertEquals(1, emulator.getConnectionProperties().size());
+        assertEquals(2, emulator.getMessageCount("orders"));
+    }
+
+    @Test
+    public void exhaustedPoolFailsWhenNotBlocking() throws Exception {
+        settings.setBlockIfSessionPoolIsFull(false);
+        ServiceBusJmsPoolStatistics statistics = createPooledFactory().getStatistics();
+
+        try (Connection connection = pooledFactory.createConnection()) {
+            connection.createSession();
+            connection.createSession();
+            assertThrows(ResourceAllocationException.class, () -> connection.createSession());
+        }
+
+        assertEquals(1, statistics.getPoolExhaustedCount());
+        assertEquals(1, statistics.getPoolExhaustedFailures());
+        assertEquals(2, statistics.getSessionsCreated());
+    }
+
+    @Test
+    public void exhaustedPoolWaitsForASessionToBeReturned() throws Exception {
+        settings.setBlockIfSessionPoolIsFull(true);
+        settings.setBlockIfSessionPoolIsFullTimeoutMS(TIMEOUT_MS);
+        ServiceBusJmsPoolStatistics statistics = createPooledFactory().getStatistics();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (Connection connection = pooledFactory.createConnection()) {
+            connection.createSession();
+            Session returned = connection.createSession();
+            Future<Session> waiting = executor.submit(() -> connection.createSession());
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+            while (statistics.getPoolExhaustedCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(1, statistics.getPoolExhaustedCount());
+            Thread.sleep(100);
+            returned.close();
+            assertNotNull(waiting.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, statistics.getPoolExhaustedFailures());
+        assertEquals(2, statistics.getSessionsCreated());
+        assertEquals(1, statistics.getSessionsReused());
+        assertTrue(statistics.getPoolExhaustedWaitTimeMS() >= 100);
+    }
+
+    @Test
+    public void exhaustedPoolFailsOnceTheWaitTimesOut() throws Exception {
+        settings.setBlockIfSessionPoolIsFull(true);
+        settings.setBlockIfSessionPoolIsFullTimeoutMS(200);
+        ServiceBusJmsPoolStatistics statistics = createPooledFactory().getStatistics();
+
+        try (Connection connection = pooledFactory.createConnection()) {
+            connection.createSession();
+            connection.createSession();
+            long start = System.nanoTime();
+            assertThrows(ResourceAllocationException.class, () -> connection.createSession());
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+        }
+
+        assertEquals(1, statistics.getPoolExhaustedCount());
+        assertEquals(1, statistics.getPoolExhaustedFailures());
+        assertTrue(statistics.getPoolExhaustedWaitTimeMS() >= 200);
+    }
+
+    private ServiceBusJmsPooledConnectionFactory createPooledFactory() {
+        pooledFactory = new ServiceBusJmsPooledConnectionFactory(new ServiceBusJmsConnectionFactory(emulator.getConnectionString(), settings));
+        return pooledFactory;
+    }
+
+    private void send(String text) throws Exception {
+        try (Connection connection = pooledFactory.createConnection();
+             Session session = connection.createSession()) {
+            session.createProducer(session.createQueue("orders")).send(session.createTextMessage(text));
+        }
+    }
+}
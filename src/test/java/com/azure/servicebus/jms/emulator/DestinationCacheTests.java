@@ -0,0 +1,119 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+
+import jakarta.jms.Connection;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.IllegalStateRuntimeException;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSException;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+public class DestinationCacheTests {
+    private ServiceBusEmulator emulator;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    public void destinationsAreSharedAcrossSessionsAndContexts() throws JMSException {
+        ServiceBusJmsConnectionFactory factory = createFactory(new ServiceBusJmsConnectionFactorySettings());
+        try (Connection connection = factory.createConnection(); JMSContext context = factory.createContext()) {
+            Session first = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Session second = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = first.createQueue("orders");
+            assertSame(queue, first.createQueue("orders"));
+            assertSame(queue, second.createQueue("orders"));
+            assertSame(queue, context.createQueue("orders"));
+            assertSame(first.createTopic("orders"), context.createTopic("orders"));
+            assertEquals("orders", queue.getQueueName());
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedDestinationsAreEvicted() throws JMSException {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setDestinationCacheSize(8);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue recent = session.createQueue("recent");
+            Queue stale = session.createQueue("stale");
+            for (int i = 0; i < 7; i++) {
+                session.createQueue("queue-" + i);
+                assertSame(recent, session.createQueue("recent"));
+            }
+
+            assertSame(recent, session.createQueue("recent"));
+            Queue replacement = session.createQueue("stale");
+            assertNotSame(stale, replacement);
+            assertEquals(stale, replacement);
+        }
+    }
+
+    @Test
+    public void cacheCanBeDisabled() throws JMSException {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setDestinationCacheSize(0);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            assertNotSame(session.createQueue("orders"), session.createQueue("orders"));
+            assertEquals(session.createQueue("orders"), session.createQueue("orders"));
+        }
+    }
+
+    @Test
+    public void factoriesDoNotShareDestinations() throws JMSException {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        try (JMSContext first = createFactory(settings).createContext(); JMSContext second = createFactory(settings).createContext()) {
+            assertNotSame(first.createQueue("orders"), second.createQueue("orders"));
+        }
+    }
+
+    @Test
+    public void closedSessionsAndContextsRefuseCachedDestinations() throws JMSException {
+        ServiceBusJmsConnectionFactory factory = createFactory(new ServiceBusJmsConnectionFactorySettings());
+        try (Connection connection = factory.createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            session.createQueue("orders");
+            session.close();
+            assertThrows(IllegalStateException.class, () -> session.createQueue("orders"));
+            assertThrows(IllegalStateException.class, () -> session.createTopic("orders"));
+
+            Session closedWithConnection = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            connection.close();
+            assertThrows(IllegalStateException.class, () -> closedWithConnection.createQueue("orders"));
+        }
+
+        JMSContext context = factory.createContext();
+        context.createTopic("orders");
+        context.close();
+        assertThrows(IllegalStateRuntimeException.class, () -> context.createQueue("orders"));
+        assertThrows(IllegalStateRuntimeException.class, () -> context.createTopic("orders"));
+    }
+
+    private ServiceBusJmsConnectionFactory createFactory(ServiceBusJmsConnectionFactorySettings settings) {
+        return new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost(), settings);
+    }
+}
@@ -0,0 +1,659 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.amqp.messaging.Rejected;
+import org.apache.qpid.proton.amqp.messaging.Source;
+import org.apache.qpid.proton.amqp.messaging.Target;
+import org.apache.qpid.proton.amqp.messaging.TerminusDurability;
+import org.apache.qpid.proton.amqp.messaging.TerminusExpiryPolicy;
+import org.apache.qpid.proton.amqp.transport.AmqpError;
+import org.apache.qpid.proton.amqp.transport.DeliveryState;
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.apache.qpid.proton.amqp.transport.ReceiverSettleMode;
+import org.apache.qpid.proton.engine.Collector;
+import org.apache.qpid.proton.engine.Connection;
+import org.apache.qpid.proton.engine.Delivery;
+import org.apache.qpid.proton.engine.EndpointState;
+import org.apache.qpid.proton.engine.Event;
+import org.apache.qpid.proton.engine.Link;
+import org.apache.qpid.proton.engine.Receiver;
+import org.apache.qpid.proton.engine.Sasl;
+import org.apache.qpid.proton.engine.SaslListener;
+import org.apache.qpid.proton.engine.Sender;
+import org.apache.qpid.proton.engine.Session;
+import org.apache.qpid.proton.engine.Transport;
+import org.apache.qpid.proton.message.Message;
+
+/**
+ * One client connection to the emulator. The socket is read on its own thread, everything else runs on the emulator thread.
+ */
+final class EmulatorConnection {
+    static final String CBS_NODE = "$cbs";
+    private static final Symbol IS_CLIENT_PROVIDER = Symbol.valueOf("com.microsoft:is-client-provider");
+    private static final Symbol QUEUE_AUTO_DELETE = Symbol.valueOf("com.microsoft:queue-auto-delete-on-idle-duration-in-seconds");
+    private static final Symbol TOPIC_AUTO_DELETE = Symbol.valueOf("com.microsoft:topic-auto-delete-on-idle-duration-in-seconds");
+    private static final Symbol SUBSCRIBER_AUTO_DELETE = Symbol.valueOf("com.microsoft:subscriber-auto-delete-on-idle-duration-in-seconds");
+    private static final Symbol SERVER_BUSY = Symbol.valueOf("com.microsoft:server-busy");
+    private static final Symbol TOPIC_CAPABILITY = Symbol.valueOf("topic");
+    private static final Symbol TEMPORARY_TOPIC_CAPABILITY = Symbol.valueOf("temporary-topic");
+    private static final Symbol SHARED_CAPABILITY = Symbol.valueOf("shared");
+    // The annotation qpid marks the destination type of a message with, 1 is a topic.
+    private static final Symbol JMS_DEST = Symbol.valueOf("x-opt-jms-dest");
+    private static final int CREDIT = 1000;
+
+    private final ServiceBusEmulator emulator;
+    private final Socket socket;
+    private final OutputStream output;
+    private final Transport transport;
+    private final Connection connection;
+    private final Collector collector;
+    private final List<EmulatorConsumer> consumers = new ArrayList<>();
+    // Links receiving from the $cbs node, which carry its replies.
+    private final List<Sender> cbsReplyLinks = new ArrayList<>();
+    // Replies waiting for one of those links to get credit, as the credit of a link without prefetch only comes with a receive.
+    private final Deque<byte[]> pendingReplies = new ArrayDeque<>();
+    private long nextReplyTag;
+    private final List<EmulatorEntity> temporaryEntities = new ArrayList<>();
+    private Map<String, Object> properties = Collections.emptyMap();
+    private String userName;
+    private boolean closed;
+
+    EmulatorConnection(ServiceBusEmulator emulator, Socket socket) throws IOException {
+        this.emulator = emulator;
+        this.socket = socket;
+        this.output = socket.getOutputStream();
+        this.transport = Transport.Factory.create();
+        this.connection = Connection.Factory.create();
+        this.collector = Collector.Factory.create();
+        this.connection.collect(this.collector);
+        this.connection.setContainer("servicebus-emulator");
+        this.connection.setOfferedCapabilities(new Symbol[] { Symbol.valueOf("ANONYMOUS-RELAY"), Symbol.valueOf("SHARED-SUBS") });
+
+        Sasl sasl = this.transport.sasl();
+        sasl.server();
+        sasl.setMechanisms("PLAIN", "ANONYMOUS");
+        sasl.setListener(new SaslListener() {
+            @Override
+            public void onSaslInit(Sasl sasl, Transport transport) {
+                byte[] response = new byte[sasl.pending()];
+                sasl.recv(response, 0, response.length);
+                EmulatorConnection.this.userName = parsePlainUserName(sasl.getRemoteMechanisms(), response);
+                sasl.done(Sasl.SaslOutcome.PN_SASL_OK);
+            }
+
+            @Override
+            public void onSaslMechanisms(Sasl sasl, Transport transport) {
+            }
+
+            @Override
+            public void onSaslChallenge(Sasl sasl, Transport transport) {
+            }
+
+            @Override
+            public void onSaslResponse(Sasl sasl, Transport transport) {
+            }
+
+            @Override
+            public void onSaslOutcome(Sasl sasl, Transport transport) {
+            }
+        });
+        this.transport.bind(this.connection);
+    }
+
+    /**
+     * Read the socket until it closes, handing each chunk to the emulator thread after the configured latency.
+     */
+    void readLoop() {
+        byte[] buffer = new byte[64 * 1024];
+        try {
+            InputStream input = this.socket.getInputStream();
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                byte[] chunk = Arrays.copyOf(buffer, read);
+                this.emulator.executeDelayed(() -> this.onInput(chunk));
+            }
+        } catch (IOException e) {
+            // The socket was closed, by the client or by the emulator.
+        }
+
+        this.emulator.executeDelayed(this::onInputClosed);
+    }
+
+    Map<String, Object> getProperties() {
+        return this.properties;
+    }
+
+    String getUserName() {
+        return this.userName;
+    }
+
+    boolean isClosed() {
+        return this.closed;
+    }
+
+    boolean isClientProvider() {
+        return Boolean.TRUE.equals(this.properties.get(IS_CLIENT_PROVIDER.toString()));
+    }
+
+    private void onInput(byte[] chunk) {
+        if (this.closed) {
+            return;
+        }
+
+        int offset = 0;
+        while (offset < chunk.length) {
+            int capacity = this.transport.capacity();
+            if (capacity <= 0) {
+                this.close();
+                return;
+            }
+
+            int length = Math.min(capacity, chunk.length - offset);
+            this.transport.tail().put(chunk, offset, length);
+            offset += length;
+            this.transport.process();
+            this.processEvents();
+        }
+    }
+
+    private void onInputClosed() {
+        if (!this.closed) {
+            this.transport.close_tail();
+            this.close();
+        }
+    }
+
+    /**
+     * Send idle frames the client's idle timeout asks for.
+     */
+    void tick(long nowMS) {
+        if (!this.closed) {
+            this.transport.tick(nowMS);
+        }
+    }
+
+    /**
+     * Handle the events the engine raised since the last call.
+     * @return Whether there were any.
+     */
+    boolean processEvents() {
+        boolean any = false;
+        Event event;
+        while (!this.closed && (event = this.collector.peek()) != null) {
+            any = true;
+            this.handle(event);
+            this.collector.pop();
+        }
+
+        return any;
+    }
+
+    /**
+     * Write what the engine has to send.
+     */
+    void flush() {
+        if (this.closed) {
+            return;
+        }
+
+        try {
+            int pending;
+            while ((pending = this.transport.pending()) > 0) {
+                ByteBuffer head = this.transport.head();
+                byte[] bytes = new byte[pending];
+                head.get(bytes);
+                this.output.write(bytes);
+                this.transport.pop(pending);
+            }
+
+            this.output.flush();
+            if (pending < 0) {
+                this.close();
+            }
+        } catch (IOException e) {
+            this.close();
+        }
+    }
+
+    /**
+     * Drop the connection and everything on it. Durable subscriptions and the messages of entities stay.
+     */
+    void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        for (Link link = this.connection.linkHead(null, null); link != null; link = link.next(null, null)) {
+            this.onLinkDetached(link, false);
+        }
+
+        for (EmulatorEntity entity : this.temporaryEntities) {
+            this.emulator.deleteEntity(entity);
+        }
+
+        this.emulator.onConnectionClosed(this);
+        try {
+            this.socket.close();
+        } catch (IOException e) {
+            // Nothing left to do with the socket.
+        }
+    }
+
+    private void handle(Event event) {
+        switch (event.getType()) {
+            case CONNECTION_REMOTE_OPEN:
+                this.properties = toStringKeys(this.connection.getRemoteProperties());
+                this.connection.open();
+                break;
+            case CONNECTION_REMOTE_CLOSE:
+                this.connection.close();
+                break;
+            case SESSION_REMOTE_OPEN:
+                if (event.getSession().getLocalState() == EndpointState.UNINITIALIZED) {
+                    event.getSession().setIncomingCapacity(Integer.MAX_VALUE);
+                    event.getSession().open();
+                }
+                break;
+            case SESSION_REMOTE_CLOSE:
+                this.closeLinks(event.getSession());
+                event.getSession().close();
+                break;
+            case LINK_REMOTE_OPEN:
+                if (event.getLink().getLocalState() == EndpointState.UNINITIALIZED) {
+                    if (event.getLink() instanceof Sender) {
+                        this.onConsumerAttach((Sender) event.getLink());
+                    } else {
+                        this.onProducerAttach((Receiver) event.getLink());
+                    }
+                }
+                break;
+            case LINK_REMOTE_DETACH:
+                this.onLinkDetached(event.getLink(), false);
+                event.getLink().detach();
+                break;
+            case LINK_REMOTE_CLOSE:
+                this.onLinkDetached(event.getLink(), true);
+                event.getLink().close();
+                break;
+            case LINK_FLOW:
+                if (event.getLink().getContext() instanceof EmulatorConsumer) {
+                    EmulatorConsumer consumer = (EmulatorConsumer) event.getLink().getContext();
+                    consumer.getQueue().dispatch();
+                    consumer.drainIfRequested();
+                } else if (CBS_NODE.equals(event.getLink().getContext()) && event.getLink() instanceof Sender) {
+                    this.sendPendingReplies();
+                    Sender sender = (Sender) event.getLink();
+                    if (sender.getDrain() && sender.getCredit() > 0) {
+                        sender.drained();
+                    }
+                }
+                break;
+            case DELIVERY:
+                if (event.getLink() instanceof Receiver) {
+                    this.onIncoming((Receiver) event.getLink(), event.getDelivery());
+                } else if (event.getLink().getContext() instanceof EmulatorConsumer) {
+                    ((EmulatorConsumer) event.getLink().getContext()).onDisposition(event.getDelivery());
+                } else {
+                    event.getDelivery().settle();
+                }
+                break;
+            case TRANSPORT_CLOSED:
+                this.close();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onConsumerAttach(Sender sender) {
+        Source remoteSource = (Source) sender.getRemoteSource();
+        sender.setTarget(sender.getRemoteTarget());
+        sender.setSenderSettleMode(sender.getRemoteSenderSettleMode());
+        sender.setReceiverSettleMode(ReceiverSettleMode.FIRST);
+
+        if (remoteSource != null && CBS_NODE.equals(remoteSource.getAddress())) {
+            sender.setSource(remoteSource.copy());
+            sender.setContext(CBS_NODE);
+            sender.open();
+            this.cbsReplyLinks.add(sender);
+            return;
+        }
+
+        String subscriptionName = stripLinkNameSuffix(sender.getName());
+        EmulatorQueue queue;
+        EmulatorTopic subscriptionTopic = null;
+        Source localSource;
+        if (remoteSource == null) {
+            // qpid looks up a durable subscription by name to unsubscribe it.
+            EmulatorTopic topic = this.emulator.findTopicWithSubscription(subscriptionName);
+            if (topic == null) {
+                this.refuse(sender, AmqpError.NOT_FOUND, "Subscription " + subscriptionName + " does not exist.");
+                return;
+            }
+
+            queue = topic.getSubscription(subscriptionName);
+            subscriptionTopic = topic;
+            localSource = new Source();
+            localSource.setAddress(topic.getPath());
+            localSource.setDurable(TerminusDurability.UNSETTLED_STATE);
+            localSource.setExpiryPolicy(TerminusExpiryPolicy.NEVER);
+            localSource.setCapabilities(TOPIC_CAPABILITY);
+        } else {
+            localSource = (Source) remoteSource.copy();
+            EmulatorEntity entity;
+            if (remoteSource.getDynamic()) {
+                entity = this.createTemporaryEntity(hasCapability(remoteSource.getCapabilities(), TEMPORARY_TOPIC_CAPABILITY));
+                localSource.setAddress(entity.getPath());
+            } else {
+                boolean topic = hasCapability(remoteSource.getCapabilities(), TOPIC_CAPABILITY);
+                entity = this.emulator.resolve(remoteSource.getAddress(), topic, this);
+            }
+
+            if (entity == null) {
+                this.refuse(sender, AmqpError.NOT_FOUND, "Entity " + remoteSource.getAddress() + " does not exist.");
+                return;
+            }
+
+            if (entity instanceof EmulatorTopic) {
+                subscriptionTopic = (EmulatorTopic) entity;
+                boolean shared = hasCapability(remoteSource.getCapabilities(), SHARED_CAPABILITY);
+                queue = subscriptionTopic.getSubscription(subscriptionName);
+                if (queue != null && !shared && queue.hasConsumers()) {
+                    this.refuse(sender, AmqpError.RESOURCE_LOCKED, "Subscription " + subscriptionName + " already has a consumer.");
+                    return;
+                }
+
+                if (queue == null) {
+                    queue = subscriptionTopic.createSubscription(subscriptionName);
+                    queue.setAutoDeleteOnIdleMS(this.getAutoDeleteOnIdleMS(SUBSCRIBER_AUTO_DELETE));
+                }
+            } else {
+                queue = (EmulatorQueue) entity;
+            }
+        }
+
+        boolean durable = localSource.getDurable() != null && localSource.getDurable() != TerminusDurability.NONE;
+        EmulatorConsumer consumer = new EmulatorConsumer(this, sender, queue, subscriptionTopic, durable);
+        sender.setSource(localSource);
+        sender.setContext(consumer);
+        sender.open();
+        this.consumers.add(consumer);
+        queue.addConsumer(consumer);
+    }
+
+    private void onProducerAttach(Receiver receiver) {
+        receiver.setSource(receiver.getRemoteSource());
+        receiver.setSenderSettleMode(receiver.getRemoteSenderSettleMode());
+        receiver.setReceiverSettleMode(ReceiverSettleMode.FIRST);
+        if (!(receiver.getRemoteTarget() instanceof Target)) {
+            // Transactions are not supported by the emulator.
+            this.refuse(receiver, AmqpError.NOT_IMPLEMENTED, "Transactions are not supported.");
+            return;
+        }
+
+        Target remoteTarget = (Target) receiver.getRemoteTarget();
+        Target localTarget = (Target) remoteTarget.copy();
+        Object context = null;
+        if (remoteTarget.getDynamic()) {
+            EmulatorEntity entity = this.createTemporaryEntity(hasCapability(remoteTarget.getCapabilities(), TEMPORARY_TOPIC_CAPABILITY));
+            localTarget.setAddress(entity.getPath());
+            context = entity;
+        } else if (CBS_NODE.equals(remoteTarget.getAddress())) {
+            context = CBS_NODE;
+        } else if (remoteTarget.getAddress() != null) {
+            boolean topic = hasCapability(remoteTarget.getCapabilities(), TOPIC_CAPABILITY);
+            EmulatorEntity entity = this.emulator.resolve(remoteTarget.getAddress(), topic, this);
+            if (entity == null) {
+                this.refuse(receiver, AmqpError.NOT_FOUND, "Entity " + remoteTarget.getAddress() + " does not exist.");
+                return;
+            }
+
+            context = entity;
+        }
+
+        if (context instanceof EmulatorEntity) {
+            ((EmulatorEntity) context).addProducer();
+        }
+
+        receiver.setTarget(localTarget);
+        receiver.setContext(context);
+        receiver.open();
+        receiver.flow(CREDIT);
+    }
+
+    private void refuse(Link link, Symbol condition, String description) {
+        if (link instanceof Sender) {
+            link.setSource(null);
+        } else {
+            link.setTarget(null);
+        }
+
+        link.open();
+        link.setCondition(new ErrorCondition(condition, description));
+        link.close();
+    }
+
+    private void onLinkDetached(Link link, boolean closed) {
+        Object context = link.getContext();
+        link.setContext(null);
+        if (context instanceof EmulatorConsumer) {
+            this.consumers.remove(context);
+            ((EmulatorConsumer) context).onDetached(closed);
+        } else if (context instanceof EmulatorEntity) {
+            ((EmulatorEntity) context).removeProducer();
+        } else if (link instanceof Sender) {
+            this.cbsReplyLinks.remove(link);
+        }
+    }
+
+    private void closeLinks(Session session) {
+        for (Link link = this.connection.linkHead(null, null); link != null; link = link.next(null, null)) {
+            if (link.getSession() == session) {
+                this.onLinkDetached(link, false);
+            }
+        }
+    }
+
+    private void onIncoming(Receiver receiver, Delivery delivery) {
+        if (!delivery.isReadable() || delivery.isPartial()) {
+            return;
+        }
+
+        byte[] encoded = new byte[delivery.pending()];
+        int length = receiver.recv(encoded, 0, encoded.length);
+        receiver.advance();
+        Message message = Message.Factory.create();
+        message.decode(encoded, 0, length);
+
+        DeliveryState outcome;
+        if (CBS_NODE.equals(receiver.getContext()) || (receiver.getContext() == null && CBS_NODE.equals(message.getAddress()))) {
+            outcome = this.onCbsRequest(message);
+        } else if (!this.emulator.tryAcquireSendPermit()) {
+            outcome = reject(SERVER_BUSY, "The request was terminated because the namespace is being throttled. Please wait and retry.");
+        } else if (receiver.getContext() instanceof EmulatorEntity) {
+            outcome = ((EmulatorEntity) receiver.getContext()).publish(message, length);
+        } else {
+            outcome = this.publishAnonymous(message, length);
+        }
+
+        if (!delivery.remotelySettled()) {
+            delivery.disposition(outcome);
+        }
+
+        delivery.settle();
+        if (receiver.getCredit() < CREDIT / 2) {
+            receiver.flow(CREDIT - receiver.getCredit());
+        }
+    }
+
+    private DeliveryState publishAnonymous(Message message, int encodedSize) {
+        if (message.getAddress() == null) {
+            return reject(AmqpError.INVALID_FIELD, "A message sent to the anonymous relay needs a to address.");
+        }
+
+        MessageAnnotations annotations = message.getMessageAnnotations();
+        Object destinationType = annotations != null && annotations.getValue() != null ? annotations.getValue().get(JMS_DEST) : null;
+        boolean topic = destinationType instanceof Number && ((Number) destinationType).intValue() == 1;
+        EmulatorEntity entity = this.emulator.resolve(message.getAddress(), topic, this);
+        if (entity == null) {
+            return reject(AmqpError.NOT_FOUND, "Entity " + message.getAddress() + " does not exist.");
+        }
+
+        return entity.publish(message, encodedSize);
+    }
+
+    private DeliveryState onCbsRequest(Message request) {
+        Map<String, Object> properties = request.getApplicationProperties() != null
+            ? toStringKeys(request.getApplicationProperties().getValue()) : Collections.emptyMap();
+        Object type = properties.get("type");
+        Object audience = properties.get("name");
+        Object token = request.getBody() instanceof AmqpValue ? ((AmqpValue) request.getBody()).getValue() : null;
+
+        int statusCode;
+        String statusDescription;
+        if (!"put-token".equals(properties.get("operation"))) {
+            statusCode = 400;
+            statusDescription = "Unsupported operation.";
+        } else if (!(token instanceof String) || !(audience instanceof String)
+                || !("jwt".equals(type) || "servicebus.windows.net:sastoken".equals(type))) {
+            statusCode = 400;
+            statusDescription = "The put-token request needs a token, a known token type and an audience.";
+        } else {
+            statusCode = 202;
+            statusDescription = "Accepted";
+            this.emulator.onPutToken(new ServiceBusEmulator.PutToken((String) type, (String) audience, (String) token));
+        }
+
+        if (request.getReplyTo() != null) {
+            Message response = Message.Factory.create();
+            response.setCorrelationId(request.getMessageId());
+            response.setAddress(request.getReplyTo());
+            Map<String, Object> responseProperties = new HashMap<>();
+            responseProperties.put("status-code", statusCode);
+            responseProperties.put("status-description", statusDescription);
+            response.setApplicationProperties(new ApplicationProperties(responseProperties));
+            this.reply(request.getReplyTo(), EmulatorMessage.encode(response, 256));
+        }
+
+        return Accepted.getInstance();
+    }
+
+    // Replies of the $cbs node go to a link of the same connection receiving from the node or from the reply-to address, or nowhere.
+    private void reply(String address, byte[] encoded) {
+        if (!this.cbsReplyLinks.isEmpty()) {
+            this.pendingReplies.add(encoded);
+            this.sendPendingReplies();
+            return;
+        }
+
+        for (EmulatorConsumer consumer : this.consumers) {
+            Source source = (Source) consumer.getSender().getSource();
+            if (source != null && address.equals(source.getAddress()) && consumer.hasCredit()) {
+                consumer.deliverUnlocked(encoded);
+                return;
+            }
+        }
+    }
+
+    private void sendPendingReplies() {
+        for (Sender link : this.cbsReplyLinks) {
+            while (!this.pendingReplies.isEmpty() && link.getLocalState() == EndpointState.ACTIVE && link.getCredit() > 0) {
+                byte[] encoded = this.pendingReplies.poll();
+                Delivery delivery = link.delivery(Long.toString(this.nextReplyTag++).getBytes(StandardCharsets.US_ASCII));
+                link.send(encoded, 0, encoded.length);
+                link.advance();
+                delivery.settle();
+            }
+        }
+    }
+
+    private EmulatorEntity createTemporaryEntity(boolean topic) {
+        EmulatorEntity entity = this.emulator.createTemporaryEntity(topic);
+        this.temporaryEntities.add(entity);
+        return entity;
+    }
+
+    long getAutoDeleteOnIdleMS(Symbol property) {
+        Object seconds = this.properties.get(property.toString());
+        return seconds instanceof Number ? ((Number) seconds).longValue() * 1000 : 0;
+    }
+
+    long getQueueAutoDeleteOnIdleMS() {
+        return this.getAutoDeleteOnIdleMS(QUEUE_AUTO_DELETE);
+    }
+
+    long getTopicAutoDeleteOnIdleMS() {
+        return this.getAutoDeleteOnIdleMS(TOPIC_AUTO_DELETE);
+    }
+
+    private static Rejected reject(Symbol condition, String description) {
+        Rejected rejected = new Rejected();
+        rejected.setError(new ErrorCondition(condition, description));
+        return rejected;
+    }
+
+    // qpid names links of shared and client-less subscriptions name|global or name|volatileN.
+    private static String stripLinkNameSuffix(String linkName) {
+        int separator = linkName.indexOf('|');
+        return separator < 0 ? linkName : linkName.substring(0, separator);
+    }
+
+    private static boolean hasCapability(Symbol[] capabilities, Symbol capability) {
+        if (capabilities != null) {
+            for (Symbol candidate : capabilities) {
+                if (capability.equals(candidate)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static Map<String, Object> toStringKeys(Map<?, ?> map) {
+        if (map == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            result.put(String.valueOf(entry.getKey()), entry.getValue());
+        }
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static String parsePlainUserName(String[] mechanisms, byte[] response) {
+        if (mechanisms == null || mechanisms.length == 0 || !"PLAIN".equals(mechanisms[0])) {
+            return null;
+        }
+
+        // authzid NUL authcid NUL password
+        String plain = new String(response, StandardCharsets.UTF_8);
+        String[] parts = plain.split("\u0000", -1);
+        return parts.length == 3 ? parts[1] : null;
+    }
+}
@@ -0,0 +1,146 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.qpid.proton.amqp.transport.DeliveryState;
+import org.apache.qpid.proton.amqp.transport.SenderSettleMode;
+import org.apache.qpid.proton.engine.Delivery;
+import org.apache.qpid.proton.engine.EndpointState;
+import org.apache.qpid.proton.engine.Sender;
+
+/**
+ * A link a client receives from a queue or subscription with. Only used on the emulator thread.
+ */
+final class EmulatorConsumer {
+    private final EmulatorConnection connection;
+    private final Sender sender;
+    private final EmulatorQueue queue;
+    // The topic of a subscription the link created by attaching to the topic, null otherwise.
+    private final EmulatorTopic subscriptionTopic;
+    private final boolean durable;
+    private final Map<Delivery, EmulatorMessage> unsettled = new LinkedHashMap<>();
+    private long nextTag;
+
+    EmulatorConsumer(EmulatorConnection connection, Sender sender, EmulatorQueue queue, EmulatorTopic subscriptionTopic, boolean durable) {
+        this.connection = connection;
+        this.sender = sender;
+        this.queue = queue;
+        this.subscriptionTopic = subscriptionTopic;
+        this.durable = durable;
+    }
+
+    EmulatorQueue getQueue() {
+        return this.queue;
+    }
+
+    Sender getSender() {
+        return this.sender;
+    }
+
+    boolean hasCredit() {
+        return this.sender.getLocalState() == EndpointState.ACTIVE && this.sender.getCredit() > 0;
+    }
+
+    /**
+     * Send a message on the link.
+     * @return Whether the message is now locked by the consumer, false if the link settled it on sending.
+     */
+    boolean deliver(EmulatorMessage message, long lockedUntilMS) {
+        Delivery delivery = this.sender.delivery(this.nextDeliveryTag());
+        boolean presettled = this.sender.getSenderSettleMode() == SenderSettleMode.SETTLED;
+        if (!presettled) {
+            message.lock(delivery, lockedUntilMS);
+            delivery.setContext(this);
+            this.unsettled.put(delivery, message);
+        }
+
+        byte[] encoded = message.encodeForDelivery();
+        this.sender.send(encoded, 0, encoded.length);
+        this.sender.advance();
+        if (presettled) {
+            delivery.settle();
+        }
+
+        return !presettled;
+    }
+
+    /**
+     * Send a message that is not stored in any queue, such as a reply of the $cbs node.
+     */
+    void deliverUnlocked(byte[] encoded) {
+        Delivery delivery = this.sender.delivery(this.nextDeliveryTag());
+        this.sender.send(encoded, 0, encoded.length);
+        this.sender.advance();
+        delivery.settle();
+    }
+
+    void drainIfRequested() {
+        if (this.sender.getDrain() && this.sender.getCredit() > 0) {
+            this.sender.drained();
+        }
+    }
+
+    /**
+     * Apply the outcome the client settled a delivery with.
+     */
+    void onDisposition(Delivery delivery) {
+        DeliveryState outcome = delivery.getRemoteState();
+        if (outcome == null && !delivery.remotelySettled()) {
+            return;
+        }
+
+        EmulatorMessage message = this.unsettled.remove(delivery);
+        delivery.settle();
+        if (message != null) {
+            this.queue.settle(message, outcome);
+        }
+    }
+
+    /**
+     * Release the messages still locked by this link, once it is detached or its connection is gone.
+     * @param closed Whether the client closed the link rather than detaching it, which deletes a subscription the link created.
+     */
+    void onDetached(boolean closed) {
+        this.queue.removeConsumer(this);
+        for (EmulatorMessage message : new ArrayList<>(this.unsettled.values())) {
+            this.queue.release(message);
+        }
+
+        this.unsettled.clear();
+        if (this.subscriptionTopic != null && !this.queue.hasConsumers() && (closed || !this.durable)) {
+            // Volatile subscriptions end with their last consumer, durable ones once the client unsubscribes.
+            this.subscriptionTopic.deleteSubscription(this.queue);
+        } else {
+            this.queue.dispatch();
+        }
+    }
+
+    /**
+     * Forget a delivery whose lock expired, the client's late settlement of it is then ignored.
+     */
+    static void forgetDelivery(Delivery delivery) {
+        if (delivery != null && delivery.getContext() instanceof EmulatorConsumer) {
+            ((EmulatorConsumer) delivery.getContext()).unsettled.remove(delivery);
+        }
+    }
+
+    EmulatorConnection getConnection() {
+        return this.connection;
+    }
+
+    private byte[] nextDeliveryTag() {
+        long tag = this.nextTag++;
+        byte[] bytes = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) tag;
+            tag >>>= 8;
+        }
+
+        return bytes;
+    }
+}
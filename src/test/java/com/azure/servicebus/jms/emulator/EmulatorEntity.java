@@ -0,0 +1,70 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import org.apache.qpid.proton.amqp.transport.DeliveryState;
+import org.apache.qpid.proton.message.Message;
+
+/**
+ * A queue or topic of the emulated namespace. Only used on the emulator thread.
+ */
+abstract class EmulatorEntity {
+    private final ServiceBusEmulator emulator;
+    private final String path;
+    private long autoDeleteOnIdleMS;
+    private long lastActivityMS = System.currentTimeMillis();
+    private int producers;
+
+    EmulatorEntity(ServiceBusEmulator emulator, String path) {
+        this.emulator = emulator;
+        this.path = path;
+    }
+
+    ServiceBusEmulator getEmulator() {
+        return this.emulator;
+    }
+
+    String getPath() {
+        return this.path;
+    }
+
+    /**
+     * Store a message sent to the entity.
+     * @return The outcome the sender sees.
+     */
+    abstract DeliveryState publish(Message message, int encodedSize);
+
+    /**
+     * @param autoDeleteOnIdleMS How long the entity may stay idle before it is deleted, 0 to keep it.
+     */
+    void setAutoDeleteOnIdleMS(long autoDeleteOnIdleMS) {
+        this.autoDeleteOnIdleMS = autoDeleteOnIdleMS;
+    }
+
+    boolean shouldAutoDelete(long nowMS) {
+        return this.autoDeleteOnIdleMS > 0 && this.isIdle() && nowMS - this.lastActivityMS >= this.autoDeleteOnIdleMS;
+    }
+
+    boolean isIdle() {
+        return this.producers == 0;
+    }
+
+    void touch() {
+        this.lastActivityMS = System.currentTimeMillis();
+    }
+
+    int getProducerCount() {
+        return this.producers;
+    }
+
+    void addProducer() {
+        this.producers++;
+        this.touch();
+    }
+
+    void removeProducer() {
+        this.producers--;
+        this.touch();
+    }
+}
@@ -0,0 +1,132 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import java.nio.BufferOverflowException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.engine.Delivery;
+import org.apache.qpid.proton.message.Message;
+
+/**
+ * A message stored in a queue or subscription, with the state Service Bus keeps for it.
+ */
+final class EmulatorMessage {
+    private static final Symbol SEQUENCE_NUMBER = Symbol.valueOf("x-opt-sequence-number");
+    private static final Symbol ENQUEUED_TIME = Symbol.valueOf("x-opt-enqueued-time");
+    private static final Symbol LOCKED_UNTIL = Symbol.valueOf("x-opt-locked-until");
+
+    private final Message message;
+    private final int encodedSize;
+    private final long sequenceNumber;
+    private final long enqueuedTimeMS;
+    private final long expiresAtMS;
+    private int failedDeliveries;
+    private long lockedUntilMS;
+    private Delivery lockedDelivery;
+
+    EmulatorMessage(Message message, int encodedSize, long sequenceNumber, long nowMS) {
+        this.message = message;
+        this.encodedSize = encodedSize;
+        this.sequenceNumber = sequenceNumber;
+        this.enqueuedTimeMS = nowMS;
+        if (message.getExpiryTime() > 0) {
+            this.expiresAtMS = message.getExpiryTime();
+        } else if (message.getTtl() > 0) {
+            this.expiresAtMS = nowMS + message.getTtl();
+        } else {
+            this.expiresAtMS = Long.MAX_VALUE;
+        }
+    }
+
+    Message getMessage() {
+        return this.message;
+    }
+
+    int getEncodedSize() {
+        return this.encodedSize;
+    }
+
+    long getSequenceNumber() {
+        return this.sequenceNumber;
+    }
+
+    boolean isExpired(long nowMS) {
+        return nowMS >= this.expiresAtMS;
+    }
+
+    int getFailedDeliveries() {
+        return this.failedDeliveries;
+    }
+
+    void onFailedDelivery() {
+        this.failedDeliveries++;
+    }
+
+    long getLockedUntilMS() {
+        return this.lockedUntilMS;
+    }
+
+    Delivery getLockedDelivery() {
+        return this.lockedDelivery;
+    }
+
+    void lock(Delivery delivery, long lockedUntilMS) {
+        this.lockedDelivery = delivery;
+        this.lockedUntilMS = lockedUntilMS;
+    }
+
+    void unlock() {
+        this.lockedDelivery = null;
+        this.lockedUntilMS = 0;
+    }
+
+    /**
+     * Encode the message as it is delivered, with the delivery count and the annotations Service Bus adds.
+     * Subscriptions share the decoded message, which is fine as all encoding happens on the emulator thread.
+     */
+    byte[] encodeForDelivery() {
+        this.message.setDeliveryCount(this.failedDeliveries);
+        this.message.setFirstAcquirer(this.failedDeliveries == 0);
+
+        Map<Symbol, Object> annotations = new HashMap<>();
+        MessageAnnotations existing = this.message.getMessageAnnotations();
+        if (existing != null && existing.getValue() != null) {
+            annotations.putAll(existing.getValue());
+        }
+
+        annotations.put(SEQUENCE_NUMBER, this.sequenceNumber);
+        annotations.put(ENQUEUED_TIME, new Date(this.enqueuedTimeMS));
+        if (this.lockedUntilMS > 0) {
+            annotations.put(LOCKED_UNTIL, new Date(this.lockedUntilMS));
+        }
+
+        this.message.setMessageAnnotations(new MessageAnnotations(annotations));
+        return encode(this.message, this.encodedSize + 256);
+    }
+
+    static Message copy(Message message, int sizeHint) {
+        byte[] encoded = encode(message, sizeHint);
+        Message copy = Message.Factory.create();
+        copy.decode(encoded, 0, encoded.length);
+        return copy;
+    }
+
+    static byte[] encode(Message message, int sizeHint) {
+        byte[] buffer = new byte[Math.max(sizeHint, 1024)];
+        while (true) {
+            try {
+                int length = message.encode(buffer, 0, buffer.length);
+                return Arrays.copyOf(buffer, length);
+            } catch (BufferOverflowException e) {
+                buffer = new byte[buffer.length * 2];
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Modified;
+import org.apache.qpid.proton.amqp.messaging.Rejected;
+import org.apache.qpid.proton.amqp.messaging.Released;
+import org.apache.qpid.proton.amqp.transport.DeliveryState;
+import org.apache.qpid.proton.message.Message;
+
+/**
+ * A queue, a topic subscription or a dead-letter queue. Messages are delivered in peek-lock mode: a delivered message stays
+ * locked until the consumer settles it, its link goes away, or the lock expires.
+ * Only used on the emulator thread.
+ */
+final class EmulatorQueue extends EmulatorEntity {
+    static final String DEAD_LETTER_QUEUE_NAME = "$DeadLetterQueue";
+    static final String DEAD_LETTER_REASON = "DeadLetterReason";
+    static final String DEAD_LETTER_ERROR_DESCRIPTION = "DeadLetterErrorDescription";
+
+    private final PriorityQueue<EmulatorMessage> available = new PriorityQueue<>(Comparator.comparingLong(EmulatorMessage::getSequenceNumber));
+    private final Set<EmulatorMessage> locked = new LinkedHashSet<>();
+    private final List<EmulatorConsumer> consumers = new ArrayList<>();
+    private final boolean deadLetterQueue;
+    private EmulatorQueue deadLetters;
+    private long nextSequenceNumber = 1;
+    private int nextConsumer;
+
+    EmulatorQueue(ServiceBusEmulator emulator, String path, boolean deadLetterQueue) {
+        super(emulator, path);
+        this.deadLetterQueue = deadLetterQueue;
+    }
+
+    @Override
+    DeliveryState publish(Message message, int encodedSize) {
+        long now = System.currentTimeMillis();
+        this.available.add(new EmulatorMessage(message, encodedSize, this.nextSequenceNumber++, now));
+        this.touch();
+        this.dispatch();
+        return Accepted.getInstance();
+    }
+
+    EmulatorQueue getDeadLetterQueue() {
+        if (this.deadLetterQueue) {
+            return null;
+        }
+
+        if (this.deadLetters == null) {
+            this.deadLetters = new EmulatorQueue(this.getEmulator(), this.getPath() + "/" + DEAD_LETTER_QUEUE_NAME, true);
+        }
+
+        return this.deadLetters;
+    }
+
+    int getMessageCount() {
+        return this.available.size() + this.locked.size();
+    }
+
+    int getConsumerCount() {
+        return this.consumers.size();
+    }
+
+    boolean hasConsumers() {
+        return !this.consumers.isEmpty();
+    }
+
+    void addConsumer(EmulatorConsumer consumer) {
+        this.consumers.add(consumer);
+        this.touch();
+        this.getEmulator().onConsumersChanged();
+    }
+
+    void removeConsumer(EmulatorConsumer consumer) {
+        this.consumers.remove(consumer);
+        this.touch();
+        this.getEmulator().onConsumersChanged();
+    }
+
+    @Override
+    boolean isIdle() {
+        return this.consumers.isEmpty() && super.isIdle();
+    }
+
+    /**
+     * Hand available messages to consumers with credit, round-robin, and answer drain requests once nothing is left.
+     */
+    void dispatch() {
+        long now = System.currentTimeMillis();
+        while (!this.available.isEmpty() && !this.consumers.isEmpty()) {
+            EmulatorConsumer consumer = this.nextConsumerWithCredit();
+            if (consumer == null) {
+                break;
+            }
+
+            EmulatorMessage message = this.available.poll();
+            if (message.isExpired(now)) {
+                continue;
+            }
+
+            if (consumer.deliver(message, now + this.getEmulator().getLockDurationMS())) {
+                this.locked.add(message);
+            }
+
+            this.touch();
+        }
+
+        if (this.available.isEmpty()) {
+            for (EmulatorConsumer consumer : this.consumers) {
+                consumer.drainIfRequested();
+            }
+        }
+    }
+
+    private EmulatorConsumer nextConsumerWithCredit() {
+        for (int i = 0; i < this.consumers.size(); i++) {
+            EmulatorConsumer consumer = this.consumers.get((this.nextConsumer + i) % this.consumers.size());
+            if (consumer.hasCredit()) {
+                this.nextConsumer = (this.nextConsumer + i + 1) % this.consumers.size();
+                return consumer;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Apply the outcome a consumer settled a locked message with.
+     */
+    void settle(EmulatorMessage message, DeliveryState outcome) {
+        if (!this.locked.remove(message)) {
+            // The lock expired before the consumer settled, the message is already back in the queue.
+            return;
+        }
+
+        message.unlock();
+        if (outcome == null || outcome instanceof Accepted) {
+            // Completed, presettled deliveries count as completed too.
+        } else if (outcome instanceof Released) {
+            this.available.add(message);
+        } else if (outcome instanceof Modified) {
+            Modified modified = (Modified) outcome;
+            if (Boolean.TRUE.equals(modified.getDeliveryFailed()) || Boolean.TRUE.equals(modified.getUndeliverableHere())) {
+                this.abandon(message);
+            } else {
+                this.available.add(message);
+            }
+        } else if (outcome instanceof Rejected) {
+            Rejected rejected = (Rejected) outcome;
+            String description = rejected.getError() != null ? rejected.getError().getDescription() : null;
+            this.deadLetter(message, "Rejected", description);
+        }
+
+        this.touch();
+        this.dispatch();
+    }
+
+    /**
+     * Return a locked message without counting a delivery attempt, as happens when its link goes away.
+     */
+    void release(EmulatorMessage message) {
+        if (this.locked.remove(message)) {
+            message.unlock();
+            this.available.add(message);
+        }
+    }
+
+    /**
+     * Return messages whose lock expired, counting the failed delivery.
+     */
+    void expireLocks(long nowMS) {
+        boolean expired = false;
+        Iterator<EmulatorMessage> iterator = this.locked.iterator();
+        while (iterator.hasNext()) {
+            EmulatorMessage message = iterator.next();
+            if (message.getLockedUntilMS() > nowMS) {
+                continue;
+            }
+
+            iterator.remove();
+            EmulatorConsumer.forgetDelivery(message.getLockedDelivery());
+            message.unlock();
+            this.abandon(message);
+            expired = true;
+        }
+
+        if (expired) {
+            this.dispatch();
+        }
+
+        if (this.deadLetters != null) {
+            this.deadLetters.expireLocks(nowMS);
+        }
+    }
+
+    private void abandon(EmulatorMessage message) {
+        message.onFailedDelivery();
+        if (message.getFailedDeliveries() >= this.getEmulator().getMaxDeliveryCount()) {
+            this.deadLetter(message, "MaxDeliveryCountExceeded", "Message could not be consumed after "
+                + this.getEmulator().getMaxDeliveryCount() + " delivery attempts.");
+        } else {
+            this.available.add(message);
+        }
+    }
+
+    private void deadLetter(EmulatorMessage message, String reason, String description) {
+        EmulatorQueue deadLetterQueue = this.getDeadLetterQueue();
+        if (deadLetterQueue == null) {
+            // Messages rejected from a dead-letter queue are removed.
+            return;
+        }
+
+        // Subscriptions share the decoded message, the dead-lettered one gets its own copy.
+        Message deadLettered = EmulatorMessage.copy(message.getMessage(), message.getEncodedSize());
+        Map<String, Object> properties = new HashMap<>();
+        ApplicationProperties existing = deadLettered.getApplicationProperties();
+        if (existing != null && existing.getValue() != null) {
+            properties.putAll(existing.getValue());
+        }
+
+        properties.put(DEAD_LETTER_REASON, reason);
+        if (description != null) {
+            properties.put(DEAD_LETTER_ERROR_DESCRIPTION, description);
+        }
+
+        deadLettered.setApplicationProperties(new ApplicationProperties(properties));
+        deadLetterQueue.publish(deadLettered, message.getEncodedSize());
+    }
+
+    List<EmulatorConsumer> getConsumers() {
+        return Collections.unmodifiableList(this.consumers);
+    }
+}
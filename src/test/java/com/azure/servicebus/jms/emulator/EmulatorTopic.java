@@ -0,0 +1,79 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.transport.DeliveryState;
+import org.apache.qpid.proton.message.Message;
+
+/**
+ * A topic, which copies each message into every subscription. Only used on the emulator thread.
+ */
+final class EmulatorTopic extends EmulatorEntity {
+    static final String SUBSCRIPTIONS = "Subscriptions";
+
+    private final Map<String, EmulatorQueue> subscriptions = new LinkedHashMap<>();
+
+    EmulatorTopic(ServiceBusEmulator emulator, String path) {
+        super(emulator, path);
+    }
+
+    @Override
+    DeliveryState publish(Message message, int encodedSize) {
+        for (EmulatorQueue subscription : this.subscriptions.values()) {
+            subscription.publish(message, encodedSize);
+        }
+
+        this.touch();
+        return Accepted.getInstance();
+    }
+
+    EmulatorQueue getSubscription(String name) {
+        return this.subscriptions.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    EmulatorQueue createSubscription(String name) {
+        return this.subscriptions.computeIfAbsent(name.toLowerCase(Locale.ROOT),
+            key -> new EmulatorQueue(this.getEmulator(), this.getPath() + "/" + SUBSCRIPTIONS + "/" + name, false));
+    }
+
+    void deleteSubscription(EmulatorQueue subscription) {
+        this.subscriptions.values().remove(subscription);
+        this.touch();
+    }
+
+    Collection<EmulatorQueue> getSubscriptions() {
+        return this.subscriptions.values();
+    }
+
+    void removeIdleSubscriptions(long nowMS) {
+        Iterator<EmulatorQueue> iterator = this.subscriptions.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().shouldAutoDelete(nowMS)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    boolean isIdle() {
+        if (!super.isIdle()) {
+            return false;
+        }
+
+        for (EmulatorQueue subscription : this.subscriptions.values()) {
+            if (subscription.hasConsumers()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
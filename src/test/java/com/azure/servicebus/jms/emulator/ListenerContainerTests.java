@@ -0,0 +1,214 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+import com.azure.servicebus.jms.ServiceBusJmsListenerContainer;
+
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+
+public class ListenerContainerTests {
+    private ServiceBusEmulator emulator;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    public void consumersGrowWithTheBacklogAndShrinkWhenIdle() throws Exception {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setListenerContainerMaxConsumers(4);
+        settings.setListenerContainerReceiveTimeoutMS(100);
+        settings.setListenerContainerIdleReceivesBeforeShrink(3);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Queue queue = send(connection, "backlog", 100);
+            CountDownLatch processed = new CountDownLatch(100);
+            // Held until two listeners run at once, which takes the container adding a consumer for the backlog.
+            CountDownLatch overlapping = new CountDownLatch(2);
+            AtomicInteger calls = new AtomicInteger();
+            AtomicInteger active = new AtomicInteger();
+            AtomicInteger maxActive = new AtomicInteger();
+            try (ServiceBusJmsListenerContainer container = new ServiceBusJmsListenerContainer(connection, queue, message -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                // The first message returns at once, so its consumer goes on to find the backlog.
+                if (calls.incrementAndGet() > 1) {
+                    overlapping.countDown();
+                    try {
+                        overlapping.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                active.decrementAndGet();
+                processed.countDown();
+            })) {
+                container.start();
+                assertTrue(processed.await(30, TimeUnit.SECONDS));
+                assertTrue(maxActive.get() > 1, "The container did not add consumers for the backlog.");
+                assertTrue(maxActive.get() <= 4);
+
+                assertTrue(emulator.awaitConsumerCount("backlog", 1, Duration.ofSeconds(10)));
+                assertEquals(1, container.getConsumerCount());
+            }
+
+            assertEquals(0, emulator.getMessageCount("backlog"));
+        }
+    }
+
+    @Test
+    public void failedMessagesAreRedelivered() throws Exception {
+        try (Connection connection = createFactory(new ServiceBusJmsConnectionFactorySettings()).createConnection()) {
+            Queue queue = send(connection, "redelivery", 5);
+            Set<String> failedOnce = ConcurrentHashMap.newKeySet();
+            CountDownLatch processed = new CountDownLatch(5);
+            AtomicInteger reported = new AtomicInteger();
+            ServiceBusJmsListenerContainer container = new ServiceBusJmsListenerContainer(connection, queue, message -> {
+                try {
+                    if (failedOnce.add(((TextMessage) message).getText())) {
+                        throw new IllegalStateException("First attempt fails.");
+                    }
+                } catch (JMSException e) {
+                    throw new RuntimeException(e);
+                }
+
+                processed.countDown();
+            });
+            container.setExceptionListener(exception -> reported.incrementAndGet());
+            container.start();
+            assertTrue(processed.await(30, TimeUnit.SECONDS));
+            container.stop();
+            assertFalse(container.isRunning());
+            assertEquals(0, container.getConsumerCount());
+            assertEquals(5, reported.get());
+            assertEquals(0, emulator.getMessageCount("redelivery"));
+        }
+    }
+
+    @Test
+    public void poisonMessagesAreDeadLettered() throws Exception {
+        emulator.setMaxDeliveryCount(3);
+        try (Connection connection = createFactory(new ServiceBusJmsConnectionFactorySettings()).createConnection()) {
+            Queue queue = send(connection, "poison", 1);
+            CountDownLatch failures = new CountDownLatch(3);
+            ServiceBusJmsListenerContainer container = new ServiceBusJmsListenerContainer(connection, queue, message -> {
+                throw new IllegalStateException("Every attempt fails.");
+            });
+            container.setExceptionListener(exception -> failures.countDown());
+            container.start();
+            assertTrue(failures.await(30, TimeUnit.SECONDS));
+            // Closing the sessions waits for the broker, which has then handled the settlements.
+            container.stop();
+            assertEquals(0, emulator.getMessageCount("poison"));
+            assertEquals(1, emulator.getMessageCount("poison/$DeadLetterQueue"));
+        }
+    }
+
+    @Test
+    public void stopFinishesTheMessageBeingProcessed() throws Exception {
+        try (Connection connection = createFactory(new ServiceBusJmsConnectionFactorySettings()).createConnection()) {
+            Queue queue = send(connection, "graceful", 1);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger completed = new AtomicInteger();
+            ServiceBusJmsListenerContainer container = new ServiceBusJmsListenerContainer(connection, queue, message -> {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                completed.incrementAndGet();
+            });
+            container.start();
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Thread stopping = new Thread(container::stop);
+            stopping.start();
+            // stop waits for the listener, which waits for the release.
+            stopping.join(200);
+            assertTrue(stopping.isAlive());
+            assertEquals(0, completed.get());
+
+            release.countDown();
+            stopping.join();
+            assertEquals(1, completed.get());
+            assertEquals(0, emulator.getMessageCount("graceful"));
+        }
+    }
+
+    @Test
+    public void virtualThreadSettingsProcessEveryMessage() throws Exception {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setVirtualThreadReceiveLoopsEnabled(true);
+        settings.setVirtualThreadPerMessageEnabled(true);
+        settings.setListenerContainerMaxMessagesPerConsumer(16);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Queue queue = send(connection, "virtual", 50);
+            Set<String> failedOnce = ConcurrentHashMap.newKeySet();
+            CountDownLatch processed = new CountDownLatch(50);
+            // Falls back to platform threads before Java 21, the outcome is the same.
+            try (ServiceBusJmsListenerContainer container = new ServiceBusJmsListenerContainer(connection, queue, message -> {
+                try {
+                    if (failedOnce.add(((TextMessage) message).getText()) && failedOnce.size() <= 5) {
+                        throw new IllegalStateException("First attempt fails.");
+                    }
+                } catch (JMSException e) {
+                    throw new RuntimeException(e);
+                }
+
+                processed.countDown();
+            })) {
+                container.start();
+                assertTrue(processed.await(30, TimeUnit.SECONDS));
+            }
+
+            assertEquals(0, emulator.getMessageCount("virtual"));
+        }
+    }
+
+    private Queue send(Connection connection, String queueName, int count) throws JMSException {
+        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        Queue queue = session.createQueue(queueName);
+        MessageProducer producer = session.createProducer(queue);
+        for (int i = 0; i < count; i++) {
+            producer.send(session.createTextMessage("message " + i));
+        }
+
+        session.close();
+        return queue;
+    }
+
+    private ServiceBusJmsConnectionFactory createFactory(ServiceBusJmsConnectionFactorySettings settings) {
+        return new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost(), settings);
+    }
+}
@@ -0,0 +1,330 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+import com.azure.servicebus.jms.ServiceBusJmsMessageConsumer;
+import com.azure.servicebus.jms.ServiceBusJmsOrderedDispatcher;
+
+import jakarta.jms.Connection;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+public class OrderedDispatcherTests {
+    private static final int INDIVIDUAL_ACKNOWLEDGE = 101;
+    private static final int KEYS = 8;
+    private static final int MESSAGES_PER_KEY = 20;
+
+    private ServiceBusEmulator emulator;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    public void messagesOfEachKeyStayInOrderWhileKeysRunInParallel() throws Exception {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setOrderedDispatchLanes(4);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Queue queue = send(connection, "ordered");
+            Session session = connection.createSession(false, INDIVIDUAL_ACKNOWLEDGE);
+            ServiceBusJmsMessageConsumer consumer = (ServiceBusJmsMessageConsumer) session.createConsumer(queue);
+            Map<String, List<Integer>> sequences = new ConcurrentHashMap<>();
+            Set<String> activeKeys = ConcurrentHashMap.newKeySet();
+            AtomicInteger maxActive = new AtomicInteger();
+            AtomicInteger overlaps = new AtomicInteger();
+            CountDownLatch processed = new CountDownLatch(KEYS * MESSAGES_PER_KEY);
+            ServiceBusJmsOrderedDispatcher dispatcher = new ServiceBusJmsOrderedDispatcher(consumer, message -> {
+                try {
+                    String key = message.getStringProperty("JMSXGroupID");
+                    if (!activeKeys.add(key)) {
+                        overlaps.incrementAndGet();
+                    }
+
+                    maxActive.accumulateAndGet(activeKeys.size(), Math::max);
+                    Thread.sleep(2);
+                    sequences.computeIfAbsent(key, k -> new ArrayList<>()).add(message.getIntProperty("sequence"));
+                    activeKeys.remove(key);
+                } catch (JMSException e) {
+                    throw new RuntimeException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                processed.countDown();
+            });
+            dispatcher.start();
+            connection.start();
+            assertTrue(processed.await(30, TimeUnit.SECONDS));
+            dispatcher.close();
+            consumer.close();
+
+            assertEquals(0, overlaps.get());
+            assertTrue(maxActive.get() > 1, "Different keys were not processed in parallel.");
+            assertEquals(KEYS, sequences.size());
+            for (List<Integer> sequence : sequences.values()) {
+                assertEquals(MESSAGES_PER_KEY, sequence.size());
+                for (int i = 0; i < MESSAGES_PER_KEY; i++) {
+                    assertEquals(i, sequence.get(i));
+                }
+            }
+
+            assertEquals(0, emulator.getMessageCount("ordered"));
+        }
+    }
+
+    @Test
+    public void failedMessagesAreProcessedAgainBeforeTheRestOfTheirKey() throws Exception {
+        try (Connection connection = createFactory(new ServiceBusJmsConnectionFactorySettings()).createConnection()) {
+            Queue queue = send(connection, "retried");
+            Session session = connection.createSession(false, INDIVIDUAL_ACKNOWLEDGE);
+            ServiceBusJmsMessageConsumer consumer = (ServiceBusJmsMessageConsumer) session.createConsumer(queue);
+            Set<String> failedOnce = ConcurrentHashMap.newKeySet();
+            Map<String, List<Integer>> sequences = new ConcurrentHashMap<>();
+            CountDownLatch processed = new CountDownLatch(KEYS * MESSAGES_PER_KEY);
+            AtomicInteger reported = new AtomicInteger();
+            ServiceBusJmsOrderedDispatcher dispatcher = new ServiceBusJmsOrderedDispatcher(consumer, message -> {
+                try {
+                    String key = message.getStringProperty("JMSXGroupID");
+                    if (message.getIntProperty("sequence") == 0 && failedOnce.add(key)) {
+                        throw new IllegalArgumentException("First attempt fails.");
+                    }
+
+                    sequences.computeIfAbsent(key, k -> new ArrayList<>()).add(message.getIntProperty("sequence"));
+                } catch (JMSException e) {
+                    throw new RuntimeException(e);
+                }
+
+                processed.countDown();
+            });
+            dispatcher.setExceptionListener(exception -> reported.incrementAndGet());
+            dispatcher.start();
+            connection.start();
+            assertTrue(processed.await(30, TimeUnit.SECONDS));
+            dispatcher.close();
+            consumer.close();
+            assertEquals(KEYS, reported.get());
+            for (List<Integer> sequence : sequences.values()) {
+                for (int i = 0; i < MESSAGES_PER_KEY; i++) {
+                    assertEquals(i, sequence.get(i));
+                }
+            }
+
+            assertEquals(0, emulator.getMessageCount("retried"));
+        }
+    }
+
+    @Test
+    public void messagesOutlastAShortOutageOfTheListener() throws Exception {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setOrderedDispatchRetryDelayMS(20);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Queue queue = send(connection, "outage");
+            Session session = connection.createSession(false, INDIVIDUAL_ACKNOWLEDGE);
+            ServiceBusJmsMessageConsumer consumer = (ServiceBusJmsMessageConsumer) session.createConsumer(queue);
+            Map<String, List<Integer>> sequences = new ConcurrentHashMap<>();
+            CountDownLatch processed = new CountDownLatch(KEYS * MESSAGES_PER_KEY);
+            AtomicLong outageEndNanos = new AtomicLong();
+            AtomicInteger reported = new AtomicInteger();
+            ServiceBusJmsOrderedDispatcher dispatcher = new ServiceBusJmsOrderedDispatcher(consumer, message -> {
+                // A dependency of the listener is down for 300 ms from the first message on, many times the first retry delay.
+                outageEndNanos.compareAndSet(0, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300));
+                if (System.nanoTime() - outageEndNanos.get() < 0) {
+                    throw new IllegalArgumentException("The dependency is down.");
+                }
+
+                try {
+                    sequences.computeIfAbsent(message.getStringProperty("JMSXGroupID"), k -> new ArrayList<>()).add(message.getIntProperty("sequence"));
+                } catch (JMSException e) {
+                    throw new RuntimeException(e);
+                }
+
+                processed.countDown();
+            });
+            dispatcher.setExceptionListener(exception -> reported.incrementAndGet());
+            dispatcher.start();
+            connection.start();
+            assertTrue(processed.await(30, TimeUnit.SECONDS));
+            dispatcher.close();
+            consumer.close();
+            assertTrue(reported.get() > 0);
+            for (List<Integer> sequence : sequences.values()) {
+                for (int i = 0; i < MESSAGES_PER_KEY; i++) {
+                    assertEquals(i, sequence.get(i));
+                }
+            }
+
+            assertEquals(0, emulator.getMessageCount("outage"));
+            assertEquals(0, emulator.getMessageCount("outage/$DeadLetterQueue"));
+        }
+    }
+
+    @Test
+    public void attemptsStopBeforeTheLockExpires() throws Exception {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setOrderedDispatchMaxAttempts(100);
+        settings.setOrderedDispatchRetryDelayMS(50);
+        settings.setMessageLockDurationMS(400);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Session plainSession = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = plainSession.createQueue("locked");
+            plainSession.createProducer(queue).send(plainSession.createTextMessage("failing"));
+            plainSession.close();
+
+            Session session = connection.createSession(false, INDIVIDUAL_ACKNOWLEDGE);
+            ServiceBusJmsMessageConsumer consumer = (ServiceBusJmsMessageConsumer) session.createConsumer(queue);
+            AtomicInteger attempts = new AtomicInteger();
+            CountDownLatch redelivered = new CountDownLatch(1);
+            ServiceBusJmsOrderedDispatcher dispatcher = new ServiceBusJmsOrderedDispatcher(consumer, message -> {
+                try {
+                    if (message.getIntProperty("JMSXDeliveryCount") > 1) {
+                        redelivered.countDown();
+                        return;
+                    }
+                } catch (JMSException e) {
+                    throw new RuntimeException(e);
+                }
+
+                attempts.incrementAndGet();
+                throw new IllegalArgumentException("Every attempt fails.");
+            });
+            dispatcher.start();
+            connection.start();
+            // Attempts after 0, 50 and 150 ms, the next one would end past half of the lock, so the message is abandoned.
+            assertTrue(redelivered.await(30, TimeUnit.SECONDS));
+            dispatcher.close();
+            consumer.close();
+            assertEquals(3, attempts.get());
+            assertEquals(0, emulator.getMessageCount("locked"));
+        }
+    }
+
+    @Test
+    public void messagesFailingEveryAttemptAreDeadLettered() throws Exception {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setOrderedDispatchMaxAttempts(3);
+        try (Connection connection = createFactory(settings).createConnection()) {
+            Queue queue = send(connection, "poison");
+            Session session = connection.createSession(false, INDIVIDUAL_ACKNOWLEDGE);
+            ServiceBusJmsMessageConsumer consumer = (ServiceBusJmsMessageConsumer) session.createConsumer(queue);
+            Map<String, List<Integer>> sequences = new ConcurrentHashMap<>();
+            CountDownLatch processed = new CountDownLatch(KEYS * (MESSAGES_PER_KEY - 1));
+            AtomicInteger reported = new AtomicInteger();
+            ServiceBusJmsOrderedDispatcher dispatcher = new ServiceBusJmsOrderedDispatcher(consumer, message -> {
+                try {
+                    if (message.getIntProperty("sequence") == 1) {
+                        throw new IllegalArgumentException("Every attempt fails.");
+                    }
+
+                    sequences.computeIfAbsent(message.getStringProperty("JMSXGroupID"), k -> new ArrayList<>()).add(message.getIntProperty("sequence"));
+                } catch (JMSException e) {
+                    throw new RuntimeException(e);
+                }
+
+                processed.countDown();
+            });
+            dispatcher.setExceptionListener(exception -> reported.incrementAndGet());
+            dispatcher.start();
+            connection.start();
+            assertTrue(processed.await(30, TimeUnit.SECONDS));
+            dispatcher.close();
+            consumer.close();
+            assertEquals(KEYS * 3, reported.get());
+            for (List<Integer> sequence : sequences.values()) {
+                assertEquals(MESSAGES_PER_KEY - 1, sequence.size());
+                assertEquals(0, sequence.get(0));
+                for (int i = 1; i < sequence.size(); i++) {
+                    assertEquals(i + 1, sequence.get(i));
+                }
+            }
+
+            assertEquals(0, emulator.getMessageCount("poison"));
+            assertEquals(KEYS, emulator.getMessageCount("poison/$DeadLetterQueue"));
+        }
+    }
+
+    @Test
+    public void messagesAreSettledWhileTheDispatcherRuns() throws Exception {
+        try (Connection connection = createFactory(new ServiceBusJmsConnectionFactorySettings()).createConnection()) {
+            Queue queue = send(connection, "settled");
+            Session session = connection.createSession(false, INDIVIDUAL_ACKNOWLEDGE);
+            ServiceBusJmsMessageConsumer consumer = (ServiceBusJmsMessageConsumer) session.createConsumer(queue);
+            CountDownLatch processed = new CountDownLatch(KEYS * MESSAGES_PER_KEY);
+            ServiceBusJmsOrderedDispatcher dispatcher = new ServiceBusJmsOrderedDispatcher(consumer, message -> processed.countDown());
+            dispatcher.start();
+            connection.start();
+            assertTrue(processed.await(30, TimeUnit.SECONDS));
+
+            // No further message arrives, the receiving thread settles the outcomes the lanes handed back on its own.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (emulator.getMessageCount("settled") > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(0, emulator.getMessageCount("settled"));
+            dispatcher.close();
+            consumer.close();
+        }
+    }
+
+    @Test
+    public void sessionMustAcknowledgeIndividually() throws Exception {
+        try (Connection connection = createFactory(new ServiceBusJmsConnectionFactorySettings()).createConnection()) {
+            Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+            ServiceBusJmsMessageConsumer consumer = (ServiceBusJmsMessageConsumer) session.createConsumer(session.createQueue("client"));
+            assertThrows(IllegalStateException.class, () -> new ServiceBusJmsOrderedDispatcher(consumer, message -> { }));
+        }
+    }
+
+    private Queue send(Connection connection, String queueName) throws JMSException {
+        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        Queue queue = session.createQueue(queueName);
+        MessageProducer producer = session.createProducer(queue);
+        for (int i = 0; i < MESSAGES_PER_KEY; i++) {
+            for (int key = 0; key < KEYS; key++) {
+                Message message = session.createTextMessage("key " + key + " message " + i);
+                message.setStringProperty("JMSXGroupID", "key-" + key);
+                message.setIntProperty("sequence", i);
+                producer.send(message);
+            }
+        }
+
+        session.close();
+        return queue;
+    }
+
+    private ServiceBusJmsConnectionFactory createFactory(ServiceBusJmsConnectionFactorySettings settings) {
+        return new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost(), settings);
+    }
+}
@@ -0,0 +1,191 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.qpid.jms.JmsConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.ServiceBusJmsCompressionCodec;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+
+public class PayloadCompressionTests {
+    private static final long RECEIVE_TIMEOUT_MS = 5000;
+    private static final String ENCODING_PROPERTY = "ServiceBusJmsContentEncoding";
+    private static final int INDIVIDUAL_ACKNOWLEDGE = 101;
+    private ServiceBusEmulator emulator;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    public void textBodiesRoundTripWithEachCodec() throws JMSException {
+        String body = createBody(64 * 1024);
+        for (ServiceBusJmsCompressionCodec codec : ServiceBusJmsCompressionCodec.values()) {
+            try (Connection connection = createFactory(codec).createConnection()) {
+                connection.start();
+                Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+                Queue queue = session.createQueue("orders");
+                TextMessage sent = session.createTextMessage(body);
+                sent.setStringProperty("region", "west");
+                session.createProducer(queue).send(sent);
+                assertTrue(sent.getJMSMessageID() != null);
+
+                Message received = session.createConsumer(queue).receive(RECEIVE_TIMEOUT_MS);
+                assertTrue(received instanceof TextMessage, codec.toString());
+                assertEquals(body, ((TextMessage) received).getText());
+                assertEquals("west", received.getStringProperty("region"));
+                assertEquals(sent.getJMSMessageID(), received.getJMSMessageID());
+                assertFalse(received.propertyExists(ENCODING_PROPERTY));
+            }
+        }
+    }
+
+    @Test
+    public void bytesBodiesRoundTripWithEachCodec() throws JMSException {
+        byte[] body = createBody(64 * 1024).getBytes(StandardCharsets.UTF_8);
+        for (ServiceBusJmsCompressionCodec codec : ServiceBusJmsCompressionCodec.values()) {
+            try (Connection connection = createFactory(codec).createConnection()) {
+                connection.start();
+                Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+                Queue queue = session.createQueue("orders");
+                BytesMessage sent = session.createBytesMessage();
+                sent.writeBytes(body);
+                session.createProducer(queue).send(sent);
+
+                Message received = session.createConsumer(queue).receive(RECEIVE_TIMEOUT_MS);
+                assertTrue(received instanceof BytesMessage, codec.toString());
+                BytesMessage bytesMessage = (BytesMessage) received;
+                byte[] receivedBody = new byte[(int) bytesMessage.getBodyLength()];
+                bytesMessage.readBytes(receivedBody);
+                assertArrayEquals(body, receivedBody);
+            }
+        }
+    }
+
+    @Test
+    public void consumersDecodeWithoutCompressionSettings() throws JMSException {
+        String body = createBody(64 * 1024);
+        try (Connection producerConnection = createFactory(ServiceBusJmsCompressionCodec.GZIP).createConnection();
+                Connection consumerConnection = createFactory(null).createConnection()) {
+            Session producerSession = producerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            producerSession.createProducer(producerSession.createQueue("orders")).send(producerSession.createTextMessage(body));
+
+            consumerConnection.start();
+            Session consumerSession = consumerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Message received = consumerSession.createConsumer(consumerSession.createQueue("orders")).receive(RECEIVE_TIMEOUT_MS);
+            assertEquals(body, ((TextMessage) received).getText());
+        }
+    }
+
+    @Test
+    public void plainJmsConsumersSeeTheEncodedBody() throws JMSException {
+        String body = createBody(64 * 1024);
+        try (Connection producerConnection = createFactory(ServiceBusJmsCompressionCodec.GZIP).createConnection();
+                Connection consumerConnection = new JmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost()).createConnection()) {
+            Session producerSession = producerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            producerSession.createProducer(producerSession.createQueue("orders")).send(producerSession.createTextMessage(body));
+
+            consumerConnection.start();
+            Session consumerSession = consumerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Message received = consumerSession.createConsumer(consumerSession.createQueue("orders")).receive(RECEIVE_TIMEOUT_MS);
+            assertTrue(received instanceof BytesMessage);
+            assertEquals("gzip", received.getStringProperty(ENCODING_PROPERTY));
+            assertTrue(((BytesMessage) received).getBodyLength() < body.length() / 4);
+        }
+    }
+
+    @Test
+    public void smallBodiesAreSentAsTheyAre() throws JMSException {
+        try (Connection producerConnection = createFactory(ServiceBusJmsCompressionCodec.GZIP).createConnection();
+                Connection consumerConnection = createFactory(null).createConnection()) {
+            Session producerSession = producerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = producerSession.createProducer(producerSession.createQueue("orders"));
+            producer.send(producerSession.createTextMessage(createBody(1024)));
+
+            consumerConnection.start();
+            Session consumerSession = consumerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageConsumer consumer = consumerSession.createConsumer(consumerSession.createQueue("orders"));
+            Message received = consumer.receive(RECEIVE_TIMEOUT_MS);
+            assertTrue(received instanceof TextMessage);
+            assertFalse(received.propertyExists(ENCODING_PROPERTY));
+        }
+    }
+
+    @Test
+    public void undecodableMessagesAreNotHandedToTheListener() throws Exception {
+        emulator.setMaxDeliveryCount(2);
+        emulator.createQueue("orders");
+        try (Connection producerConnection = new JmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost()).createConnection();
+                Connection consumerConnection = createFactory(null).createConnection()) {
+            Session producerSession = producerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            BytesMessage corrupt = producerSession.createBytesMessage();
+            corrupt.writeBytes("not gzip".getBytes(StandardCharsets.UTF_8));
+            corrupt.setStringProperty(ENCODING_PROPERTY, "gzip");
+            producerSession.createProducer(producerSession.createQueue("orders")).send(corrupt);
+
+            CountDownLatch failures = new CountDownLatch(2);
+            AtomicInteger delivered = new AtomicInteger();
+            consumerConnection.setExceptionListener(exception -> failures.countDown());
+            Session consumerSession = consumerConnection.createSession(false, INDIVIDUAL_ACKNOWLEDGE);
+            consumerSession.createConsumer(consumerSession.createQueue("orders")).setMessageListener(message -> delivered.incrementAndGet());
+            consumerConnection.start();
+
+            // Abandoned on each delivery, then dead-lettered once it used up its deliveries.
+            assertTrue(failures.await(RECEIVE_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+            consumerConnection.close();
+            assertEquals(0, delivered.get());
+            assertEquals(0, emulator.getMessageCount("orders"));
+            assertEquals(1, emulator.getMessageCount("orders/$DeadLetterQueue"));
+        }
+    }
+
+    private ServiceBusJmsConnectionFactory createFactory(ServiceBusJmsCompressionCodec codec) {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        if (codec != null) {
+            settings.setPayloadCompression("orders", codec);
+        }
+
+        return new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost(), settings);
+    }
+
+    private static String createBody(int size) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; body.length() < size; i++) {
+            body.append("{\"orderId\":").append(i).append(",\"status\":\"shipped\",\"items\":[\"book\",\"pen\"]},");
+        }
+
+        return body.toString();
+    }
+}
@@ -0,0 +1,576 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in-process AMQP 1.0 broker that behaves like a Service Bus namespace, for tests and benchmarks that cannot use a real one.
+ * Point a ServiceBusJmsConnectionFactory at {@link #getHost()} or {@link #getConnectionString()}.
+ * <p>
+ * The emulator supports queues, topics with subscriptions and their dead-letter queues, peek-lock settlement with lock expiry
+ * and a maximum delivery count, the $cbs node for put-token requests, temporary destinations and the anonymous relay.
+ * Clients that open their connection with the com.microsoft:is-client-provider property may create entities by using them,
+ * and the com.microsoft auto-delete-on-idle durations of their open properties apply to the entities they create.
+ * Message selectors are accepted but not applied, and transactions are not supported.
+ * <p>
+ * Latency and throttling can be configured to measure how the client copes with a slow or busy namespace.
+ * All broker state lives on a single thread, so the emulator is not meant to measure the throughput of the broker itself.
+ */
+public final class ServiceBusEmulator implements AutoCloseable {
+    private static final long SWEEP_INTERVAL_MS = 100;
+
+    private final ScheduledExecutorService executor;
+    private final Map<String, EmulatorQueue> queues = new HashMap<>();
+    private final Map<String, EmulatorTopic> topics = new HashMap<>();
+    private final List<EmulatorConnection> connections = new ArrayList<>();
+    private final List<PutToken> putTokens = new CopyOnWriteArrayList<>();
+    // Bumped whenever a receiver link attaches to or detaches from a queue or subscription.
+    private final Object consumerChanges = new Object();
+    private long consumerChangeCount;
+    private volatile long latencyNanos;
+    private volatile long lockDurationMS = 60000;
+    private volatile int maxDeliveryCount = 10;
+    private volatile boolean autoCreateEntities = true;
+    private volatile int maxMessagesPerSecond;
+    private long throttleWindowStartNanos;
+    private int throttleWindowCount;
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+    private int port;
+
+    public ServiceBusEmulator() {
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ServiceBusEmulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(() -> this.run(this::sweep), SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start accepting connections on localhost. The first start picks a free port, later starts reuse it.
+     */
+    public synchronized void start() throws IOException {
+        if (this.serverSocket != null) {
+            return;
+        }
+
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), this.port));
+        this.port = socket.getLocalPort();
+        this.serverSocket = socket;
+        this.acceptThread = new Thread(() -> this.acceptLoop(socket), "ServiceBusEmulator-accept");
+        this.acceptThread.setDaemon(true);
+        this.acceptThread.start();
+    }
+
+    /**
+     * Stop accepting connections and drop the open ones, as a namespace does during an outage. Entities and messages are kept,
+     * so the emulator can be started again to test reconnects.
+     */
+    public synchronized void stop() {
+        if (this.serverSocket == null) {
+            return;
+        }
+
+        try {
+            this.serverSocket.close();
+            this.acceptThread.join();
+        } catch (IOException e) {
+            // The socket is closed either way.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.serverSocket = null;
+        this.dropConnections();
+    }
+
+    @Override
+    public void close() {
+        this.stop();
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * @return The port the emulator listens on, 0 before it was started.
+     */
+    public int getPort() {
+        return this.port;
+    }
+
+    /**
+     * @return The host to create a ServiceBusJmsConnectionFactory with, an amqp:// URI as the emulator does not use TLS.
+     */
+    public String getHost() {
+        return "amqp://localhost:" + this.port;
+    }
+
+    /**
+     * @return A connection string for the emulator. Any key name and key are accepted.
+     */
+    public String getConnectionString() {
+        return "Endpoint=amqp://localhost:" + this.port + "/;SharedAccessKeyName=RootManageSharedAccessKey;SharedAccessKey=emulator";
+    }
+
+    /**
+     * @param latency The delay before the emulator handles what a client sent, which delays every request and acknowledgement.
+     */
+    public void setLatency(Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    /**
+     * @param maxMessagesPerSecond The number of messages the namespace accepts per second before it rejects sends as busy, 0 for no limit.
+     */
+    public void setMaxMessagesPerSecond(int maxMessagesPerSecond) {
+        this.maxMessagesPerSecond = maxMessagesPerSecond;
+    }
+
+    /**
+     * @param lockDuration How long a delivered message stays locked before it becomes available again.
+     */
+    public void setLockDuration(Duration lockDuration) {
+        this.lockDurationMS = lockDuration.toMillis();
+    }
+
+    /**
+     * @param maxDeliveryCount The number of failed deliveries after which a message is moved to the dead-letter queue.
+     */
+    public void setMaxDeliveryCount(int maxDeliveryCount) {
+        this.maxDeliveryCount = maxDeliveryCount;
+    }
+
+    /**
+     * @param autoCreateEntities Whether connections with the is-client-provider property create the queues and topics they use.
+     */
+    public void setAutoCreateEntities(boolean autoCreateEntities) {
+        this.autoCreateEntities = autoCreateEntities;
+    }
+
+    public void createQueue(String name) {
+        this.call(() -> this.queues.computeIfAbsent(key(name), key -> new EmulatorQueue(this, name, false)));
+    }
+
+    public void createTopic(String name) {
+        this.call(() -> this.topics.computeIfAbsent(key(name), key -> new EmulatorTopic(this, name)));
+    }
+
+    public void createSubscription(String topicName, String subscriptionName) {
+        this.call(() -> this.topics.computeIfAbsent(key(topicName), key -> new EmulatorTopic(this, topicName)).createSubscription(subscriptionName));
+    }
+
+    /**
+     * @param path The path of a queue, topic, subscription (topic/Subscriptions/name) or dead-letter queue (path/$DeadLetterQueue).
+     * @return Whether the entity exists.
+     */
+    public boolean exists(String path) {
+        return this.call(() -> this.find(path) != null);
+    }
+
+    /**
+     * @param path The path of a queue, subscription or dead-letter queue.
+     * @return The number of messages in the entity, including locked ones.
+     */
+    public int getMessageCount(String path) {
+        return this.call(() -> {
+            EmulatorEntity entity = this.find(path);
+            if (!(entity instanceof EmulatorQueue)) {
+                throw new IllegalArgumentException("No queue, subscription or dead-letter queue at " + path);
+            }
+
+            return ((EmulatorQueue) entity).getMessageCount();
+        });
+    }
+
+    /**
+     * @param path The path of a queue or topic.
+     * @return The number of sender links attached to the entity.
+     */
+    public int getProducerCount(String path) {
+        return this.call(() -> {
+            EmulatorEntity entity = this.find(path);
+            if (entity == null) {
+                throw new IllegalArgumentException("No queue or topic at " + path);
+            }
+
+            return entity.getProducerCount();
+        });
+    }
+
+    /**
+     * Wait until the given number of receiver links is attached to a queue or subscription.
+     * @return True if it was before the timeout.
+     */
+    public boolean awaitConsumerCount(String path, int count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            long changeCount;
+            synchronized (this.consumerChanges) {
+                changeCount = this.consumerChangeCount;
+            }
+
+            int consumerCount = this.call(() -> {
+                EmulatorEntity entity = this.find(path);
+                if (!(entity instanceof EmulatorQueue)) {
+                    throw new IllegalArgumentException("No queue or subscription at " + path);
+                }
+
+                return ((EmulatorQueue) entity).getConsumerCount();
+            });
+            if (consumerCount == count) {
+                return true;
+            }
+
+            synchronized (this.consumerChanges) {
+                while (this.consumerChangeCount == changeCount) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+
+                    TimeUnit.NANOSECONDS.timedWait(this.consumerChanges, remaining);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The open properties of each connected client, keyed by property name.
+     */
+    public List<Map<String, Object>> getConnectionProperties() {
+        return this.call(() -> {
+            List<Map<String, Object>> properties = new ArrayList<>();
+            for (EmulatorConnection connection : this.connections) {
+                properties.add(connection.getProperties());
+            }
+
+            return properties;
+        });
+    }
+
+    /**
+     * @return The SASL user names of the connected clients.
+     */
+    public List<String> getUserNames() {
+        return this.call(() -> {
+            List<String> userNames = new ArrayList<>();
+            for (EmulatorConnection connection : this.connections) {
+                userNames.add(connection.getUserName());
+            }
+
+            return userNames;
+        });
+    }
+
+    /**
+     * @return The accepted put-token requests of the $cbs node, oldest first.
+     */
+    public List<PutToken> getPutTokens() {
+        return new ArrayList<>(this.putTokens);
+    }
+
+    /**
+     * Wait until the $cbs node accepted the given number of put-token requests.
+     * @return True if it did before the timeout.
+     */
+    public boolean awaitPutTokens(int count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (this.putTokens) {
+            while (this.putTokens.size() < count) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                TimeUnit.NANOSECONDS.timedWait(this.putTokens, remaining);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Drop all client connections without closing them properly, as a network failure does.
+     */
+    public void dropConnections() {
+        this.call(() -> {
+            for (EmulatorConnection connection : new ArrayList<>(this.connections)) {
+                connection.close();
+            }
+
+            return null;
+        });
+    }
+
+    long getLockDurationMS() {
+        return this.lockDurationMS;
+    }
+
+    int getMaxDeliveryCount() {
+        return this.maxDeliveryCount;
+    }
+
+    void executeDelayed(Runnable task) {
+        long delay = this.latencyNanos;
+        try {
+            if (delay > 0) {
+                this.executor.schedule(() -> this.run(task), delay, TimeUnit.NANOSECONDS);
+            } else {
+                this.executor.execute(() -> this.run(task));
+            }
+        } catch (RuntimeException e) {
+            // The emulator is closed.
+        }
+    }
+
+    /**
+     * Find the entity a link or message addresses, creating it for clients that may create entities.
+     * @param topic Whether the client addresses a topic, which decides the kind of entity to create.
+     */
+    EmulatorEntity resolve(String address, boolean topic, EmulatorConnection connection) {
+        EmulatorEntity entity = this.find(address);
+        if (entity != null || address.contains("/") || !this.autoCreateEntities || !connection.isClientProvider()) {
+            return entity;
+        }
+
+        if (topic) {
+            EmulatorTopic created = new EmulatorTopic(this, address);
+            created.setAutoDeleteOnIdleMS(connection.getTopicAutoDeleteOnIdleMS());
+            this.topics.put(key(address), created);
+            return created;
+        }
+
+        EmulatorQueue created = new EmulatorQueue(this, address, false);
+        created.setAutoDeleteOnIdleMS(connection.getQueueAutoDeleteOnIdleMS());
+        this.queues.put(key(address), created);
+        return created;
+    }
+
+    EmulatorTopic findTopicWithSubscription(String subscriptionName) {
+        for (EmulatorTopic topic : this.topics.values()) {
+            if (topic.getSubscription(subscriptionName) != null) {
+                return topic;
+            }
+        }
+
+        return null;
+    }
+
+    EmulatorEntity createTemporaryEntity(boolean topic) {
+        String name = "temp-" + UUID.randomUUID();
+        if (topic) {
+            EmulatorTopic created = new EmulatorTopic(this, name);
+            this.topics.put(key(name), created);
+            return created;
+        }
+
+        EmulatorQueue created = new EmulatorQueue(this, name, false);
+        this.queues.put(key(name), created);
+        return created;
+    }
+
+    void deleteEntity(EmulatorEntity entity) {
+        this.queues.values().remove(entity);
+        this.topics.values().remove(entity);
+    }
+
+    void onConnectionClosed(EmulatorConnection connection) {
+        this.connections.remove(connection);
+    }
+
+    void onConsumersChanged() {
+        synchronized (this.consumerChanges) {
+            this.consumerChangeCount++;
+            this.consumerChanges.notifyAll();
+        }
+    }
+
+    void onPutToken(PutToken putToken) {
+        synchronized (this.putTokens) {
+            this.putTokens.add(putToken);
+            this.putTokens.notifyAll();
+        }
+    }
+
+    boolean tryAcquireSendPermit() {
+        int max = this.maxMessagesPerSecond;
+        if (max <= 0) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        if (now - this.throttleWindowStartNanos >= TimeUnit.SECONDS.toNanos(1)) {
+            this.throttleWindowStartNanos = now;
+            this.throttleWindowCount = 0;
+        }
+
+        return ++this.throttleWindowCount <= max;
+    }
+
+    private EmulatorEntity find(String address) {
+        String[] parts = address.split("/");
+        if (parts.length == 1) {
+            EmulatorQueue queue = this.queues.get(key(address));
+            return queue != null ? queue : this.topics.get(key(address));
+        }
+
+        if (parts.length == 2 && parts[1].equalsIgnoreCase(EmulatorQueue.DEAD_LETTER_QUEUE_NAME)) {
+            EmulatorQueue queue = this.queues.get(key(parts[0]));
+            return queue != null ? queue.getDeadLetterQueue() : null;
+        }
+
+        if ((parts.length == 3 || parts.length == 4) && parts[1].equalsIgnoreCase(EmulatorTopic.SUBSCRIPTIONS)) {
+            EmulatorTopic topic = this.topics.get(key(parts[0]));
+            EmulatorQueue subscription = topic != null ? topic.getSubscription(parts[2]) : null;
+            if (subscription == null || parts.length == 3) {
+                return subscription;
+            }
+
+            return parts[3].equalsIgnoreCase(EmulatorQueue.DEAD_LETTER_QUEUE_NAME) ? subscription.getDeadLetterQueue() : null;
+        }
+
+        return null;
+    }
+
+    private void acceptLoop(ServerSocket socket) {
+        while (!socket.isClosed()) {
+            try {
+                Socket clientSocket = socket.accept();
+                clientSocket.setTcpNoDelay(true);
+                EmulatorConnection connection = new EmulatorConnection(this, clientSocket);
+                this.executor.execute(() -> this.connections.add(connection));
+                Thread reader = new Thread(connection::readLoop, "ServiceBusEmulator-connection");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                // The emulator was stopped.
+            }
+        }
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        for (EmulatorConnection connection : new ArrayList<>(this.connections)) {
+            connection.tick(now);
+        }
+
+        Iterator<EmulatorQueue> queueIterator = this.queues.values().iterator();
+        while (queueIterator.hasNext()) {
+            EmulatorQueue queue = queueIterator.next();
+            queue.expireLocks(now);
+            if (queue.shouldAutoDelete(now)) {
+                queueIterator.remove();
+            }
+        }
+
+        Iterator<EmulatorTopic> topicIterator = this.topics.values().iterator();
+        while (topicIterator.hasNext()) {
+            EmulatorTopic topic = topicIterator.next();
+            for (EmulatorQueue subscription : new ArrayList<>(topic.getSubscriptions())) {
+                subscription.expireLocks(now);
+            }
+
+            topic.removeIdleSubscriptions(now);
+            if (topic.shouldAutoDelete(now)) {
+                topicIterator.remove();
+            }
+        }
+    }
+
+    // Runs a task on the emulator thread, then lets every connection react to what the task changed.
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } finally {
+            this.flushConnections();
+        }
+    }
+
+    private void flushConnections() {
+        boolean busy = true;
+        while (busy) {
+            busy = false;
+            for (EmulatorConnection connection : new ArrayList<>(this.connections)) {
+                busy |= connection.processEvents();
+            }
+        }
+
+        for (EmulatorConnection connection : new ArrayList<>(this.connections)) {
+            connection.flush();
+        }
+    }
+
+    private <T> T call(Callable<T> task) {
+        try {
+            return this.executor.submit(() -> {
+                try {
+                    return task.call();
+                } finally {
+                    this.flushConnections();
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A put-token request the $cbs node accepted.
+     */
+    public static final class PutToken {
+        private final String type;
+        private final String audience;
+        private final String token;
+
+        PutToken(String type, String audience, String token) {
+            this.type = type;
+            this.audience = audience;
+            this.token = token;
+        }
+
+        public String getType() {
+            return this.type;
+        }
+
+        public String getAudience() {
+            return this.audience;
+        }
+
+        public String getToken() {
+            return this.token;
+        }
+    }
+}
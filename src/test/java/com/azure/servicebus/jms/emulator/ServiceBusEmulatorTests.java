@@ -0,0 +1,256 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+import com.azure.servicebus.jms.ServiceBusJmsEventLoopMetrics;
+import com.azure.servicebus.jms.ServiceBusJmsMessageConsumer;
+import com.azure.servicebus.jms.ServiceBusJmsMessageSettlement;
+
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+import jakarta.jms.TemporaryQueue;
+import jakarta.jms.TextMessage;
+import jakarta.jms.Topic;
+
+public class ServiceBusEmulatorTests {
+    private static final long RECEIVE_TIMEOUT_MS = 5000;
+    private ServiceBusEmulator emulator;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    public void sendAndReceiveOnQueue() throws JMSException {
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(emulator.getConnectionString(), null);
+        try (Connection connection = factory.createConnection()) {
+            connection.start();
+            Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+            Queue queue = session.createQueue("orders");
+            session.createProducer(queue).send(session.createTextMessage("hello"));
+            assertEquals(1, emulator.getMessageCount("orders"));
+
+            Message message = session.createConsumer(queue).receive(RECEIVE_TIMEOUT_MS);
+            assertEquals("hello", ((TextMessage) message).getText());
+            message.acknowledge();
+        }
+
+        assertEquals(0, emulator.getMessageCount("orders"));
+    }
+
+    @Test
+    public void sessionsSpreadOverConnectionShards() throws JMSException {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setConnectionShardCount(2);
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(emulator.getConnectionString(), settings);
+        try (Connection connection = factory.createConnection()) {
+            connection.start();
+            Session sender = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Session receiver = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            assertEquals(2, emulator.getConnectionProperties().size());
+
+            sender.createProducer(sender.createQueue("orders")).send(sender.createTextMessage("hello"));
+            Message message = receiver.createConsumer(receiver.createQueue("orders")).receive(RECEIVE_TIMEOUT_MS);
+            assertEquals("hello", ((TextMessage) message).getText());
+
+            // With both shards in use by one session each, a third session does not open another connection.
+            connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            assertEquals(2, emulator.getConnectionProperties().size());
+        }
+    }
+
+    @Test
+    public void temporaryQueueServesSessionsOnEveryShard() throws JMSException {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setConnectionShardCount(2);
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(emulator.getConnectionString(), settings);
+        try (Connection connection = factory.createConnection()) {
+            connection.start();
+            Session primary = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Session requester = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            assertEquals(2, emulator.getConnectionProperties().size());
+
+            // The requester runs on the second connection, its reply queue still belongs to the first one.
+            TemporaryQueue replies = requester.createTemporaryQueue();
+            MessageConsumer replyConsumer = requester.createConsumer(replies);
+            primary.createProducer(replies).send(primary.createTextMessage("reply"));
+            assertEquals("reply", ((TextMessage) replyConsumer.receive(RECEIVE_TIMEOUT_MS)).getText());
+
+            // Other sessions on either connection consume it as well.
+            Session other = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            requester.createProducer(replies).send(requester.createTextMessage("second"));
+            replyConsumer.close();
+            assertEquals("second", ((TextMessage) other.createConsumer(replies).receive(RECEIVE_TIMEOUT_MS)).getText());
+            assertEquals(2, emulator.getConnectionProperties().size());
+        }
+    }
+
+    @Test
+    public void clientIdKeepsSessionsOnOneConnection() throws JMSException {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setConnectionShardCount(2);
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(emulator.getConnectionString(), settings);
+        try (Connection connection = factory.createConnection()) {
+            connection.setClientID("client");
+            connection.start();
+            connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            assertEquals(1, emulator.getConnectionProperties().size());
+        }
+    }
+
+    @Test
+    public void connectionsShareEventLoops() throws JMSException {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setSharedEventLoopThreads(1);
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(emulator.getConnectionString(), settings);
+        try (Connection first = factory.createConnection(); Connection second = factory.createConnection()) {
+            first.start();
+            second.start();
+            Session session = second.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            session.createProducer(session.createQueue("orders")).send(session.createTextMessage("hello"));
+            assertEquals(2, emulator.getConnectionProperties().size());
+
+            List<ServiceBusJmsEventLoopMetrics> loops = factory.getMetrics().getEventLoops();
+            assertEquals(1, loops.size());
+            assertTrue(loops.get(0).getCpuTimeNanos() != 0);
+        }
+
+        assertTrue(factory.getMetrics().getEventLoops().isEmpty());
+    }
+
+    @Test
+    public void openPropertiesReachTheNamespace() throws JMSException {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setQueueAutoDeleteOnIdleDurationInSeconds(300);
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost(), settings);
+        try (Connection connection = factory.createConnection()) {
+            connection.start();
+            List<Map<String, Object>> properties = emulator.getConnectionProperties();
+            assertEquals(1, properties.size());
+            assertEquals(Boolean.TRUE, properties.get(0).get("com.microsoft:is-client-provider"));
+            assertEquals(300L, properties.get(0).get("com.microsoft:queue-auto-delete-on-idle-duration-in-seconds"));
+            assertEquals(Collections.singletonList("RootManageSharedAccessKey"), emulator.getUserNames());
+        }
+    }
+
+    @Test
+    public void publishToTopicSubscription() throws JMSException {
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(emulator.getConnectionString(), null);
+        try (Connection connection = factory.createConnection()) {
+            connection.setClientID("emulator-test");
+            connection.start();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Topic topic = session.createTopic("events");
+            MessageConsumer subscriber = session.createDurableSubscriber(topic, "audit");
+            session.createProducer(topic).send(session.createTextMessage("created"));
+
+            assertEquals("created", ((TextMessage) subscriber.receive(RECEIVE_TIMEOUT_MS)).getText());
+            subscriber.close();
+            assertTrue(emulator.exists("events/Subscriptions/audit"));
+
+            session.unsubscribe("audit");
+            assertTrue(!emulator.exists("events/Subscriptions/audit"));
+        }
+    }
+
+    @Test
+    public void rejectedMessageIsDeadLettered() throws JMSException {
+        emulator.createQueue("payments");
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(emulator.getConnectionString(), null);
+        try (Connection connection = factory.createConnection()) {
+            connection.start();
+            Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+            Queue queue = session.createQueue("payments");
+            session.createProducer(queue).send(session.createTextMessage("invalid"));
+
+            ServiceBusJmsMessageConsumer consumer = (ServiceBusJmsMessageConsumer) session.createConsumer(queue);
+            List<Message> messages = consumer.receiveBatch(1, Duration.ofMillis(RECEIVE_TIMEOUT_MS));
+            consumer.settle(messages, ServiceBusJmsMessageSettlement.REJECT);
+            consumer.close();
+
+            Message deadLettered = session.createConsumer(session.createQueue("payments/$DeadLetterQueue")).receive(RECEIVE_TIMEOUT_MS);
+            assertEquals("invalid", ((TextMessage) deadLettered).getText());
+            assertEquals("Rejected", deadLettered.getStringProperty("DeadLetterReason"));
+        }
+    }
+
+    @Test
+    public void sasTokenIsRenewedOnCbsNode() throws Exception {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setSasTokenAuthenticationEnabled(true);
+        settings.setSasTokenTimeToLiveMS(1000);
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost(), settings);
+        try (Connection connection = factory.createConnection()) {
+            connection.start();
+            assertTrue(emulator.awaitPutTokens(1, Duration.ofMillis(RECEIVE_TIMEOUT_MS)));
+            ServiceBusEmulator.PutToken putToken = emulator.getPutTokens().get(0);
+            assertEquals("servicebus.windows.net:sastoken", putToken.getType());
+            assertEquals("amqp://localhost:" + emulator.getPort() + "/", putToken.getAudience());
+            assertTrue(putToken.getToken().startsWith("SharedAccessSignature "));
+        }
+    }
+
+    @Test
+    public void throttledSendIsRejected() throws JMSException {
+        emulator.setMaxMessagesPerSecond(1);
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(emulator.getConnectionString(), null);
+        try (Connection connection = factory.createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = session.createProducer(session.createQueue("busy"));
+            producer.send(session.createTextMessage("first"));
+
+            JMSException exception = assertThrows(JMSException.class, () -> producer.send(session.createTextMessage("second")));
+            assertTrue(exception.getMessage().contains("throttled"));
+        }
+    }
+
+    @Test
+    public void reconnectsAfterOutage() throws Exception {
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory(emulator.getConnectionString(), null);
+        try (Connection connection = factory.createConnection()) {
+            connection.start();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("resilient");
+            MessageProducer producer = session.createProducer(queue);
+            MessageConsumer consumer = session.createConsumer(queue);
+
+            emulator.stop();
+            emulator.start();
+            producer.send(session.createTextMessage("after outage"));
+
+            Message message = consumer.receive(RECEIVE_TIMEOUT_MS);
+            assertNotNull(message);
+            assertEquals("after outage", ((TextMessage) message).getText());
+        }
+    }
+}
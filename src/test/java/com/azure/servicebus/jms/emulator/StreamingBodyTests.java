@@ -0,0 +1,92 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+import com.azure.servicebus.jms.ServiceBusJmsMessageBodies;
+import com.azure.servicebus.jms.ServiceBusJmsSession;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Connection;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+public class StreamingBodyTests {
+    private static final long RECEIVE_TIMEOUT_MS = 5000;
+    private static final int BODY_SIZE = 4 * 1024 * 1024 + 17;
+    private ServiceBusEmulator emulator;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    public void bodiesStreamFromAndToFiles() throws Exception {
+        byte[] body = new byte[BODY_SIZE];
+        new Random(42).nextBytes(body);
+        Path source = Files.write(directory.resolve("source"), body);
+        Path target = directory.resolve("target");
+
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key",
+            emulator.getHost(), new ServiceBusJmsConnectionFactorySettings());
+        try (Connection connection = factory.createConnection(); FileChannel input = FileChannel.open(source)) {
+            connection.start();
+            ServiceBusJmsSession session = (ServiceBusJmsSession) connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("transfers");
+            session.createProducer(queue).send(session.createBytesMessage(input));
+            session.createProducer(queue).send(session.createBytesMessage(new ByteArrayInputStream(body), body.length));
+            session.createProducer(queue).send(session.createBytesMessage(input.map(FileChannel.MapMode.READ_ONLY, 0, input.size())));
+            assertEquals(0, input.position());
+
+            for (int i = 0; i < 3; i++) {
+                BytesMessage received = (BytesMessage) session.createConsumer(queue).receive(RECEIVE_TIMEOUT_MS);
+                try (FileChannel output = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                    assertEquals(BODY_SIZE, ServiceBusJmsMessageBodies.writeBody(received, output));
+                }
+
+                assertArrayEquals(body, Files.readAllBytes(target));
+            }
+        }
+    }
+
+    @Test
+    public void shortStreamsAreRejected() throws Exception {
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key",
+            emulator.getHost(), new ServiceBusJmsConnectionFactorySettings());
+        try (Connection connection = factory.createConnection()) {
+            ServiceBusJmsSession session = (ServiceBusJmsSession) connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            assertThrows(EOFException.class, () -> session.createBytesMessage(new ByteArrayInputStream(new byte[10]), 11));
+        }
+    }
+}
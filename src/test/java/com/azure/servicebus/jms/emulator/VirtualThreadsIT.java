@@ -0,0 +1,98 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+import com.azure.servicebus.jms.ServiceBusJmsListenerContainer;
+
+import jakarta.jms.Connection;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+/**
+ * Runs on Java 21 or later against the packaged multi-release jar, see the multi-release profile of the pom.
+ * The unit tests load the classes from target/classes, where the Java 8 versions are used on any Java version.
+ */
+public class VirtualThreadsIT {
+    private ServiceBusEmulator emulator;
+
+    @BeforeEach
+    public void startEmulator() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+    }
+
+    @AfterEach
+    public void closeEmulator() {
+        emulator.close();
+    }
+
+    @Test
+    public void jarCarriesTheJava21Classes() throws Exception {
+        File jar = new File(ServiceBusJmsListenerContainer.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        assertTrue(jar.isFile(), "Not loaded from the packaged jar: " + jar);
+        try (JarFile file = new JarFile(jar)) {
+            assertEquals("true", file.getManifest().getMainAttributes().getValue("Multi-Release"));
+            assertNotNull(file.getEntry("META-INF/versions/21/com/azure/servicebus/jms/VirtualThreads.class"));
+        }
+    }
+
+    @Test
+    public void listenersRunOnVirtualThreads() throws Exception {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setVirtualThreadReceiveLoopsEnabled(true);
+        settings.setVirtualThreadPerMessageEnabled(true);
+        settings.setListenerContainerMaxMessagesPerConsumer(16);
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key", emulator.getHost(), settings);
+        try (Connection connection = factory.createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("virtual");
+            MessageProducer producer = session.createProducer(queue);
+            for (int i = 0; i < 20; i++) {
+                producer.send(session.createTextMessage("message " + i));
+            }
+
+            session.close();
+            Set<Boolean> virtual = ConcurrentHashMap.newKeySet();
+            CountDownLatch processed = new CountDownLatch(20);
+            try (ServiceBusJmsListenerContainer container = new ServiceBusJmsListenerContainer(connection, queue, message -> {
+                virtual.add(isVirtual(Thread.currentThread()));
+                processed.countDown();
+            })) {
+                container.start();
+                assertTrue(processed.await(30, TimeUnit.SECONDS));
+            }
+
+            assertEquals(Collections.singleton(true), virtual);
+            assertEquals(0, emulator.getMessageCount("virtual"));
+        }
+    }
+
+    // Thread.isVirtual is Java 21 API, the tests compile against Java 8.
+    private static boolean isVirtual(Thread thread) {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
+
+/**
+ * Terminates AMQP over WebSockets the way the Service Bus gateway does and forwards the AMQP bytes to an emulator.
+ * Point a factory using the AMQP_WEB_SOCKETS transport at {@link #getHost()}.
+ * The proxy accepts the permessage-deflate extension and counts the bytes clients send on the wire, so tests can tell
+ * whether compression was negotiated and how much it saved.
+ */
+public final class WebSocketProxy implements AutoCloseable {
+    private static final String PATH = "/$servicebus/websocket";
+    private static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    private final int targetPort;
+    private final EventLoopGroup group = new NioEventLoopGroup(1);
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final List<String> offeredExtensions = new ArrayList<>();
+    private Channel serverChannel;
+
+    /**
+     * @param targetPort The port of the emulator to forward connections to.
+     */
+    public WebSocketProxy(int targetPort) {
+        this.targetPort = targetPort;
+    }
+
+    public synchronized void start() throws InterruptedException {
+        ServerBootstrap bootstrap = new ServerBootstrap()
+            .group(this.group)
+            .channel(NioServerSocketChannel.class)
+            .childHandler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel channel) {
+                    channel.pipeline().addLast(
+                        new ByteCounter(),
+                        new HttpServerCodec(),
+                        new HttpObjectAggregator(65536),
+                        new WebSocketServerCompressionHandler(),
+                        new WebSocketServerProtocolHandler(PATH, "amqp", true, MAX_FRAME_SIZE),
+                        new Forwarder());
+                }
+            });
+        this.serverChannel = bootstrap.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)).sync().channel();
+    }
+
+    public int getPort() {
+        return ((InetSocketAddress) this.serverChannel.localAddress()).getPort();
+    }
+
+    /**
+     * @return The host to hand to a ServiceBusJmsConnectionFactory together with the AMQP_WEB_SOCKETS transport.
+     */
+    public String getHost() {
+        return "amqp://localhost:" + this.getPort();
+    }
+
+    /**
+     * @return The bytes clients sent to the proxy, including the HTTP handshake and WebSocket framing.
+     */
+    public long getBytesReceived() {
+        return this.bytesReceived.get();
+    }
+
+    /**
+     * @return The Sec-WebSocket-Extensions header of each handshake, empty for handshakes that offered none.
+     */
+    public synchronized List<String> getOfferedExtensions() {
+        return new ArrayList<>(this.offeredExtensions);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.serverChannel != null) {
+            this.serverChannel.close().syncUninterruptibly();
+        }
+
+        this.group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    private synchronized void onHandshake(String extensions) {
+        this.offeredExtensions.add(extensions == null ? "" : extensions);
+    }
+
+    private final class ByteCounter extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof ByteBuf) {
+                bytesReceived.addAndGet(((ByteBuf) msg).readableBytes());
+            }
+
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    private final class Forwarder extends SimpleChannelInboundHandler<WebSocketFrame> {
+        // Frames that arrive before the connection to the emulator is up.
+        private final List<ByteBuf> pending = new ArrayList<>();
+        private Channel target;
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object event) throws Exception {
+            if (!(event instanceof WebSocketServerProtocolHandler.HandshakeComplete)) {
+                super.userEventTriggered(ctx, event);
+                return;
+            }
+
+            onHandshake(((WebSocketServerProtocolHandler.HandshakeComplete) event).requestHeaders().get(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS));
+            Channel client = ctx.channel();
+            ChannelFuture connect = new Bootstrap()
+                .group(client.eventLoop())
+                .channel(NioSocketChannel.class)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        channel.pipeline().addLast(new SimpleChannelInboundHandler<ByteBuf>() {
+                            @Override
+                            protected void channelRead0(ChannelHandlerContext targetCtx, ByteBuf bytes) {
+                                client.writeAndFlush(new BinaryWebSocketFrame(bytes.retain()));
+                            }
+
+                            @Override
+                            public void channelInactive(ChannelHandlerContext targetCtx) {
+                                client.close();
+                            }
+                        });
+                    }
+                })
+                .connect(InetAddress.getLoopbackAddress(), targetPort);
+            connect.addListener(future -> {
+                if (!future.isSuccess()) {
+                    client.close();
+                    return;
+                }
+
+                this.target = connect.channel();
+                for (ByteBuf bytes : this.pending) {
+                    this.target.write(bytes);
+                }
+
+                this.pending.clear();
+                this.target.flush();
+            });
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, WebSocketFrame frame) {
+            if (!(frame instanceof BinaryWebSocketFrame) && !(frame instanceof ContinuationWebSocketFrame)) {
+                return;
+            }
+
+            ByteBuf bytes = frame.content().retain();
+            if (this.target == null) {
+                this.pending.add(bytes);
+            } else {
+                this.target.writeAndFlush(bytes);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            for (ByteBuf bytes : this.pending) {
+                bytes.release();
+            }
+
+            this.pending.clear();
+            if (this.target != null) {
+                this.target.close();
+            }
+        }
+    }
+}
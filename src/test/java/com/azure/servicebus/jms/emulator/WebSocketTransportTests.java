@@ -0,0 +1,81 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.emulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+import com.azure.servicebus.jms.TransportType;
+
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+
+public class WebSocketTransportTests {
+    private static final long RECEIVE_TIMEOUT_MS = 5000;
+    private static final int BODY_SIZE = 256 * 1024;
+    private ServiceBusEmulator emulator;
+    private WebSocketProxy proxy;
+
+    @BeforeEach
+    public void start() throws Exception {
+        emulator = new ServiceBusEmulator();
+        emulator.start();
+        proxy = new WebSocketProxy(emulator.getPort());
+        proxy.start();
+    }
+
+    @AfterEach
+    public void close() {
+        proxy.close();
+        emulator.close();
+    }
+
+    @Test
+    public void sendAndReceiveOverWebSockets() throws JMSException {
+        roundTrip(false);
+        assertEquals(1, proxy.getOfferedExtensions().size());
+        assertFalse(proxy.getOfferedExtensions().get(0).contains("permessage-deflate"));
+        assertTrue(proxy.getBytesReceived() > BODY_SIZE);
+    }
+
+    @Test
+    public void compressOverWebSockets() throws JMSException {
+        roundTrip(true);
+        assertEquals(1, proxy.getOfferedExtensions().size());
+        assertTrue(proxy.getOfferedExtensions().get(0).contains("permessage-deflate"));
+        assertTrue(proxy.getBytesReceived() < BODY_SIZE / 4, "Received " + proxy.getBytesReceived() + " bytes on the wire.");
+    }
+
+    private void roundTrip(boolean compression) throws JMSException {
+        ServiceBusJmsConnectionFactorySettings settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setTransportType(TransportType.AMQP_WEB_SOCKETS);
+        settings.setWebSocketCompressionEnabled(compression);
+        ServiceBusJmsConnectionFactory factory = new ServiceBusJmsConnectionFactory("RootManageSharedAccessKey", "key", proxy.getHost(), settings);
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; body.length() < BODY_SIZE; i++) {
+            body.append("{\"orderId\":").append(i).append(",\"status\":\"shipped\",\"items\":[\"book\",\"pen\"]},");
+        }
+
+        try (Connection connection = factory.createConnection()) {
+            connection.start();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("orders");
+            session.createProducer(queue).send(session.createTextMessage(body.toString()));
+
+            TextMessage message = (TextMessage) session.createConsumer(queue).receive(RECEIVE_TIMEOUT_MS);
+            assertEquals(body.toString(), message.getText());
+        }
+    }
+}
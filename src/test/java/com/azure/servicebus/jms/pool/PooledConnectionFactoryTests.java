@@ -0,0 +1,81 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.azure.servicebus.jms.pool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.UUID;
+
+import jakarta.jms.Connection;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.ResourceAllocationException;
+import jakarta.jms.Session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactory;
+import com.azure.servicebus.jms.ServiceBusJmsConnectionFactorySettings;
+import com.azure.servicebus.jms.ServiceBusJmsPoolStatistics;
+import com.azure.servicebus.jms.ServiceBusJmsPooledConnectionFactory;
+
+public class PooledConnectionFactoryTests {
+    static final String TEST_CONNECTION_STRING = System.getenv("SERVICE_BUS_CONNECTION_STRING");
+    ServiceBusJmsConnectionFactorySettings settings;
+    ServiceBusJmsPooledConnectionFactory pooledFactory;
+    String queueName;
+
+    @BeforeEach
+    public void testInitialize() {
+        settings = new ServiceBusJmsConnectionFactorySettings();
+        settings.setMaxPooledConnections(1);
+        settings.setMaxSessionsPerPooledConnection(2);
+        settings.setBlockIfSessionPoolIsFull(false);
+        pooledFactory = new ServiceBusJmsPooledConnectionFactory(new ServiceBusJmsConnectionFactory(TEST_CONNECTION_STRING, settings));
+        queueName = "PooledQueue-" + UUID.randomUUID().toString().substring(0, 10);
+    }
+
+    @AfterEach
+    public void testCleanup() {
+        if (pooledFactory != null) pooledFactory.close();
+    }
+
+    // Sessions and producer links given back to the pool are reused by the next borrower, on the same physical connection
+    @Test
+    public void reuseSessionAndProducerTest() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = pooledFactory.createConnection();
+                 Session session = connection.createSession()) {
+                Queue queue = session.createQueue(queueName);
+                MessageProducer producer = session.createProducer(queue);
+                producer.send(session.createTextMessage("Message " + i));
+            }
+        }
+
+        ServiceBusJmsPoolStatistics statistics = pooledFactory.getStatistics();
+        assertEquals(1, statistics.getConnectionsCreated());
+        assertEquals(1, statistics.getSessionsCreated());
+        assertEquals(2, statistics.getSessionsReused());
+        assertEquals(1, statistics.getProducersCreated());
+        assertEquals(2, statistics.getProducersReused());
+        assertEquals(1, statistics.getIdleSessions());
+    }
+
+    // Borrowing more sessions than a pooled connection can hold fails fast when blocking is disabled
+    @Test
+    public void poolExhaustedTest() throws Exception {
+        try (Connection connection = pooledFactory.createConnection()) {
+            connection.createSession();
+            connection.createSession();
+            assertThrows(ResourceAllocationException.class, () -> connection.createSession());
+        }
+
+        assertEquals(1, pooledFactory.getStatistics().getPoolExhaustedCount());
+        assertEquals(1, pooledFactory.getStatistics().getPoolExhaustedFailures());
+        assertEquals(2, pooledFactory.getStatistics().getIdleSessions());
+    }
+}